@@ -0,0 +1,66 @@
+package com.yourorganization.benchmark;
+
+import com.yourorganization.metrics.ServiceMetrics;
+import com.yourorganization.out.InMemoryDatabase;
+import com.yourorganization.service.AdminAnalyticsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сводный отчёт администратора по всем транзакциям системы при разном числе
+ * потоков пула: показывает, как время расчёта масштабируется с числом ядер.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AdminAnalyticsBenchmark {
+
+    @Param({"hash", "columnar", "offheap"})
+    public String storage;
+
+    @Param({"1", "2", "4"})
+    public int parallelism;
+
+    @Param({"1000"})
+    public int users;
+
+    @Param({"1000"})
+    public int transactionsPerUser;
+
+    private ForkJoinPool pool;
+    private AdminAnalyticsService analyticsService;
+
+    @Setup
+    public void setUp() {
+        InMemoryDatabase db = Datasets.newDatabase(storage);
+        Datasets.addTransactions(db, Datasets.addUsers(db, users), transactionsPerUser);
+        pool = new ForkJoinPool(parallelism);
+        analyticsService = new AdminAnalyticsService(db, db, db, pool, new ServiceMetrics());
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public AdminAnalyticsService.SystemReport buildReport() {
+        return analyticsService.buildReport(Datasets.START.plusDays(Datasets.DAYS - 30), 10);
+    }
+}
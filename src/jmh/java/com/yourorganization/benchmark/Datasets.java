@@ -0,0 +1,76 @@
+package com.yourorganization.benchmark;
+
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.domain.User;
+import com.yourorganization.out.InMemoryDatabase;
+import com.yourorganization.out.StorageEngine;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+/**
+ * Заполнение хранилища синтетическими данными для бенчмарков.
+ * Генератор детерминирован, поэтому запуски сравнимы между собой.
+ */
+final class Datasets {
+
+    static final String[] CATEGORIES = {"Food", "Taxi", "Rent", "Health", "Fun", "Salary", "Gifts", "Other"};
+    static final LocalDate START = LocalDate.of(2024, 1, 1);
+    static final int DAYS = 730;
+
+    private Datasets() {
+    }
+
+    /**
+     * Создаёт пустое хранилище с указанным движком транзакций.
+     *
+     * @param storage имя движка ({@link StorageEngine})
+     * @return хранилище
+     */
+    static InMemoryDatabase newDatabase(String storage) {
+        return StorageEngine.fromName(storage).newDatabase();
+    }
+
+    static String email(int index) {
+        return "user" + index + "@example.com";
+    }
+
+    static String password(int index) {
+        return "password" + index;
+    }
+
+    /**
+     * Сохраняет {@code users} пользователей и возвращает их идентификаторы.
+     */
+    static long[] addUsers(InMemoryDatabase db, int users) {
+        long[] ids = new long[users];
+        for (int i = 0; i < users; i++) {
+            ids[i] = db.saveUser(new User(email(i), password(i), "User " + i, User.Role.USER)).getId();
+        }
+        return ids;
+    }
+
+    /**
+     * Сохраняет по {@code perUser} транзакций для каждого пользователя.
+     */
+    static void addTransactions(InMemoryDatabase db, long[] userIds, int perUser) {
+        SplittableRandom random = new SplittableRandom(42);
+        for (long userId : userIds) {
+            for (int i = 0; i < perUser; i++) {
+                db.saveTransaction(randomTransaction(random, userId));
+            }
+        }
+    }
+
+    static Transaction randomTransaction(SplittableRandom random, long userId) {
+        Transaction.TransactionType type = random.nextInt(5) == 0
+                ? Transaction.TransactionType.INCOME
+                : Transaction.TransactionType.EXPENSE;
+        return new Transaction(userId,
+                random.nextInt(1, 100_000) / 100.0,
+                CATEGORIES[random.nextInt(CATEGORIES.length)],
+                START.plusDays(random.nextInt(DAYS)),
+                "benchmark",
+                type);
+    }
+}
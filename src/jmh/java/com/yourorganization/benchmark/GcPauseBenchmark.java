@@ -0,0 +1,88 @@
+package com.yourorganization.benchmark;
+
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.out.InMemoryDatabase;
+import com.yourorganization.out.StorageEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Паузы сборщика мусора при большом объёме транзакций в памяти: объекты
+ * в куче ({@code hash}) против записей вне кучи ({@code offheap}).
+ * <p>
+ * {@link #fullCollection} измеряет полную сборку с живым набором из
+ * {@code transactions} транзакций - её время почти целиком определяется числом
+ * живых объектов. {@link #churn} заменяет старые транзакции новыми; профилировщик
+ * {@code -prof gc} показывает для него число и суммарное время сборок.
+ * Запуск: {@code mvn -Pbenchmark verify -Djmh.include=GcPauseBenchmark}.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class GcPauseBenchmark {
+
+    @Param({"hash", "offheap"})
+    public String storage;
+
+    @Param({"2000000"})
+    public int transactions;
+
+    private static final int USERS = 10_000;
+
+    private InMemoryDatabase db;
+    private long[] liveIds;
+    private int oldest;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        db = StorageEngine.fromName(storage).newDatabase();
+        liveIds = new long[transactions];
+        for (int i = 0; i < transactions; i++) {
+            liveIds[i] = db.saveTransaction(Datasets.randomTransaction(random, i % USERS + 1)).getId();
+        }
+        System.gc();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        db = null;
+        liveIds = null;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public void fullCollection() {
+        System.gc();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 5)
+    public Transaction churn() {
+        int slot = oldest;
+        oldest = (oldest + 1) % liveIds.length;
+        db.deleteTransaction(liveIds[slot]);
+        Transaction transaction = db.saveTransaction(Datasets.randomTransaction(random, slot % USERS + 1));
+        liveIds[slot] = transaction.getId();
+        return transaction;
+    }
+}
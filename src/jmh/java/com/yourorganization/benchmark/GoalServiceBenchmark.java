@@ -0,0 +1,58 @@
+package com.yourorganization.benchmark;
+
+import com.yourorganization.domain.Goal;
+import com.yourorganization.out.InMemoryDatabase;
+import com.yourorganization.service.GoalService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выборка финансовых целей пользователя при разном числе пользователей и целей.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GoalServiceBenchmark {
+
+    @Param({"1000", "100000"})
+    public int users;
+
+    @Param({"1", "20"})
+    public int goalsPerUser;
+
+    private GoalService goalService;
+    private long[] userIds;
+
+    @Setup
+    public void setUp() {
+        InMemoryDatabase db = new InMemoryDatabase();
+        userIds = Datasets.addUsers(db, users);
+        for (long userId : userIds) {
+            for (int i = 0; i < goalsPerUser; i++) {
+                db.saveGoal(new Goal(userId, "Goal " + i, 1000.0 * (i + 1)));
+            }
+        }
+        goalService = new GoalService(db);
+    }
+
+    @Benchmark
+    public List<Goal> getUserGoals() {
+        return goalService.getUserGoals(userIds[ThreadLocalRandom.current().nextInt(userIds.length)]);
+    }
+}
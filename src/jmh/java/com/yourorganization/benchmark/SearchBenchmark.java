@@ -0,0 +1,83 @@
+package com.yourorganization.benchmark;
+
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.out.InMemoryDatabase;
+import com.yourorganization.service.TransactionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Полнотекстовый поиск по транзакциям одного пользователя с большой историей:
+ * редкое слово, пересечение частых слов, префикс и OR с фильтром по периоду.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+
+    private static final String[] WORDS = {"taxi", "uber", "lunch", "dinner", "coffee", "rent", "march",
+            "office", "airport", "groceries", "pharmacy", "cinema", "gift", "book", "train", "parking"};
+
+    @Param({"100000"})
+    public int transactions;
+
+    private TransactionService transactionService;
+    private long userId;
+
+    @Setup
+    public void setUp() {
+        InMemoryDatabase db = Datasets.newDatabase("hash");
+        userId = Datasets.addUsers(db, 1)[0];
+        SplittableRandom random = new SplittableRandom(42);
+        List<Transaction> batch = new ArrayList<>(transactions);
+        for (int i = 0; i < transactions; i++) {
+            String description = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]
+                    + " #" + random.nextInt(50_000);
+            batch.add(new Transaction(userId, random.nextInt(1, 100_000) / 100.0,
+                    Datasets.CATEGORIES[random.nextInt(Datasets.CATEGORIES.length)],
+                    Datasets.START.plusDays(random.nextInt(Datasets.DAYS)), description,
+                    Transaction.TransactionType.EXPENSE));
+        }
+        db.saveTransactions(batch);
+        transactionService = new TransactionService(db);
+    }
+
+    @Benchmark
+    public List<Transaction> rareTerm() {
+        return transactionService.searchTransactions(userId, "12345", null, null, null, 20);
+    }
+
+    @Benchmark
+    public List<Transaction> commonTermsAnd() {
+        return transactionService.searchTransactions(userId, "taxi airport", null, null, null, 20);
+    }
+
+    @Benchmark
+    public List<Transaction> prefix() {
+        return transactionService.searchTransactions(userId, "din*", null, null, null, 20);
+    }
+
+    @Benchmark
+    public List<Transaction> orWithPeriod() {
+        return transactionService.searchTransactions(userId, "taxi OR uber",
+                LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31), null, 20);
+    }
+}
@@ -0,0 +1,98 @@
+package com.yourorganization.benchmark;
+
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.out.StorageEngine;
+import com.yourorganization.out.TransactionRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Операции {@link TransactionRepository}, которые обязан выдерживать каждый движок хранения.
+ * Параметр {@code engine} без значений перебирает все константы {@link StorageEngine},
+ * так что новый движок попадает в сравнение автоматически.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StorageEngineBenchmark {
+
+    @Param
+    public StorageEngine engine;
+
+    @Param({"1000"})
+    public int users;
+
+    @Param({"100", "1000"})
+    public int transactionsPerUser;
+
+    private TransactionRepository repository;
+    private long[] userIds;
+    private final SplittableRandom random = new SplittableRandom(7);
+
+    /**
+     * Хранилище пересоздаётся на каждой итерации, чтобы вставки в бенчмарке
+     * не меняли объём данных от итерации к итерации.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        userIds = new long[users];
+        for (int i = 0; i < users; i++) {
+            userIds[i] = i + 1;
+        }
+        var db = engine.newDatabase();
+        Datasets.addTransactions(db, userIds, transactionsPerUser);
+        repository = db;
+    }
+
+    @Benchmark
+    public Transaction saveTransaction() {
+        synchronized (random) {
+            return repository.saveTransaction(Datasets.randomTransaction(random, randomUser()));
+        }
+    }
+
+    @Benchmark
+    public Collection<Transaction> findTransactionsByUser() {
+        return repository.findTransactionsByUser(randomUser());
+    }
+
+    @Benchmark
+    public Collection<Transaction> findTransactionsByUserForMonth() {
+        LocalDate from = Datasets.START.plusDays(ThreadLocalRandom.current().nextInt(Datasets.DAYS - 30));
+        return repository.findTransactionsByUser(randomUser(), from, from.plusDays(30));
+    }
+
+    @Benchmark
+    public List<Transaction> findFirstPage() {
+        return repository.findTransactionsPageByUser(randomUser(), Long.MAX_VALUE, 20);
+    }
+
+    @Benchmark
+    public double findBalance() {
+        return repository.findBalance(randomUser());
+    }
+
+    private long randomUser() {
+        return userIds[ThreadLocalRandom.current().nextInt(userIds.length)];
+    }
+}
@@ -0,0 +1,83 @@
+package com.yourorganization.benchmark;
+
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.out.InMemoryDatabase;
+import com.yourorganization.service.TransactionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Создание транзакций, выборка транзакций пользователя и расчёт баланса
+ * для разных объёмов данных и реализаций хранилища транзакций.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransactionServiceBenchmark {
+
+    @Param({"100", "1000"})
+    public int users;
+
+    @Param({"10", "1000"})
+    public int transactionsPerUser;
+
+    @Param({"hash", "columnar"})
+    public String storage;
+
+    private TransactionService transactionService;
+    private long[] userIds;
+
+    /**
+     * Хранилище пересоздаётся на каждой итерации, чтобы созданные
+     * в бенчмарке транзакции не меняли объём данных от итерации к итерации.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        InMemoryDatabase db = Datasets.newDatabase(storage);
+        userIds = Datasets.addUsers(db, users);
+        Datasets.addTransactions(db, userIds, transactionsPerUser);
+        transactionService = new TransactionService(db);
+    }
+
+    @Benchmark
+    public Transaction createTransaction() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return transactionService.createTransaction(randomUser(),
+                random.nextInt(1, 100_000) / 100.0,
+                Datasets.CATEGORIES[random.nextInt(Datasets.CATEGORIES.length)],
+                Datasets.START.plusDays(random.nextInt(Datasets.DAYS)),
+                "benchmark",
+                Transaction.TransactionType.EXPENSE);
+    }
+
+    @Benchmark
+    public List<Transaction> getUserTransactions() {
+        return transactionService.getUserTransactions(randomUser());
+    }
+
+    @Benchmark
+    public double calculateBalance() {
+        return transactionService.calculateBalance(randomUser());
+    }
+
+    private long randomUser() {
+        return userIds[ThreadLocalRandom.current().nextInt(userIds.length)];
+    }
+}
@@ -0,0 +1,70 @@
+package com.yourorganization.benchmark;
+
+import com.yourorganization.domain.User;
+import com.yourorganization.out.InMemoryDatabase;
+import com.yourorganization.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Регистрация и вход пользователя при разном числе зарегистрированных пользователей.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserServiceBenchmark {
+
+    @Param({"1000", "100000"})
+    public int users;
+
+    private UserService userService;
+    private String[] emails;
+    private String[] passwords;
+    private final AtomicLong registered = new AtomicLong();
+
+    /**
+     * Хранилище пересоздаётся на каждой итерации, чтобы регистрация
+     * не раздувала его от итерации к итерации.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        InMemoryDatabase db = new InMemoryDatabase();
+        Datasets.addUsers(db, users);
+        userService = new UserService(db);
+        emails = new String[users];
+        passwords = new String[users];
+        for (int i = 0; i < users; i++) {
+            emails[i] = Datasets.email(i);
+            passwords[i] = Datasets.password(i);
+        }
+    }
+
+    @Benchmark
+    public User login() {
+        int index = ThreadLocalRandom.current().nextInt(users);
+        return userService.login(emails[index], passwords[index]);
+    }
+
+    @Benchmark
+    public User register() {
+        return userService.register("new" + registered.incrementAndGet() + "@example.com",
+                "password", "New user", User.Role.USER);
+    }
+}
@@ -1,18 +1,156 @@
 package com.yourorganization;
 
+import com.yourorganization.out.Checkpointer;
 import com.yourorganization.out.InMemoryDatabase;
+import com.yourorganization.out.SnapshotFile;
+import com.yourorganization.out.StorageEngine;
+import com.yourorganization.out.WriteAheadLog;
 import com.yourorganization.service.UserService;
 import com.yourorganization.service.*;
+import com.yourorganization.in.BatchInterface;
 import com.yourorganization.in.ConsoleInterface;
+import com.yourorganization.in.HttpApiServer;
+import com.yourorganization.metrics.ServiceMetrics;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Точка входа в приложение.
+ * <p>
+ * Параметры командной строки:
+ * <ul>
+ *     <li>{@code --storage=hash|columnar|offheap} - движок хранения транзакций (по умолчанию hash);</li>
+ *     <li>{@code --wal=<путь>} - включить журнал изменений (без него данные живут только в памяти);</li>
+ *     <li>{@code --wal-sync=always|interval|os} - режим сброса журнала на диск (по умолчанию interval);</li>
+ *     <li>{@code --wal-sync-interval=<мс>} - интервал сброса для режима interval (по умолчанию 100);</li>
+ *     <li>{@code --snapshot=<путь>} - файл снимка, загружаемого при старте и сохраняемого периодически;</li>
+ *     <li>{@code --snapshot-interval=<с>} - интервал между снимками (по умолчанию 300);</li>
+ *     <li>{@code --http=<порт>} - запустить HTTP/JSON API ({@link HttpApiServer}) вместо консоли;</li>
+ *     <li>{@code --batch=<путь>|-} - выполнить сценарий команд ({@link BatchInterface}) из файла
+ *     или стандартного ввода вместо интерактивной консоли.</li>
+ * </ul>
+ */
 public class Main {
-    public static void main(String[] args) {
-        InMemoryDatabase db = new InMemoryDatabase();
+    private static final long RECURRING_CHECK_MILLIS = 60_000;
+
+    public static void main(String[] args) throws IOException {
+        InMemoryDatabase db = StorageEngine.fromName(option(args, "--storage", "hash")).newDatabase();
+
+        String snapshotPath = option(args, "--snapshot", null);
+        if (snapshotPath != null && SnapshotFile.load(db, Path.of(snapshotPath))) {
+            System.out.println("Загружен снимок: " + snapshotPath);
+        }
+
+        WriteAheadLog log = null;
+        String walPath = option(args, "--wal", null);
+        if (walPath != null) {
+            WriteAheadLog.SyncMode syncMode = WriteAheadLog.SyncMode.valueOf(
+                    option(args, "--wal-sync", "interval").toUpperCase(Locale.ROOT));
+            long syncInterval = Long.parseLong(option(args, "--wal-sync-interval", "100"));
+            log = new WriteAheadLog(Path.of(walPath), syncMode, syncInterval);
+            int replayed = log.replay(db);
+            System.out.println("Восстановлено записей из журнала: " + replayed);
+            db.attachLog(log);
+        }
+
+        Checkpointer checkpointer = null;
+        if (snapshotPath != null) {
+            long interval = Long.parseLong(option(args, "--snapshot-interval", "300")) * 1000;
+            checkpointer = new Checkpointer(db, log, Path.of(snapshotPath), interval);
+        }
+
         UserService userService = new UserService(db);
         TransactionService transactionService = new TransactionService(db);
+        db.addUserRemovalListener(transactionService::userRemoved);
         GoalService goalService = new GoalService(db);
+        BudgetService budgetService = new BudgetService(transactionService, db);
+        // Предупреждения изменений без вызывающего, который их получит (планировщик)
+        budgetService.addWarningListener(warning -> System.err.println(
+                "Бюджет пользователя " + warning.getUserId() + ": " + warning.getMessage()));
+        RecurringTransactionService recurringService = new RecurringTransactionService(transactionService, db);
+        // Один фоновый поток на все шаблоны; при старте догоняет пропущенные повторения
+        new RecurringScheduler(recurringService, Clock.systemDefaultZone(), RECURRING_CHECK_MILLIS);
+        // Метрики операций сервисов доступны через JMX (jconsole, VisualVM)
+        ServiceMetrics.global().registerMBeans(ManagementFactory.getPlatformMBeanServer());
 
-        ConsoleInterface consoleInterface = new ConsoleInterface(userService, transactionService, goalService);
+        String httpPort = option(args, "--http", null);
+        HttpApiServer server = httpPort == null ? null : new HttpApiServer(Integer.parseInt(httpPort),
+                userService, transactionService, goalService, budgetService);
+
+        if (server != null || log != null || checkpointer != null) {
+            WriteAheadLog shutdownLog = log;
+            Checkpointer shutdownCheckpointer = checkpointer;
+            // Один хук, чтобы порядок был гарантирован (хуки JVM запускаются параллельно):
+            // сначала перестаём принимать запросы, потом сохраняем данные
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                if (server != null) {
+                    server.close();
+                }
+                try {
+                    if (shutdownCheckpointer != null) {
+                        shutdownCheckpointer.close();
+                    }
+                    if (shutdownLog != null) {
+                        shutdownLog.close();
+                    }
+                } catch (IOException e) {
+                    System.err.println("Не удалось сохранить данные: " + e.getMessage());
+                }
+            }));
+        }
+
+        if (server != null) {
+            server.start();
+            System.out.println("HTTP API запущен на порту " + server.getPort());
+            return;
+        }
+
+        String batchPath = option(args, "--batch", null);
+        if (batchPath != null) {
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 64 * 1024);
+            try (Reader script = batchPath.equals("-")
+                    ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                    : Files.newBufferedReader(Path.of(batchPath), StandardCharsets.UTF_8)) {
+                BatchInterface.BatchResult result = new BatchInterface(userService, transactionService, goalService,
+                        budgetService)
+                        .run(script, out);
+                System.err.printf("Команд: %d, ошибок: %d, скорость: %.0f команд/с%n",
+                        result.getCommands(), result.getErrors(), result.getCommandsPerSecond());
+            }
+            return;
+        }
+
+        ConsoleInterface consoleInterface = new ConsoleInterface(userService, transactionService, goalService,
+                budgetService, recurringService, new AdminAnalyticsService(db, db, db), ServiceMetrics.global());
         consoleInterface.start();
     }
-}
\ No newline at end of file
+
+    /**
+     * Возвращает значение параметра вида {@code --name=value}.
+     *
+     * @param args         аргументы командной строки
+     * @param name         имя параметра
+     * @param defaultValue значение по умолчанию
+     * @return значение параметра или defaultValue, если параметр не задан
+     */
+    private static String option(String[] args, String name, String defaultValue) {
+        String prefix = name + "=";
+        for (String arg : args) {
+            if (arg.startsWith(prefix)) {
+                return arg.substring(prefix.length());
+            }
+        }
+        return defaultValue;
+    }
+}
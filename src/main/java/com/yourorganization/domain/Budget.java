@@ -0,0 +1,27 @@
+package com.yourorganization.domain;
+
+import lombok.Getter;
+
+/**
+ * Класс, описывающий месячный бюджет: лимит расходов пользователя по категории.
+ * Бюджет определяется парой (пользователь, категория) и не имеет собственного id.
+ */
+@Getter
+public class Budget {
+    private final long userId;
+    private final String category;
+    private final double monthlyLimit;
+
+    /**
+     * Создаёт бюджет категории.
+     *
+     * @param userId       идентификатор пользователя
+     * @param category     категория расходов
+     * @param monthlyLimit лимит на месяц
+     */
+    public Budget(long userId, String category, double monthlyLimit) {
+        this.userId = userId;
+        this.category = category;
+        this.monthlyLimit = monthlyLimit;
+    }
+}
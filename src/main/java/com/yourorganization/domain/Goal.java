@@ -3,18 +3,20 @@ package com.yourorganization.domain;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Класс, описывающий финансовую цель (накопление на что-либо).
  */
 @Getter
 @Setter
 public class Goal {
-    private static long idCounter = 1L;
+    private static final AtomicLong idCounter = new AtomicLong(1L);
     private final long id;
     private final long userId;
     private String title;
     private double targetAmount;
-    private double currentAmount;
+    private volatile double currentAmount;
 
     /**
      * Создаёт новую финансовую цель для пользователя.
@@ -24,19 +26,60 @@ public class Goal {
      * @param targetAmount сумма, которую нужно накопить
      */
     public Goal(long userId, String title, double targetAmount) {
-        this.id = idCounter++;
+        this.id = idCounter.getAndIncrement();
         this.userId = userId;
         this.title = title;
         this.targetAmount = targetAmount;
         this.currentAmount = 0.0;
     }
 
+    /**
+     * Восстанавливает цель с уже известным идентификатором и прогрессом
+     * (например, при чтении журнала или снимка). Счётчик идентификаторов
+     * сдвигается так, чтобы новые цели не получили этот id повторно.
+     *
+     * @param id            идентификатор цели
+     * @param userId        идентификатор пользователя
+     * @param title         название цели
+     * @param targetAmount  сумма, которую нужно накопить
+     * @param currentAmount уже накопленная сумма
+     */
+    public Goal(long id, long userId, String title, double targetAmount, double currentAmount) {
+        this.id = id;
+        if (idCounter.get() <= id) {
+            idCounter.accumulateAndGet(id + 1, Math::max);
+        }
+        this.userId = userId;
+        this.title = title;
+        this.targetAmount = targetAmount;
+        this.currentAmount = currentAmount;
+    }
+
+    /**
+     * Возвращает идентификатор, который получит следующий созданный объект.
+     *
+     * @return следующий идентификатор
+     */
+    public static long getNextId() {
+        return idCounter.get();
+    }
+
+    /**
+     * Сдвигает счётчик идентификаторов не ниже {@code nextId}
+     * (например, при восстановлении из снимка).
+     *
+     * @param nextId идентификатор, который должен получить следующий объект
+     */
+    public static void restoreNextId(long nextId) {
+        idCounter.accumulateAndGet(nextId, Math::max);
+    }
+
     /**
      * Добавляет указанную сумму к уже накопленной.
      *
      * @param amount сумма, которую нужно добавить
      */
-    public void addAmount(double amount) {
+    public synchronized void addAmount(double amount) {
         this.currentAmount += amount;
     }
 
@@ -0,0 +1,173 @@
+package com.yourorganization.domain;
+
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Шаблон регулярной транзакции (зарплата, аренда, подписка), по которому
+ * планировщик создаёт транзакции в даты повторения.
+ * <p>
+ * Даты повторения считаются от даты начала по номеру повторения, а не от
+ * предыдущей даты, поэтому ежемесячный платёж 31-го числа после февраля
+ * возвращается на 31-е (или последний день месяца).
+ */
+@Getter
+public class RecurringTransaction {
+    private static final AtomicLong idCounter = new AtomicLong(1L);
+
+    private final long id;
+    private final long userId;
+    private final double amount;
+    private final String category;
+    private final String description;
+    private final Transaction.TransactionType type;
+    private final Frequency frequency;
+    private final int intervalDays;
+    private final LocalDate startDate;
+    private volatile long occurrences;
+    private volatile LocalDate nextDate;
+    private volatile boolean active = true;
+
+    /**
+     * Создаёт шаблон регулярной транзакции.
+     *
+     * @param userId       идентификатор пользователя
+     * @param amount       сумма
+     * @param category     категория
+     * @param description  описание
+     * @param type         тип транзакции (INCOME или EXPENSE)
+     * @param frequency    периодичность
+     * @param intervalDays интервал в днях для {@link Frequency#CUSTOM}; для остальных игнорируется
+     * @param startDate    дата первого повторения
+     */
+    public RecurringTransaction(long userId, double amount, String category, String description,
+                                Transaction.TransactionType type, Frequency frequency, int intervalDays,
+                                LocalDate startDate) {
+        this.id = idCounter.getAndIncrement();
+        this.userId = userId;
+        this.amount = amount;
+        this.category = category;
+        this.description = description;
+        this.type = type;
+        this.frequency = frequency;
+        this.intervalDays = frequency == Frequency.CUSTOM ? intervalDays : 0;
+        this.startDate = startDate;
+        this.nextDate = startDate;
+    }
+
+    /**
+     * Восстанавливает шаблон с уже известным идентификатором и числом созданных
+     * транзакций (например, при чтении журнала или снимка). Счётчик идентификаторов
+     * сдвигается так, чтобы новые шаблоны не получили этот id повторно.
+     *
+     * @param id           идентификатор шаблона
+     * @param userId       идентификатор пользователя
+     * @param amount       сумма
+     * @param category     категория
+     * @param description  описание
+     * @param type         тип транзакции (INCOME или EXPENSE)
+     * @param frequency    периодичность
+     * @param intervalDays интервал в днях для {@link Frequency#CUSTOM}; для остальных игнорируется
+     * @param startDate    дата первого повторения
+     * @param occurrences  число уже созданных транзакций
+     */
+    public RecurringTransaction(long id, long userId, double amount, String category, String description,
+                                Transaction.TransactionType type, Frequency frequency, int intervalDays,
+                                LocalDate startDate, long occurrences) {
+        this.id = id;
+        if (idCounter.get() <= id) {
+            idCounter.accumulateAndGet(id + 1, Math::max);
+        }
+        this.userId = userId;
+        this.amount = amount;
+        this.category = category;
+        this.description = description;
+        this.type = type;
+        this.frequency = frequency;
+        this.intervalDays = frequency == Frequency.CUSTOM ? intervalDays : 0;
+        this.startDate = startDate;
+        setOccurrences(occurrences);
+    }
+
+    /**
+     * Возвращает идентификатор, который получит следующий созданный объект.
+     *
+     * @return следующий идентификатор
+     */
+    public static long getNextId() {
+        return idCounter.get();
+    }
+
+    /**
+     * Сдвигает счётчик идентификаторов не ниже {@code nextId}
+     * (например, при восстановлении из снимка).
+     *
+     * @param nextId идентификатор, который должен получить следующий объект
+     */
+    public static void restoreNextId(long nextId) {
+        idCounter.accumulateAndGet(nextId, Math::max);
+    }
+
+    /**
+     * Возвращает дату повторения с заданным номером (0 - дата начала).
+     *
+     * @param index номер повторения
+     * @return дата повторения
+     */
+    public LocalDate occurrenceDate(long index) {
+        switch (frequency) {
+            case DAILY:
+                return startDate.plusDays(index);
+            case WEEKLY:
+                return startDate.plusWeeks(index);
+            case MONTHLY:
+                return startDate.plusMonths(index);
+            default:
+                return startDate.plusDays(index * intervalDays);
+        }
+    }
+
+    /**
+     * Запоминает, сколько транзакций уже создано, и сдвигает дату следующего повторения.
+     *
+     * @param occurrences число созданных транзакций
+     */
+    public void setOccurrences(long occurrences) {
+        this.occurrences = occurrences;
+        this.nextDate = occurrenceDate(occurrences);
+    }
+
+    /**
+     * Возвращает копию шаблона с другим числом созданных транзакций; сам шаблон не меняется.
+     * Копия сохраняется в хранилище раньше, чем сдвигается шаблон в памяти.
+     *
+     * @param occurrences число созданных транзакций
+     * @return копия шаблона
+     */
+    public RecurringTransaction withOccurrences(long occurrences) {
+        return new RecurringTransaction(id, userId, amount, category, description, type, frequency, intervalDays,
+                startDate, occurrences);
+    }
+
+    /**
+     * Отключает шаблон; новые транзакции по нему не создаются.
+     */
+    public void cancel() {
+        this.active = false;
+    }
+
+    /**
+     * Периодичность регулярной транзакции.
+     */
+    public enum Frequency {
+        DAILY,
+        WEEKLY,
+        MONTHLY,
+        /**
+         * Каждые N дней.
+         */
+        CUSTOM
+    }
+}
@@ -4,6 +4,7 @@ import lombok.Getter;
 import lombok.Setter;
 
 import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Класс, описывающий финансовую транзакцию (доход или расход).
@@ -11,7 +12,7 @@ import java.time.LocalDate;
 @Getter
 @Setter
 public class Transaction {
-    private static long idCounter = 1L;
+    private static final AtomicLong idCounter = new AtomicLong(1L);
 
     private final long id;
     private final long userId;
@@ -33,7 +34,7 @@ public class Transaction {
      */
     public Transaction(long userId, double amount, String category,
                        LocalDate date, String description, TransactionType type) {
-        this.id = idCounter++;
+        this.id = idCounter.getAndIncrement();
         this.userId = userId;
         this.amount = amount;
         this.category = category;
@@ -42,6 +43,52 @@ public class Transaction {
         this.type = type;
     }
 
+    /**
+     * Восстанавливает транзакцию с уже известным идентификатором
+     * (например, при чтении из хранилища). Счётчик идентификаторов
+     * сдвигается так, чтобы новые транзакции не получили этот id повторно.
+     *
+     * @param id          идентификатор транзакции
+     * @param userId      идентификатор пользователя
+     * @param amount      сумма
+     * @param category    категория
+     * @param date        дата транзакции
+     * @param description описание
+     * @param type        тип транзакции (INCOME или EXPENSE)
+     */
+    public Transaction(long id, long userId, double amount, String category,
+                       LocalDate date, String description, TransactionType type) {
+        this.id = id;
+        if (idCounter.get() <= id) {
+            idCounter.accumulateAndGet(id + 1, Math::max);
+        }
+        this.userId = userId;
+        this.amount = amount;
+        this.category = category;
+        this.date = date;
+        this.description = description;
+        this.type = type;
+    }
+
+    /**
+     * Возвращает идентификатор, который получит следующий созданный объект.
+     *
+     * @return следующий идентификатор
+     */
+    public static long getNextId() {
+        return idCounter.get();
+    }
+
+    /**
+     * Сдвигает счётчик идентификаторов не ниже {@code nextId}
+     * (например, при восстановлении из снимка).
+     *
+     * @param nextId идентификатор, который должен получить следующий объект
+     */
+    public static void restoreNextId(long nextId) {
+        idCounter.accumulateAndGet(nextId, Math::max);
+    }
+
     /**
      * Перечисление типов транзакции: доход или расход.
      */
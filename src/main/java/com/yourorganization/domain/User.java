@@ -4,6 +4,8 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Класс, описывающий пользователя системы.
  * Содержит информацию об идентификаторе, email, пароле, имени и роли (USER/ADMIN).
@@ -11,7 +13,7 @@ import lombok.Setter;
 @Getter
 @Setter
 public class User {
-    private static long idCounter = 1L;
+    private static final AtomicLong idCounter = new AtomicLong(1L);
     @Setter(AccessLevel.NONE)
     private final long id;
     private String email;
@@ -28,13 +30,54 @@ public class User {
      * @param role     Роль пользователя (USER или ADMIN)
      */
     public User(String email, String password, String name, Role role) {
-        this.id = idCounter++;
+        this.id = idCounter.getAndIncrement();
+        this.email = email;
+        this.password = password;
+        this.name = name;
+        this.role = role;
+    }
+
+    /**
+     * Восстанавливает пользователя с уже известным идентификатором
+     * (например, при чтении журнала или снимка). Счётчик идентификаторов
+     * сдвигается так, чтобы новые пользователи не получили этот id повторно.
+     *
+     * @param id       идентификатор пользователя
+     * @param email    Email пользователя
+     * @param password Пароль пользователя
+     * @param name     Имя пользователя
+     * @param role     Роль пользователя (USER или ADMIN)
+     */
+    public User(long id, String email, String password, String name, Role role) {
+        this.id = id;
+        if (idCounter.get() <= id) {
+            idCounter.accumulateAndGet(id + 1, Math::max);
+        }
         this.email = email;
         this.password = password;
         this.name = name;
         this.role = role;
     }
 
+    /**
+     * Возвращает идентификатор, который получит следующий созданный объект.
+     *
+     * @return следующий идентификатор
+     */
+    public static long getNextId() {
+        return idCounter.get();
+    }
+
+    /**
+     * Сдвигает счётчик идентификаторов не ниже {@code nextId}
+     * (например, при восстановлении из снимка).
+     *
+     * @param nextId идентификатор, который должен получить следующий объект
+     */
+    public static void restoreNextId(long nextId) {
+        idCounter.accumulateAndGet(nextId, Math::max);
+    }
+
     /**
      * Перечисление доступных ролей пользователя.
      */
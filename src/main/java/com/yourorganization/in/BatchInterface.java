@@ -0,0 +1,475 @@
+package com.yourorganization.in;
+
+import com.yourorganization.domain.Goal;
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.domain.User;
+import com.yourorganization.service.BudgetService;
+import com.yourorganization.service.GoalService;
+import com.yourorganization.service.TransactionService;
+import com.yourorganization.service.UserService;
+import lombok.Getter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Пакетный (неинтерактивный) режим консоли: выполняет сценарий команд из файла
+ * или стандартного ввода без приглашений к вводу. Подходит для автоматизации
+ * и для воспроизведения записанных сеансов с полной скоростью.
+ * <p>
+ * Одна команда в строке, аргументы разделяются пробелами; аргумент с пробелами
+ * заключается в кавычки ({@code ""} внутри - кавычка). Пустые строки и строки,
+ * начинающиеся с {@code #}, пропускаются. Команды:
+ * <ul>
+ *     <li>{@code register <email> <пароль> <имя>}, {@code login <email> <пароль>}, {@code logout};</li>
+ *     <li>{@code add <сумма> <категория> <INCOME|EXPENSE> [описание] [ГГГГ-ММ-ДД]};</li>
+ *     <li>{@code list [количество]} - транзакции от новых к старым;</li>
+ *     <li>{@code search <запрос> [<с> <по>]} - поиск по описанию и категории
+ *     (см. {@link TransactionService#searchTransactions});</li>
+ *     <li>{@code period <с> <по>} - транзакции и баланс за период;</li>
+ *     <li>{@code balance [<с> <по>]};</li>
+ *     <li>{@code edit <id> <сумма> <категория> <описание> [тип]}, {@code delete <id>};</li>
+ *     <li>{@code report <ГГГГ-ММ> <INCOME|EXPENSE>} - суммы по категориям за месяц;</li>
+ *     <li>{@code import <путь к CSV>};</li>
+ *     <li>{@code goal <название> <цель>}, {@code goals}, {@code deposit <id> <сумма>},
+ *     {@code goal-edit <id> <название> <цель>}, {@code goal-delete <id>};</li>
+ *     <li>{@code budget <категория> <лимит>}, {@code budgets [ГГГГ-ММ]}, {@code budget-delete <категория>}.</li>
+ * </ul>
+ * Если после {@code add}, {@code edit} или {@code import} расходы пересекли порог бюджета,
+ * перед строкой {@code OK} выводится строка {@code WARN <сообщение>}.
+ * Ошибка в команде выводится строкой {@code ERROR <номер строки>: <сообщение>} и не
+ * прерывает сценарий. Вывод буферизуется и сбрасывается один раз в конце сценария.
+ */
+public class BatchInterface {
+
+    private static final int MAX_ARGUMENTS = 8;
+    private static final int READ_BUFFER = 64 * 1024;
+
+    private final UserService userService;
+    private final TransactionService transactionService;
+    private final GoalService goalService;
+    private final BudgetService budgetService;
+
+    private final String[] arguments = new String[MAX_ARGUMENTS];
+    private final StringBuilder token = new StringBuilder();
+    private User currentUser;
+
+    /**
+     * Конструктор, принимающий те же сервисы, что и {@link ConsoleInterface}.
+     *
+     * @param userService        сервис для работы с пользователями
+     * @param transactionService сервис для работы с транзакциями
+     * @param goalService        сервис для работы с целями
+     */
+    public BatchInterface(UserService userService,
+                          TransactionService transactionService,
+                          GoalService goalService) {
+        this(userService, transactionService, goalService, new BudgetService(transactionService));
+    }
+
+    /**
+     * Конструктор с общим для приложения сервисом бюджетов.
+     *
+     * @param userService        сервис для работы с пользователями
+     * @param transactionService сервис для работы с транзакциями
+     * @param goalService        сервис для работы с целями
+     * @param budgetService      сервис месячных бюджетов
+     */
+    public BatchInterface(UserService userService,
+                          TransactionService transactionService,
+                          GoalService goalService,
+                          BudgetService budgetService) {
+        this.userService = userService;
+        this.transactionService = transactionService;
+        this.goalService = goalService;
+        this.budgetService = budgetService;
+    }
+
+    /**
+     * Выполняет сценарий команд.
+     *
+     * @param script источник команд
+     * @param out    приёмник результатов; сбрасывается в конце сценария
+     * @return итоги выполнения
+     * @throws IOException при ошибке чтения сценария или записи результата
+     */
+    public BatchResult run(Reader script, Writer out) throws IOException {
+        long started = System.nanoTime();
+        BufferedReader reader = script instanceof BufferedReader
+                ? (BufferedReader) script
+                : new BufferedReader(script, READ_BUFFER);
+        long commands = 0;
+        long errors = 0;
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            int count;
+            try {
+                count = tokenize(line);
+                if (count == 0) {
+                    continue;
+                }
+                commands++;
+                try (BudgetService.WarningScope warnings = budgetService.collectWarnings()) {
+                    execute(count, out, warnings);
+                }
+            } catch (RuntimeException e) {
+                errors++;
+                out.append("ERROR ").append(Long.toString(lineNumber)).append(": ")
+                        .append(e.getMessage()).append('\n');
+            }
+        }
+        out.flush();
+        return new BatchResult(commands, errors, System.nanoTime() - started);
+    }
+
+    private void execute(int count, Writer out, BudgetService.WarningScope warnings) throws IOException {
+        String command = arguments[0];
+        switch (command) {
+            case "register":
+                expect(count, 4, 4);
+                User registered = userService.register(arguments[1], arguments[2], arguments[3], User.Role.USER);
+                out.append("OK user ").append(Long.toString(registered.getId())).append('\n');
+                break;
+            case "login":
+                expect(count, 3, 3);
+                currentUser = userService.login(arguments[1], arguments[2]);
+                out.append("OK login ").append(Long.toString(currentUser.getId())).append('\n');
+                break;
+            case "logout":
+                expect(count, 1, 1);
+                currentUser = null;
+                out.append("OK logout\n");
+                break;
+            case "add":
+                expect(count, 4, 6);
+                Transaction created = transactionService.createTransaction(user().getId(),
+                        parseAmount(arguments[1]), arguments[2],
+                        count > 5 ? parseDate(arguments[5]) : LocalDate.now(),
+                        count > 4 ? arguments[4] : "", parseType(arguments[3]));
+                writeBudgetWarnings(out, warnings);
+                out.append("OK transaction ").append(Long.toString(created.getId())).append('\n');
+                break;
+            case "list":
+                expect(count, 1, 2);
+                listTransactions(count > 1 ? parseLong(arguments[1]) : Long.MAX_VALUE, out);
+                break;
+            case "search":
+                expect(count, 2, 4);
+                LocalDate searchFrom = count > 2 ? parseDate(arguments[2]) : null;
+                LocalDate searchTo = count > 2 ? parseDate(argument(count, 3)) : null;
+                long found = 0;
+                for (Transaction t : transactionService.searchTransactions(user().getId(), arguments[1],
+                        searchFrom, searchTo, null, TransactionService.MAX_PAGE_SIZE)) {
+                    write(t, out);
+                    found++;
+                }
+                out.append("OK search ").append(Long.toString(found)).append('\n');
+                break;
+            case "period":
+                expect(count, 3, 3);
+                LocalDate from = parseDate(arguments[1]);
+                LocalDate to = parseDate(arguments[2]);
+                for (Transaction t : transactionService.getUserTransactions(user().getId(), from, to)) {
+                    write(t, out);
+                }
+                out.append("OK balance ")
+                        .append(Double.toString(transactionService.calculateBalance(user().getId(), from, to)))
+                        .append('\n');
+                break;
+            case "balance":
+                expect(count, 1, 3);
+                double balance = count == 1
+                        ? transactionService.calculateBalance(user().getId())
+                        : transactionService.calculateBalance(user().getId(),
+                        parseDate(arguments[1]), parseDate(argument(count, 2)));
+                out.append("OK balance ").append(Double.toString(balance)).append('\n');
+                break;
+            case "edit":
+                expect(count, 5, 6);
+                long editedId = ownTransaction(arguments[1]).getId();
+                if (count > 5) {
+                    transactionService.updateTransaction(editedId, parseAmount(arguments[2]), arguments[3],
+                            arguments[4], parseType(arguments[5]));
+                } else {
+                    transactionService.updateTransaction(editedId, parseAmount(arguments[2]), arguments[3],
+                            arguments[4]);
+                }
+                writeBudgetWarnings(out, warnings);
+                out.append("OK edit\n");
+                break;
+            case "delete":
+                expect(count, 2, 2);
+                transactionService.deleteTransaction(ownTransaction(arguments[1]).getId());
+                out.append("OK delete\n");
+                break;
+            case "report":
+                expect(count, 3, 3);
+                YearMonth month = parseMonth(arguments[1]);
+                for (Map.Entry<String, Double> entry : transactionService
+                        .getCategoryTotals(user().getId(), month, parseType(arguments[2])).entrySet()) {
+                    out.append(entry.getKey()).append(": ").append(entry.getValue().toString()).append('\n');
+                }
+                out.append("OK report\n");
+                break;
+            case "import":
+                expect(count, 2, 2);
+                CsvStatementImporter.ImportResult result;
+                try {
+                    result = new CsvStatementImporter(transactionService)
+                            .importFile(user().getId(), Path.of(arguments[1]));
+                } catch (IOException e) {
+                    // Ошибка чтения выписки относится к команде, а не к сценарию
+                    throw new IllegalArgumentException("Не удалось прочитать файл: " + e.getMessage());
+                }
+                writeBudgetWarnings(out, warnings);
+                out.append("OK import ").append(Long.toString(result.getImported()))
+                        .append(" rejected ").append(Long.toString(result.getRejected())).append('\n');
+                break;
+            case "goal":
+                expect(count, 3, 3);
+                Goal goal = goalService.createGoal(user().getId(), arguments[1], parseAmount(arguments[2]));
+                out.append("OK goal ").append(Long.toString(goal.getId())).append('\n');
+                break;
+            case "goals":
+                expect(count, 1, 1);
+                for (Goal g : goalService.getUserGoals(user().getId())) {
+                    out.append("[id=").append(Long.toString(g.getId()))
+                            .append(", title=").append(g.getTitle())
+                            .append(", target=").append(Double.toString(g.getTargetAmount()))
+                            .append(", current=").append(Double.toString(g.getCurrentAmount()))
+                            .append("]\n");
+                }
+                out.append("OK goals\n");
+                break;
+            case "deposit":
+                expect(count, 3, 3);
+                goalService.addAmountToGoal(ownGoal(arguments[1]).getId(), parseAmount(arguments[2]));
+                out.append("OK deposit\n");
+                break;
+            case "goal-edit":
+                expect(count, 4, 4);
+                goalService.updateGoal(ownGoal(arguments[1]).getId(), arguments[2], parseAmount(arguments[3]));
+                out.append("OK goal-edit\n");
+                break;
+            case "goal-delete":
+                expect(count, 2, 2);
+                goalService.deleteGoal(ownGoal(arguments[1]).getId());
+                out.append("OK goal-delete\n");
+                break;
+            case "budget":
+                expect(count, 3, 3);
+                budgetService.setBudget(user().getId(), arguments[1], parseAmount(arguments[2]));
+                out.append("OK budget\n");
+                break;
+            case "budgets":
+                expect(count, 1, 2);
+                for (BudgetService.BudgetStatus b : budgetService.getBudgets(user().getId(),
+                        count > 1 ? parseMonth(arguments[1]) : YearMonth.now())) {
+                    out.append(b.getCategory()).append(": ").append(Double.toString(b.getSpent()))
+                            .append(" / ").append(Double.toString(b.getLimit())).append('\n');
+                }
+                out.append("OK budgets\n");
+                break;
+            case "budget-delete":
+                expect(count, 2, 2);
+                budgetService.removeBudget(user().getId(), arguments[1]);
+                out.append("OK budget-delete\n");
+                break;
+            default:
+                throw new IllegalArgumentException("Неизвестная команда '" + command + "'");
+        }
+    }
+
+    private void listTransactions(long limit, Writer out) throws IOException {
+        long written = 0;
+        Iterator<Transaction> transactions = transactionService.streamUserTransactions(user().getId()).iterator();
+        while (written < limit && transactions.hasNext()) {
+            write(transactions.next(), out);
+            written++;
+        }
+        out.append("OK list ").append(Long.toString(written)).append('\n');
+    }
+
+    private static void write(Transaction t, Writer out) throws IOException {
+        out.append("[id=").append(Long.toString(t.getId()))
+                .append(", type=").append(String.valueOf(t.getType()))
+                .append(", amount=").append(Double.toString(t.getAmount()))
+                .append(", category=").append(t.getCategory())
+                .append(", description=").append(t.getDescription())
+                .append(", date=").append(String.valueOf(t.getDate()))
+                .append("]\n");
+    }
+
+    private void writeBudgetWarnings(Writer out, BudgetService.WarningScope warnings) throws IOException {
+        for (BudgetService.BudgetWarning warning : warnings.getWarnings(user().getId())) {
+            out.append("WARN ").append(warning.getMessage()).append('\n');
+        }
+    }
+
+    private User user() {
+        if (currentUser == null) {
+            throw new IllegalStateException("Команда требует входа (login)");
+        }
+        return currentUser;
+    }
+
+    private Transaction ownTransaction(String rawId) {
+        Transaction transaction = transactionService.getTransaction(parseLong(rawId));
+        if (transaction == null || transaction.getUserId() != user().getId()) {
+            throw new IllegalArgumentException("Транзакция не найдена: " + rawId);
+        }
+        return transaction;
+    }
+
+    private Goal ownGoal(String rawId) {
+        Goal goal = goalService.getGoal(parseLong(rawId));
+        if (goal == null || goal.getUserId() != user().getId()) {
+            throw new IllegalArgumentException("Цель не найдена: " + rawId);
+        }
+        return goal;
+    }
+
+    private void expect(int count, int min, int max) {
+        if (count < min || count > max) {
+            throw new IllegalArgumentException("Неверное число аргументов для '" + arguments[0] + "'");
+        }
+    }
+
+    private String argument(int count, int index) {
+        if (index >= count) {
+            throw new IllegalArgumentException("Неверное число аргументов для '" + arguments[0] + "'");
+        }
+        return arguments[index];
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректное число '" + value + "'");
+        }
+    }
+
+    private static double parseAmount(String value) {
+        try {
+            double amount = Double.parseDouble(value);
+            if (Double.isNaN(amount) || Double.isInfinite(amount)) {
+                throw new NumberFormatException();
+            }
+            return amount;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректная сумма '" + value + "'");
+        }
+    }
+
+    private static LocalDate parseDate(String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Некорректная дата '" + value + "', ожидается ГГГГ-ММ-ДД");
+        }
+    }
+
+    private static YearMonth parseMonth(String value) {
+        try {
+            return YearMonth.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Некорректный месяц '" + value + "', ожидается ГГГГ-ММ");
+        }
+    }
+
+    private static Transaction.TransactionType parseType(String value) {
+        try {
+            return Transaction.TransactionType.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Тип должен быть INCOME или EXPENSE");
+        }
+    }
+
+    /**
+     * Делит строку на аргументы в {@link #arguments} одним проходом, без регулярных выражений.
+     *
+     * @return количество аргументов; 0 для пустой строки и комментария
+     */
+    private int tokenize(String line) {
+        int count = 0;
+        int position = 0;
+        int length = line.length();
+        while (true) {
+            while (position < length && Character.isWhitespace(line.charAt(position))) {
+                position++;
+            }
+            if (position == length || (count == 0 && line.charAt(position) == '#')) {
+                return count;
+            }
+            if (count == MAX_ARGUMENTS) {
+                throw new IllegalArgumentException("Слишком много аргументов");
+            }
+            if (line.charAt(position) == '"') {
+                token.setLength(0);
+                position++;
+                while (true) {
+                    if (position >= length) {
+                        throw new IllegalArgumentException("Незакрытая кавычка");
+                    }
+                    char c = line.charAt(position++);
+                    if (c == '"') {
+                        if (position < length && line.charAt(position) == '"') {
+                            token.append('"');
+                            position++;
+                            continue;
+                        }
+                        break;
+                    }
+                    token.append(c);
+                }
+                arguments[count++] = token.toString();
+            } else {
+                int start = position;
+                while (position < length && !Character.isWhitespace(line.charAt(position))) {
+                    position++;
+                }
+                arguments[count++] = line.substring(start, position);
+            }
+        }
+    }
+
+    /**
+     * Итоги выполнения сценария.
+     */
+    @Getter
+    public static final class BatchResult {
+        private final long commands;
+        private final long errors;
+        private final long elapsedNanos;
+
+        BatchResult(long commands, long errors, long elapsedNanos) {
+            this.commands = commands;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Возвращает скорость выполнения.
+         *
+         * @return команд в секунду
+         */
+        public double getCommandsPerSecond() {
+            if (elapsedNanos == 0) {
+                return 0;
+            }
+            return commands * 1_000_000_000.0 / elapsedNanos;
+        }
+    }
+}
@@ -1,13 +1,24 @@
 package com.yourorganization.in;
 
+import com.yourorganization.domain.RecurringTransaction;
 import com.yourorganization.domain.User;
+import com.yourorganization.metrics.OperationMetrics;
+import com.yourorganization.metrics.ServiceMetrics;
+import com.yourorganization.service.AdminAnalyticsService;
+import com.yourorganization.service.BudgetService;
 import com.yourorganization.service.GoalService;
+import com.yourorganization.service.RecurringTransactionService;
 import com.yourorganization.service.TransactionService;
 import com.yourorganization.domain.Transaction;
 import com.yourorganization.service.UserService;
 
 
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Scanner;
 
 /**
@@ -15,17 +26,26 @@ import java.util.Scanner;
  * Осуществляет ввод-вывод через System.in / System.out.
  */
 public class ConsoleInterface {
+    private static final int PAGE_SIZE = 20;
+    private static final int ACTIVE_DAYS = 30;
+    private static final int TOP_ACCOUNTS = 10;
+
     private final Scanner scanner = new Scanner(System.in);
 
     private final UserService userService;
     private final TransactionService transactionService;
     private final GoalService goalService;
+    private final BudgetService budgetService;
+    private final RecurringTransactionService recurringService;
+    private final AdminAnalyticsService analyticsService;
+    private final ServiceMetrics metrics;
 
     private User currentUser;
 
     /**
      * Конструктор, принимающий необходимые сервисы:
-     * пользователей, транзакций и целей.
+     * пользователей, транзакций и целей. Регулярные транзакции (их шаблонам нужно хранилище)
+     * и аналитика системы в меню администратора недоступны.
      *
      * @param userService        сервис для работы с пользователями
      * @param transactionService сервис для работы с транзакциями
@@ -34,9 +54,36 @@ public class ConsoleInterface {
     public ConsoleInterface(UserService userService,
                             TransactionService transactionService,
                             GoalService goalService) {
+        this(userService, transactionService, goalService, new BudgetService(transactionService),
+                null, null, ServiceMetrics.global());
+    }
+
+    /**
+     * Конструктор с сервисами бюджетов, регулярных транзакций, аналитики системы
+     * и явным реестром метрик, который показывается в меню администратора.
+     *
+     * @param userService        сервис для работы с пользователями
+     * @param transactionService сервис для работы с транзакциями
+     * @param goalService        сервис для работы с целями
+     * @param budgetService      сервис месячных бюджетов
+     * @param recurringService   сервис регулярных транзакций (null - регулярные транзакции недоступны)
+     * @param analyticsService   сервис аналитики системы (null - аналитика недоступна)
+     * @param metrics            реестр метрик сервисов
+     */
+    public ConsoleInterface(UserService userService,
+                            TransactionService transactionService,
+                            GoalService goalService,
+                            BudgetService budgetService,
+                            RecurringTransactionService recurringService,
+                            AdminAnalyticsService analyticsService,
+                            ServiceMetrics metrics) {
         this.userService = userService;
         this.transactionService = transactionService;
         this.goalService = goalService;
+        this.budgetService = budgetService;
+        this.recurringService = recurringService;
+        this.analyticsService = analyticsService;
+        this.metrics = metrics;
     }
 
     /**
@@ -181,6 +228,13 @@ public class ConsoleInterface {
             System.out.println("3. Редактировать транзакцию");
             System.out.println("4. Удалить транзакцию");
             System.out.println("5. Баланс");
+            System.out.println("6. Транзакции и баланс за период");
+            System.out.println("7. Отчёт по категориям за месяц");
+            System.out.println("8. Импорт выписки из CSV");
+            System.out.println("9. Бюджеты по категориям");
+            System.out.println("10. Регулярные транзакции");
+            System.out.println("11. Поиск транзакций");
+            System.out.println("12. Экспорт данных в CSV/JSON");
             System.out.println("0. Назад");
             System.out.print("Выберите действие: ");
             String choice = scanner.nextLine();
@@ -202,6 +256,27 @@ public class ConsoleInterface {
                     double balance = transactionService.calculateBalance(currentUser.getId());
                     System.out.println("Текущий баланс: " + balance);
                     break;
+                case "6":
+                    listTransactionsForPeriod();
+                    break;
+                case "7":
+                    showCategoryReport();
+                    break;
+                case "8":
+                    importStatement();
+                    break;
+                case "9":
+                    manageBudgets();
+                    break;
+                case "10":
+                    manageRecurring();
+                    break;
+                case "11":
+                    searchTransactions();
+                    break;
+                case "12":
+                    exportData(false);
+                    break;
                 case "0":
                     return;
                 default:
@@ -227,30 +302,301 @@ public class ConsoleInterface {
         String typeStr = scanner.nextLine();
 
         Transaction.TransactionType type = Transaction.TransactionType.valueOf(typeStr.toUpperCase());
-        transactionService.createTransaction(
-                currentUser.getId(),
-                amount,
-                category,
-                LocalDate.now(),
-                description,
-                type
-        );
-        System.out.println("Транзакция добавлена!");
+        try (BudgetService.WarningScope warnings = budgetService.collectWarnings()) {
+            transactionService.createTransaction(
+                    currentUser.getId(),
+                    amount,
+                    category,
+                    LocalDate.now(),
+                    description,
+                    type
+            );
+            System.out.println("Транзакция добавлена!");
+            printBudgetWarnings(warnings);
+        }
     }
 
     /**
-     * Выводит список всех транзакций текущего пользователя.
+     * Выводит транзакции текущего пользователя постранично, от новых к старым.
+     * Страницы запрашиваются по курсору, поэтому полный список не строится.
      */
     private void listTransactions() {
         System.out.println("Список транзакций:");
-        transactionService.getUserTransactions(currentUser.getId()).forEach(t -> {
-            System.out.println("[id=" + t.getId() +
-                    ", type=" + t.getType() +
-                    ", amount=" + t.getAmount() +
-                    ", category=" + t.getCategory() +
-                    ", description=" + t.getDescription() +
-                    ", date=" + t.getDate() + "]");
-        });
+        long cursor = TransactionService.FIRST_PAGE;
+        while (true) {
+            List<Transaction> page = transactionService.getUserTransactionsPage(currentUser.getId(), cursor, PAGE_SIZE);
+            page.forEach(t -> System.out.println(format(t)));
+            if (page.size() < PAGE_SIZE) {
+                return;
+            }
+            System.out.print("Enter - следующая страница, 0 - назад: ");
+            if (scanner.nextLine().trim().equals("0")) {
+                return;
+            }
+            cursor = page.get(page.size() - 1).getId();
+        }
+    }
+
+    private static String format(Transaction t) {
+        return "[id=" + t.getId() +
+                ", type=" + t.getType() +
+                ", amount=" + t.getAmount() +
+                ", category=" + t.getCategory() +
+                ", description=" + t.getDescription() +
+                ", date=" + t.getDate() + "]";
+    }
+
+    /**
+     * Выводит транзакции текущего пользователя за период и баланс за этот период.
+     */
+    private void listTransactionsForPeriod() {
+        try {
+            System.out.print("Введите начало периода (ГГГГ-ММ-ДД): ");
+            LocalDate from = LocalDate.parse(scanner.nextLine().trim());
+            System.out.print("Введите конец периода (ГГГГ-ММ-ДД): ");
+            LocalDate to = LocalDate.parse(scanner.nextLine().trim());
+
+            System.out.println("Транзакции за период:");
+            transactionService.getUserTransactions(currentUser.getId(), from, to)
+                    .forEach(t -> System.out.println(format(t)));
+            System.out.println("Баланс за период: " + transactionService.calculateBalance(currentUser.getId(), from, to));
+        } catch (Exception e) {
+            System.out.println("Ошибка: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Ищет транзакции текущего пользователя по словам описания и категории,
+     * при необходимости ограничивая период.
+     */
+    private void searchTransactions() {
+        try {
+            System.out.print("Запрос (слова через пробел, OR, префикс*): ");
+            String query = scanner.nextLine();
+            System.out.print("Месяц (ГГГГ-ММ, Enter - за всё время): ");
+            String rawMonth = scanner.nextLine().trim();
+            LocalDate from = null;
+            LocalDate to = null;
+            if (!rawMonth.isEmpty()) {
+                YearMonth month = YearMonth.parse(rawMonth);
+                from = month.atDay(1);
+                to = month.atEndOfMonth();
+            }
+            List<Transaction> found = transactionService.searchTransactions(currentUser.getId(), query,
+                    from, to, null, PAGE_SIZE);
+            if (found.isEmpty()) {
+                System.out.println("Ничего не найдено.");
+            }
+            found.forEach(t -> System.out.println(format(t)));
+        } catch (Exception e) {
+            System.out.println("Ошибка: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Выводит суммы по категориям за месяц для текущего пользователя.
+     */
+    private void showCategoryReport() {
+        try {
+            System.out.print("Введите месяц (ГГГГ-ММ): ");
+            YearMonth month = YearMonth.parse(scanner.nextLine().trim());
+            System.out.print("Доходы или расходы (INCOME/EXPENSE): ");
+            Transaction.TransactionType type = Transaction.TransactionType.valueOf(scanner.nextLine().trim().toUpperCase());
+
+            Map<String, Double> totals = transactionService.getCategoryTotals(currentUser.getId(), month, type);
+            if (totals.isEmpty()) {
+                System.out.println("За этот месяц транзакций нет.");
+            }
+            totals.forEach((category, amount) -> System.out.println(category + ": " + amount));
+        } catch (Exception e) {
+            System.out.println("Ошибка: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Импортирует транзакции текущего пользователя из CSV-выписки.
+     */
+    private void importStatement() {
+        System.out.print("Введите путь к файлу выписки: ");
+        String path = scanner.nextLine().trim();
+        try (BudgetService.WarningScope warnings = budgetService.collectWarnings()) {
+            CsvStatementImporter.ImportResult result = new CsvStatementImporter(transactionService)
+                    .importFile(currentUser.getId(), Path.of(path));
+            System.out.printf("Импортировано: %d, отклонено: %d, скорость: %.0f строк/с%n",
+                    result.getImported(), result.getRejected(), result.getRowsPerSecond());
+            result.getErrors().forEach(error -> System.out.println("  " + error));
+            printBudgetWarnings(warnings);
+        } catch (Exception e) {
+            System.out.println("Ошибка: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Выгружает транзакции и цели текущего пользователя или, для администратора,
+     * всех пользователей в указанный каталог.
+     *
+     * @param allUsers выгрузить всех пользователей (по подкаталогу на каждого)
+     */
+    private void exportData(boolean allUsers) {
+        System.out.print("Введите каталог для выгрузки: ");
+        String directory = scanner.nextLine().trim();
+        System.out.print("Формат (csv/jsonl): ");
+        String format = scanner.nextLine().trim();
+        System.out.print("Сжать gzip? (y/n): ");
+        boolean gzip = scanner.nextLine().trim().equalsIgnoreCase("y");
+        try {
+            DataExporter exporter = new DataExporter(userService, transactionService, goalService);
+            DataExporter.Format exportFormat = DataExporter.Format.valueOf(format.toUpperCase(Locale.ROOT));
+            DataExporter.ExportResult result = allUsers
+                    ? exporter.exportAll(Path.of(directory), exportFormat, gzip)
+                    : exporter.exportUser(currentUser.getId(), Path.of(directory), exportFormat, gzip);
+            System.out.printf("Пользователей: %d, транзакций: %d, целей: %d, записано байт: %d, "
+                            + "скорость: %.0f строк/с%n", result.getUsers(), result.getTransactions(),
+                    result.getGoals(), result.getBytesWritten(), result.getRowsPerSecond());
+        } catch (Exception e) {
+            System.out.println("Ошибка: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Меню месячных бюджетов: установка лимита, просмотр, удаление.
+     */
+    private void manageBudgets() {
+        while (true) {
+            System.out.println("\n--- Бюджеты ---");
+            System.out.println("1. Установить лимит категории");
+            System.out.println("2. Бюджеты за месяц");
+            System.out.println("3. Удалить бюджет");
+            System.out.println("0. Назад");
+            System.out.print("Выберите действие: ");
+            String choice = scanner.nextLine();
+
+            try {
+                switch (choice) {
+                    case "1":
+                        System.out.print("Введите категорию: ");
+                        String category = scanner.nextLine().trim();
+                        System.out.print("Введите лимит на месяц: ");
+                        double limit = Double.parseDouble(scanner.nextLine());
+                        budgetService.setBudget(currentUser.getId(), category, limit);
+                        System.out.println("Бюджет сохранён.");
+                        break;
+                    case "2":
+                        System.out.print("Введите месяц (ГГГГ-ММ, Enter - текущий): ");
+                        String rawMonth = scanner.nextLine().trim();
+                        YearMonth month = rawMonth.isEmpty() ? YearMonth.now() : YearMonth.parse(rawMonth);
+                        List<BudgetService.BudgetStatus> budgets = budgetService.getBudgets(currentUser.getId(), month);
+                        if (budgets.isEmpty()) {
+                            System.out.println("Бюджеты не заданы.");
+                        }
+                        budgets.forEach(b -> System.out.printf("%s: %.2f из %.2f (%.0f%%)%n",
+                                b.getCategory(), b.getSpent(), b.getLimit(), b.getUsedPercent()));
+                        break;
+                    case "3":
+                        System.out.print("Введите категорию: ");
+                        budgetService.removeBudget(currentUser.getId(), scanner.nextLine().trim());
+                        System.out.println("Бюджет удалён.");
+                        break;
+                    case "0":
+                        return;
+                    default:
+                        System.out.println("Неверная команда!");
+                }
+            } catch (Exception e) {
+                System.out.println("Ошибка: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Меню регулярных транзакций: создание шаблона, просмотр, отмена.
+     */
+    private void manageRecurring() {
+        if (recurringService == null) {
+            System.out.println("Регулярные транзакции недоступны.");
+            return;
+        }
+        while (true) {
+            System.out.println("\n--- Регулярные транзакции ---");
+            System.out.println("1. Создать шаблон");
+            System.out.println("2. Посмотреть шаблоны");
+            System.out.println("3. Отменить шаблон");
+            System.out.println("0. Назад");
+            System.out.print("Выберите действие: ");
+            String choice = scanner.nextLine();
+
+            try {
+                switch (choice) {
+                    case "1":
+                        addRecurring();
+                        break;
+                    case "2":
+                        recurringService.getUserTemplates(currentUser.getId()).forEach(r ->
+                                System.out.println("[id=" + r.getId() +
+                                        ", type=" + r.getType() +
+                                        ", amount=" + r.getAmount() +
+                                        ", category=" + r.getCategory() +
+                                        ", frequency=" + r.getFrequency() +
+                                        (r.getIntervalDays() > 0 ? "/" + r.getIntervalDays() : "") +
+                                        ", next=" + r.getNextDate() + "]"));
+                        break;
+                    case "3":
+                        System.out.print("Введите ID шаблона: ");
+                        recurringService.cancelTemplate(currentUser.getId(), Long.parseLong(scanner.nextLine().trim()));
+                        System.out.println("Шаблон отменён.");
+                        break;
+                    case "0":
+                        return;
+                    default:
+                        System.out.println("Неверная команда!");
+                }
+            } catch (Exception e) {
+                System.out.println("Ошибка: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Создаёт шаблон регулярной транзакции и сразу создаёт уже наступившие повторения.
+     */
+    private void addRecurring() {
+        System.out.print("Введите сумму: ");
+        double amount = Double.parseDouble(scanner.nextLine());
+        System.out.print("Введите категорию: ");
+        String category = scanner.nextLine();
+        System.out.print("Введите описание: ");
+        String description = scanner.nextLine();
+        System.out.print("Это доход или расход (INCOME/EXPENSE): ");
+        Transaction.TransactionType type = Transaction.TransactionType.valueOf(scanner.nextLine().trim().toUpperCase());
+        System.out.print("Периодичность (DAILY/WEEKLY/MONTHLY/CUSTOM): ");
+        RecurringTransaction.Frequency frequency =
+                RecurringTransaction.Frequency.valueOf(scanner.nextLine().trim().toUpperCase());
+        int intervalDays = 0;
+        if (frequency == RecurringTransaction.Frequency.CUSTOM) {
+            System.out.print("Интервал в днях: ");
+            intervalDays = Integer.parseInt(scanner.nextLine().trim());
+        }
+        System.out.print("Дата первой транзакции (ГГГГ-ММ-ДД, Enter - сегодня): ");
+        String rawDate = scanner.nextLine().trim();
+        LocalDate startDate = rawDate.isEmpty() ? LocalDate.now() : LocalDate.parse(rawDate);
+
+        RecurringTransaction template = recurringService.addTemplate(currentUser.getId(), amount, category,
+                description, type, frequency, intervalDays, startDate);
+        try (BudgetService.WarningScope warnings = budgetService.collectWarnings()) {
+            int created = recurringService.runDue(LocalDate.now());
+            System.out.println("Шаблон создан (id=" + template.getId() + "), создано транзакций: " + created);
+            printBudgetWarnings(warnings);
+        }
+    }
+
+    /**
+     * Выводит предупреждения о бюджетах текущего пользователя, выданные в области.
+     *
+     * @param warnings область сбора предупреждений вокруг изменения транзакций
+     */
+    private void printBudgetWarnings(BudgetService.WarningScope warnings) {
+        warnings.getWarnings(currentUser.getId())
+                .forEach(w -> System.out.println("Внимание! " + w.getMessage()));
     }
 
     /**
@@ -269,9 +615,10 @@ public class ConsoleInterface {
         System.out.print("Введите новое описание: ");
         String description = scanner.nextLine();
 
-        try {
+        try (BudgetService.WarningScope warnings = budgetService.collectWarnings()) {
             transactionService.updateTransaction(id, amount, category, description);
             System.out.println("Транзакция обновлена.");
+            printBudgetWarnings(warnings);
         } catch (Exception e) {
             System.out.println("Ошибка: " + e.getMessage());
         }
@@ -446,13 +793,17 @@ public class ConsoleInterface {
     }
 
     /**
-     * Меню администратора: просмотр пользователей, удаление пользователя.
+     * Меню администратора: просмотр пользователей, удаление пользователя, метрики сервисов,
+     * аналитика системы, выгрузка данных всех пользователей.
      */
     private void showAdminMenu() {
         while (true) {
             System.out.println("\n--- Меню Администратора ---");
             System.out.println("1. Просмотреть всех пользователей");
             System.out.println("2. Удалить пользователя");
+            System.out.println("3. Метрики сервисов");
+            System.out.println("4. Аналитика системы");
+            System.out.println("5. Выгрузка данных всех пользователей");
             System.out.println("0. Назад");
             System.out.print("Выберите действие: ");
             String choice = scanner.nextLine();
@@ -471,6 +822,15 @@ public class ConsoleInterface {
                     userService.deleteUser(userId);
                     System.out.println("Пользователь удалён.");
                     break;
+                case "3":
+                    showServiceMetrics();
+                    break;
+                case "4":
+                    showSystemAnalytics();
+                    break;
+                case "5":
+                    exportData(true);
+                    break;
                 case "0":
                     return;
                 default:
@@ -478,4 +838,48 @@ public class ConsoleInterface {
             }
         }
     }
+
+    /**
+     * Выводит число вызовов, ошибок и задержки (мкс) каждой операции сервисов.
+     */
+    private void showServiceMetrics() {
+        System.out.printf("%-45s %10s %8s %10s %10s %10s %10s%n",
+                "Операция", "Вызовы", "Ошибки", "p50", "p99", "p99.9", "max");
+        for (OperationMetrics m : metrics.getOperations()) {
+            if (m.getCalls() == 0) {
+                continue;
+            }
+            System.out.printf("%-45s %10d %8d %10.1f %10.1f %10.1f %10.1f%n",
+                    m.getService() + "." + m.getOperation(), m.getCalls(), m.getErrors(),
+                    m.getP50Micros(), m.getP99Micros(), m.getP999Micros(), m.getMaxMicros());
+        }
+    }
+
+    /**
+     * Выводит сводку по системе: доходы и расходы по категориям, активных за
+     * последние {@value #ACTIVE_DAYS} дней пользователей, выполнение целей и крупнейшие счета.
+     */
+    private void showSystemAnalytics() {
+        if (analyticsService == null) {
+            System.out.println("Аналитика системы недоступна.");
+            return;
+        }
+        AdminAnalyticsService.SystemReport report =
+                analyticsService.buildReport(LocalDate.now().minusDays(ACTIVE_DAYS), TOP_ACCOUNTS);
+        System.out.printf("Транзакций: %d, доходы: %.2f, расходы: %.2f%n",
+                report.getTransactionCount(), report.getTotalIncome(), report.getTotalExpense());
+        System.out.println("Доходы по категориям:");
+        report.getIncomeByCategory().forEach((c, sum) -> System.out.printf("  %-30s %15.2f%n", c, sum));
+        System.out.println("Расходы по категориям:");
+        report.getExpenseByCategory().forEach((c, sum) -> System.out.printf("  %-30s %15.2f%n", c, sum));
+        System.out.printf("Пользователей: %d, активных за %d дней: %d%n",
+                report.getUserCount(), ACTIVE_DAYS, report.getActiveUserCount());
+        System.out.printf("Целей: %d, выполнено: %d (%.1f%%)%n",
+                report.getGoalCount(), report.getCompletedGoalCount(), report.getGoalCompletionPercent());
+        System.out.println("Крупнейшие счета:");
+        for (AdminAnalyticsService.AccountBalance account : report.getLargestAccounts()) {
+            System.out.printf("  id=%d, email=%s, баланс=%.2f%n",
+                    account.getUserId(), account.getEmail(), account.getBalance());
+        }
+    }
 }
@@ -0,0 +1,321 @@
+package com.yourorganization.in;
+
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.service.TransactionService;
+import lombok.Getter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Потоковый импорт банковской выписки в формате CSV.
+ * <p>
+ * Строка выписки: {@code дата;сумма;категория;описание[;тип]}. Разделитель ({@code ;}
+ * или {@code ,}) определяется по первой строке; если она не начинается с даты, она
+ * считается заголовком. Дата - {@code ГГГГ-ММ-ДД} или {@code ДД.ММ.ГГГГ}, в сумме
+ * допускается десятичная запятая (в поле в кавычках при разделителе {@code ,}).
+ * Тип - {@code INCOME}/{@code EXPENSE}; если столбца нет, тип определяется по знаку суммы.
+ * Поля могут быть в кавычках ({@code ""} внутри - кавычка), перевод строки внутри поля
+ * не поддерживается.
+ * <p>
+ * Файл читается построчно, а транзакции сохраняются пачками через
+ * {@link TransactionService#createTransactions}, поэтому расход памяти
+ * не зависит от размера файла.
+ */
+public class CsvStatementImporter {
+
+    /**
+     * Размер пачки по умолчанию.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 10_000;
+
+    private static final int MAX_REPORTED_ERRORS = 20;
+    private static final int MAX_FIELDS = 5;
+
+    private final TransactionService transactionService;
+    private final int batchSize;
+
+    /**
+     * Создаёт импортёр с размером пачки по умолчанию.
+     *
+     * @param transactionService сервис, через который сохраняются транзакции
+     */
+    public CsvStatementImporter(TransactionService transactionService) {
+        this(transactionService, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Создаёт импортёр.
+     *
+     * @param transactionService сервис, через который сохраняются транзакции
+     * @param batchSize          количество транзакций в одной пачке
+     * @throws IllegalArgumentException если размер пачки не положительный
+     */
+    public CsvStatementImporter(TransactionService transactionService, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Размер пачки должен быть положительным");
+        }
+        this.transactionService = transactionService;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Импортирует выписку из файла (UTF-8).
+     *
+     * @param userId идентификатор пользователя, которому принадлежат транзакции
+     * @param path   путь к файлу выписки
+     * @return итоги импорта
+     * @throws IOException при ошибке чтения файла
+     */
+    public ImportResult importFile(long userId, Path path) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return importFrom(userId, reader);
+        }
+    }
+
+    /**
+     * Импортирует выписку из потока символов.
+     *
+     * @param userId идентификатор пользователя, которому принадлежат транзакции
+     * @param source источник строк выписки
+     * @return итоги импорта
+     * @throws IOException при ошибке чтения
+     */
+    public ImportResult importFrom(long userId, Reader source) throws IOException {
+        long started = System.nanoTime();
+        BufferedReader reader = source instanceof BufferedReader
+                ? (BufferedReader) source
+                : new BufferedReader(source, 64 * 1024);
+        List<Transaction> batch = new ArrayList<>(batchSize);
+        List<String> errors = new ArrayList<>();
+        String[] fields = new String[MAX_FIELDS];
+        StringBuilder quoted = new StringBuilder();
+        char delimiter = 0;
+        long imported = 0;
+        long rejected = 0;
+        long lineNumber = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (delimiter == 0) {
+                delimiter = line.indexOf(';') >= 0 ? ';' : ',';
+            }
+            try {
+                int count = split(line, delimiter, fields, quoted);
+                if (lineNumber == 1 && parseDate(fields[0]) == null) {
+                    continue;
+                }
+                batch.add(toTransaction(userId, fields, count));
+            } catch (IllegalArgumentException e) {
+                rejected++;
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add("строка " + lineNumber + ": " + e.getMessage());
+                }
+                continue;
+            }
+            if (batch.size() == batchSize) {
+                imported += flush(batch);
+            }
+        }
+        imported += flush(batch);
+        return new ImportResult(imported, rejected, System.nanoTime() - started, errors);
+    }
+
+    private long flush(List<Transaction> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        transactionService.createTransactions(batch);
+        int size = batch.size();
+        batch.clear();
+        return size;
+    }
+
+    private static Transaction toTransaction(long userId, String[] fields, int count) {
+        if (count < 4) {
+            throw new IllegalArgumentException("ожидается не менее 4 полей, найдено " + count);
+        }
+        LocalDate date = parseDate(fields[0]);
+        if (date == null) {
+            throw new IllegalArgumentException("некорректная дата '" + fields[0] + "'");
+        }
+        double amount = parseAmount(fields[1]);
+        Transaction.TransactionType type;
+        if (count >= 5 && !fields[4].isEmpty()) {
+            try {
+                type = Transaction.TransactionType.valueOf(fields[4].toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("некорректный тип '" + fields[4] + "'");
+            }
+        } else {
+            type = amount < 0 ? Transaction.TransactionType.EXPENSE : Transaction.TransactionType.INCOME;
+        }
+        return new Transaction(userId, Math.abs(amount), fields[2], date, fields[3], type);
+    }
+
+    /**
+     * Разбирает дату без {@link java.time.format.DateTimeFormatter}, который заметно
+     * медленнее на больших файлах.
+     *
+     * @return дата или null, если строка не является датой
+     */
+    private static LocalDate parseDate(String value) {
+        if (value == null || value.length() != 10) {
+            return null;
+        }
+        try {
+            if (value.charAt(4) == '-' && value.charAt(7) == '-') {
+                return LocalDate.of(digits(value, 0, 4), digits(value, 5, 7), digits(value, 8, 10));
+            }
+            if (value.charAt(2) == '.' && value.charAt(5) == '.') {
+                return LocalDate.of(digits(value, 6, 10), digits(value, 3, 5), digits(value, 0, 2));
+            }
+        } catch (DateTimeException | IllegalArgumentException e) {
+            return null;
+        }
+        return null;
+    }
+
+    private static int digits(String value, int from, int to) {
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException();
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
+    private static double parseAmount(String value) {
+        StringBuilder normalized = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == ' ' || c == '\u00A0') {
+                normalized = new StringBuilder(value.length());
+                break;
+            }
+        }
+        String number = value;
+        if (normalized != null) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == ',') {
+                    normalized.append('.');
+                } else if (c != ' ' && c != '\u00A0') {
+                    normalized.append(c);
+                }
+            }
+            number = normalized.toString();
+        }
+        try {
+            double amount = Double.parseDouble(number);
+            if (Double.isNaN(amount) || Double.isInfinite(amount)) {
+                throw new NumberFormatException();
+            }
+            return amount;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("некорректная сумма '" + value + "'");
+        }
+    }
+
+    /**
+     * Делит строку на поля. Лишние поля (после {@value #MAX_FIELDS}-го) игнорируются.
+     *
+     * @return количество полей в строке
+     */
+    private static int split(String line, char delimiter, String[] fields, StringBuilder quoted) {
+        int count = 0;
+        int position = 0;
+        int length = line.length();
+        while (position <= length) {
+            String value;
+            if (position < length && line.charAt(position) == '"') {
+                quoted.setLength(0);
+                int i = position + 1;
+                while (true) {
+                    if (i >= length) {
+                        throw new IllegalArgumentException("незакрытая кавычка");
+                    }
+                    char c = line.charAt(i);
+                    if (c == '"') {
+                        if (i + 1 < length && line.charAt(i + 1) == '"') {
+                            quoted.append('"');
+                            i += 2;
+                            continue;
+                        }
+                        i++;
+                        break;
+                    }
+                    quoted.append(c);
+                    i++;
+                }
+                if (i < length && line.charAt(i) != delimiter) {
+                    throw new IllegalArgumentException("символы после закрывающей кавычки");
+                }
+                value = quoted.toString();
+                position = i + 1;
+            } else {
+                int end = line.indexOf(delimiter, position);
+                if (end < 0) {
+                    end = length;
+                }
+                value = line.substring(position, end).trim();
+                position = end + 1;
+            }
+            if (count < MAX_FIELDS) {
+                fields[count] = value;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Итоги импорта выписки.
+     */
+    @Getter
+    public static final class ImportResult {
+        private final long imported;
+        private final long rejected;
+        private final long elapsedNanos;
+        /**
+         * Описания первых отклонённых строк (не более 20).
+         */
+        private final List<String> errors;
+
+        ImportResult(long imported, long rejected, long elapsedNanos, List<String> errors) {
+            this.imported = imported;
+            this.rejected = rejected;
+            this.elapsedNanos = elapsedNanos;
+            this.errors = Collections.unmodifiableList(errors);
+        }
+
+        /**
+         * Возвращает скорость импорта.
+         *
+         * @return обработано строк (принятых и отклонённых) в секунду
+         */
+        public double getRowsPerSecond() {
+            if (elapsedNanos == 0) {
+                return 0;
+            }
+            return (imported + rejected) * 1_000_000_000.0 / elapsedNanos;
+        }
+    }
+}
@@ -0,0 +1,466 @@
+package com.yourorganization.in;
+
+import com.yourorganization.domain.Goal;
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.domain.User;
+import com.yourorganization.service.GoalService;
+import com.yourorganization.service.TransactionService;
+import com.yourorganization.service.UserService;
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Потоковая выгрузка данных пользователя (транзакции и цели) в CSV или JSON Lines,
+ * при необходимости со сжатием gzip.
+ * <p>
+ * Для пользователя создаются два файла: {@code transactions.<формат>} и
+ * {@code goals.<формат>} (с суффиксом {@code .gz} при сжатии). Файл транзакций в CSV
+ * имеет формат {@link CsvStatementImporter}, поэтому выгрузку можно импортировать обратно.
+ * Выгрузка всей системы кладёт файлы каждого пользователя в каталог {@code user-<id>}
+ * и выполняется параллельно, по задаче на пользователя.
+ * <p>
+ * Строки не собираются в памяти: каждая кодируется в UTF-8 прямо в прямой буфер потока
+ * ({@link ByteBuffer#allocateDirect}), который по заполнении записывается в
+ * {@link FileChannel} и используется снова. При сжатии {@link Deflater} читает тот же
+ * буфер и пишет во второй прямой буфер, так что данные не копируются в массивы кучи.
+ * Транзакции читаются страницами через {@link TransactionService#streamUserTransactions}.
+ */
+public class DataExporter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String CSV_TRANSACTIONS_HEADER = "date;amount;category;description;type";
+    private static final String CSV_GOALS_HEADER = "id;title;targetAmount;currentAmount;completed";
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    private final UserService userService;
+    private final TransactionService transactionService;
+    private final GoalService goalService;
+    private final ForkJoinPool pool;
+
+    /**
+     * Формат выгрузки.
+     */
+    public enum Format {
+        /**
+         * CSV с разделителем {@code ;} и строкой заголовка.
+         */
+        CSV("csv"),
+        /**
+         * JSON Lines: по одному JSON-объекту в строке.
+         */
+        JSONL("jsonl");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    /**
+     * Конструктор, принимающий сервисы. Выгрузка всей системы выполняется
+     * в общем {@link ForkJoinPool#commonPool()}.
+     *
+     * @param userService        сервис пользователей
+     * @param transactionService сервис транзакций
+     * @param goalService        сервис целей
+     */
+    public DataExporter(UserService userService, TransactionService transactionService, GoalService goalService) {
+        this(userService, transactionService, goalService, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Конструктор с явным пулом потоков для выгрузки всей системы.
+     *
+     * @param userService        сервис пользователей
+     * @param transactionService сервис транзакций
+     * @param goalService        сервис целей
+     * @param pool               пул, в котором пользователи выгружаются параллельно
+     */
+    public DataExporter(UserService userService, TransactionService transactionService, GoalService goalService,
+                        ForkJoinPool pool) {
+        this.userService = userService;
+        this.transactionService = transactionService;
+        this.goalService = goalService;
+        this.pool = pool;
+    }
+
+    /**
+     * Выгружает транзакции и цели пользователя в каталог (создаётся при необходимости).
+     * Существующие файлы перезаписываются.
+     *
+     * @param userId    идентификатор пользователя
+     * @param directory каталог для файлов выгрузки
+     * @param format    формат
+     * @param gzip      сжимать ли файлы
+     * @return итоги выгрузки
+     * @throws IOException при ошибке записи
+     */
+    public ExportResult exportUser(long userId, Path directory, Format format, boolean gzip) throws IOException {
+        long started = System.nanoTime();
+        Files.createDirectories(directory);
+        long transactions = 0;
+        long bytes;
+        try (ChunkedWriter writer = new ChunkedWriter(fileFor(directory, "transactions", format, gzip), gzip);
+             Stream<Transaction> stream = transactionService.streamUserTransactions(userId)) {
+            StringBuilder line = writer.line();
+            if (format == Format.CSV) {
+                writer.writeLine(line.append(CSV_TRANSACTIONS_HEADER));
+            }
+            Iterator<Transaction> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                Transaction t = iterator.next();
+                if (format == Format.CSV) {
+                    appendCsv(line, t);
+                } else {
+                    appendJson(line, t);
+                }
+                writer.writeLine(line);
+                transactions++;
+            }
+            writer.finish();
+            bytes = writer.getBytesWritten();
+        }
+        List<Goal> goals = goalService.getUserGoals(userId);
+        try (ChunkedWriter writer = new ChunkedWriter(fileFor(directory, "goals", format, gzip), gzip)) {
+            StringBuilder line = writer.line();
+            if (format == Format.CSV) {
+                writer.writeLine(line.append(CSV_GOALS_HEADER));
+            }
+            for (Goal goal : goals) {
+                if (format == Format.CSV) {
+                    appendCsv(line, goal);
+                } else {
+                    appendJson(line, goal);
+                }
+                writer.writeLine(line);
+            }
+            writer.finish();
+            bytes += writer.getBytesWritten();
+        }
+        return new ExportResult(1, transactions, goals.size(), bytes, System.nanoTime() - started);
+    }
+
+    /**
+     * Выгружает данные всех пользователей, каждого в подкаталог {@code user-<id>}.
+     * Пользователи выгружаются параллельно.
+     *
+     * @param directory корневой каталог выгрузки
+     * @param format    формат
+     * @param gzip      сжимать ли файлы
+     * @return суммарные итоги выгрузки
+     * @throws IOException при ошибке записи любого из файлов
+     */
+    public ExportResult exportAll(Path directory, Format format, boolean gzip) throws IOException {
+        long started = System.nanoTime();
+        Files.createDirectories(directory);
+        List<Callable<ExportResult>> tasks = new ArrayList<>();
+        for (User user : userService.findAllUsers()) {
+            long userId = user.getId();
+            tasks.add(() -> exportUser(userId, directory.resolve("user-" + userId), format, gzip));
+        }
+        long users = 0;
+        long transactions = 0;
+        long goals = 0;
+        long bytes = 0;
+        for (Future<ExportResult> future : pool.invokeAll(tasks)) {
+            ExportResult result = join(future);
+            users += result.users;
+            transactions += result.transactions;
+            goals += result.goals;
+            bytes += result.bytesWritten;
+        }
+        return new ExportResult(users, transactions, goals, bytes, System.nanoTime() - started);
+    }
+
+    private static ExportResult join(Future<ExportResult> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Выгрузка прервана", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException("Ошибка выгрузки", cause);
+        }
+    }
+
+    private static Path fileFor(Path directory, String name, Format format, boolean gzip) {
+        return directory.resolve(name + "." + format.extension + (gzip ? ".gz" : ""));
+    }
+
+    private static void appendCsv(StringBuilder line, Transaction t) {
+        line.append(t.getDate() == null ? "" : t.getDate().toString()).append(';');
+        line.append(BigDecimal.valueOf(t.getAmount()).toPlainString()).append(';');
+        appendCsvField(line, t.getCategory());
+        line.append(';');
+        appendCsvField(line, t.getDescription());
+        line.append(';').append(t.getType() == null ? "" : t.getType().name());
+    }
+
+    private static void appendCsv(StringBuilder line, Goal goal) {
+        line.append(goal.getId()).append(';');
+        appendCsvField(line, goal.getTitle());
+        line.append(';').append(BigDecimal.valueOf(goal.getTargetAmount()).toPlainString())
+                .append(';').append(BigDecimal.valueOf(goal.getCurrentAmount()).toPlainString())
+                .append(';').append(goal.isCompleted());
+    }
+
+    /**
+     * Поле CSV: в кавычках, если содержит разделитель или кавычку. Переводы строк
+     * заменяются пробелами - {@link CsvStatementImporter} их внутри поля не поддерживает.
+     */
+    private static void appendCsvField(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quoted = value.indexOf(';') >= 0 || value.indexOf('"') >= 0;
+        if (quoted) {
+            line.append('"');
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append("\"\"");
+            } else if (c == '\n' || c == '\r') {
+                line.append(' ');
+            } else {
+                line.append(c);
+            }
+        }
+        if (quoted) {
+            line.append('"');
+        }
+    }
+
+    private static void appendJson(StringBuilder line, Transaction t) {
+        line.append("{\"id\":").append(t.getId())
+                .append(",\"date\":");
+        Json.quote(line, t.getDate() == null ? null : t.getDate().toString());
+        line.append(",\"amount\":").append(BigDecimal.valueOf(t.getAmount()).toPlainString())
+                .append(",\"category\":");
+        Json.quote(line, t.getCategory());
+        line.append(",\"description\":");
+        Json.quote(line, t.getDescription());
+        line.append(",\"type\":");
+        Json.quote(line, t.getType() == null ? null : t.getType().name());
+        line.append('}');
+    }
+
+    private static void appendJson(StringBuilder line, Goal goal) {
+        line.append("{\"id\":").append(goal.getId())
+                .append(",\"title\":");
+        Json.quote(line, goal.getTitle());
+        line.append(",\"targetAmount\":").append(BigDecimal.valueOf(goal.getTargetAmount()).toPlainString())
+                .append(",\"currentAmount\":").append(BigDecimal.valueOf(goal.getCurrentAmount()).toPlainString())
+                .append(",\"completed\":").append(goal.isCompleted())
+                .append('}');
+    }
+
+    /**
+     * Буферы потока, переиспользуемые всеми его выгрузками: кодированный текст
+     * и результат сжатия.
+     */
+    private static final class Buffers {
+        private final ByteBuffer chunk = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final ByteBuffer compressed = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final StringBuilder line = new StringBuilder(256);
+    }
+
+    /**
+     * Запись строк в файл порциями через буферы потока; при сжатии - в формате gzip
+     * (заголовок, поток deflate, CRC32 и длина исходных данных).
+     */
+    private static final class ChunkedWriter implements Closeable {
+        private static final ByteBuffer NO_INPUT = ByteBuffer.allocate(0);
+        private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+        private final FileChannel channel;
+        private final Buffers buffers;
+        private final Deflater deflater;
+        private final CRC32 crc;
+        private long inputBytes;
+        private long bytesWritten;
+
+        ChunkedWriter(Path file, boolean gzip) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.buffers = BUFFERS.get();
+            buffers.chunk.clear();
+            buffers.compressed.clear();
+            buffers.line.setLength(0);
+            this.deflater = gzip ? new Deflater(Deflater.DEFAULT_COMPRESSION, true) : null;
+            this.crc = gzip ? new CRC32() : null;
+            if (gzip) {
+                buffers.compressed.put(GZIP_HEADER);
+            }
+        }
+
+        StringBuilder line() {
+            return buffers.line;
+        }
+
+        /**
+         * Кодирует строку с переводом строки в буфер и очищает её.
+         */
+        void writeLine(StringBuilder line) throws IOException {
+            line.append('\n');
+            CharBuffer chars = CharBuffer.wrap(line);
+            CharsetEncoder encoder = buffers.encoder.reset();
+            while (true) {
+                CoderResult result = encoder.encode(chars, buffers.chunk, true);
+                if (result.isOverflow()) {
+                    drain();
+                } else {
+                    break;
+                }
+            }
+            encoder.flush(buffers.chunk);
+            line.setLength(0);
+        }
+
+        /**
+         * Дописывает остаток данных и, при сжатии, окончание gzip.
+         */
+        void finish() throws IOException {
+            drain();
+            if (deflater != null) {
+                deflater.finish();
+                ByteBuffer out = buffers.compressed;
+                while (!deflater.finished()) {
+                    deflater.deflate(out);
+                    if (!out.hasRemaining()) {
+                        writeCompressed();
+                    }
+                }
+                if (out.remaining() < 8) {
+                    writeCompressed();
+                }
+                out.putInt((int) crc.getValue()).putInt((int) inputBytes);
+                writeCompressed();
+            }
+        }
+
+        long getBytesWritten() {
+            return bytesWritten;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                channel.close();
+            } finally {
+                if (deflater != null) {
+                    deflater.end();
+                }
+            }
+        }
+
+        private void drain() throws IOException {
+            ByteBuffer chunk = buffers.chunk;
+            chunk.flip();
+            if (deflater == null) {
+                write(chunk);
+            } else {
+                int start = chunk.position();
+                crc.update(chunk);
+                inputBytes += chunk.limit() - start;
+                chunk.position(start);
+                deflater.setInput(chunk);
+                while (!deflater.needsInput()) {
+                    deflater.deflate(buffers.compressed);
+                    if (!buffers.compressed.hasRemaining()) {
+                        writeCompressed();
+                    }
+                }
+                // Deflater держит ссылку на буфер: после clear() он снова увидел бы его целиком
+                deflater.setInput(NO_INPUT);
+            }
+            chunk.clear();
+        }
+
+        private void writeCompressed() throws IOException {
+            ByteBuffer out = buffers.compressed;
+            out.flip();
+            write(out);
+            out.clear();
+        }
+
+        private void write(ByteBuffer data) throws IOException {
+            while (data.hasRemaining()) {
+                bytesWritten += channel.write(data);
+            }
+        }
+    }
+
+    /**
+     * Итоги выгрузки.
+     */
+    @Getter
+    public static final class ExportResult {
+        private final long users;
+        private final long transactions;
+        private final long goals;
+        /**
+         * Размер записанных файлов (после сжатия), байт.
+         */
+        private final long bytesWritten;
+        private final long elapsedNanos;
+
+        ExportResult(long users, long transactions, long goals, long bytesWritten, long elapsedNanos) {
+            this.users = users;
+            this.transactions = transactions;
+            this.goals = goals;
+            this.bytesWritten = bytesWritten;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Возвращает скорость выгрузки.
+         *
+         * @return записано строк (транзакций и целей) в секунду
+         */
+        public double getRowsPerSecond() {
+            if (elapsedNanos == 0) {
+                return 0;
+            }
+            return (transactions + goals) * 1_000_000_000.0 / elapsedNanos;
+        }
+    }
+}
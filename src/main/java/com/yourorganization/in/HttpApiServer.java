@@ -0,0 +1,585 @@
+package com.yourorganization.in;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.yourorganization.domain.Goal;
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.domain.User;
+import com.yourorganization.service.BudgetService;
+import com.yourorganization.service.GoalService;
+import com.yourorganization.service.TransactionService;
+import com.yourorganization.service.UserService;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * HTTP/JSON интерфейс приложения - второй входной адаптер рядом с {@link ConsoleInterface}.
+ * Построен на встроенном в JDK {@code com.sun.net.httpserver}; каждый запрос
+ * обрабатывается в отдельном виртуальном потоке (если JVM их поддерживает,
+ * иначе - в пуле обычных потоков).
+ * <p>
+ * Ресурсы (тела запросов и ответов - JSON):
+ * <ul>
+ *     <li>{@code POST /api/register} {@code {email, password, name}} - регистрация;</li>
+ *     <li>{@code POST /api/login} {@code {email, password}} - вход, в ответе {@code token};</li>
+ *     <li>{@code POST /api/logout} - завершение сеанса;</li>
+ *     <li>{@code GET /api/transactions[?from=&to=]}, {@code GET /api/transactions?limit=[&before=]}
+ *     (страница от новых к старым, {@code before} - id последней транзакции предыдущей страницы),
+ *     {@code GET /api/transactions?q=[&from=][&to=][&type=][&limit=]} (поиск по описанию и категории),
+ *     {@code POST /api/transactions}
+ *     {@code {amount, category, date?, description, type}};</li>
+ *     <li>{@code GET /api/transactions/{id}}, {@code PUT /api/transactions/{id}}
+ *     {@code {amount, category, description, type?}}, {@code DELETE /api/transactions/{id}};</li>
+ *     <li>{@code GET /api/balance[?from=&to=]};</li>
+ *     <li>{@code GET /api/goals}, {@code POST /api/goals} {@code {title, targetAmount}},
+ *     {@code PUT /api/goals/{id}}, {@code DELETE /api/goals/{id}},
+ *     {@code POST /api/goals/{id}/deposit} {@code {amount}}.</li>
+ * </ul>
+ * Все ресурсы, кроме регистрации и входа, требуют заголовок
+ * {@code Authorization: Bearer <token>}. Чужие транзакции и цели не видны (404).
+ * <p>
+ * Если сервер создан с {@link BudgetService}, ответы на создание и изменение транзакции
+ * содержат поле {@code budgetWarnings}: предупреждения о бюджетах, вызванные этим запросом
+ * ({@code category, month, limit, spent, thresholdPercent, message}).
+ */
+public class HttpApiServer implements Closeable {
+
+    private static final int FALLBACK_THREADS = 256;
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+
+    private final UserService userService;
+    private final TransactionService transactionService;
+    private final GoalService goalService;
+    private final BudgetService budgetService;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ConcurrentMap<String, Long> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Создаёт сервер (без запуска) без предупреждений о бюджетах в ответах.
+     *
+     * @param port               порт; 0 - выбрать свободный
+     * @param userService        сервис пользователей
+     * @param transactionService сервис транзакций
+     * @param goalService        сервис целей
+     * @throws IOException если порт не удалось занять
+     */
+    public HttpApiServer(int port,
+                         UserService userService,
+                         TransactionService transactionService,
+                         GoalService goalService) throws IOException {
+        this(port, userService, transactionService, goalService, null);
+    }
+
+    /**
+     * Создаёт сервер (без запуска), который возвращает предупреждения о бюджетах
+     * в ответах на изменение транзакций.
+     *
+     * @param port               порт; 0 - выбрать свободный
+     * @param userService        сервис пользователей
+     * @param transactionService сервис транзакций
+     * @param goalService        сервис целей
+     * @param budgetService      сервис бюджетов (null - без предупреждений)
+     * @throws IOException если порт не удалось занять
+     */
+    public HttpApiServer(int port,
+                         UserService userService,
+                         TransactionService transactionService,
+                         GoalService goalService,
+                         BudgetService budgetService) throws IOException {
+        this.userService = userService;
+        this.transactionService = transactionService;
+        this.goalService = goalService;
+        this.budgetService = budgetService;
+        this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+        this.executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/api/", this::handle);
+    }
+
+    /**
+     * Запускает приём запросов.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Возвращает порт, на котором сервер принимает запросы.
+     *
+     * @return номер порта
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Останавливает сервер, давая текущим запросам до секунды на завершение.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Поток на запрос: виртуальные потоки (Java 21+) через отражение, чтобы код
+     * собирался и на Java 17; на старых JVM - пул обычных потоков.
+     */
+    private static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger counter = new AtomicInteger();
+            return Executors.newFixedThreadPool(FALLBACK_THREADS, r -> {
+                Thread thread = new Thread(r, "http-worker-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int status;
+        String body;
+        try {
+            Response response = route(exchange);
+            status = response.status;
+            body = response.body;
+        } catch (ApiException e) {
+            status = e.status;
+            body = error(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            body = error(e.getMessage());
+        } catch (RuntimeException e) {
+            status = 500;
+            body = error("Внутренняя ошибка сервера");
+        }
+        try {
+            if (body == null) {
+                exchange.sendResponseHeaders(status, -1);
+            } else {
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+                exchange.sendResponseHeaders(status, bytes.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Response route(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().substring("/api/".length()).split("/");
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+        switch (path[0]) {
+            case "register":
+                requireMethod(method, "POST");
+                return register(readBody(exchange));
+            case "login":
+                requireMethod(method, "POST");
+                return login(readBody(exchange));
+            case "logout":
+                requireMethod(method, "POST");
+                String token = token(exchange);
+                if (token != null) {
+                    sessions.remove(token);
+                }
+                return new Response(204, null);
+            case "transactions":
+                return transactions(method, path, query, exchange);
+            case "balance":
+                requireMethod(method, "GET");
+                return balance(authenticate(exchange), query);
+            case "goals":
+                return goals(method, path, exchange);
+            default:
+                throw new ApiException(404, "Ресурс не найден");
+        }
+    }
+
+    private Response register(Map<String, Object> body) {
+        User user = userService.register(string(body, "email"), string(body, "password"),
+                string(body, "name"), User.Role.USER);
+        return new Response(201, toJson(user));
+    }
+
+    private Response login(Map<String, Object> body) {
+        User user = userService.login(string(body, "email"), string(body, "password"));
+        byte[] bytes = new byte[24];
+        random.nextBytes(bytes);
+        String token = HexFormat.of().formatHex(bytes);
+        sessions.put(token, user.getId());
+        return new Response(200, "{\"token\":" + Json.quote(token) + ",\"user\":" + toJson(user) + "}");
+    }
+
+    private Response transactions(String method, String[] path, Map<String, String> query,
+                                  HttpExchange exchange) throws IOException {
+        long userId = authenticate(exchange);
+        if (path.length == 1) {
+            if (method.equals("GET")) {
+                List<Transaction> transactions;
+                if (query.containsKey("q")) {
+                    transactions = search(userId, query);
+                } else if (query.containsKey("limit")) {
+                    long before = query.containsKey("before")
+                            ? longParameter(query, "before")
+                            : TransactionService.FIRST_PAGE;
+                    // Значения вне диапазона int сводятся к заведомо недопустимым, их отклонит сервис
+                    long limit = Math.max(0, Math.min(TransactionService.MAX_PAGE_SIZE + 1L, longParameter(query, "limit")));
+                    transactions = transactionService.getUserTransactionsPage(userId, before, (int) limit);
+                } else if (query.containsKey("from") || query.containsKey("to")) {
+                    transactions = transactionService.getUserTransactions(userId, date(query, "from"), date(query, "to"));
+                } else {
+                    transactions = transactionService.getUserTransactions(userId);
+                }
+                StringBuilder json = new StringBuilder("[");
+                for (Transaction transaction : transactions) {
+                    if (json.length() > 1) {
+                        json.append(',');
+                    }
+                    json.append(toJson(transaction));
+                }
+                return new Response(200, json.append(']').toString());
+            }
+            requireMethod(method, "POST");
+            Map<String, Object> body = readBody(exchange);
+            LocalDate date = body.get("date") == null ? LocalDate.now() : parseDate(string(body, "date"));
+            double amount = number(body, "amount");
+            String category = string(body, "category");
+            String description = optionalString(body, "description");
+            Transaction.TransactionType type = type(body);
+            return withWarnings(201, () -> transactionService.createTransaction(userId, amount, category, date,
+                    description, type));
+        }
+        Transaction own = ownTransaction(userId, path[1]);
+        long id = own.getId();
+        if (path.length != 2) {
+            throw new ApiException(404, "Ресурс не найден");
+        }
+        if (method.equals("GET")) {
+            return new Response(200, toJson(own));
+        }
+        if (method.equals("PUT")) {
+            Map<String, Object> body = readBody(exchange);
+            double amount = number(body, "amount");
+            String category = string(body, "category");
+            String description = optionalString(body, "description");
+            Transaction.TransactionType type = body.get("type") == null ? null : type(body);
+            return withWarnings(200, () -> {
+                if (type == null) {
+                    transactionService.updateTransaction(id, amount, category, description);
+                } else {
+                    transactionService.updateTransaction(id, amount, category, description, type);
+                }
+                return transactionService.getTransaction(id);
+            });
+        }
+        requireMethod(method, "DELETE");
+        transactionService.deleteTransaction(id);
+        return new Response(204, null);
+    }
+
+    /**
+     * Выполняет изменение транзакции и отдаёт её вместе с предупреждениями о бюджетах,
+     * которые вызвал этот запрос.
+     */
+    private Response withWarnings(int status, Supplier<Transaction> change) {
+        if (budgetService == null) {
+            return new Response(status, toJson(change.get()));
+        }
+        BudgetService.Outcome<Transaction> outcome = budgetService.withWarnings(change);
+        String transaction = toJson(outcome.getValue());
+        // Поле дописывается в объект транзакции перед закрывающей скобкой
+        StringBuilder json = new StringBuilder(transaction.length() + 256)
+                .append(transaction, 0, transaction.length() - 1)
+                .append(",\"budgetWarnings\":[");
+        for (BudgetService.BudgetWarning warning : outcome.getWarnings()) {
+            if (json.charAt(json.length() - 1) != '[') {
+                json.append(',');
+            }
+            json.append(toJson(warning));
+        }
+        return new Response(status, json.append("]}").toString());
+    }
+
+    private List<Transaction> search(long userId, Map<String, String> query) {
+        LocalDate from = query.containsKey("from") ? date(query, "from") : null;
+        LocalDate to = query.containsKey("to") ? date(query, "to") : null;
+        Transaction.TransactionType type = null;
+        if (query.containsKey("type")) {
+            try {
+                type = Transaction.TransactionType.valueOf(query.get("type").toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Параметр 'type' должен быть INCOME или EXPENSE");
+            }
+        }
+        long limit = query.containsKey("limit")
+                ? Math.max(0, Math.min(TransactionService.MAX_PAGE_SIZE + 1L, longParameter(query, "limit")))
+                : TransactionService.MAX_PAGE_SIZE;
+        return transactionService.searchTransactions(userId, query.get("q"), from, to, type, (int) limit);
+    }
+
+    private Response balance(long userId, Map<String, String> query) {
+        double balance = query.containsKey("from") || query.containsKey("to")
+                ? transactionService.calculateBalance(userId, date(query, "from"), date(query, "to"))
+                : transactionService.calculateBalance(userId);
+        return new Response(200, "{\"balance\":" + balance + "}");
+    }
+
+    private Response goals(String method, String[] path, HttpExchange exchange) throws IOException {
+        long userId = authenticate(exchange);
+        if (path.length == 1) {
+            if (method.equals("GET")) {
+                StringBuilder json = new StringBuilder("[");
+                for (Goal goal : goalService.getUserGoals(userId)) {
+                    if (json.length() > 1) {
+                        json.append(',');
+                    }
+                    json.append(toJson(goal));
+                }
+                return new Response(200, json.append(']').toString());
+            }
+            requireMethod(method, "POST");
+            Map<String, Object> body = readBody(exchange);
+            Goal goal = goalService.createGoal(userId, string(body, "title"), number(body, "targetAmount"));
+            return new Response(201, toJson(goal));
+        }
+        long id = ownGoal(userId, path[1]).getId();
+        if (path.length == 3 && path[2].equals("deposit")) {
+            requireMethod(method, "POST");
+            goalService.addAmountToGoal(id, number(readBody(exchange), "amount"));
+            return new Response(200, toJson(goalService.getGoal(id)));
+        }
+        if (path.length != 2) {
+            throw new ApiException(404, "Ресурс не найден");
+        }
+        if (method.equals("PUT")) {
+            Map<String, Object> body = readBody(exchange);
+            goalService.updateGoal(id, string(body, "title"), number(body, "targetAmount"));
+            return new Response(200, toJson(goalService.getGoal(id)));
+        }
+        requireMethod(method, "DELETE");
+        goalService.deleteGoal(id);
+        return new Response(204, null);
+    }
+
+    private long authenticate(HttpExchange exchange) {
+        String token = token(exchange);
+        Long userId = token == null ? null : sessions.get(token);
+        if (userId == null) {
+            throw new ApiException(401, "Требуется вход");
+        }
+        return userId;
+    }
+
+    private static String token(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            return null;
+        }
+        return header.substring("Bearer ".length()).trim();
+    }
+
+    private Transaction ownTransaction(long userId, String rawId) {
+        Transaction transaction = transactionService.getTransaction(id(rawId));
+        if (transaction == null || transaction.getUserId() != userId) {
+            throw new ApiException(404, "Транзакция не найдена");
+        }
+        return transaction;
+    }
+
+    private Goal ownGoal(long userId, String rawId) {
+        Goal goal = goalService.getGoal(id(rawId));
+        if (goal == null || goal.getUserId() != userId) {
+            throw new ApiException(404, "Цель не найдена!");
+        }
+        return goal;
+    }
+
+    private static void requireMethod(String actual, String expected) {
+        if (!actual.equals(expected)) {
+            throw new ApiException(405, "Метод не поддерживается");
+        }
+    }
+
+    private static Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) {
+                throw new ApiException(413, "Слишком большой запрос");
+            }
+            return Json.parseObject(new String(bytes, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            query.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static String string(Map<String, Object> body, String field) {
+        Object value = body.get(field);
+        if (!(value instanceof String)) {
+            throw new IllegalArgumentException("Поле '" + field + "' должно быть строкой");
+        }
+        return (String) value;
+    }
+
+    private static String optionalString(Map<String, Object> body, String field) {
+        return body.get(field) == null ? null : string(body, field);
+    }
+
+    private static double number(Map<String, Object> body, String field) {
+        Object value = body.get(field);
+        if (!(value instanceof Double) || !Double.isFinite((Double) value)) {
+            throw new IllegalArgumentException("Поле '" + field + "' должно быть числом");
+        }
+        return (Double) value;
+    }
+
+    private static Transaction.TransactionType type(Map<String, Object> body) {
+        try {
+            return Transaction.TransactionType.valueOf(string(body, "type").toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Поле 'type' должно быть INCOME или EXPENSE");
+        }
+    }
+
+    private static long longParameter(Map<String, String> query, String name) {
+        String value = query.get(name);
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Параметр '" + name + "' должен быть целым числом");
+        }
+    }
+
+    private static LocalDate date(Map<String, String> query, String name) {
+        String value = query.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Не указан параметр '" + name + "'");
+        }
+        return parseDate(value);
+    }
+
+    private static LocalDate parseDate(String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Некорректная дата '" + value + "', ожидается ГГГГ-ММ-ДД");
+        }
+    }
+
+    private static long id(String rawId) {
+        try {
+            return Long.parseLong(rawId);
+        } catch (NumberFormatException e) {
+            throw new ApiException(404, "Ресурс не найден");
+        }
+    }
+
+    private static String toJson(User user) {
+        return "{\"id\":" + user.getId()
+                + ",\"email\":" + Json.quote(user.getEmail())
+                + ",\"name\":" + Json.quote(user.getName())
+                + ",\"role\":" + Json.quote(String.valueOf(user.getRole())) + "}";
+    }
+
+    private static String toJson(Transaction transaction) {
+        return "{\"id\":" + transaction.getId()
+                + ",\"amount\":" + transaction.getAmount()
+                + ",\"category\":" + Json.quote(transaction.getCategory())
+                + ",\"date\":" + Json.quote(transaction.getDate() == null ? null : transaction.getDate().toString())
+                + ",\"description\":" + Json.quote(transaction.getDescription())
+                + ",\"type\":" + Json.quote(String.valueOf(transaction.getType())) + "}";
+    }
+
+    private static String toJson(Goal goal) {
+        return "{\"id\":" + goal.getId()
+                + ",\"title\":" + Json.quote(goal.getTitle())
+                + ",\"targetAmount\":" + goal.getTargetAmount()
+                + ",\"currentAmount\":" + goal.getCurrentAmount() + "}";
+    }
+
+    private static String toJson(BudgetService.BudgetWarning warning) {
+        return "{\"category\":" + Json.quote(warning.getCategory())
+                + ",\"month\":" + Json.quote(warning.getMonth().toString())
+                + ",\"limit\":" + warning.getLimit()
+                + ",\"spent\":" + warning.getSpent()
+                + ",\"thresholdPercent\":" + warning.getThresholdPercent()
+                + ",\"message\":" + Json.quote(warning.getMessage()) + "}";
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + Json.quote(message) + "}";
+    }
+
+    /**
+     * Ответ ресурса: код и тело (null - без тела).
+     */
+    private static final class Response {
+        private final int status;
+        private final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    /**
+     * Ошибка, которая отдаётся клиенту с указанным HTTP-кодом.
+     */
+    private static final class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.yourorganization.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Расчёт баланса пользователя, полного или за период.
+ */
+@Name("com.yourorganization.Balance")
+@Label("Расчёт баланса")
+@Category({"Личные финансы", "Транзакции"})
+@Threshold("1 ms")
+@StackTrace(false)
+public class BalanceEvent extends Event {
+
+    @Label("Пользователь")
+    public long userId;
+
+    @Label("Дней в периоде")
+    @Description("Длина периода в днях; 0 для баланса за всё время")
+    public long periodDays;
+
+    @Label("Строк")
+    @Description("Число транзакций, вошедших в баланс; считается только для записываемых событий")
+    public int rows;
+}
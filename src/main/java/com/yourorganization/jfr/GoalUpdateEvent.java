@@ -0,0 +1,34 @@
+package com.yourorganization.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Изменение финансовой цели: создание, пополнение, редактирование, удаление.
+ */
+@Name("com.yourorganization.GoalUpdate")
+@Label("Изменение цели")
+@Category({"Личные финансы", "Цели"})
+@Threshold("1 ms")
+@StackTrace(false)
+public class GoalUpdateEvent extends Event {
+
+    @Label("Операция")
+    @Description("create, deposit, update или delete")
+    public String operation;
+
+    @Label("Пользователь")
+    @Description("Идентификатор владельца цели; 0, если цель не найдена")
+    public long userId;
+
+    @Label("Цель")
+    public long goalId;
+
+    @Label("Успешно")
+    public boolean success;
+}
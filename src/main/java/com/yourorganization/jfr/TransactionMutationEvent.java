@@ -0,0 +1,41 @@
+package com.yourorganization.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Изменение транзакций: создание, обновление, удаление (в том числе пачкой).
+ * <p>
+ * Как и остальные события пакета, создаётся вокруг вызова сервиса по схеме
+ * {@code begin()} / {@code commit()}. Пока запись JFR не ведётся, {@code commit()}
+ * ничего не делает, а объект события устраняется JIT-компилятором, поэтому
+ * накладных расходов нет. Порог отсекает быстрые вызовы; его можно изменить
+ * в файле настроек записи ({@code .jfc}).
+ */
+@Name("com.yourorganization.TransactionMutation")
+@Label("Изменение транзакций")
+@Category({"Личные финансы", "Транзакции"})
+@Threshold("1 ms")
+@StackTrace(false)
+public class TransactionMutationEvent extends Event {
+
+    @Label("Операция")
+    @Description("create, createBatch, update, delete или deleteBatch")
+    public String operation;
+
+    @Label("Пользователь")
+    @Description("Идентификатор пользователя; 0, если пачка затрагивает нескольких пользователей")
+    public long userId;
+
+    @Label("Строк")
+    @Description("Число затронутых транзакций")
+    public int rows;
+
+    @Label("Успешно")
+    public boolean success;
+}
@@ -0,0 +1,31 @@
+package com.yourorganization.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Чтение транзакций пользователя: полный список, период или страница.
+ */
+@Name("com.yourorganization.TransactionQuery")
+@Label("Чтение транзакций")
+@Category({"Личные финансы", "Транзакции"})
+@Threshold("5 ms")
+@StackTrace(false)
+public class TransactionQueryEvent extends Event {
+
+    @Label("Запрос")
+    @Description("all, period или page")
+    public String query;
+
+    @Label("Пользователь")
+    public long userId;
+
+    @Label("Строк")
+    @Description("Число возвращённых транзакций")
+    public int rows;
+}
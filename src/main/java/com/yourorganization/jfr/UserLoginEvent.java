@@ -0,0 +1,27 @@
+package com.yourorganization.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Вход пользователя ({@code UserService.login}).
+ */
+@Name("com.yourorganization.UserLogin")
+@Label("Вход пользователя")
+@Category({"Личные финансы", "Пользователи"})
+@Threshold("1 ms")
+@StackTrace(false)
+public class UserLoginEvent extends Event {
+
+    @Label("Пользователь")
+    @Description("Идентификатор пользователя; 0, если вход не удался")
+    public long userId;
+
+    @Label("Успешно")
+    public boolean success;
+}
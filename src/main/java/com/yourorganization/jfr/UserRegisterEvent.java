@@ -0,0 +1,27 @@
+package com.yourorganization.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Регистрация пользователя ({@code UserService.register}).
+ */
+@Name("com.yourorganization.UserRegister")
+@Label("Регистрация пользователя")
+@Category({"Личные финансы", "Пользователи"})
+@Threshold("1 ms")
+@StackTrace(false)
+public class UserRegisterEvent extends Event {
+
+    @Label("Пользователь")
+    @Description("Идентификатор нового пользователя; 0, если регистрация не удалась")
+    public long userId;
+
+    @Label("Успешно")
+    public boolean success;
+}
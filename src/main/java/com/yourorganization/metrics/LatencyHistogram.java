@@ -0,0 +1,128 @@
+package com.yourorganization.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма задержек с фиксированными корзинами, без блокировок.
+ * <p>
+ * Корзины логарифмически-линейные: каждый интервал {@code [2^k, 2^(k+1))} наносекунд
+ * делится на {@value #SUB_BUCKETS} равных частей, так что относительная погрешность
+ * процентиля не превышает 12,5%. Значения до 16 нс учитываются точно, значения
+ * больше {@code 2^}{@value #MAX_EXPONENT} нс (около 2,4 часа) попадают в последнюю корзину.
+ * Запись - одно атомарное приращение счётчика корзины; память фиксирована
+ * и не зависит от числа измерений.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 43;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 1) * SUB_BUCKETS + SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Учитывает одно измерение.
+     *
+     * @param nanos длительность в наносекундах; отрицательные значения считаются нулём
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // Повтор: максимум успел измениться в другом потоке
+        }
+    }
+
+    /**
+     * Возвращает число измерений.
+     *
+     * @return число измерений
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Возвращает среднюю длительность.
+     *
+     * @return среднее в наносекундах; 0, если измерений нет
+     */
+    public double getMeanNanos() {
+        long n = count.sum();
+        return n == 0 ? 0.0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Возвращает наибольшую длительность.
+     *
+     * @return максимум в наносекундах
+     */
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    /**
+     * Возвращает процентиль - верхнюю границу корзины, в которую он попадает
+     * (но не больше наблюдавшегося максимума). Во время конкурентной записи
+     * результат приблизителен.
+     *
+     * @param percentile процентиль от 0 до 100
+     * @return длительность в наносекундах; 0, если измерений нет
+     * @throws IllegalArgumentException если процентиль вне диапазона
+     */
+    public long getPercentileNanos(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Процентиль должен быть от 0 до 100");
+        }
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                long upper = i == BUCKETS - 1 ? Long.MAX_VALUE : lowerBound(i + 1) - 1;
+                return Math.min(upper, max.get());
+            }
+        }
+        return max.get();
+    }
+
+    static int bucketOf(long nanos) {
+        if (nanos < 2 * SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS) * SUB_BUCKETS + SUB_BUCKETS + sub;
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int k = bucket - SUB_BUCKETS;
+        int exponent = k / SUB_BUCKETS + SUB_BITS;
+        int sub = k % SUB_BUCKETS;
+        return (1L << exponent) | ((long) sub << (exponent - SUB_BITS));
+    }
+}
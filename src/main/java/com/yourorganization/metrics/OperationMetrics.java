@@ -0,0 +1,124 @@
+package com.yourorganization.metrics;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Счётчики и гистограмма задержек одной операции сервиса.
+ * Типичное использование:
+ * <pre>{@code
+ * return metrics.time(() -> db.findById(id));
+ * }</pre>
+ * Если вызов нельзя обернуть в лямбду, длительность и ошибки учитываются
+ * вручную через {@link #record} и {@link #failed}.
+ */
+public final class OperationMetrics implements OperationMetricsMXBean {
+
+    /**
+     * Имя сервиса, например {@code UserService}.
+     */
+    @Getter
+    private final String service;
+    /**
+     * Имя операции, например {@code login}.
+     */
+    @Getter
+    private final String operation;
+    @Getter
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+
+    OperationMetrics(String service, String operation) {
+        this.service = service;
+        this.operation = operation;
+    }
+
+    /**
+     * Выполняет вызов, учитывая его длительность и, если он завершился исключением, ошибку.
+     *
+     * @param call вызов
+     * @param <T>  тип результата
+     * @return результат вызова
+     */
+    public <T> T time(Supplier<T> call) {
+        long started = System.nanoTime();
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            failed();
+            throw e;
+        } finally {
+            record(started);
+        }
+    }
+
+    /**
+     * Выполняет вызов без результата, учитывая его длительность и ошибки.
+     *
+     * @param call вызов
+     */
+    public void time(Runnable call) {
+        long started = System.nanoTime();
+        try {
+            call.run();
+        } catch (RuntimeException e) {
+            failed();
+            throw e;
+        } finally {
+            record(started);
+        }
+    }
+
+    /**
+     * Учитывает завершённый вызов.
+     *
+     * @param startedNanos значение {@link System#nanoTime()} в начале вызова
+     */
+    public void record(long startedNanos) {
+        histogram.record(System.nanoTime() - startedNanos);
+    }
+
+    /**
+     * Учитывает вызов, завершившийся исключением. Длительность записывается отдельно через {@link #record}.
+     */
+    public void failed() {
+        errors.increment();
+    }
+
+    @Override
+    public long getCalls() {
+        return histogram.getCount();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return histogram.getMeanNanos() / 1000.0;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return histogram.getPercentileNanos(50) / 1000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return histogram.getPercentileNanos(99) / 1000.0;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return histogram.getPercentileNanos(99.9) / 1000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return histogram.getMaxNanos() / 1000.0;
+    }
+}
@@ -0,0 +1,42 @@
+package com.yourorganization.metrics;
+
+/**
+ * JMX-представление метрик одной операции сервиса. Длительности - в микросекундах.
+ */
+public interface OperationMetricsMXBean {
+
+    /**
+     * @return число вызовов (включая завершившиеся ошибкой)
+     */
+    long getCalls();
+
+    /**
+     * @return число вызовов, завершившихся исключением
+     */
+    long getErrors();
+
+    /**
+     * @return средняя длительность
+     */
+    double getMeanMicros();
+
+    /**
+     * @return медиана длительности
+     */
+    double getP50Micros();
+
+    /**
+     * @return 99-й процентиль длительности
+     */
+    double getP99Micros();
+
+    /**
+     * @return 99,9-й процентиль длительности
+     */
+    double getP999Micros();
+
+    /**
+     * @return наибольшая длительность
+     */
+    double getMaxMicros();
+}
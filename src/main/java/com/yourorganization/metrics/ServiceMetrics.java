@@ -0,0 +1,83 @@
+package com.yourorganization.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Реестр метрик операций сервисного слоя. Сервисы получают объекты
+ * {@link OperationMetrics} один раз при создании и дальше пишут в них без поиска
+ * по имени. Сервисы, созданные без явного реестра, пишут в {@link #global()}.
+ */
+public final class ServiceMetrics {
+
+    /**
+     * Домен JMX-имён метрик.
+     */
+    public static final String JMX_DOMAIN = "com.yourorganization";
+
+    private static final ServiceMetrics GLOBAL = new ServiceMetrics();
+
+    private final ConcurrentMap<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+
+    /**
+     * Возвращает общий реестр приложения.
+     *
+     * @return общий реестр
+     */
+    public static ServiceMetrics global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Возвращает метрики операции, создавая их при первом обращении.
+     *
+     * @param service   имя сервиса
+     * @param operation имя операции
+     * @return метрики операции
+     */
+    public OperationMetrics operation(String service, String operation) {
+        return operations.computeIfAbsent(service + '.' + operation, key -> new OperationMetrics(service, operation));
+    }
+
+    /**
+     * Возвращает метрики всех операций, упорядоченные по сервису и имени операции.
+     *
+     * @return список метрик
+     */
+    public List<OperationMetrics> getOperations() {
+        List<OperationMetrics> result = new ArrayList<>(operations.values());
+        result.sort(Comparator.comparing(OperationMetrics::getService).thenComparing(OperationMetrics::getOperation));
+        return result;
+    }
+
+    /**
+     * Регистрирует метрики всех известных операций как MBean с именами
+     * {@code com.yourorganization:type=ServiceMetrics,service=<сервис>,operation=<операция>}.
+     * Уже зарегистрированные операции пропускаются, поэтому метод можно вызывать повторно.
+     *
+     * @param server сервер MBean, обычно {@link java.lang.management.ManagementFactory#getPlatformMBeanServer()}
+     * @throws IllegalStateException если регистрация не удалась
+     */
+    public void registerMBeans(MBeanServer server) {
+        for (OperationMetrics metrics : getOperations()) {
+            try {
+                ObjectName name = new ObjectName(JMX_DOMAIN + ":type=ServiceMetrics,service="
+                        + metrics.getService() + ",operation=" + metrics.getOperation());
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(metrics, name);
+                }
+            } catch (InstanceAlreadyExistsException e) {
+                // Зарегистрировано параллельным вызовом
+            } catch (JMException e) {
+                throw new IllegalStateException("Не удалось зарегистрировать метрики в JMX: " + e.getMessage(), e);
+            }
+        }
+    }
+}
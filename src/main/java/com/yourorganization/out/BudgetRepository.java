@@ -0,0 +1,35 @@
+package com.yourorganization.out;
+
+import com.yourorganization.domain.Budget;
+
+import java.util.Collection;
+
+/**
+ * Хранилище месячных бюджетов, с которым работает {@link com.yourorganization.service.BudgetService}.
+ * Реализации обязаны быть потокобезопасными.
+ */
+public interface BudgetRepository {
+
+    /**
+     * Сохраняет (или заменяет) бюджет категории пользователя.
+     *
+     * @param budget бюджет
+     * @return тот же объект {@link Budget}
+     */
+    Budget saveBudget(Budget budget);
+
+    /**
+     * Возвращает все сохранённые бюджеты.
+     *
+     * @return коллекция {@link Budget}
+     */
+    Collection<Budget> findAllBudgets();
+
+    /**
+     * Удаляет бюджет категории; отсутствующий бюджет игнорируется.
+     *
+     * @param userId   идентификатор пользователя
+     * @param category категория расходов
+     */
+    void deleteBudget(long userId, String category);
+}
@@ -0,0 +1,94 @@
+package com.yourorganization.out;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Периодически сохраняет снимок хранилища ({@link SnapshotFile}) и после
+ * каждого снимка усекает журнал, чтобы старт не требовал проигрывания
+ * всей истории изменений.
+ * <p>
+ * На время снимка изменения хранилища приостанавливаются
+ * ({@link InMemoryDatabase#runExclusively}), поэтому снимок согласован,
+ * и ни одна запись журнала не теряется при его усечении.
+ */
+public class Checkpointer implements Closeable {
+
+    private final InMemoryDatabase db;
+    private final WriteAheadLog log;
+    private final Path snapshotPath;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Создаёт и запускает периодическое сохранение снимков.
+     *
+     * @param db             хранилище
+     * @param log            журнал, который усекается после снимка, или null
+     * @param snapshotPath   путь к файлу снимка
+     * @param intervalMillis интервал между снимками, мс
+     */
+    public Checkpointer(InMemoryDatabase db, WriteAheadLog log, Path snapshotPath, long intervalMillis) {
+        this.db = db;
+        this.log = log;
+        this.snapshotPath = snapshotPath;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "checkpointer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::checkpointQuietly,
+                intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Сохраняет снимок и усекает журнал.
+     *
+     * @throws IOException при ошибке записи снимка или усечения журнала
+     */
+    public void checkpoint() throws IOException {
+        try {
+            db.runExclusively(() -> {
+                try {
+                    SnapshotFile.write(db, snapshotPath);
+                    if (log != null) {
+                        log.truncate();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Останавливает расписание и сохраняет финальный снимок.
+     *
+     * @throws IOException при ошибке записи снимка
+     */
+    @Override
+    public void close() throws IOException {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        checkpoint();
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (IOException e) {
+            // Журнал не усечён, данные не потеряны; попробуем в следующий раз
+            System.err.println("Не удалось сохранить снимок: " + e.getMessage());
+        }
+    }
+}
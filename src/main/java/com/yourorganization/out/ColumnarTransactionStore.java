@@ -0,0 +1,128 @@
+package com.yourorganization.out;
+
+import com.yourorganization.domain.Transaction;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Колоночное хранилище транзакций на примитивных массивах.
+ * <p>
+ * Каждое поле транзакции лежит в своём массиве (id - {@code long[]}, сумма - {@code double[]},
+ * дата - номер дня эпохи в {@code int[]}, тип - {@code byte[]}), категории кодируются
+ * словарём в {@code int}. Строка таблицы - это индекс (слот) во всех массивах;
+ * освободившиеся при удалении слоты переиспользуются. Поиск слота по id идёт через
+ * {@link LongIntHashMap} без упаковки ключей.
+ * <p>
+ * Объекты {@link Transaction} создаются только при чтении и являются копиями:
+ * изменять их нужно через {@link #update}. Баланс и агрегаты считаются проходом
+ * по массивам без выделения памяти. Доступ защищён {@link ReentrantReadWriteLock}.
+ */
+public class ColumnarTransactionStore extends SlotTransactionStore {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private long[] userIds = new long[INITIAL_CAPACITY];
+    private double[] amounts = new double[INITIAL_CAPACITY];
+    private int[] epochDays = new int[INITIAL_CAPACITY];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private int[] categoryCodes = new int[INITIAL_CAPACITY];
+    private String[] descriptions = new String[INITIAL_CAPACITY];
+    private int[] userPositions = new int[INITIAL_CAPACITY];
+
+    /**
+     * Создаёт пустое хранилище.
+     */
+    public ColumnarTransactionStore() {
+        super(INITIAL_CAPACITY);
+    }
+
+    @Override
+    int capacity() {
+        return ids.length;
+    }
+
+    @Override
+    void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        userIds = Arrays.copyOf(userIds, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        types = Arrays.copyOf(types, capacity);
+        categoryCodes = Arrays.copyOf(categoryCodes, capacity);
+        descriptions = Arrays.copyOf(descriptions, capacity);
+        userPositions = Arrays.copyOf(userPositions, capacity);
+    }
+
+    @Override
+    long id(int slot) {
+        return ids[slot];
+    }
+
+    @Override
+    long userId(int slot) {
+        return userIds[slot];
+    }
+
+    @Override
+    double amount(int slot) {
+        return amounts[slot];
+    }
+
+    @Override
+    int epochDay(int slot) {
+        return epochDays[slot];
+    }
+
+    @Override
+    byte type(int slot) {
+        return types[slot];
+    }
+
+    @Override
+    int categoryCode(int slot) {
+        return categoryCodes[slot];
+    }
+
+    @Override
+    String description(int slot) {
+        return descriptions[slot];
+    }
+
+    @Override
+    int userPosition(int slot) {
+        return userPositions[slot];
+    }
+
+    @Override
+    void setUserPosition(int slot, int position) {
+        userPositions[slot] = position;
+    }
+
+    @Override
+    void write(int slot, Transaction transaction, int categoryCode) {
+        ids[slot] = transaction.getId();
+        userIds[slot] = transaction.getUserId();
+        amounts[slot] = transaction.getAmount();
+        epochDays[slot] = encodeDate(transaction.getDate());
+        types[slot] = encodeType(transaction.getType());
+        categoryCodes[slot] = categoryCode;
+        descriptions[slot] = transaction.getDescription();
+    }
+
+    @Override
+    void rewrite(int slot, double amount, int categoryCode, String description, byte type) {
+        amounts[slot] = amount;
+        categoryCodes[slot] = categoryCode;
+        descriptions[slot] = description;
+        types[slot] = type;
+    }
+
+    @Override
+    void clear(int slot) {
+        ids[slot] = 0;
+        descriptions[slot] = null;
+    }
+}
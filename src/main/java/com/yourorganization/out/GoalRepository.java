@@ -0,0 +1,59 @@
+package com.yourorganization.out;
+
+import com.yourorganization.domain.Goal;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Хранилище финансовых целей, с которым работает {@link com.yourorganization.service.GoalService}.
+ * Реализации обязаны быть потокобезопасными.
+ */
+public interface GoalRepository {
+
+    /**
+     * Сохраняет (или обновляет) финансовую цель.
+     *
+     * @param goal объект финансовой цели
+     * @return тот же объект {@link Goal}
+     */
+    Goal saveGoal(Goal goal);
+
+    /**
+     * Сохраняет пачку финансовых целей.
+     *
+     * @param goals цели для сохранения
+     * @return тот же список целей
+     */
+    List<Goal> saveGoals(List<Goal> goals);
+
+    /**
+     * Находит финансовую цель по идентификатору.
+     *
+     * @param id идентификатор цели
+     * @return объект {@link Goal} или null, если не найден
+     */
+    Goal findGoalById(long id);
+
+    /**
+     * Возвращает все финансовые цели.
+     *
+     * @return коллекция {@link Goal}
+     */
+    Collection<Goal> findAllGoals();
+
+    /**
+     * Возвращает цели пользователя, упорядоченные по id.
+     *
+     * @param userId идентификатор пользователя
+     * @return коллекция {@link Goal}
+     */
+    Collection<Goal> findGoalsByUser(long userId);
+
+    /**
+     * Удаляет финансовую цель; отсутствующий идентификатор игнорируется.
+     *
+     * @param id идентификатор цели
+     */
+    void deleteGoal(long id);
+}
@@ -0,0 +1,403 @@
+package com.yourorganization.out;
+
+import com.yourorganization.domain.Transaction;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Хранилище транзакций по умолчанию: объекты {@link Transaction} в
+ * {@link ConcurrentHashMap} плюс вторичный индекс по пользователю
+ * с инкрементально поддерживаемым балансом и упорядоченным индексом по дате,
+ * так что выборка за период стоит O(log n + k).
+ * <p>
+ * Изменения данных одного пользователя сериализуются блокировкой его записи
+ * во вторичном индексе (блокировки распределены по корзинам map), поэтому
+ * таблица и индекс не расходятся.
+ */
+public class HashTransactionStore implements TransactionStore {
+
+    private final ConcurrentMap<Long, Transaction> transactions = new ConcurrentHashMap<>();
+
+    /**
+     * Вторичный индекс: userId -> транзакции пользователя вместе с его балансом.
+     */
+    private final ConcurrentMap<Long, UserTransactions> transactionsByUser = new ConcurrentHashMap<>();
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * При замене баланс пересчитывается инкрементально. Изменять уже сохранённую
+     * транзакцию следует через {@link #update}, иначе прежние значения суммы и типа
+     * будут потеряны для баланса.
+     */
+    @Override
+    public Transaction save(Transaction transaction) {
+        Transaction[] movedFrom = new Transaction[1];
+        transactionsByUser.compute(transaction.getUserId(), (userId, owner) -> {
+            if (owner == null) {
+                owner = new UserTransactions();
+            }
+            Transaction previous = transactions.put(transaction.getId(), transaction);
+            if (previous != null) {
+                if (previous.getUserId() == userId) {
+                    owner.remove(previous);
+                } else {
+                    movedFrom[0] = previous;
+                }
+            }
+            owner.add(transaction);
+            return owner;
+        });
+        if (movedFrom[0] != null) {
+            removeFromPreviousOwner(movedFrom[0]);
+        }
+        return transaction;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Пачка группируется по пользователям: запись пользователя во вторичном индексе
+     * блокируется один раз, а его баланс корректируется одной операцией.
+     */
+    @Override
+    public void saveAll(Collection<Transaction> batch) {
+        List<Transaction> movedFrom = new ArrayList<>();
+        for (Map.Entry<Long, List<Transaction>> group : groupByUser(batch).entrySet()) {
+            transactionsByUser.compute(group.getKey(), (userId, owner) -> {
+                if (owner == null) {
+                    owner = new UserTransactions();
+                }
+                for (Transaction transaction : group.getValue()) {
+                    Transaction previous = transactions.put(transaction.getId(), transaction);
+                    if (previous != null) {
+                        if (previous.getUserId() == userId) {
+                            owner.remove(previous);
+                        } else {
+                            movedFrom.add(previous);
+                        }
+                    }
+                }
+                owner.addAll(group.getValue());
+                return owner;
+            });
+        }
+        for (Transaction previous : movedFrom) {
+            removeFromPreviousOwner(previous);
+        }
+    }
+
+    @Override
+    public Transaction update(long id, double amount, String category,
+                              String description, Transaction.TransactionType type) {
+        Transaction transaction = transactions.get(id);
+        if (transaction == null) {
+            return null;
+        }
+        UserTransactions updated = transactionsByUser.computeIfPresent(transaction.getUserId(), (userId, owner) -> {
+            if (transactions.get(id) != transaction) {
+                // Транзакцию успели удалить или заменить
+                return owner;
+            }
+            owner.unapply(transaction);
+            transaction.setAmount(amount);
+            transaction.setCategory(category);
+            transaction.setDescription(description);
+            transaction.setType(type);
+            owner.apply(transaction);
+            return owner;
+        });
+        return updated != null && transactions.get(id) == transaction ? transaction : null;
+    }
+
+    @Override
+    public Transaction findById(long id) {
+        return transactions.get(id);
+    }
+
+    @Override
+    public Collection<Transaction> findAll() {
+        return transactions.values();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Возвращает неизменяемое представление индекса без копирования.
+     */
+    @Override
+    public Collection<Transaction> findByUser(long userId) {
+        UserTransactions userTransactions = transactionsByUser.get(userId);
+        if (userTransactions == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableCollection(userTransactions.byId.values());
+    }
+
+    @Override
+    public Collection<Transaction> findByUser(long userId, LocalDate from, LocalDate to) {
+        UserTransactions userTransactions = transactionsByUser.get(userId);
+        if (userTransactions == null) {
+            return Collections.emptyList();
+        }
+        List<Transaction> result = new ArrayList<>();
+        for (Map<Long, Transaction> day : userTransactions.period(from, to).values()) {
+            result.addAll(day.values());
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Обходит индекс по id в обратном порядке от курсора: O(log n + limit).
+     */
+    @Override
+    public List<Transaction> findPageByUser(long userId, long beforeId, int limit) {
+        UserTransactions userTransactions = transactionsByUser.get(userId);
+        if (userTransactions == null) {
+            return new ArrayList<>();
+        }
+        List<Transaction> page = new ArrayList<>(Math.min(limit, 1024));
+        for (Transaction transaction : userTransactions.byId.headMap(beforeId, false).descendingMap().values()) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(transaction);
+        }
+        return page;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Выполняется за O(1): суммы поддерживаются при каждом сохранении,
+     * изменении и удалении транзакции.
+     */
+    @Override
+    public double balance(long userId) {
+        UserTransactions userTransactions = transactionsByUser.get(userId);
+        return userTransactions == null ? 0.0 : userTransactions.balance();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Проходит только по дням периода в индексе по дате: O(log n + k).
+     */
+    @Override
+    public double balance(long userId, LocalDate from, LocalDate to) {
+        UserTransactions userTransactions = transactionsByUser.get(userId);
+        if (userTransactions == null) {
+            return 0.0;
+        }
+        double balance = 0.0;
+        for (Map<Long, Transaction> day : userTransactions.period(from, to).values()) {
+            for (Transaction transaction : day.values()) {
+                if (transaction.getType() == Transaction.TransactionType.INCOME) {
+                    balance += transaction.getAmount();
+                } else if (transaction.getType() == Transaction.TransactionType.EXPENSE) {
+                    balance -= transaction.getAmount();
+                }
+            }
+        }
+        return balance;
+    }
+
+    @Override
+    public int count(long userId) {
+        UserTransactions userTransactions = transactionsByUser.get(userId);
+        return userTransactions == null ? 0 : userTransactions.byId.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Складывает размеры дней периода в индексе по дате.
+     */
+    @Override
+    public int count(long userId, LocalDate from, LocalDate to) {
+        UserTransactions userTransactions = transactionsByUser.get(userId);
+        if (userTransactions == null) {
+            return 0;
+        }
+        int count = 0;
+        for (Map<Long, Transaction> day : userTransactions.period(from, to).values()) {
+            count += day.size();
+        }
+        return count;
+    }
+
+    @Override
+    public void delete(long id) {
+        Transaction existing = transactions.get(id);
+        if (existing == null) {
+            return;
+        }
+        transactionsByUser.computeIfPresent(existing.getUserId(), (userId, owner) -> {
+            Transaction removed = transactions.remove(id);
+            if (removed != null) {
+                owner.remove(removed);
+            }
+            return owner.byId.isEmpty() ? null : owner;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Запись каждого затронутого пользователя во вторичном индексе блокируется один раз.
+     */
+    @Override
+    public void deleteAll(long[] ids) {
+        List<Transaction> existing = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            Transaction transaction = transactions.get(id);
+            if (transaction != null) {
+                existing.add(transaction);
+            }
+        }
+        for (Map.Entry<Long, List<Transaction>> group : groupByUser(existing).entrySet()) {
+            transactionsByUser.computeIfPresent(group.getKey(), (userId, owner) -> {
+                for (Transaction transaction : group.getValue()) {
+                    Transaction removed = transactions.remove(transaction.getId());
+                    if (removed != null) {
+                        owner.remove(removed);
+                    }
+                }
+                return owner.byId.isEmpty() ? null : owner;
+            });
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Раздел пользователя во вторичном индексе удаляется целиком, а из общей
+     * таблицы убираются только его строки: O(число транзакций пользователя).
+     */
+    @Override
+    public void deleteByUser(long userId) {
+        transactionsByUser.computeIfPresent(userId, (id, owner) -> {
+            for (Long transactionId : owner.byId.keySet()) {
+                transactions.remove(transactionId);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Убирает заменённую транзакцию из индекса прежнего владельца, если замена
+     * сменила пользователя. Вызывается вне compute нового владельца: вложенный
+     * compute в {@link ConcurrentHashMap} запрещён.
+     */
+    private void removeFromPreviousOwner(Transaction previous) {
+        transactionsByUser.computeIfPresent(previous.getUserId(), (userId, owner) -> {
+            owner.remove(previous);
+            return owner.byId.isEmpty() ? null : owner;
+        });
+    }
+
+    private static Map<Long, List<Transaction>> groupByUser(Collection<Transaction> transactions) {
+        Map<Long, List<Transaction>> groups = new HashMap<>();
+        for (Transaction transaction : transactions) {
+            groups.computeIfAbsent(transaction.getUserId(), userId -> new ArrayList<>()).add(transaction);
+        }
+        return groups;
+    }
+
+    /**
+     * Транзакции одного пользователя (id -> транзакция и дата -> id -> транзакция)
+     * и накопленные суммы доходов и расходов по ним. Изменения выполняются под блокировкой записи
+     * пользователя в {@link #transactionsByUser}; суммы дополнительно защищены
+     * монитором объекта, чтобы баланс читался согласованно без этой блокировки.
+     */
+    private static final class UserTransactions {
+        private final ConcurrentNavigableMap<Long, Transaction> byId = new ConcurrentSkipListMap<>();
+        private final NavigableMap<LocalDate, Map<Long, Transaction>> byDate = new ConcurrentSkipListMap<>();
+        private double income;
+        private double expense;
+
+        void add(Transaction transaction) {
+            byId.put(transaction.getId(), transaction);
+            if (transaction.getDate() != null) {
+                byDate.computeIfAbsent(transaction.getDate(), date -> new ConcurrentSkipListMap<>())
+                        .put(transaction.getId(), transaction);
+            }
+            apply(transaction);
+        }
+
+        void addAll(List<Transaction> transactions) {
+            double incomeDelta = 0.0;
+            double expenseDelta = 0.0;
+            for (Transaction transaction : transactions) {
+                byId.put(transaction.getId(), transaction);
+                if (transaction.getDate() != null) {
+                    byDate.computeIfAbsent(transaction.getDate(), date -> new ConcurrentSkipListMap<>())
+                            .put(transaction.getId(), transaction);
+                }
+                if (transaction.getType() == Transaction.TransactionType.INCOME) {
+                    incomeDelta += transaction.getAmount();
+                } else if (transaction.getType() == Transaction.TransactionType.EXPENSE) {
+                    expenseDelta += transaction.getAmount();
+                }
+            }
+            adjust(incomeDelta, expenseDelta);
+        }
+
+        void remove(Transaction transaction) {
+            if (byId.remove(transaction.getId()) != null) {
+                if (transaction.getDate() != null) {
+                    Map<Long, Transaction> day = byDate.get(transaction.getDate());
+                    if (day != null) {
+                        day.remove(transaction.getId());
+                        if (day.isEmpty()) {
+                            byDate.remove(transaction.getDate());
+                        }
+                    }
+                }
+                unapply(transaction);
+            }
+        }
+
+        NavigableMap<LocalDate, Map<Long, Transaction>> period(LocalDate from, LocalDate to) {
+            return byDate.subMap(from, true, to, true);
+        }
+
+        synchronized void apply(Transaction transaction) {
+            if (transaction.getType() == Transaction.TransactionType.INCOME) {
+                income += transaction.getAmount();
+            } else if (transaction.getType() == Transaction.TransactionType.EXPENSE) {
+                expense += transaction.getAmount();
+            }
+        }
+
+        synchronized void unapply(Transaction transaction) {
+            if (transaction.getType() == Transaction.TransactionType.INCOME) {
+                income -= transaction.getAmount();
+            } else if (transaction.getType() == Transaction.TransactionType.EXPENSE) {
+                expense -= transaction.getAmount();
+            }
+        }
+
+        synchronized void adjust(double incomeDelta, double expenseDelta) {
+            income += incomeDelta;
+            expense += expenseDelta;
+        }
+
+        synchronized double balance() {
+            return income - expense;
+        }
+    }
+}
@@ -1,57 +1,404 @@
 package com.yourorganization.out;
 
+import com.yourorganization.domain.Budget;
 import com.yourorganization.domain.Goal;
+import com.yourorganization.domain.RecurringTransaction;
 import com.yourorganization.domain.Transaction;
 import com.yourorganization.domain.User;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 
 /**
  * Простая реализация хранилища (репозиторий),
- * использующая коллекции в памяти (HashMap) вместо настоящей БД.
+ * использующая коллекции в памяти вместо настоящей БД.
+ * <p>
+ * Хранилище потокобезопасно: таблицы построены на {@link ConcurrentHashMap},
+ * изменения данных одного пользователя сериализуются блокировкой его записи
+ * во вторичном индексе (блокировки распределены по корзинам map), а методы
+ * {@code findAll*} возвращают слабо согласованные представления, которые можно
+ * обходить параллельно с записью. Транзакции хранятся в подключаемом
+ * {@link TransactionStore}.
+ * <p>
+ * К хранилищу можно подключить {@link WriteAheadLog}: каждое изменение, одиночное
+ * или пакетное, сначала проверяется и записывается в журнал под блокировкой полосы
+ * пользователя и только потом применяется в памяти, поэтому порядок записей в журнале
+ * совпадает с порядком изменений данных пользователя. Если запись в журнал не удалась,
+ * данные в памяти остаются прежними, а недописанная пачка отрезается от журнала.
+ * Вызов возвращается только после того, как запись стала долговечной в соответствии
+ * с режимом сброса журнала.
  */
-public class InMemoryDatabase {
+public class InMemoryDatabase implements UserRepository, TransactionRepository, GoalRepository,
+        RecurringRepository, BudgetRepository {
 
-    private final Map<Long, User> users = new HashMap<>();
-    private final Map<Long, Transaction> transactions = new HashMap<>();
-    private final Map<Long, Goal> goals = new HashMap<>();
+    private final ConcurrentMap<Long, User> users = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Goal> goals = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, RecurringTransaction> recurring = new ConcurrentHashMap<>();
+    private final TransactionStore transactionStore;
+
+    /**
+     * Индекс нормализованный email -> идентификатор пользователя.
+     */
+    private final ConcurrentMap<String, Long> userIdsByEmail = new ConcurrentHashMap<>();
+
+    /**
+     * Вторичный индекс целей по пользователю (id -> объект, упорядочены по id).
+     * Позволяет получать цели одного пользователя без обхода всей таблицы.
+     */
+    private final ConcurrentMap<Long, Map<Long, Goal>> goalsByUser = new ConcurrentHashMap<>();
+
+    /**
+     * Вторичный индекс шаблонов регулярных транзакций по пользователю
+     * (нужен, чтобы удалить шаблоны вместе с пользователем).
+     */
+    private final ConcurrentMap<Long, Map<Long, RecurringTransaction>> recurringByUser = new ConcurrentHashMap<>();
+
+    /**
+     * Бюджеты по пользователю (категория -> бюджет, упорядочены по категории).
+     */
+    private final ConcurrentMap<Long, Map<String, Budget>> budgetsByUser = new ConcurrentHashMap<>();
+
+    /**
+     * Полосы блокировок по userId: сериализуют изменение данных пользователя
+     * вместе с записью в журнал.
+     */
+    private final ReentrantLock[] stripes = new ReentrantLock[64];
+
+    private final List<LongConsumer> userRemovalListeners = new CopyOnWriteArrayList<>();
+
+    private volatile WriteAheadLog log;
+
+    /**
+     * Создаёт хранилище с движком транзакций по умолчанию ({@link HashTransactionStore}).
+     */
+    public InMemoryDatabase() {
+        this(new HashTransactionStore());
+    }
+
+    /**
+     * Создаёт хранилище с указанным движком транзакций.
+     *
+     * @param transactionStore движок хранения транзакций
+     */
+    public InMemoryDatabase(TransactionStore transactionStore) {
+        this.transactionStore = transactionStore;
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Подключает журнал изменений. Журнал нужно проиграть
+     * ({@link WriteAheadLog#replay}) до подключения, иначе проигрываемые
+     * записи будут записаны в него повторно.
+     *
+     * @param log журнал или null, чтобы отключить журналирование
+     */
+    public void attachLog(WriteAheadLog log) {
+        this.log = log;
+    }
+
+    /**
+     * Выполняет действие, пока все изменения хранилища приостановлены
+     * (захвачены все полосы блокировок). Чтение при этом не блокируется.
+     * Используется для согласованного снимка и усечения журнала.
+     *
+     * @param action действие, выполняемое в монопольном режиме
+     */
+    public void runExclusively(Runnable action) {
+        int locked = 0;
+        try {
+            for (ReentrantLock stripe : stripes) {
+                stripe.lock();
+                locked++;
+            }
+            action.run();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                stripes[i].unlock();
+            }
+        }
+    }
 
     /**
      * Сохраняет (или обновляет) данные пользователя в памяти.
+     * Email занимается атомарно, поэтому два параллельных сохранения
+     * с одинаковым email не могут пройти оба.
      *
      * @param user пользователь для сохранения
      * @return тот же объект {@link User}, переданный на вход
+     * @throws IllegalArgumentException если email уже занят другим пользователем
      */
+    @Override
     public User saveUser(User user) {
-        users.put(user.getId(), user);
+        WriteAheadLog wal = log;
+        long position = 0;
+        Lock lock = stripe(user.getId());
+        lock.lock();
+        try {
+            String key = null;
+            boolean claimed = false;
+            if (user.getEmail() != null) {
+                key = normalizeEmail(user.getEmail());
+                Long owner = userIdsByEmail.putIfAbsent(key, user.getId());
+                if (owner != null && owner != user.getId()) {
+                    throw new IllegalArgumentException("Пользователь с таким email уже существует!");
+                }
+                claimed = owner == null;
+            }
+            if (wal != null) {
+                try {
+                    position = wal.appendSaveUser(user);
+                } catch (RuntimeException e) {
+                    if (claimed) {
+                        userIdsByEmail.remove(key, user.getId());
+                    }
+                    throw e;
+                }
+            }
+            User previous = users.put(user.getId(), user);
+            if (previous != null && previous != user && previous.getEmail() != null) {
+                // Новая версия пользователя (например, из журнала) могла сменить email
+                String previousKey = normalizeEmail(previous.getEmail());
+                if (!previousKey.equals(key)) {
+                    userIdsByEmail.remove(previousKey, user.getId());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(wal, position);
         return user;
     }
 
+    /**
+     * Восстанавливает пользователя из журнала. В отличие от {@link #saveUser},
+     * занятый другим пользователем email не считается ошибкой, а переходит
+     * к восстанавливаемому: журнал, проигрываемый поверх более нового снимка,
+     * повторяет уже учтённые в снимке изменения, и последняя запись в нём побеждает.
+     *
+     * @param user пользователь из журнала
+     */
+    void restoreUser(User user) {
+        Lock lock = stripe(user.getId());
+        lock.lock();
+        try {
+            String key = user.getEmail() == null ? null : normalizeEmail(user.getEmail());
+            if (key != null) {
+                userIdsByEmail.put(key, user.getId());
+            }
+            User previous = users.put(user.getId(), user);
+            if (previous != null && previous != user && previous.getEmail() != null) {
+                String previousKey = normalizeEmail(previous.getEmail());
+                if (!previousKey.equals(key)) {
+                    userIdsByEmail.remove(previousKey, user.getId());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Сохраняет пачку пользователей с одним захватом блокировок и одной пачкой
+     * в журнале. Пачка применяется целиком: если хотя бы один email занят
+     * (другим пользователем или повторяется в пачке), не сохраняется никто.
+     *
+     * @param usersToSave пользователи для сохранения
+     * @return тот же список пользователей
+     * @throws IllegalArgumentException если email занят или в пачке есть null
+     */
+    @Override
+    public List<User> saveUsers(List<User> usersToSave) {
+        if (usersToSave.isEmpty()) {
+            return usersToSave;
+        }
+        long[] userIds = new long[usersToSave.size()];
+        for (int i = 0; i < userIds.length; i++) {
+            if (usersToSave.get(i) == null) {
+                throw new IllegalArgumentException("Пачка содержит пустого пользователя");
+            }
+            userIds[i] = usersToSave.get(i).getId();
+        }
+        WriteAheadLog wal = log;
+        long position = 0;
+        boolean[] locked = lockStripes(userIds);
+        try {
+            // Сначала занимаем все email; при конфликте освобождаем уже занятые
+            Map<String, Long> claimed = new HashMap<>();
+            for (User user : usersToSave) {
+                if (user.getEmail() == null) {
+                    continue;
+                }
+                String key = normalizeEmail(user.getEmail());
+                Long batchOwner = claimed.get(key);
+                Long owner = batchOwner != null ? batchOwner : userIdsByEmail.putIfAbsent(key, user.getId());
+                if (owner != null && owner != user.getId()) {
+                    claimed.forEach((claimedKey, claimedId) -> userIdsByEmail.remove(claimedKey, claimedId));
+                    throw new IllegalArgumentException("Пользователь с таким email уже существует!");
+                }
+                if (owner == null) {
+                    claimed.put(key, user.getId());
+                }
+            }
+            if (wal != null) {
+                try {
+                    position = wal.appendSaveUsers(usersToSave);
+                } catch (RuntimeException e) {
+                    claimed.forEach((claimedKey, claimedId) -> userIdsByEmail.remove(claimedKey, claimedId));
+                    throw e;
+                }
+            }
+            for (User user : usersToSave) {
+                User previous = users.put(user.getId(), user);
+                if (previous != null && previous != user && previous.getEmail() != null) {
+                    String previousKey = normalizeEmail(previous.getEmail());
+                    if (user.getEmail() == null || !previousKey.equals(normalizeEmail(user.getEmail()))) {
+                        userIdsByEmail.remove(previousKey, user.getId());
+                    }
+                }
+            }
+        } finally {
+            unlockStripes(locked);
+        }
+        awaitDurable(wal, position);
+        return usersToSave;
+    }
+
     /**
      * Находит пользователя по его уникальному идентификатору.
      *
      * @param id идентификатор пользователя
      * @return объект {@link User} или null, если не найден
      */
+    @Override
     public User findUserById(long id) {
         return users.get(id);
     }
 
     /**
-     * Ищет пользователя по email (уникальному).
+     * Ищет пользователя по email (уникальному) через индекс email -> id.
+     * Регистр и пробелы по краям не учитываются.
      *
      * @param email email пользователя
      * @return объект {@link User} или null, если не найден
      */
+    @Override
     public User findUserByEmail(String email) {
-        for (User user : users.values()) {
-            if (user.getEmail().equals(email)) {
-                return user;
+        if (email == null) {
+            return null;
+        }
+        String key = normalizeEmail(email);
+        Long userId = userIdsByEmail.get(key);
+        if (userId == null) {
+            return null;
+        }
+        User user = users.get(userId);
+        // Защита от устаревшей записи индекса, если email сменили в обход updateUserEmail
+        if (user == null || !key.equals(normalizeEmail(user.getEmail()))) {
+            return null;
+        }
+        return user;
+    }
+
+    /**
+     * Меняет email пользователя, одновременно обновляя индекс email -> id.
+     *
+     * @param userId   идентификатор пользователя
+     * @param newEmail новый email
+     * @return true, если email изменён; false, если пользователь не найден
+     * или email уже занят другим пользователем
+     */
+    @Override
+    public boolean updateUserEmail(long userId, String newEmail) {
+        return updateUser(userId, newEmail, user -> {
+        });
+    }
+
+    /**
+     * Меняет email, имя и пароль пользователя под блокировкой его полосы
+     * одной записью в журнале.
+     *
+     * @param userId      идентификатор пользователя
+     * @param newEmail    новый email
+     * @param newName     новое имя
+     * @param newPassword новый пароль
+     * @return true, если данные изменены; false, если пользователь не найден
+     * или email уже занят другим пользователем
+     */
+    @Override
+    public boolean updateUser(long userId, String newEmail, String newName, String newPassword) {
+        return updateUser(userId, newEmail, user -> {
+            user.setName(newName);
+            user.setPassword(newPassword);
+        });
+    }
+
+    /**
+     * Занимает новый email и применяет остальные изменения пользователя
+     * под блокировкой его полосы. Изменения сначала применяются к копии,
+     * которая записывается в журнал одной записью, и только потом переносятся
+     * в сохранённый объект.
+     */
+    private boolean updateUser(long userId, String newEmail, Consumer<User> changes) {
+        String newKey = normalizeEmail(newEmail);
+        WriteAheadLog wal = log;
+        long position = 0;
+        Lock lock = stripe(userId);
+        lock.lock();
+        try {
+            User user = users.get(userId);
+            if (user == null) {
+                return false;
+            }
+            Long owner = userIdsByEmail.putIfAbsent(newKey, userId);
+            if (owner != null && owner != userId) {
+                return false;
+            }
+            User changed = new User(userId, newEmail, user.getPassword(), user.getName(), user.getRole());
+            changes.accept(changed);
+            if (wal != null) {
+                try {
+                    position = wal.appendSaveUser(changed);
+                } catch (RuntimeException e) {
+                    if (owner == null) {
+                        userIdsByEmail.remove(newKey, userId);
+                    }
+                    throw e;
+                }
+            }
+            String oldEmail = user.getEmail();
+            user.setEmail(changed.getEmail());
+            user.setName(changed.getName());
+            user.setPassword(changed.getPassword());
+            // Старый email освобождается только после записи в журнал (см. deleteUser)
+            if (oldEmail != null) {
+                String oldKey = normalizeEmail(oldEmail);
+                if (!oldKey.equals(newKey)) {
+                    userIdsByEmail.remove(oldKey, userId);
+                }
             }
+        } finally {
+            lock.unlock();
         }
-        return null;
+        awaitDurable(wal, position);
+        return true;
     }
 
     /**
@@ -59,38 +406,213 @@ public class InMemoryDatabase {
      *
      * @return коллекция {@link User}
      */
+    @Override
     public Collection<User> findAllUsers() {
         return users.values();
     }
 
     /**
-     * Удаляет пользователя по его идентификатору.
+     * Удаляет пользователя вместе со всеми его данными. Транзакции, цели, шаблоны и бюджеты хранятся
+     * разделами по пользователю, поэтому удаление стоит O(объём данных пользователя)
+     * и не требует обхода всех таблиц. После удаления вызываются слушатели
+     * ({@link #addUserRemovalListener}), чтобы производные данные сервисов тоже освободились.
      *
      * @param id идентификатор пользователя
      */
+    @Override
     public void deleteUser(long id) {
-        users.remove(id);
+        WriteAheadLog wal = log;
+        long position = 0;
+        Lock lock = stripe(id);
+        lock.lock();
+        try {
+            User removed = users.get(id);
+            if (removed == null) {
+                return;
+            }
+            if (wal != null) {
+                position = wal.appendDeleteUser(id);
+            }
+            users.remove(id);
+            transactionStore.deleteByUser(id);
+            Map<Long, Goal> userGoals = goalsByUser.remove(id);
+            if (userGoals != null) {
+                for (Long goalId : userGoals.keySet()) {
+                    goals.remove(goalId);
+                }
+            }
+            budgetsByUser.remove(id);
+            Map<Long, RecurringTransaction> userTemplates = recurringByUser.remove(id);
+            if (userTemplates != null) {
+                for (Long templateId : userTemplates.keySet()) {
+                    recurring.remove(templateId);
+                }
+            }
+            // Email освобождается только после записи удаления в журнал: иначе другой
+            // пользователь мог бы занять его и попасть в журнал раньше этого удаления
+            if (removed.getEmail() != null) {
+                userIdsByEmail.remove(normalizeEmail(removed.getEmail()), id);
+            }
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(wal, position);
+        for (LongConsumer listener : userRemovalListeners) {
+            listener.accept(id);
+        }
     }
 
     /**
-     * Сохраняет транзакцию.
+     * Регистрирует слушателя, которого хранилище вызывает после удаления пользователя.
+     *
+     * @param listener получает идентификатор удалённого пользователя
+     */
+    @Override
+    public void addUserRemovalListener(LongConsumer listener) {
+        userRemovalListeners.add(listener);
+    }
+
+    @Override
+    public void removeUserRemovalListener(LongConsumer listener) {
+        userRemovalListeners.remove(listener);
+    }
+
+    /**
+     * Сохраняет транзакцию. Если транзакция с таким id уже есть, она заменяется,
+     * а баланс пользователя пересчитывается инкрементально.
+     * Изменять уже сохранённую транзакцию следует через {@link #updateTransaction},
+     * иначе прежние значения суммы и типа будут потеряны для баланса.
      *
      * @param transaction объект транзакции
      * @return тот же объект {@link Transaction}
      */
+    @Override
     public Transaction saveTransaction(Transaction transaction) {
-        transactions.put(transaction.getId(), transaction);
+        return saveTransaction(transaction, false);
+    }
+
+    /**
+     * Сохраняет транзакцию существующего пользователя. Наличие пользователя проверяется
+     * под той же полосой блокировок, которую захватывает {@link #deleteUser}: транзакция
+     * либо сохраняется до удаления и удаляется вместе с пользователем, либо отклоняется.
+     *
+     * @param transaction объект транзакции
+     * @return тот же объект {@link Transaction}
+     * @throws IllegalArgumentException если пользователь не найден
+     */
+    @Override
+    public Transaction saveOwnedTransaction(Transaction transaction) {
+        return saveTransaction(transaction, true);
+    }
+
+    private Transaction saveTransaction(Transaction transaction, boolean requireUser) {
+        WriteAheadLog wal = log;
+        long position = 0;
+        Lock lock = stripe(transaction.getUserId());
+        lock.lock();
+        try {
+            if (requireUser && !users.containsKey(transaction.getUserId())) {
+                throw new IllegalArgumentException("Пользователь не найден: " + transaction.getUserId());
+            }
+            if (wal != null) {
+                transactionStore.checkStorable(List.of(transaction));
+                position = wal.appendSaveTransaction(transaction);
+            }
+            transactionStore.save(transaction);
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(wal, position);
         return transaction;
     }
 
+    /**
+     * Сохраняет пачку транзакций (например, при импорте выписки). Блокировки
+     * пользователей захватываются один раз на всю пачку, индексы хранилища
+     * обновляются пакетно, а в журнал пачка пишется одной серией записей
+     * с одним ожиданием сброса на диск. Пачка применяется целиком: все проверки
+     * выполняются до первого изменения, а при восстановлении из журнала
+     * недописанная пачка отбрасывается полностью.
+     *
+     * @param transactions транзакции для сохранения
+     * @return тот же список транзакций
+     * @throws IllegalArgumentException если в пачке есть null, повторяющийся id
+     *                                  или движок не может сохранить транзакцию
+     */
+    @Override
+    public List<Transaction> saveTransactions(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return transactions;
+        }
+        long[] userIds = new long[transactions.size()];
+        checkBatch(transactions, userIds);
+        WriteAheadLog wal = log;
+        long position = 0;
+        boolean[] locked = lockStripes(userIds);
+        try {
+            transactionStore.checkStorable(transactions);
+            if (wal != null) {
+                position = wal.appendSaveTransactions(transactions);
+            }
+            transactionStore.saveAll(transactions);
+        } finally {
+            unlockStripes(locked);
+        }
+        awaitDurable(wal, position);
+        return transactions;
+    }
+
+    /**
+     * Обновляет сумму, категорию, описание и тип сохранённой транзакции,
+     * поддерживая баланс пользователя в актуальном состоянии.
+     *
+     * @param id          идентификатор транзакции
+     * @param amount      новая сумма
+     * @param category    новая категория
+     * @param description новое описание
+     * @param type        новый тип (INCOME/EXPENSE)
+     * @return обновлённая {@link Transaction} или null, если не найдена
+     */
+    @Override
+    public Transaction updateTransaction(long id, double amount, String category,
+                                         String description, Transaction.TransactionType type) {
+        Transaction existing = transactionStore.findById(id);
+        if (existing == null) {
+            return null;
+        }
+        WriteAheadLog wal = log;
+        long position = 0;
+        Transaction updated;
+        Lock lock = stripe(existing.getUserId());
+        lock.lock();
+        try {
+            if (wal != null) {
+                Transaction current = transactionStore.findById(id);
+                if (current == null) {
+                    return null;
+                }
+                Transaction changed = new Transaction(id, current.getUserId(), amount, category, current.getDate(),
+                        description, type);
+                transactionStore.checkStorable(List.of(changed));
+                position = wal.appendSaveTransaction(changed);
+            }
+            updated = transactionStore.update(id, amount, category, description, type);
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(wal, position);
+        return updated;
+    }
+
     /**
      * Находит транзакцию по идентификатору.
      *
      * @param id идентификатор транзакции
      * @return объект {@link Transaction} или null, если не найден
      */
+    @Override
     public Transaction findTransactionById(long id) {
-        return transactions.get(id);
+        return transactionStore.findById(id);
     }
 
     /**
@@ -98,8 +620,89 @@ public class InMemoryDatabase {
      *
      * @return коллекция {@link Transaction}
      */
+    @Override
     public Collection<Transaction> findAllTransactions() {
-        return transactions.values();
+        return transactionStore.findAll();
+    }
+
+    @Override
+    public Spliterator<Transaction> transactionSpliterator() {
+        return transactionStore.spliterator();
+    }
+
+    /**
+     * Возвращает все транзакции пользователя (по вторичному индексу, без обхода всех транзакций).
+     *
+     * @param userId идентификатор пользователя
+     * @return неизменяемая коллекция {@link Transaction}, упорядоченная по id
+     */
+    @Override
+    public Collection<Transaction> findTransactionsByUser(long userId) {
+        return transactionStore.findByUser(userId);
+    }
+
+    /**
+     * Возвращает страницу транзакций пользователя от новых к старым. Курсор - id,
+     * поэтому вставки и удаления между запросами страниц не приводят к пропускам
+     * и повторам уже выданных транзакций.
+     *
+     * @param userId   идентификатор пользователя
+     * @param beforeId курсор: id последней транзакции предыдущей страницы
+     *                 или {@link Long#MAX_VALUE} для первой страницы
+     * @param limit    наибольший размер страницы
+     * @return список {@link Transaction} по убыванию id
+     */
+    @Override
+    public List<Transaction> findTransactionsPageByUser(long userId, long beforeId, int limit) {
+        return transactionStore.findPageByUser(userId, beforeId, limit);
+    }
+
+    /**
+     * Возвращает транзакции пользователя за период (границы включительно)
+     * по индексу дат, без обхода всех транзакций пользователя.
+     *
+     * @param userId идентификатор пользователя
+     * @param from   первый день периода
+     * @param to     последний день периода
+     * @return коллекция {@link Transaction}, упорядоченная по дате и id
+     */
+    @Override
+    public Collection<Transaction> findTransactionsByUser(long userId, LocalDate from, LocalDate to) {
+        return transactionStore.findByUser(userId, from, to);
+    }
+
+    /**
+     * Возвращает баланс пользователя (доходы - расходы), который ведёт хранилище транзакций.
+     *
+     * @param userId идентификатор пользователя
+     * @return текущий баланс; 0, если транзакций нет
+     */
+    @Override
+    public double findBalance(long userId) {
+        return transactionStore.balance(userId);
+    }
+
+    /**
+     * Возвращает баланс пользователя за период (границы включительно).
+     *
+     * @param userId идентификатор пользователя
+     * @param from   первый день периода
+     * @param to     последний день периода
+     * @return баланс за период; 0, если транзакций нет
+     */
+    @Override
+    public double findBalance(long userId, LocalDate from, LocalDate to) {
+        return transactionStore.balance(userId, from, to);
+    }
+
+    @Override
+    public int countTransactions(long userId) {
+        return transactionStore.count(userId);
+    }
+
+    @Override
+    public int countTransactions(long userId, LocalDate from, LocalDate to) {
+        return transactionStore.count(userId, from, to);
     }
 
     /**
@@ -107,8 +710,68 @@ public class InMemoryDatabase {
      *
      * @param id идентификатор транзакции
      */
+    @Override
     public void deleteTransaction(long id) {
-        transactions.remove(id);
+        Transaction existing = transactionStore.findById(id);
+        if (existing == null) {
+            return;
+        }
+        WriteAheadLog wal = log;
+        long position = 0;
+        Lock lock = stripe(existing.getUserId());
+        lock.lock();
+        try {
+            if (transactionStore.findById(id) == null) {
+                return;
+            }
+            if (wal != null) {
+                position = wal.appendDeleteTransaction(id);
+            }
+            transactionStore.delete(id);
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(wal, position);
+    }
+
+    /**
+     * Удаляет пачку транзакций. Пачка применяется целиком: если хотя бы одной
+     * транзакции нет, не удаляется ни одна.
+     *
+     * @param ids идентификаторы транзакций
+     * @throws IllegalArgumentException если какая-либо транзакция не найдена
+     */
+    @Override
+    public void deleteTransactions(long[] ids) {
+        if (ids.length == 0) {
+            return;
+        }
+        long[] userIds = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            Transaction existing = transactionStore.findById(ids[i]);
+            if (existing == null) {
+                throw new IllegalArgumentException("Транзакция не найдена: " + ids[i]);
+            }
+            userIds[i] = existing.getUserId();
+        }
+        WriteAheadLog wal = log;
+        long position = 0;
+        boolean[] locked = lockStripes(userIds);
+        try {
+            // Под блокировками проверяем ещё раз: транзакцию могли удалить параллельно
+            for (long id : ids) {
+                if (transactionStore.findById(id) == null) {
+                    throw new IllegalArgumentException("Транзакция не найдена: " + id);
+                }
+            }
+            if (wal != null) {
+                position = wal.appendDeleteTransactions(ids);
+            }
+            transactionStore.deleteAll(ids);
+        } finally {
+            unlockStripes(locked);
+        }
+        awaitDurable(wal, position);
     }
 
     /**
@@ -117,17 +780,78 @@ public class InMemoryDatabase {
      * @param goal объект финансовой цели
      * @return тот же объект {@link Goal}
      */
+    @Override
     public Goal saveGoal(Goal goal) {
-        goals.put(goal.getId(), goal);
+        WriteAheadLog wal = log;
+        long position = 0;
+        Lock lock = stripe(goal.getUserId());
+        lock.lock();
+        try {
+            if (wal != null) {
+                position = wal.appendSaveGoal(goal);
+            }
+            goalsByUser.compute(goal.getUserId(), (userId, userGoals) -> {
+                if (userGoals == null) {
+                    userGoals = new ConcurrentSkipListMap<>();
+                }
+                goals.put(goal.getId(), goal);
+                userGoals.put(goal.getId(), goal);
+                return userGoals;
+            });
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(wal, position);
         return goal;
     }
 
+    /**
+     * Сохраняет пачку финансовых целей с одним захватом блокировок
+     * и одной пачкой в журнале.
+     *
+     * @param goalsToSave цели для сохранения
+     * @return тот же список целей
+     * @throws IllegalArgumentException если в пачке есть null
+     */
+    @Override
+    public List<Goal> saveGoals(List<Goal> goalsToSave) {
+        if (goalsToSave.isEmpty()) {
+            return goalsToSave;
+        }
+        long[] userIds = new long[goalsToSave.size()];
+        for (int i = 0; i < userIds.length; i++) {
+            Goal goal = goalsToSave.get(i);
+            if (goal == null) {
+                throw new IllegalArgumentException("Пачка содержит пустую цель");
+            }
+            userIds[i] = goal.getUserId();
+        }
+        WriteAheadLog wal = log;
+        long position = 0;
+        boolean[] locked = lockStripes(userIds);
+        try {
+            if (wal != null) {
+                position = wal.appendSaveGoals(goalsToSave);
+            }
+            for (Goal goal : goalsToSave) {
+                goals.put(goal.getId(), goal);
+                goalsByUser.computeIfAbsent(goal.getUserId(), id -> new ConcurrentSkipListMap<>())
+                        .put(goal.getId(), goal);
+            }
+        } finally {
+            unlockStripes(locked);
+        }
+        awaitDurable(wal, position);
+        return goalsToSave;
+    }
+
     /**
      * Находит финансовую цель по идентификатору.
      *
      * @param id идентификатор цели
      * @return объект {@link Goal} или null, если не найден
      */
+    @Override
     public Goal findGoalById(long id) {
         return goals.get(id);
     }
@@ -137,16 +861,310 @@ public class InMemoryDatabase {
      *
      * @return коллекция {@link Goal}
      */
+    @Override
     public Collection<Goal> findAllGoals() {
         return goals.values();
     }
 
+    /**
+     * Возвращает все финансовые цели пользователя (по вторичному индексу).
+     *
+     * @param userId идентификатор пользователя
+     * @return неизменяемая коллекция {@link Goal}, упорядоченная по id
+     */
+    @Override
+    public Collection<Goal> findGoalsByUser(long userId) {
+        Map<Long, Goal> userGoals = goalsByUser.get(userId);
+        if (userGoals == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableCollection(userGoals.values());
+    }
+
     /**
      * Удаляет финансовую цель по её идентификатору.
      *
      * @param id идентификатор цели
      */
+    @Override
     public void deleteGoal(long id) {
-        goals.remove(id);
+        Goal existing = goals.get(id);
+        if (existing == null) {
+            return;
+        }
+        WriteAheadLog wal = log;
+        long position = 0;
+        Lock lock = stripe(existing.getUserId());
+        lock.lock();
+        try {
+            if (!goals.containsKey(id)) {
+                return;
+            }
+            if (wal != null) {
+                position = wal.appendDeleteGoal(id);
+            }
+            goalsByUser.computeIfPresent(existing.getUserId(), (userId, userGoals) -> {
+                goals.remove(id);
+                userGoals.remove(id);
+                return userGoals.isEmpty() ? null : userGoals;
+            });
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(wal, position);
+    }
+
+    /**
+     * Сохраняет шаблон регулярной транзакции.
+     *
+     * @param template шаблон
+     * @return тот же объект {@link RecurringTransaction}
+     */
+    @Override
+    public RecurringTransaction saveRecurring(RecurringTransaction template) {
+        WriteAheadLog wal = log;
+        long position = 0;
+        Lock lock = stripe(template.getUserId());
+        lock.lock();
+        try {
+            if (wal != null) {
+                position = wal.appendSaveRecurring(template);
+            }
+            putRecurring(template);
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(wal, position);
+        return template;
+    }
+
+    /**
+     * Возвращает все шаблоны регулярных транзакций.
+     *
+     * @return коллекция {@link RecurringTransaction}
+     */
+    @Override
+    public Collection<RecurringTransaction> findAllRecurring() {
+        return recurring.values();
+    }
+
+    /**
+     * Удаляет шаблон регулярной транзакции по его идентификатору.
+     *
+     * @param id идентификатор шаблона
+     */
+    @Override
+    public void deleteRecurring(long id) {
+        RecurringTransaction existing = recurring.get(id);
+        if (existing == null) {
+            return;
+        }
+        WriteAheadLog wal = log;
+        long position = 0;
+        Lock lock = stripe(existing.getUserId());
+        lock.lock();
+        try {
+            if (!recurring.containsKey(id)) {
+                return;
+            }
+            if (wal != null) {
+                position = wal.appendDeleteRecurring(id);
+            }
+            recurringByUser.computeIfPresent(existing.getUserId(), (userId, userTemplates) -> {
+                recurring.remove(id);
+                userTemplates.remove(id);
+                return userTemplates.isEmpty() ? null : userTemplates;
+            });
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(wal, position);
+    }
+
+    /**
+     * Сохраняет транзакции, созданные по расписанию, и сдвинутые шаблоны под одним захватом
+     * блокировок и одной пачкой в журнале, как {@link #saveTransactions}.
+     *
+     * @param transactions созданные транзакции
+     * @param templates    шаблоны с новым числом созданных транзакций
+     * @throws IllegalArgumentException если в пачке есть null, повторяющийся id транзакции
+     *                                  или движок не может сохранить транзакцию
+     */
+    @Override
+    public void saveOccurrences(List<Transaction> transactions, List<RecurringTransaction> templates) {
+        long[] userIds = new long[transactions.size() + templates.size()];
+        checkBatch(transactions, userIds);
+        for (int i = 0; i < templates.size(); i++) {
+            RecurringTransaction template = templates.get(i);
+            if (template == null) {
+                throw new IllegalArgumentException("Пачка содержит пустой шаблон");
+            }
+            userIds[transactions.size() + i] = template.getUserId();
+        }
+        if (userIds.length == 0) {
+            return;
+        }
+        WriteAheadLog wal = log;
+        long position = 0;
+        boolean[] locked = lockStripes(userIds);
+        try {
+            transactionStore.checkStorable(transactions);
+            if (wal != null) {
+                position = wal.appendSaveOccurrences(transactions, templates);
+            }
+            transactionStore.saveAll(transactions);
+            for (RecurringTransaction template : templates) {
+                putRecurring(template);
+            }
+        } finally {
+            unlockStripes(locked);
+        }
+        awaitDurable(wal, position);
+    }
+
+    /**
+     * Сохраняет (или заменяет) бюджет категории пользователя.
+     *
+     * @param budget бюджет
+     * @return тот же объект {@link Budget}
+     */
+    @Override
+    public Budget saveBudget(Budget budget) {
+        WriteAheadLog wal = log;
+        long position = 0;
+        Lock lock = stripe(budget.getUserId());
+        lock.lock();
+        try {
+            if (wal != null) {
+                position = wal.appendSaveBudget(budget);
+            }
+            budgetsByUser.computeIfAbsent(budget.getUserId(), id -> new ConcurrentSkipListMap<>())
+                    .put(budget.getCategory(), budget);
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(wal, position);
+        return budget;
+    }
+
+    /**
+     * Возвращает все бюджеты (слабо согласованный обход по пользователям).
+     *
+     * @return коллекция {@link Budget}
+     */
+    @Override
+    public Collection<Budget> findAllBudgets() {
+        List<Budget> result = new ArrayList<>();
+        for (Map<String, Budget> userBudgets : budgetsByUser.values()) {
+            result.addAll(userBudgets.values());
+        }
+        return result;
+    }
+
+    /**
+     * Удаляет бюджет категории пользователя.
+     *
+     * @param userId   идентификатор пользователя
+     * @param category категория расходов
+     */
+    @Override
+    public void deleteBudget(long userId, String category) {
+        WriteAheadLog wal = log;
+        long position = 0;
+        Lock lock = stripe(userId);
+        lock.lock();
+        try {
+            Map<String, Budget> userBudgets = budgetsByUser.get(userId);
+            if (userBudgets == null || !userBudgets.containsKey(category)) {
+                return;
+            }
+            if (wal != null) {
+                position = wal.appendDeleteBudget(userId, category);
+            }
+            budgetsByUser.computeIfPresent(userId, (id, budgets) -> {
+                budgets.remove(category);
+                return budgets.isEmpty() ? null : budgets;
+            });
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(wal, position);
+    }
+
+    /**
+     * Проверяет пачку транзакций до первого изменения и заполняет начало {@code userIds}
+     * владельцами транзакций. Повторяющийся id отклоняется: движки считают баланс
+     * пачки по её строкам и учли бы вторую копию дважды.
+     */
+    private static void checkBatch(List<Transaction> transactions, long[] userIds) {
+        long[] ids = new long[transactions.size()];
+        for (int i = 0; i < ids.length; i++) {
+            Transaction transaction = transactions.get(i);
+            if (transaction == null) {
+                throw new IllegalArgumentException("Пачка содержит пустую транзакцию");
+            }
+            ids[i] = transaction.getId();
+            userIds[i] = transaction.getUserId();
+        }
+        Arrays.sort(ids);
+        for (int i = 1; i < ids.length; i++) {
+            if (ids[i] == ids[i - 1]) {
+                throw new IllegalArgumentException("Пачка содержит транзакцию " + ids[i] + " несколько раз");
+            }
+        }
+    }
+
+    private void putRecurring(RecurringTransaction template) {
+        recurring.put(template.getId(), template);
+        recurringByUser.computeIfAbsent(template.getUserId(), id -> new ConcurrentSkipListMap<>())
+                .put(template.getId(), template);
+    }
+
+    private Lock stripe(long userId) {
+        return stripes[stripeIndex(userId)];
+    }
+
+    private int stripeIndex(long userId) {
+        return Long.hashCode(userId) & (stripes.length - 1);
+    }
+
+    /**
+     * Захватывает полосы всех пользователей пачки в порядке возрастания номера,
+     * как и {@link #runExclusively}, поэтому взаимная блокировка невозможна.
+     *
+     * @return отметки захваченных полос для {@link #unlockStripes}
+     */
+    private boolean[] lockStripes(long[] userIds) {
+        boolean[] needed = new boolean[stripes.length];
+        for (long userId : userIds) {
+            needed[stripeIndex(userId)] = true;
+        }
+        for (int i = 0; i < stripes.length; i++) {
+            if (needed[i]) {
+                stripes[i].lock();
+            }
+        }
+        return needed;
+    }
+
+    private void unlockStripes(boolean[] locked) {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            if (locked[i]) {
+                stripes[i].unlock();
+            }
+        }
+    }
+
+    private static void awaitDurable(WriteAheadLog wal, long position) {
+        if (wal != null) {
+            wal.awaitDurable(position);
+        }
+    }
+
+    /**
+     * Приводит email к виду, в котором он хранится в индексе.
+     */
+    private static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
     }
 }
\ No newline at end of file
@@ -0,0 +1,98 @@
+package com.yourorganization.out;
+
+/**
+ * Отбор не более {@code limit} строк с наибольшими id за один проход без упаковки:
+ * min-куча на примитивных массивах, O(n log limit). Нужна хранилищам, в которых
+ * строки пользователя не упорядочены по id, чтобы отдать страницу транзакций,
+ * не создавая объекты для всех строк пользователя.
+ * Не потокобезопасна.
+ */
+final class NewestIdSelection {
+
+    private final long[] ids;
+    private final int[] rows;
+    private int size;
+
+    NewestIdSelection(int limit) {
+        ids = new long[limit];
+        rows = new int[limit];
+    }
+
+    /**
+     * Предлагает строку; она остаётся, только если входит в {@code limit} наибольших id.
+     *
+     * @param id  идентификатор строки
+     * @param row номер строки (слот) в хранилище
+     */
+    void offer(long id, int row) {
+        if (ids.length == 0) {
+            return;
+        }
+        if (size < ids.length) {
+            ids[size] = id;
+            rows[size] = row;
+            siftUp(size++);
+        } else if (id > ids[0]) {
+            ids[0] = id;
+            rows[0] = row;
+            siftDown(0, size);
+        }
+    }
+
+    /**
+     * Возвращает отобранные строки по убыванию id. После вызова отбор пуст.
+     *
+     * @return номера строк, от наибольшего id к наименьшему
+     */
+    int[] drainNewestFirst() {
+        int count = size;
+        // Сортировка кучей на месте: минимум уходит в конец, остаётся убывающий порядок
+        for (int end = size - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+        size = 0;
+        int[] result = new int[count];
+        System.arraycopy(rows, 0, result, 0, count);
+        return result;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (ids[parent] <= ids[i]) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i, int end) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < end && ids[left] < ids[smallest]) {
+                smallest = left;
+            }
+            if (right < end && ids[right] < ids[smallest]) {
+                smallest = right;
+            }
+            if (smallest == i) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        int row = rows[a];
+        rows[a] = rows[b];
+        rows[b] = row;
+    }
+}
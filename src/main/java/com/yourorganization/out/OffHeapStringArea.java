@@ -0,0 +1,193 @@
+package com.yourorganization.out;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Область строк вне кучи для {@link OffHeapTransactionStore}.
+ * <p>
+ * Строка хранится как {@code [int длина][байты UTF-8]} в блоке одного из классов
+ * размера (степени двойки от 16 байт до размера слэба). Слэбы - прямые
+ * {@link ByteBuffer} по {@value #SLAB_SIZE} байт. Освобождённые блоки попадают
+ * в список свободных блоков своего класса и переиспользуются, поэтому при
+ * постоянном обновлении и удалении область не растёт.
+ * <p>
+ * Ссылка на строку - {@code long}: номер слэба в старших 32 битах, смещение в младших;
+ * {@value #NULL_REF} обозначает null. Не потокобезопасна: синхронизацию обеспечивает владелец.
+ */
+final class OffHeapStringArea {
+
+    static final long NULL_REF = -1L;
+
+    static final int SLAB_SIZE = 1 << 20;
+
+    private static final int MIN_BLOCK_SHIFT = 4;
+    private static final int CLASS_COUNT = Integer.numberOfTrailingZeros(SLAB_SIZE) - MIN_BLOCK_SHIFT + 1;
+
+    private ByteBuffer[] slabs = new ByteBuffer[4];
+    private int slabCount;
+    private int bumpOffset = SLAB_SIZE;
+
+    private final long[][] freeBlocks = new long[CLASS_COUNT][];
+    private final int[] freeCounts = new int[CLASS_COUNT];
+
+    /**
+     * Сохраняет строку.
+     *
+     * @param value строка или null
+     * @return ссылка на строку
+     * @throws IllegalArgumentException если строка не помещается в слэб
+     */
+    long store(String value) {
+        if (value == null) {
+            return NULL_REF;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        long ref = allocate(classFor(bytes.length));
+        write(ref, bytes);
+        return ref;
+    }
+
+    /**
+     * Проверяет, что строку можно сохранить, ничего не выделяя.
+     * Короткие строки (до трёх байт UTF-8 на символ заведомо помещаются) не кодируются.
+     *
+     * @param value строка или null
+     * @throws IllegalArgumentException если строка не помещается в слэб
+     */
+    static void checkStorable(String value) {
+        if (value != null && value.length() > (SLAB_SIZE - Integer.BYTES) / 3) {
+            classFor(value.getBytes(StandardCharsets.UTF_8).length);
+        }
+    }
+
+    /**
+     * Заменяет строку. Если новое значение помещается в тот же класс размера,
+     * оно записывается на место старого.
+     *
+     * @param ref   ссылка на старую строку
+     * @param value новая строка или null
+     * @return ссылка на новую строку
+     * @throws IllegalArgumentException если строка не помещается в слэб; старая строка остаётся
+     */
+    long replace(long ref, String value) {
+        if (value == null) {
+            free(ref);
+            return NULL_REF;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int sizeClass = classFor(bytes.length);
+        if (ref == NULL_REF || sizeClass != classFor(slab(ref).getInt(offset(ref)))) {
+            free(ref);
+            ref = allocate(sizeClass);
+        }
+        write(ref, bytes);
+        return ref;
+    }
+
+    /**
+     * Читает строку.
+     *
+     * @param ref ссылка на строку
+     * @return строка или null
+     */
+    String load(long ref) {
+        if (ref == NULL_REF) {
+            return null;
+        }
+        ByteBuffer slab = slab(ref);
+        int offset = offset(ref);
+        byte[] bytes = new byte[slab.getInt(offset)];
+        slab.get(offset + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Освобождает блок строки для повторного использования.
+     *
+     * @param ref ссылка на строку; {@value #NULL_REF} игнорируется
+     */
+    void free(long ref) {
+        if (ref == NULL_REF) {
+            return;
+        }
+        release(classFor(slab(ref).getInt(offset(ref))), ref);
+    }
+
+    /**
+     * Возвращает объём памяти, занятой слэбами.
+     *
+     * @return байты вне кучи
+     */
+    long reservedBytes() {
+        return (long) slabCount * SLAB_SIZE;
+    }
+
+    private void write(long ref, byte[] bytes) {
+        ByteBuffer slab = slab(ref);
+        int offset = offset(ref);
+        slab.putInt(offset, bytes.length);
+        slab.put(offset + Integer.BYTES, bytes);
+    }
+
+    private long allocate(int sizeClass) {
+        if (freeCounts[sizeClass] > 0) {
+            return freeBlocks[sizeClass][--freeCounts[sizeClass]];
+        }
+        int size = blockSize(sizeClass);
+        if (bumpOffset + size > SLAB_SIZE) {
+            releaseTail();
+            if (slabCount == slabs.length) {
+                slabs = Arrays.copyOf(slabs, slabCount * 2);
+            }
+            slabs[slabCount++] = ByteBuffer.allocateDirect(SLAB_SIZE);
+            bumpOffset = 0;
+        }
+        long ref = ((long) (slabCount - 1) << 32) | bumpOffset;
+        bumpOffset += size;
+        return ref;
+    }
+
+    /**
+     * Нарезает остаток текущего слэба на свободные блоки, чтобы он не пропадал.
+     */
+    private void releaseTail() {
+        while (slabCount > 0 && SLAB_SIZE - bumpOffset >= blockSize(0)) {
+            int sizeClass = Integer.numberOfTrailingZeros(Integer.highestOneBit(SLAB_SIZE - bumpOffset))
+                    - MIN_BLOCK_SHIFT;
+            release(sizeClass, ((long) (slabCount - 1) << 32) | bumpOffset);
+            bumpOffset += blockSize(sizeClass);
+        }
+    }
+
+    private void release(int sizeClass, long ref) {
+        long[] blocks = freeBlocks[sizeClass];
+        if (blocks == null) {
+            blocks = freeBlocks[sizeClass] = new long[16];
+        } else if (freeCounts[sizeClass] == blocks.length) {
+            blocks = freeBlocks[sizeClass] = Arrays.copyOf(blocks, blocks.length * 2);
+        }
+        blocks[freeCounts[sizeClass]++] = ref;
+    }
+
+    private static int classFor(int byteLength) {
+        int size = byteLength + Integer.BYTES;
+        if (size > SLAB_SIZE) {
+            throw new IllegalArgumentException("Строка слишком длинная: " + byteLength + " байт");
+        }
+        return Math.max(0, 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_BLOCK_SHIFT);
+    }
+
+    private static int blockSize(int sizeClass) {
+        return 1 << (sizeClass + MIN_BLOCK_SHIFT);
+    }
+
+    private ByteBuffer slab(long ref) {
+        return slabs[(int) (ref >>> 32)];
+    }
+
+    private static int offset(long ref) {
+        return (int) ref;
+    }
+}
@@ -0,0 +1,176 @@
+package com.yourorganization.out;
+
+import com.yourorganization.domain.Transaction;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Хранилище транзакций вне кучи.
+ * <p>
+ * Каждая транзакция - запись фиксированной длины ({@value #RECORD_SIZE} байт) в прямых
+ * {@link ByteBuffer}-слэбах по {@value #SLAB_RECORDS} записей: id, пользователь, сумма,
+ * номер дня эпохи, код категории, ссылка на описание и тип. Описания лежат в
+ * {@link OffHeapStringArea}, категории кодируются словарём, как в
+ * {@link ColumnarTransactionStore}. Слоты записей и блоки строк, освобождённые при
+ * удалении, переиспользуются.
+ * <p>
+ * В куче остаются только индексы на примитивных массивах, поэтому миллионы транзакций
+ * не увеличивают число объектов, которые сборщик мусора обходит в старом поколении.
+ * Объекты {@link Transaction} создаются только при чтении и являются копиями:
+ * изменять их нужно через {@link #update}. Доступ защищён {@link ReentrantReadWriteLock}.
+ */
+public class OffHeapTransactionStore extends SlotTransactionStore {
+
+    private static final int RECORD_SIZE = 48;
+    private static final int SLAB_SHIFT = 14;
+    private static final int SLAB_RECORDS = 1 << SLAB_SHIFT;
+
+    private static final int ID = 0;
+    private static final int USER_ID = 8;
+    private static final int AMOUNT = 16;
+    private static final int EPOCH_DAY = 24;
+    private static final int CATEGORY = 28;
+    private static final int DESCRIPTION = 32;
+    private static final int USER_POSITION = 40;
+    private static final int TYPE = 44;
+
+    private ByteBuffer[] slabs = new ByteBuffer[4];
+    private int slabCount;
+
+    private final OffHeapStringArea strings = new OffHeapStringArea();
+
+    /**
+     * Создаёт пустое хранилище.
+     */
+    public OffHeapTransactionStore() {
+        super(SLAB_RECORDS);
+    }
+
+    /**
+     * Возвращает объём памяти вне кучи, занятой записями и строками.
+     * Освобождённое место остаётся зарезервированным под новые записи.
+     *
+     * @return байты вне кучи
+     */
+    public long getOffHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) slabCount * SLAB_RECORDS * RECORD_SIZE + strings.reservedBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Описание должно помещаться в слэб области строк.
+     */
+    @Override
+    void checkStorable(Transaction transaction) {
+        OffHeapStringArea.checkStorable(transaction.getDescription());
+    }
+
+    @Override
+    int capacity() {
+        return slabCount * SLAB_RECORDS;
+    }
+
+    @Override
+    void grow() {
+        if (slabCount == slabs.length) {
+            slabs = Arrays.copyOf(slabs, slabCount * 2);
+        }
+        slabs[slabCount++] = ByteBuffer.allocateDirect(SLAB_RECORDS * RECORD_SIZE)
+                .order(ByteOrder.nativeOrder());
+    }
+
+    @Override
+    long id(int slot) {
+        return slab(slot).getLong(base(slot) + ID);
+    }
+
+    @Override
+    long userId(int slot) {
+        return slab(slot).getLong(base(slot) + USER_ID);
+    }
+
+    @Override
+    double amount(int slot) {
+        return slab(slot).getDouble(base(slot) + AMOUNT);
+    }
+
+    @Override
+    int epochDay(int slot) {
+        return slab(slot).getInt(base(slot) + EPOCH_DAY);
+    }
+
+    @Override
+    byte type(int slot) {
+        return slab(slot).get(base(slot) + TYPE);
+    }
+
+    @Override
+    int categoryCode(int slot) {
+        return slab(slot).getInt(base(slot) + CATEGORY);
+    }
+
+    @Override
+    String description(int slot) {
+        return strings.load(slab(slot).getLong(base(slot) + DESCRIPTION));
+    }
+
+    @Override
+    int userPosition(int slot) {
+        return slab(slot).getInt(base(slot) + USER_POSITION);
+    }
+
+    @Override
+    void setUserPosition(int slot, int position) {
+        slab(slot).putInt(base(slot) + USER_POSITION, position);
+    }
+
+    @Override
+    void write(int slot, Transaction transaction, int categoryCode) {
+        ByteBuffer slab = slab(slot);
+        int base = base(slot);
+        slab.putLong(base + DESCRIPTION, strings.store(transaction.getDescription()));
+        slab.putLong(base + ID, transaction.getId());
+        slab.putLong(base + USER_ID, transaction.getUserId());
+        slab.putDouble(base + AMOUNT, transaction.getAmount());
+        slab.putInt(base + EPOCH_DAY, encodeDate(transaction.getDate()));
+        slab.putInt(base + CATEGORY, categoryCode);
+        slab.put(base + TYPE, encodeType(transaction.getType()));
+    }
+
+    @Override
+    void rewrite(int slot, double amount, int categoryCode, String description, byte type) {
+        ByteBuffer slab = slab(slot);
+        int base = base(slot);
+        // Строка заменяется первой: слишком длинное описание не должно оставить полуизменённую запись
+        slab.putLong(base + DESCRIPTION, strings.replace(slab.getLong(base + DESCRIPTION), description));
+        slab.putDouble(base + AMOUNT, amount);
+        slab.putInt(base + CATEGORY, categoryCode);
+        slab.put(base + TYPE, type);
+    }
+
+    @Override
+    void clear(int slot) {
+        ByteBuffer slab = slab(slot);
+        int base = base(slot);
+        strings.free(slab.getLong(base + DESCRIPTION));
+        slab.putLong(base + ID, 0L);
+        slab.putLong(base + DESCRIPTION, OffHeapStringArea.NULL_REF);
+    }
+
+    private ByteBuffer slab(int slot) {
+        return slabs[slot >>> SLAB_SHIFT];
+    }
+
+    private static int base(int slot) {
+        return (slot & (SLAB_RECORDS - 1)) * RECORD_SIZE;
+    }
+}
@@ -0,0 +1,48 @@
+package com.yourorganization.out;
+
+import com.yourorganization.domain.RecurringTransaction;
+import com.yourorganization.domain.Transaction;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Хранилище шаблонов регулярных транзакций, с которым работает
+ * {@link com.yourorganization.service.RecurringTransactionService}.
+ * Реализации обязаны быть потокобезопасными.
+ */
+public interface RecurringRepository {
+
+    /**
+     * Сохраняет (или обновляет) шаблон регулярной транзакции.
+     *
+     * @param template шаблон
+     * @return тот же объект {@link RecurringTransaction}
+     */
+    RecurringTransaction saveRecurring(RecurringTransaction template);
+
+    /**
+     * Возвращает все сохранённые шаблоны.
+     *
+     * @return коллекция {@link RecurringTransaction}
+     */
+    Collection<RecurringTransaction> findAllRecurring();
+
+    /**
+     * Удаляет шаблон; отсутствующий идентификатор игнорируется.
+     *
+     * @param id идентификатор шаблона
+     */
+    void deleteRecurring(long id);
+
+    /**
+     * Атомарно сохраняет транзакции, созданные по расписанию, вместе с шаблонами,
+     * у которых сдвинута дата следующего повторения: после сбоя не бывает ни созданных
+     * транзакций без сдвинутого шаблона (повтор при перезапуске), ни наоборот (пропуск).
+     *
+     * @param transactions созданные транзакции
+     * @param templates    шаблоны с новым числом созданных транзакций
+     * @throws IllegalArgumentException если в пачке есть null или транзакцию нельзя сохранить
+     */
+    void saveOccurrences(List<Transaction> transactions, List<RecurringTransaction> templates);
+}
@@ -0,0 +1,174 @@
+package com.yourorganization.out;
+
+import com.yourorganization.domain.Budget;
+import com.yourorganization.domain.Goal;
+import com.yourorganization.domain.RecurringTransaction;
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.domain.User;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * Компактное двоичное представление строк таблиц (пользователь, транзакция, цель,
+ * шаблон регулярной транзакции, бюджет),
+ * общее для журнала и снимков.
+ * <p>
+ * Строки кодируются как длина в байтах UTF-8 ({@code int}, -1 для null) и сами байты,
+ * перечисления - как порядковый номер в {@code byte} (-1 для null).
+ * Методы записи возвращают буфер, который мог быть увеличен.
+ */
+final class RowCodec {
+
+    private static final byte NULL_ORDINAL = -1;
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private RowCodec() {
+    }
+
+    static ByteBuffer putUser(ByteBuffer buffer, User user) {
+        buffer = ensure(buffer, Long.BYTES + 1);
+        buffer.putLong(user.getId());
+        buffer = putString(buffer, user.getEmail());
+        buffer = putString(buffer, user.getPassword());
+        buffer = putString(buffer, user.getName());
+        buffer = ensure(buffer, 1);
+        buffer.put(user.getRole() == null ? NULL_ORDINAL : (byte) user.getRole().ordinal());
+        return buffer;
+    }
+
+    static User getUser(ByteBuffer buffer) {
+        long id = buffer.getLong();
+        String email = getString(buffer);
+        String password = getString(buffer);
+        String name = getString(buffer);
+        byte role = buffer.get();
+        return new User(id, email, password, name, role == NULL_ORDINAL ? null : User.Role.values()[role]);
+    }
+
+    static ByteBuffer putTransaction(ByteBuffer buffer, Transaction transaction) {
+        buffer = ensure(buffer, 3 * Long.BYTES + Double.BYTES + 1);
+        buffer.putLong(transaction.getId());
+        buffer.putLong(transaction.getUserId());
+        buffer.putDouble(transaction.getAmount());
+        buffer.putLong(transaction.getDate() == null ? NO_DATE : transaction.getDate().toEpochDay());
+        buffer.put(transaction.getType() == null ? NULL_ORDINAL : (byte) transaction.getType().ordinal());
+        buffer = putString(buffer, transaction.getCategory());
+        return putString(buffer, transaction.getDescription());
+    }
+
+    static Transaction getTransaction(ByteBuffer buffer) {
+        long id = buffer.getLong();
+        long userId = buffer.getLong();
+        double amount = buffer.getDouble();
+        long epochDay = buffer.getLong();
+        byte type = buffer.get();
+        String category = getString(buffer);
+        String description = getString(buffer);
+        return new Transaction(id, userId, amount, category,
+                epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay),
+                description,
+                type == NULL_ORDINAL ? null : Transaction.TransactionType.values()[type]);
+    }
+
+    static ByteBuffer putGoal(ByteBuffer buffer, Goal goal) {
+        buffer = ensure(buffer, 2 * Long.BYTES + 2 * Double.BYTES);
+        buffer.putLong(goal.getId());
+        buffer.putLong(goal.getUserId());
+        buffer.putDouble(goal.getTargetAmount());
+        buffer.putDouble(goal.getCurrentAmount());
+        return putString(buffer, goal.getTitle());
+    }
+
+    static Goal getGoal(ByteBuffer buffer) {
+        long id = buffer.getLong();
+        long userId = buffer.getLong();
+        double targetAmount = buffer.getDouble();
+        double currentAmount = buffer.getDouble();
+        String title = getString(buffer);
+        return new Goal(id, userId, title, targetAmount, currentAmount);
+    }
+
+    static ByteBuffer putRecurring(ByteBuffer buffer, RecurringTransaction template) {
+        buffer = ensure(buffer, 4 * Long.BYTES + Double.BYTES + Integer.BYTES + 2);
+        buffer.putLong(template.getId());
+        buffer.putLong(template.getUserId());
+        buffer.putDouble(template.getAmount());
+        buffer.putLong(template.getStartDate().toEpochDay());
+        buffer.putLong(template.getOccurrences());
+        buffer.putInt(template.getIntervalDays());
+        buffer.put(template.getType() == null ? NULL_ORDINAL : (byte) template.getType().ordinal());
+        buffer.put(template.getFrequency() == null ? NULL_ORDINAL : (byte) template.getFrequency().ordinal());
+        buffer = putString(buffer, template.getCategory());
+        return putString(buffer, template.getDescription());
+    }
+
+    static RecurringTransaction getRecurring(ByteBuffer buffer) {
+        long id = buffer.getLong();
+        long userId = buffer.getLong();
+        double amount = buffer.getDouble();
+        LocalDate startDate = LocalDate.ofEpochDay(buffer.getLong());
+        long occurrences = buffer.getLong();
+        int intervalDays = buffer.getInt();
+        byte type = buffer.get();
+        byte frequency = buffer.get();
+        String category = getString(buffer);
+        String description = getString(buffer);
+        return new RecurringTransaction(id, userId, amount, category, description,
+                type == NULL_ORDINAL ? null : Transaction.TransactionType.values()[type],
+                frequency == NULL_ORDINAL ? null : RecurringTransaction.Frequency.values()[frequency],
+                intervalDays, startDate, occurrences);
+    }
+
+    static ByteBuffer putBudget(ByteBuffer buffer, Budget budget) {
+        buffer = ensure(buffer, Long.BYTES + Double.BYTES);
+        buffer.putLong(budget.getUserId());
+        buffer.putDouble(budget.getMonthlyLimit());
+        return putString(buffer, budget.getCategory());
+    }
+
+    static Budget getBudget(ByteBuffer buffer) {
+        long userId = buffer.getLong();
+        double monthlyLimit = buffer.getDouble();
+        return new Budget(userId, getString(buffer), monthlyLimit);
+    }
+
+    static ByteBuffer putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer = ensure(buffer, Integer.BYTES);
+            buffer.putInt(-1);
+            return buffer;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer = ensure(buffer, Integer.BYTES + bytes.length);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+        return buffer;
+    }
+
+    static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Гарантирует, что в буфере есть место ещё под {@code bytes} байт;
+     * при нехватке копирует содержимое в буфер большего размера.
+     */
+    static ByteBuffer ensure(ByteBuffer buffer, int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return buffer;
+        }
+        int capacity = Math.max(buffer.capacity() * 2, buffer.position() + bytes);
+        ByteBuffer grown = buffer.isDirect() ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        buffer.flip();
+        grown.put(buffer);
+        return grown;
+    }
+}
@@ -0,0 +1,101 @@
+package com.yourorganization.out;
+
+import com.yourorganization.domain.Transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Делимый обход слотов хранилища на массивах ({@link ColumnarTransactionStore},
+ * {@link OffHeapTransactionStore}) для параллельной обработки.
+ * <p>
+ * Диапазон слотов делится пополам, пока части не меньше двух блоков. Слоты читаются
+ * блоками по {@value #BLOCK} под блокировкой чтения хранилища (см. {@link BlockReader}),
+ * а обработчик вызывается уже после её снятия, поэтому долгий обход не задерживает запись.
+ * Обход слабо согласован: изменения во время обхода могут быть видны, а могут и нет.
+ */
+final class SlotRangeSpliterator implements Spliterator<Transaction> {
+
+    static final int BLOCK = 4096;
+
+    /**
+     * Читает транзакции занятых слотов блока.
+     */
+    interface BlockReader {
+
+        /**
+         * Добавляет в {@code sink} копии транзакций из занятых слотов {@code [from, to)}.
+         *
+         * @param from первый слот
+         * @param to   слот за последним
+         * @param sink приёмник транзакций
+         */
+        void read(int from, int to, List<Transaction> sink);
+    }
+
+    private final BlockReader reader;
+    private final int fence;
+    private int origin;
+    private List<Transaction> buffer = List.of();
+    private int position;
+
+    SlotRangeSpliterator(BlockReader reader, int origin, int fence) {
+        this.reader = reader;
+        this.origin = origin;
+        this.fence = fence;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Transaction> action) {
+        while (position == buffer.size()) {
+            if (origin >= fence) {
+                return false;
+            }
+            buffer = nextBlock();
+            position = 0;
+        }
+        action.accept(buffer.get(position++));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super Transaction> action) {
+        while (position < buffer.size()) {
+            action.accept(buffer.get(position++));
+        }
+        while (origin < fence) {
+            nextBlock().forEach(action);
+        }
+    }
+
+    @Override
+    public Spliterator<Transaction> trySplit() {
+        if (position < buffer.size() || fence - origin < 2 * BLOCK) {
+            return null;
+        }
+        int middle = (origin + fence) >>> 1;
+        SlotRangeSpliterator prefix = new SlotRangeSpliterator(reader, origin, middle);
+        origin = middle;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return fence - origin + buffer.size() - position;
+    }
+
+    @Override
+    public int characteristics() {
+        return NONNULL | DISTINCT;
+    }
+
+    private List<Transaction> nextBlock() {
+        int to = Math.min(fence, origin + BLOCK);
+        List<Transaction> block = new ArrayList<>(to - origin);
+        reader.read(origin, to, block);
+        origin = to;
+        return block;
+    }
+}
@@ -0,0 +1,701 @@
+package com.yourorganization.out;
+
+import com.yourorganization.domain.Transaction;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Общая часть хранилищ, в которых строка таблицы - номер слота в столбцах
+ * ({@link ColumnarTransactionStore}, {@link OffHeapTransactionStore}).
+ * <p>
+ * Здесь живут индекс id -> слот ({@link LongIntHashMap}), списки слотов по пользователю,
+ * выдача и переиспользование освобождённых слотов, словарь категорий и все запросы.
+ * Наследник отвечает только за физическое хранение столбцов: чтение полей слота,
+ * запись строки, очистку слота и рост ёмкости. Доступ защищён {@link ReentrantReadWriteLock};
+ * методы-аксессоры вызываются под ним.
+ * <p>
+ * Объекты {@link Transaction} создаются только при чтении и являются копиями:
+ * изменять их нужно через {@link #update}.
+ */
+abstract class SlotTransactionStore implements TransactionStore {
+
+    static final int NO_DATE = Integer.MIN_VALUE;
+    static final byte NO_TYPE = -1;
+    static final int NO_CATEGORY = -1;
+
+    private static final Transaction.TransactionType[] TYPES = Transaction.TransactionType.values();
+
+    final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Сколько слотов когда-либо использовалось (верхняя граница прохода по столбцам).
+     */
+    private int slotCount;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    private final LongIntHashMap slotsById;
+
+    /**
+     * Списки слотов по пользователям: индекс userId -> позиция в {@link #userRows}.
+     * Ключ 0 в {@link LongIntHashMap} зарезервирован, поэтому позиция пользователя 0 хранится отдельно.
+     */
+    private final LongIntHashMap rowsIndexByUser = new LongIntHashMap(64);
+    private int zeroUserIndex = LongIntHashMap.NO_VALUE;
+    private UserRows[] userRows = new UserRows[64];
+    private int userCount;
+
+    private final Map<String, Integer> categoryCodesByName = new HashMap<>();
+    private String[] categoryNames = new String[16];
+    private int categoryCount;
+
+    /**
+     * @param expectedSlots ожидаемое число строк (начальный размер индекса id -> слот)
+     */
+    SlotTransactionStore(int expectedSlots) {
+        this.slotsById = new LongIntHashMap(expectedSlots);
+    }
+
+    // Хранение столбцов, которое реализует наследник
+
+    /**
+     * Возвращает число слотов, под которые уже выделены столбцы.
+     */
+    abstract int capacity();
+
+    /**
+     * Увеличивает ёмкость столбцов хотя бы на один слот.
+     */
+    abstract void grow();
+
+    abstract long id(int slot);
+
+    abstract long userId(int slot);
+
+    abstract double amount(int slot);
+
+    abstract int epochDay(int slot);
+
+    abstract byte type(int slot);
+
+    abstract int categoryCode(int slot);
+
+    abstract String description(int slot);
+
+    /**
+     * Позиция слота в списке слотов его пользователя (для удаления за O(1)).
+     */
+    abstract int userPosition(int slot);
+
+    abstract void setUserPosition(int slot, int position);
+
+    /**
+     * Записывает все столбцы новой строки. Не должен бросать исключений для строк,
+     * прошедших {@link #checkStorable}.
+     */
+    abstract void write(int slot, Transaction transaction, int categoryCode);
+
+    /**
+     * Перезаписывает изменяемые столбцы строки. При исключении строка должна остаться прежней.
+     */
+    abstract void rewrite(int slot, double amount, int categoryCode, String description, byte type);
+
+    /**
+     * Помечает слот свободным (id = 0) и освобождает связанные с ним ресурсы.
+     */
+    abstract void clear(int slot);
+
+    /**
+     * Проверяет, что строку можно записать, до любых изменений хранилища.
+     *
+     * @param transaction транзакция
+     * @throws IllegalArgumentException если строку нельзя сохранить
+     */
+    void checkStorable(Transaction transaction) {
+    }
+
+    @Override
+    public void checkStorable(Collection<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            checkStorable(transaction);
+        }
+    }
+
+    @Override
+    public Transaction save(Transaction transaction) {
+        lock.writeLock().lock();
+        try {
+            checkStorable(transaction);
+            insert(transaction);
+            return transaction;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Блокировка записи захватывается один раз на всю пачку. Все строки проверяются
+     * до записи первой, поэтому пачка сохраняется целиком или не сохраняется вовсе.
+     */
+    @Override
+    public void saveAll(Collection<Transaction> transactions) {
+        lock.writeLock().lock();
+        try {
+            checkStorable(transactions);
+            for (Transaction transaction : transactions) {
+                insert(transaction);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Transaction update(long id, double amount, String category,
+                              String description, Transaction.TransactionType type) {
+        lock.writeLock().lock();
+        try {
+            int slot = slotsById.get(id);
+            if (slot == LongIntHashMap.NO_VALUE) {
+                return null;
+            }
+            double oldAmount = amount(slot);
+            byte oldType = type(slot);
+            byte newType = encodeType(type);
+            rewrite(slot, amount, encodeCategory(category), description, newType);
+            UserRows rows = rowsOf(userId(slot));
+            rows.adjust(oldType, -oldAmount);
+            rows.adjust(newType, amount);
+            return materialize(slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Transaction findById(long id) {
+        lock.readLock().lock();
+        try {
+            int slot = slotsById.get(id);
+            return slot == LongIntHashMap.NO_VALUE ? null : materialize(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Делит диапазон слотов; блоки копируются под блокировкой чтения.
+     */
+    @Override
+    public Spliterator<Transaction> spliterator() {
+        lock.readLock().lock();
+        try {
+            return new SlotRangeSpliterator(this::readSlots, 0, slotCount);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void readSlots(int from, int to, List<Transaction> sink) {
+        lock.readLock().lock();
+        try {
+            for (int slot = from; slot < Math.min(to, slotCount); slot++) {
+                if (id(slot) != 0) {
+                    sink.add(materialize(slot));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Возвращает снимок (копии транзакций) на момент вызова.
+     */
+    @Override
+    public Collection<Transaction> findAll() {
+        lock.readLock().lock();
+        try {
+            List<Transaction> result = new ArrayList<>(slotsById.size());
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (id(slot) != 0) {
+                    result.add(materialize(slot));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Возвращает снимок (копии транзакций) на момент вызова.
+     */
+    @Override
+    public Collection<Transaction> findByUser(long userId) {
+        lock.readLock().lock();
+        try {
+            UserRows rows = rowsOf(userId);
+            if (rows == null) {
+                return new ArrayList<>();
+            }
+            List<Transaction> result = new ArrayList<>(rows.count);
+            for (int i = 0; i < rows.count; i++) {
+                result.add(materialize(rows.slots[i]));
+            }
+            result.sort(Comparator.comparingLong(Transaction::getId));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Возвращает снимок; слоты пользователя фильтруются по дню эпохи до создания объектов.
+     */
+    @Override
+    public Collection<Transaction> findByUser(long userId, LocalDate from, LocalDate to) {
+        int fromDay = clampDay(from);
+        int toDay = clampDay(to);
+        lock.readLock().lock();
+        try {
+            UserRows rows = rowsOf(userId);
+            if (rows == null) {
+                return new ArrayList<>();
+            }
+            List<Transaction> result = new ArrayList<>();
+            for (int i = 0; i < rows.count; i++) {
+                int slot = rows.slots[i];
+                if (inPeriod(slot, fromDay, toDay)) {
+                    result.add(materialize(slot));
+                }
+            }
+            result.sort(Comparator.comparing(Transaction::getDate).thenComparingLong(Transaction::getId));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Один проход по слотам пользователя с отбором {@code limit} наибольших id;
+     * объекты создаются только для строк страницы.
+     */
+    @Override
+    public List<Transaction> findPageByUser(long userId, long beforeId, int limit) {
+        lock.readLock().lock();
+        try {
+            UserRows rows = rowsOf(userId);
+            if (rows == null) {
+                return new ArrayList<>();
+            }
+            NewestIdSelection selection = new NewestIdSelection(Math.min(limit, rows.count));
+            for (int i = 0; i < rows.count; i++) {
+                int slot = rows.slots[i];
+                long id = id(slot);
+                if (id < beforeId) {
+                    selection.offer(id, slot);
+                }
+            }
+            int[] slots = selection.drainNewestFirst();
+            List<Transaction> page = new ArrayList<>(slots.length);
+            for (int slot : slots) {
+                page.add(materialize(slot));
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * O(1): доходы и расходы пользователя поддерживаются при каждом изменении.
+     */
+    @Override
+    public double balance(long userId) {
+        lock.readLock().lock();
+        try {
+            UserRows rows = rowsOf(userId);
+            return rows == null ? 0.0 : rows.income - rows.expense;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Считается проходом по столбцам дат и сумм слотов пользователя без выделения памяти.
+     */
+    @Override
+    public double balance(long userId, LocalDate from, LocalDate to) {
+        return balance(userId, clampDay(from), clampDay(to));
+    }
+
+    @Override
+    public int count(long userId) {
+        lock.readLock().lock();
+        try {
+            UserRows rows = rowsOf(userId);
+            return rows == null ? 0 : rows.count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int count(long userId, LocalDate from, LocalDate to) {
+        int fromDay = clampDay(from);
+        int toDay = clampDay(to);
+        lock.readLock().lock();
+        try {
+            UserRows rows = rowsOf(userId);
+            if (rows == null) {
+                return 0;
+            }
+            int count = 0;
+            for (int i = 0; i < rows.count; i++) {
+                if (inPeriod(rows.slots[i], fromDay, toDay)) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Суммирует транзакции пользователя заданного типа, при необходимости
+     * только по одной категории. Выполняется без выделения памяти.
+     *
+     * @param userId   идентификатор пользователя
+     * @param category категория или null для всех категорий
+     * @param type     тип транзакций
+     * @return сумма; 0, если подходящих транзакций нет
+     */
+    public double sum(long userId, String category, Transaction.TransactionType type) {
+        lock.readLock().lock();
+        try {
+            UserRows rows = rowsOf(userId);
+            if (rows == null) {
+                return 0.0;
+            }
+            int categoryCode = NO_CATEGORY;
+            if (category != null) {
+                Integer code = categoryCodesByName.get(category);
+                if (code == null) {
+                    return 0.0;
+                }
+                categoryCode = code;
+            }
+            byte typeCode = encodeType(type);
+            double total = 0.0;
+            for (int i = 0; i < rows.count; i++) {
+                int slot = rows.slots[i];
+                if (type(slot) == typeCode && (category == null || categoryCode(slot) == categoryCode)) {
+                    total += amount(slot);
+                }
+            }
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(long id) {
+        lock.writeLock().lock();
+        try {
+            remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Блокировка записи захватывается один раз на всю пачку.
+     */
+    @Override
+    public void deleteAll(long[] ids) {
+        lock.writeLock().lock();
+        try {
+            for (long id : ids) {
+                remove(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Освобождает слоты пользователя без перестановок в его списке слотов:
+     * O(число транзакций пользователя). Освобождённые слоты переиспользуются
+     * новыми строками; сами столбцы не уменьшаются.
+     */
+    @Override
+    public void deleteByUser(long userId) {
+        lock.writeLock().lock();
+        try {
+            UserRows rows = rowsOf(userId);
+            if (rows != null) {
+                for (int i = 0; i < rows.count; i++) {
+                    freeSlot(rows.slots[i]);
+                }
+                removeRows(rows);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private double balance(long userId, int fromDay, int toDay) {
+        byte income = encodeType(Transaction.TransactionType.INCOME);
+        byte expense = encodeType(Transaction.TransactionType.EXPENSE);
+        lock.readLock().lock();
+        try {
+            UserRows rows = rowsOf(userId);
+            if (rows == null) {
+                return 0.0;
+            }
+            double balance = 0.0;
+            for (int i = 0; i < rows.count; i++) {
+                int slot = rows.slots[i];
+                if (!inPeriod(slot, fromDay, toDay)) {
+                    continue;
+                }
+                byte type = type(slot);
+                if (type == income) {
+                    balance += amount(slot);
+                } else if (type == expense) {
+                    balance -= amount(slot);
+                }
+            }
+            return balance;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void insert(Transaction transaction) {
+        int existing = slotsById.get(transaction.getId());
+        if (existing != LongIntHashMap.NO_VALUE) {
+            releaseSlot(existing);
+        }
+        int slot = allocateSlot();
+        write(slot, transaction, encodeCategory(transaction.getCategory()));
+        slotsById.put(transaction.getId(), slot);
+        UserRows rows = rowsOf(transaction.getUserId());
+        if (rows == null) {
+            rows = addRows(transaction.getUserId());
+        }
+        setUserPosition(slot, rows.add(slot));
+        rows.adjust(encodeType(transaction.getType()), transaction.getAmount());
+    }
+
+    private void remove(long id) {
+        int slot = slotsById.get(id);
+        if (slot != LongIntHashMap.NO_VALUE) {
+            releaseSlot(slot);
+        }
+    }
+
+    /**
+     * Переводит границу периода в номер дня, ограничивая его диапазоном {@code int}.
+     */
+    private static int clampDay(LocalDate date) {
+        return (int) Math.max(NO_DATE + 1L, Math.min(Integer.MAX_VALUE, date.toEpochDay()));
+    }
+
+    static int encodeDate(LocalDate date) {
+        return date == null ? NO_DATE : (int) date.toEpochDay();
+    }
+
+    static byte encodeType(Transaction.TransactionType type) {
+        return type == null ? NO_TYPE : (byte) type.ordinal();
+    }
+
+    private boolean inPeriod(int slot, int fromDay, int toDay) {
+        int day = epochDay(slot);
+        return day != NO_DATE && day >= fromDay && day <= toDay;
+    }
+
+    private Transaction materialize(int slot) {
+        int category = categoryCode(slot);
+        int day = epochDay(slot);
+        byte type = type(slot);
+        return new Transaction(id(slot), userId(slot), amount(slot),
+                category == NO_CATEGORY ? null : categoryNames[category],
+                day == NO_DATE ? null : LocalDate.ofEpochDay(day),
+                description(slot),
+                type == NO_TYPE ? null : TYPES[type]);
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slotCount == capacity()) {
+            grow();
+        }
+        return slotCount++;
+    }
+
+    private void releaseSlot(int slot) {
+        long userId = userId(slot);
+        UserRows rows = rowsOf(userId);
+        rows.adjust(type(slot), -amount(slot));
+        int position = userPosition(slot);
+        int moved = rows.removeAt(position);
+        if (moved != LongIntHashMap.NO_VALUE) {
+            setUserPosition(moved, position);
+        }
+        if (rows.count == 0) {
+            removeRows(rows);
+        }
+        freeSlot(slot);
+    }
+
+    private void freeSlot(int slot) {
+        slotsById.remove(id(slot));
+        clear(slot);
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    private UserRows rowsOf(long userId) {
+        int index = indexOf(userId);
+        return index == LongIntHashMap.NO_VALUE ? null : userRows[index];
+    }
+
+    private UserRows addRows(long userId) {
+        if (userCount == userRows.length) {
+            userRows = Arrays.copyOf(userRows, userCount * 2);
+        }
+        UserRows rows = new UserRows(userId);
+        userRows[userCount] = rows;
+        setIndex(userId, userCount++);
+        return rows;
+    }
+
+    /**
+     * Удаляет список пользователя, перенося последний список на освободившуюся позицию.
+     */
+    private void removeRows(UserRows rows) {
+        int index = indexOf(rows.userId);
+        UserRows last = userRows[--userCount];
+        userRows[userCount] = null;
+        if (last != rows) {
+            userRows[index] = last;
+            setIndex(last.userId, index);
+        }
+        if (rows.userId == 0) {
+            zeroUserIndex = LongIntHashMap.NO_VALUE;
+        } else {
+            rowsIndexByUser.remove(rows.userId);
+        }
+    }
+
+    private int indexOf(long userId) {
+        return userId == 0 ? zeroUserIndex : rowsIndexByUser.get(userId);
+    }
+
+    private void setIndex(long userId, int index) {
+        if (userId == 0) {
+            zeroUserIndex = index;
+        } else {
+            rowsIndexByUser.put(userId, index);
+        }
+    }
+
+    private int encodeCategory(String category) {
+        if (category == null) {
+            return NO_CATEGORY;
+        }
+        Integer code = categoryCodesByName.get(category);
+        if (code != null) {
+            return code;
+        }
+        if (categoryCount == categoryNames.length) {
+            categoryNames = Arrays.copyOf(categoryNames, categoryNames.length * 2);
+        }
+        categoryNames[categoryCount] = category;
+        categoryCodesByName.put(category, categoryCount);
+        return categoryCount++;
+    }
+
+    /**
+     * Слоты одного пользователя; порядок не важен, удаление - перестановкой последнего.
+     * Суммы доходов и расходов поддерживаются вместе со списком.
+     */
+    private static final class UserRows {
+        private final long userId;
+        private int[] slots = new int[8];
+        private int count;
+        private double income;
+        private double expense;
+
+        UserRows(long userId) {
+            this.userId = userId;
+        }
+
+        void adjust(byte type, double amount) {
+            if (type == Transaction.TransactionType.INCOME.ordinal()) {
+                income += amount;
+            } else if (type == Transaction.TransactionType.EXPENSE.ordinal()) {
+                expense += amount;
+            }
+        }
+
+        int add(int slot) {
+            if (count == slots.length) {
+                slots = Arrays.copyOf(slots, count * 2);
+            }
+            slots[count] = slot;
+            return count++;
+        }
+
+        /**
+         * Удаляет слот по позиции.
+         *
+         * @return слот, перенесённый на освободившуюся позицию, или NO_VALUE
+         */
+        int removeAt(int position) {
+            int last = --count;
+            if (position == last) {
+                return LongIntHashMap.NO_VALUE;
+            }
+            slots[position] = slots[last];
+            return slots[position];
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.yourorganization.out;
+
+import com.yourorganization.domain.Budget;
+import com.yourorganization.domain.Goal;
+import com.yourorganization.domain.RecurringTransaction;
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.domain.User;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Двоичный снимок всего хранилища (пользователи, транзакции, цели, шаблоны регулярных
+ * транзакций, бюджеты).
+ * <p>
+ * Формат (версия {@value #VERSION}):
+ * {@code [int MAGIC][int версия][long след. id пользователя][long след. id транзакции]
+ * [long след. id цели][long след. id шаблона]}, затем строки, каждая с байтом-тегом
+ * ({@code 1} - пользователь, {@code 2} - транзакция, {@code 3} - цель, {@code 4} - шаблон,
+ * {@code 5} - бюджет) в кодировке {@link RowCodec}, затем тег {@code 0} и {@code int} CRC32
+ * всего предшествующего содержимого. Снимки прежних версий по-прежнему читаются: в версии 1
+ * нет шаблонов и их счётчика, в версии 2 - бюджетов.
+ * <p>
+ * Файл пишется во временный файл и атомарно переименовывается, поэтому на диске
+ * всегда лежит либо старый, либо новый полный снимок. Чтение идёт через
+ * {@link MappedByteBuffer} без промежуточного копирования (размер снимка
+ * ограничен 2 ГБ).
+ */
+public final class SnapshotFile {
+
+    static final int MAGIC = 0x52455753;
+    static final int VERSION = 3;
+
+    private static final byte END = 0;
+    private static final byte USER = 1;
+    private static final byte TRANSACTION = 2;
+    private static final byte GOAL = 3;
+    private static final byte RECURRING = 4;
+    private static final byte BUDGET = 5;
+
+    private static final int FLUSH_THRESHOLD = 1 << 20;
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Записывает снимок хранилища. Вызывающий код отвечает за то, чтобы
+     * хранилище не менялось во время записи (см. {@link InMemoryDatabase#runExclusively}).
+     *
+     * @param db   хранилище
+     * @param path путь к файлу снимка
+     * @throws IOException при ошибке записи
+     */
+    public static void write(InMemoryDatabase db, Path path) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Writer writer = new Writer(channel);
+            ByteBuffer header = writer.reserve(headerSize(VERSION));
+            header.putInt(MAGIC);
+            header.putInt(VERSION);
+            header.putLong(User.getNextId());
+            header.putLong(Transaction.getNextId());
+            header.putLong(Goal.getNextId());
+            header.putLong(RecurringTransaction.getNextId());
+            for (User user : db.findAllUsers()) {
+                writer.reserve(1).put(USER);
+                writer.buffer = RowCodec.putUser(writer.buffer, user);
+                writer.maybeFlush();
+            }
+            for (Transaction transaction : db.findAllTransactions()) {
+                writer.reserve(1).put(TRANSACTION);
+                writer.buffer = RowCodec.putTransaction(writer.buffer, transaction);
+                writer.maybeFlush();
+            }
+            for (Goal goal : db.findAllGoals()) {
+                writer.reserve(1).put(GOAL);
+                writer.buffer = RowCodec.putGoal(writer.buffer, goal);
+                writer.maybeFlush();
+            }
+            for (RecurringTransaction template : db.findAllRecurring()) {
+                writer.reserve(1).put(RECURRING);
+                writer.buffer = RowCodec.putRecurring(writer.buffer, template);
+                writer.maybeFlush();
+            }
+            for (Budget budget : db.findAllBudgets()) {
+                writer.reserve(1).put(BUDGET);
+                writer.buffer = RowCodec.putBudget(writer.buffer, budget);
+                writer.maybeFlush();
+            }
+            writer.reserve(1).put(END);
+            writer.flush();
+            ByteBuffer trailer = ByteBuffer.allocate(Integer.BYTES);
+            trailer.putInt((int) writer.crc.getValue());
+            trailer.flip();
+            while (trailer.hasRemaining()) {
+                channel.write(trailer);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Загружает снимок в пустое хранилище и восстанавливает счётчики идентификаторов.
+     *
+     * @param db   хранилище (журнал к нему ещё не должен быть подключён)
+     * @param path путь к файлу снимка
+     * @return true, если снимок загружен; false, если файла нет
+     * @throws IOException если файл не читается, повреждён или имеет неизвестную версию
+     */
+    public static boolean load(InMemoryDatabase db, Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Снимок больше 2 ГБ не поддерживается: " + path);
+            }
+            if (size < 2 * Integer.BYTES) {
+                throw new IOException("Снимок повреждён: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Файл не является снимком: " + path);
+            }
+            int version = buffer.getInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Неподдерживаемая версия снимка " + version + ": " + path);
+            }
+            if (size < headerSize(version) + 1 + Integer.BYTES) {
+                throw new IOException("Снимок повреждён: " + path);
+            }
+            int contentSize = (int) size - Integer.BYTES;
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().position(0).limit(contentSize));
+            if ((int) crc.getValue() != buffer.getInt(contentSize)) {
+                throw new IOException("Снимок повреждён (CRC): " + path);
+            }
+
+            User.restoreNextId(buffer.getLong());
+            Transaction.restoreNextId(buffer.getLong());
+            Goal.restoreNextId(buffer.getLong());
+            if (version >= 2) {
+                RecurringTransaction.restoreNextId(buffer.getLong());
+            }
+            while (true) {
+                byte tag = buffer.get();
+                if (tag == END) {
+                    break;
+                } else if (tag == USER) {
+                    db.saveUser(RowCodec.getUser(buffer));
+                } else if (tag == TRANSACTION) {
+                    db.saveTransaction(RowCodec.getTransaction(buffer));
+                } else if (tag == GOAL) {
+                    db.saveGoal(RowCodec.getGoal(buffer));
+                } else if (tag == RECURRING && version >= 2) {
+                    db.saveRecurring(RowCodec.getRecurring(buffer));
+                } else if (tag == BUDGET && version >= 3) {
+                    db.saveBudget(RowCodec.getBudget(buffer));
+                } else {
+                    throw new IOException("Снимок повреждён: неизвестный тег " + tag);
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Размер заголовка: версия 1 хранит три счётчика идентификаторов, следующие - четыре.
+     */
+    private static int headerSize(int version) {
+        return 2 * Integer.BYTES + (version == 1 ? 3 : 4) * Long.BYTES;
+    }
+
+    /**
+     * Буферизованная запись в канал с подсчётом CRC32 записанного содержимого.
+     */
+    private static final class Writer {
+        private final FileChannel channel;
+        private final CRC32 crc = new CRC32();
+        private ByteBuffer buffer = ByteBuffer.allocate(FLUSH_THRESHOLD + 4096);
+
+        Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        ByteBuffer reserve(int bytes) {
+            buffer = RowCodec.ensure(buffer, bytes);
+            return buffer;
+        }
+
+        void maybeFlush() throws IOException {
+            if (buffer.position() >= FLUSH_THRESHOLD) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.array(), 0, buffer.limit());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.yourorganization.out;
+
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Движки хранения транзакций, доступные при запуске ({@code --storage=<имя>}).
+ * Новый движок, добавленный сюда, автоматически попадает в тесты соответствия
+ * хранилищ и в бенчмарк хранилищ.
+ */
+public enum StorageEngine {
+    /**
+     * Объекты в hash-таблицах с индексами по пользователю и дате ({@link HashTransactionStore}).
+     */
+    HASH(HashTransactionStore::new),
+    /**
+     * Колоночные массивы примитивов ({@link ColumnarTransactionStore}).
+     */
+    COLUMNAR(ColumnarTransactionStore::new),
+    /**
+     * Записи фиксированной длины в прямых буферах вне кучи ({@link OffHeapTransactionStore}).
+     */
+    OFFHEAP(OffHeapTransactionStore::new);
+
+    private final Supplier<TransactionStore> factory;
+
+    StorageEngine(Supplier<TransactionStore> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Создаёт пустое хранилище с этим движком транзакций.
+     *
+     * @return новое хранилище
+     */
+    public InMemoryDatabase newDatabase() {
+        return new InMemoryDatabase(factory.get());
+    }
+
+    /**
+     * Находит движок по имени без учёта регистра.
+     *
+     * @param name имя движка
+     * @return движок
+     * @throws IllegalArgumentException если движка с таким именем нет
+     */
+    public static StorageEngine fromName(String name) {
+        for (StorageEngine engine : values()) {
+            if (engine.name().equalsIgnoreCase(name.trim())) {
+                return engine;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный движок хранения: " + name.toLowerCase(Locale.ROOT));
+    }
+}
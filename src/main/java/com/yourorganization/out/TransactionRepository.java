@@ -0,0 +1,175 @@
+package com.yourorganization.out;
+
+import com.yourorganization.domain.Transaction;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+
+/**
+ * Хранилище транзакций, с которым работает {@link com.yourorganization.service.TransactionService}.
+ * Реализации обязаны быть потокобезопасными.
+ */
+public interface TransactionRepository {
+
+    /**
+     * Сохраняет транзакцию; транзакция с тем же id заменяется.
+     *
+     * @param transaction объект транзакции
+     * @return тот же объект {@link Transaction}
+     */
+    Transaction saveTransaction(Transaction transaction);
+
+    /**
+     * Сохраняет новую транзакцию, только если её пользователь существует. Проверка
+     * и сохранение выполняются атомарно относительно удаления пользователя, поэтому
+     * транзакция не может пережить своего владельца.
+     *
+     * @param transaction объект транзакции
+     * @return тот же объект {@link Transaction}
+     * @throws IllegalArgumentException если пользователь не найден
+     */
+    Transaction saveOwnedTransaction(Transaction transaction);
+
+    /**
+     * Сохраняет пачку транзакций целиком или не сохраняет ни одной.
+     *
+     * @param transactions транзакции для сохранения
+     * @return тот же список транзакций
+     */
+    List<Transaction> saveTransactions(List<Transaction> transactions);
+
+    /**
+     * Обновляет сумму, категорию, описание и тип транзакции.
+     *
+     * @param id          идентификатор транзакции
+     * @param amount      новая сумма
+     * @param category    новая категория
+     * @param description новое описание
+     * @param type        новый тип
+     * @return обновлённая {@link Transaction} или null, если не найдена
+     */
+    Transaction updateTransaction(long id, double amount, String category,
+                                  String description, Transaction.TransactionType type);
+
+    /**
+     * Находит транзакцию по идентификатору.
+     *
+     * @param id идентификатор транзакции
+     * @return объект {@link Transaction} или null, если не найден
+     */
+    Transaction findTransactionById(long id);
+
+    /**
+     * Возвращает все транзакции.
+     *
+     * @return коллекция {@link Transaction}
+     */
+    Collection<Transaction> findAllTransactions();
+
+    /**
+     * Возвращает делимый обход всех транзакций для параллельной обработки.
+     *
+     * @return обход транзакций (слабо согласованный)
+     */
+    Spliterator<Transaction> transactionSpliterator();
+
+    /**
+     * Возвращает транзакции пользователя, упорядоченные по id.
+     *
+     * @param userId идентификатор пользователя
+     * @return коллекция {@link Transaction}
+     */
+    Collection<Transaction> findTransactionsByUser(long userId);
+
+    /**
+     * Возвращает транзакции пользователя за период (границы включительно),
+     * упорядоченные по дате и id.
+     *
+     * @param userId идентификатор пользователя
+     * @param from   первый день периода
+     * @param to     последний день периода
+     * @return коллекция {@link Transaction}
+     */
+    Collection<Transaction> findTransactionsByUser(long userId, LocalDate from, LocalDate to);
+
+    /**
+     * Возвращает страницу транзакций пользователя от новых к старым (keyset-пагинация):
+     * не более {@code limit} транзакций с id меньше {@code beforeId}.
+     *
+     * @param userId   идентификатор пользователя
+     * @param beforeId курсор: id последней транзакции предыдущей страницы
+     *                 или {@link Long#MAX_VALUE} для первой страницы
+     * @param limit    наибольший размер страницы
+     * @return список {@link Transaction} по убыванию id
+     */
+    List<Transaction> findTransactionsPageByUser(long userId, long beforeId, int limit);
+
+    /**
+     * Возвращает баланс пользователя (доходы - расходы).
+     *
+     * @param userId идентификатор пользователя
+     * @return баланс; 0, если транзакций нет
+     */
+    double findBalance(long userId);
+
+    /**
+     * Возвращает баланс пользователя за период (границы включительно).
+     *
+     * @param userId идентификатор пользователя
+     * @param from   первый день периода
+     * @param to     последний день периода
+     * @return баланс за период; 0, если транзакций нет
+     */
+    double findBalance(long userId, LocalDate from, LocalDate to);
+
+    /**
+     * Возвращает число транзакций пользователя.
+     *
+     * @param userId идентификатор пользователя
+     * @return число транзакций; 0, если транзакций нет
+     */
+    int countTransactions(long userId);
+
+    /**
+     * Возвращает число транзакций пользователя за период (границы включительно).
+     *
+     * @param userId идентификатор пользователя
+     * @param from   первый день периода
+     * @param to     последний день периода
+     * @return число транзакций за период
+     */
+    int countTransactions(long userId, LocalDate from, LocalDate to);
+
+    /**
+     * Удаляет транзакцию; отсутствующий идентификатор игнорируется.
+     *
+     * @param id идентификатор транзакции
+     */
+    void deleteTransaction(long id);
+
+    /**
+     * Удаляет пачку транзакций целиком или не удаляет ни одной.
+     *
+     * @param ids идентификаторы транзакций
+     * @throws IllegalArgumentException если какая-либо транзакция не найдена
+     */
+    void deleteTransactions(long[] ids);
+
+    /**
+     * Регистрирует слушателя, которого хранилище вызывает после удаления
+     * пользователя вместе с его транзакциями.
+     *
+     * @param listener получает идентификатор удалённого пользователя
+     */
+    void addUserRemovalListener(LongConsumer listener);
+
+    /**
+     * Отменяет регистрацию слушателя удаления пользователя.
+     *
+     * @param listener ранее зарегистрированный слушатель
+     */
+    void removeUserRemovalListener(LongConsumer listener);
+}
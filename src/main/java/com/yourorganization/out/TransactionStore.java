@@ -0,0 +1,188 @@
+package com.yourorganization.out;
+
+import com.yourorganization.domain.Transaction;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Spliterator;
+
+/**
+ * Движок хранения транзакций, которым пользуется {@link InMemoryDatabase}.
+ * Позволяет подменять физическое представление транзакций
+ * (объекты в hash-таблицах, колоночные массивы и т.д.), не меняя сервисы.
+ * Реализации обязаны быть потокобезопасными.
+ */
+public interface TransactionStore {
+
+    /**
+     * Сохраняет транзакцию; транзакция с тем же id заменяется.
+     *
+     * @param transaction объект транзакции
+     * @return тот же объект {@link Transaction}
+     */
+    Transaction save(Transaction transaction);
+
+    /**
+     * Сохраняет пачку транзакций. Реализации могут поддерживать индексы
+     * и захватывать блокировки один раз на всю пачку.
+     *
+     * @param transactions транзакции для сохранения
+     */
+    default void saveAll(Collection<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            save(transaction);
+        }
+    }
+
+    /**
+     * Проверяет, что пачку можно сохранить, ничего не меняя. Вызывается до записи
+     * пачки в журнал, чтобы {@link #saveAll} не отверг уже записанную пачку.
+     *
+     * @param transactions транзакции для сохранения
+     * @throws IllegalArgumentException если какую-либо транзакцию нельзя сохранить
+     */
+    default void checkStorable(Collection<Transaction> transactions) {
+    }
+
+    /**
+     * Обновляет сумму, категорию, описание и тип транзакции.
+     *
+     * @param id          идентификатор транзакции
+     * @param amount      новая сумма
+     * @param category    новая категория
+     * @param description новое описание
+     * @param type        новый тип
+     * @return обновлённая {@link Transaction} или null, если не найдена
+     */
+    Transaction update(long id, double amount, String category,
+                       String description, Transaction.TransactionType type);
+
+    /**
+     * Находит транзакцию по идентификатору.
+     *
+     * @param id идентификатор транзакции
+     * @return объект {@link Transaction} или null, если не найден
+     */
+    Transaction findById(long id);
+
+    /**
+     * Возвращает все транзакции.
+     *
+     * @return коллекция {@link Transaction}
+     */
+    Collection<Transaction> findAll();
+
+    /**
+     * Возвращает делимый обход всех транзакций для параллельной обработки
+     * (например, в {@link java.util.concurrent.ForkJoinPool}). Обход слабо согласован.
+     * По умолчанию делится обход {@link #findAll()}; реализации на массивах делят
+     * диапазон слотов и не строят снимок всей таблицы.
+     *
+     * @return обход транзакций
+     */
+    default Spliterator<Transaction> spliterator() {
+        return findAll().spliterator();
+    }
+
+    /**
+     * Возвращает транзакции пользователя, упорядоченные по id.
+     *
+     * @param userId идентификатор пользователя
+     * @return коллекция {@link Transaction}
+     */
+    Collection<Transaction> findByUser(long userId);
+
+    /**
+     * Возвращает транзакции пользователя за период (границы включительно),
+     * упорядоченные по дате, а внутри дня - по id. Транзакции без даты не попадают.
+     *
+     * @param userId идентификатор пользователя
+     * @param from   первый день периода
+     * @param to     последний день периода
+     * @return коллекция {@link Transaction}
+     */
+    Collection<Transaction> findByUser(long userId, LocalDate from, LocalDate to);
+
+    /**
+     * Возвращает страницу транзакций пользователя: не более {@code limit} транзакций
+     * с id меньше {@code beforeId}, от новых к старым (по убыванию id).
+     * Реализации не должны создавать копии всех транзакций пользователя.
+     *
+     * @param userId   идентификатор пользователя
+     * @param beforeId курсор: id последней транзакции предыдущей страницы
+     *                 или {@link Long#MAX_VALUE} для первой страницы
+     * @param limit    наибольший размер страницы
+     * @return список {@link Transaction} по убыванию id
+     */
+    List<Transaction> findPageByUser(long userId, long beforeId, int limit);
+
+    /**
+     * Возвращает баланс пользователя (доходы - расходы).
+     *
+     * @param userId идентификатор пользователя
+     * @return баланс; 0, если транзакций нет
+     */
+    double balance(long userId);
+
+    /**
+     * Возвращает баланс пользователя за период (границы включительно).
+     *
+     * @param userId идентификатор пользователя
+     * @param from   первый день периода
+     * @param to     последний день периода
+     * @return баланс за период; 0, если транзакций нет
+     */
+    double balance(long userId, LocalDate from, LocalDate to);
+
+    /**
+     * Возвращает число транзакций пользователя.
+     *
+     * @param userId идентификатор пользователя
+     * @return число транзакций; 0, если транзакций нет
+     */
+    int count(long userId);
+
+    /**
+     * Возвращает число транзакций пользователя за период (границы включительно).
+     *
+     * @param userId идентификатор пользователя
+     * @param from   первый день периода
+     * @param to     последний день периода
+     * @return число транзакций за период
+     */
+    int count(long userId, LocalDate from, LocalDate to);
+
+    /**
+     * Удаляет транзакцию по идентификатору.
+     *
+     * @param id идентификатор транзакции
+     */
+    void delete(long id);
+
+    /**
+     * Удаляет пачку транзакций; отсутствующие идентификаторы пропускаются.
+     *
+     * @param ids идентификаторы транзакций
+     */
+    default void deleteAll(long[] ids) {
+        for (long id : ids) {
+            delete(id);
+        }
+    }
+
+    /**
+     * Удаляет все транзакции пользователя.
+     *
+     * @param userId идентификатор пользователя
+     */
+    default void deleteByUser(long userId) {
+        Collection<Transaction> userTransactions = findByUser(userId);
+        long[] ids = new long[userTransactions.size()];
+        int count = 0;
+        for (Transaction transaction : userTransactions) {
+            ids[count++] = transaction.getId();
+        }
+        deleteAll(ids);
+    }
+}
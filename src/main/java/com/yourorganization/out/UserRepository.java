@@ -0,0 +1,83 @@
+package com.yourorganization.out;
+
+import com.yourorganization.domain.User;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Хранилище пользователей, с которым работает {@link com.yourorganization.service.UserService}.
+ * Реализации обязаны быть потокобезопасными.
+ */
+public interface UserRepository {
+
+    /**
+     * Сохраняет (или обновляет) пользователя.
+     *
+     * @param user пользователь для сохранения
+     * @return тот же объект {@link User}
+     * @throws IllegalArgumentException если email уже занят другим пользователем
+     */
+    User saveUser(User user);
+
+    /**
+     * Сохраняет пачку пользователей целиком или не сохраняет никого.
+     *
+     * @param users пользователи для сохранения
+     * @return тот же список пользователей
+     * @throws IllegalArgumentException если какой-либо email занят
+     */
+    List<User> saveUsers(List<User> users);
+
+    /**
+     * Находит пользователя по идентификатору.
+     *
+     * @param id идентификатор пользователя
+     * @return объект {@link User} или null, если не найден
+     */
+    User findUserById(long id);
+
+    /**
+     * Находит пользователя по email без учёта регистра и пробелов по краям.
+     *
+     * @param email email пользователя
+     * @return объект {@link User} или null, если не найден
+     */
+    User findUserByEmail(String email);
+
+    /**
+     * Меняет email пользователя.
+     *
+     * @param userId   идентификатор пользователя
+     * @param newEmail новый email
+     * @return true, если email изменён; false, если пользователь не найден
+     * или email занят другим пользователем
+     */
+    boolean updateUserEmail(long userId, String newEmail);
+
+    /**
+     * Меняет email, имя и пароль пользователя одним изменением.
+     *
+     * @param userId      идентификатор пользователя
+     * @param newEmail    новый email
+     * @param newName     новое имя
+     * @param newPassword новый пароль
+     * @return true, если данные изменены; false, если пользователь не найден
+     * или email занят другим пользователем
+     */
+    boolean updateUser(long userId, String newEmail, String newName, String newPassword);
+
+    /**
+     * Возвращает всех пользователей.
+     *
+     * @return коллекция {@link User}
+     */
+    Collection<User> findAllUsers();
+
+    /**
+     * Удаляет пользователя вместе с его транзакциями и целями.
+     *
+     * @param id идентификатор пользователя
+     */
+    void deleteUser(long id);
+}
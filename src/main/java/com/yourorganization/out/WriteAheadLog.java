@@ -0,0 +1,664 @@
+package com.yourorganization.out;
+
+import com.yourorganization.domain.Budget;
+import com.yourorganization.domain.Goal;
+import com.yourorganization.domain.RecurringTransaction;
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.domain.User;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал изменений (append-only) для {@link InMemoryDatabase}.
+ * <p>
+ * Каждое сохранение, изменение и удаление записывается в конец файла компактной
+ * двоичной записью: {@code [int длина][byte операция][данные строки][int CRC32]}.
+ * При старте журнал проигрывается в пустое хранилище; недописанный «хвост»
+ * (например, после падения процесса) отбрасывается. Пакетные изменения пишутся
+ * с заголовком пачки и при проигрывании применяются целиком или не применяются вовсе.
+ * Если пачку не удалось дописать (ошибка ввода-вывода или кодирования), уже записанная
+ * её часть отрезается от файла, иначе заголовок пачки поглотил бы последующие записи.
+ * <p>
+ * Сброс на диск ({@link FileChannel#force}) выполняется групповым коммитом:
+ * один вызов {@code force} подтверждает все записи, добавленные до него, а потоки,
+ * ожидающие своей записи, не вызывают {@code force} повторно.
+ */
+public class WriteAheadLog implements Closeable {
+
+    /**
+     * Режим сброса журнала на диск.
+     */
+    public enum SyncMode {
+        /**
+         * Каждое изменение подтверждается только после сброса на диск (групповой коммит).
+         */
+        ALWAYS,
+        /**
+         * Журнал сбрасывается фоновым потоком раз в заданный интервал.
+         */
+        INTERVAL,
+        /**
+         * Сброс оставлен операционной системе.
+         */
+        OS
+    }
+
+    static final byte PUT_USER = 1;
+    static final byte DELETE_USER = 2;
+    static final byte PUT_TRANSACTION = 3;
+    static final byte DELETE_TRANSACTION = 4;
+    static final byte PUT_GOAL = 5;
+    static final byte DELETE_GOAL = 6;
+    /**
+     * Заголовок пачки: за ним следуют {@code int} записей, которые применяются
+     * при проигрывании только все вместе.
+     */
+    static final byte BEGIN_BATCH = 7;
+    static final byte PUT_RECURRING = 8;
+    static final byte DELETE_RECURRING = 9;
+    static final byte PUT_BUDGET = 10;
+    static final byte DELETE_BUDGET = 11;
+
+    private static final int MAX_RECORD_LENGTH = 16 * 1024 * 1024;
+    private static final int BATCH_WRITE_THRESHOLD = 1 << 20;
+
+    private final FileChannel channel;
+    private final SyncMode syncMode;
+    private final ScheduledExecutorService flusher;
+    private final CRC32 crc = new CRC32();
+    private final Object syncLock = new Object();
+
+    private ByteBuffer buffer = ByteBuffer.allocate(4096);
+    private long writtenPosition;
+    private volatile long durablePosition;
+
+    /**
+     * Счётчик усечений файла: групповой коммит не продвигает {@link #durablePosition},
+     * если файл усекли, пока выполнялся {@code force}.
+     */
+    private long truncations;
+
+    /**
+     * Открывает (или создаёт) файл журнала.
+     *
+     * @param path               путь к файлу журнала
+     * @param syncMode           режим сброса на диск
+     * @param syncIntervalMillis интервал сброса для {@link SyncMode#INTERVAL}, мс
+     * @throws IOException если файл не удалось открыть
+     */
+    public WriteAheadLog(Path path, SyncMode syncMode, long syncIntervalMillis) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.syncMode = syncMode;
+        this.writtenPosition = channel.size();
+        this.durablePosition = writtenPosition;
+        if (syncMode == SyncMode.INTERVAL) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "wal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushQuietly,
+                    syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    /**
+     * Проигрывает журнал в хранилище. Вызывается до подключения журнала
+     * к хранилищу ({@link InMemoryDatabase#attachLog}). Повреждённый или
+     * недописанный хвост журнала обрезается.
+     *
+     * @param db хранилище, в которое применяются записи
+     * @return количество применённых записей
+     * @throws IOException при ошибке чтения
+     */
+    public synchronized int replay(InMemoryDatabase db) throws IOException {
+        long size = channel.size();
+        long position = 0;
+        long committed = 0;
+        int applied = 0;
+        int pendingCount = 0;
+        List<byte[]> pending = new ArrayList<>();
+        byte[] record = new byte[256];
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Channels.newInputStream(channel.position(0)), 64 * 1024));
+        while (position < size) {
+            int length;
+            int checksum;
+            try {
+                length = in.readInt();
+                if (length <= 0 || length > MAX_RECORD_LENGTH) {
+                    break;
+                }
+                if (record.length < length) {
+                    record = new byte[Math.max(length, record.length * 2)];
+                }
+                in.readFully(record, 0, length);
+                checksum = in.readInt();
+            } catch (EOFException e) {
+                break;
+            }
+            crc.reset();
+            crc.update(record, 0, length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            position += Integer.BYTES + length + Integer.BYTES;
+            if (record[0] == BEGIN_BATCH) {
+                if (pendingCount > 0) {
+                    break;
+                }
+                pendingCount = ByteBuffer.wrap(record, 1, length - 1).getInt();
+                if (pendingCount == 0) {
+                    committed = position;
+                }
+            } else if (pendingCount > 0) {
+                // Записи пачки применяются, только когда прочитана вся пачка
+                pending.add(Arrays.copyOf(record, length));
+                if (--pendingCount == 0) {
+                    for (byte[] row : pending) {
+                        apply(db, row[0], ByteBuffer.wrap(row, 1, row.length - 1));
+                    }
+                    applied += pending.size();
+                    pending.clear();
+                    committed = position;
+                }
+            } else {
+                apply(db, record[0], ByteBuffer.wrap(record, 1, length - 1));
+                applied++;
+                committed = position;
+            }
+        }
+        if (committed < size) {
+            channel.truncate(committed);
+            channel.force(true);
+        }
+        writtenPosition = committed;
+        durablePosition = committed;
+        return applied;
+    }
+
+    /**
+     * Записывает в журнал сохранение (или изменение) пользователя.
+     *
+     * @param user пользователь
+     * @return позиция конца записи в журнале
+     */
+    public synchronized long appendSaveUser(User user) {
+        buffer.clear();
+        int start = begin(PUT_USER);
+        buffer = RowCodec.putUser(buffer, user);
+        end(start);
+        return write();
+    }
+
+    /**
+     * Записывает в журнал сохранение пачки пользователей одной пачкой.
+     *
+     * @param users пользователи
+     * @return позиция конца последней записи в журнале
+     */
+    public synchronized long appendSaveUsers(Collection<User> users) {
+        return appendBatch(PUT_USER, users, RowCodec::putUser);
+    }
+
+    /**
+     * Записывает в журнал удаление пользователя.
+     *
+     * @param id идентификатор пользователя
+     * @return позиция конца записи в журнале
+     */
+    public synchronized long appendDeleteUser(long id) {
+        return appendDelete(DELETE_USER, id);
+    }
+
+    /**
+     * Записывает в журнал сохранение (или изменение) транзакции.
+     *
+     * @param transaction транзакция
+     * @return позиция конца записи в журнале
+     */
+    public synchronized long appendSaveTransaction(Transaction transaction) {
+        buffer.clear();
+        int start = begin(PUT_TRANSACTION);
+        buffer = RowCodec.putTransaction(buffer, transaction);
+        end(start);
+        return write();
+    }
+
+    /**
+     * Записывает в журнал сохранение пачки транзакций одной пачкой.
+     *
+     * @param transactions транзакции
+     * @return позиция конца последней записи в журнале
+     */
+    public synchronized long appendSaveTransactions(Collection<Transaction> transactions) {
+        return appendBatch(PUT_TRANSACTION, transactions, RowCodec::putTransaction);
+    }
+
+    /**
+     * Записывает в журнал удаление пачки транзакций одной пачкой.
+     *
+     * @param ids идентификаторы транзакций
+     * @return позиция конца последней записи в журнале
+     */
+    public synchronized long appendDeleteTransactions(long[] ids) {
+        long batchStart = writtenPosition;
+        try {
+            buffer.clear();
+            beginBatch(ids.length);
+            for (long id : ids) {
+                int start = begin(DELETE_TRANSACTION);
+                buffer = RowCodec.ensure(buffer, Long.BYTES);
+                buffer.putLong(id);
+                end(start);
+                writeIfFull();
+            }
+            return write();
+        } catch (RuntimeException e) {
+            rollback(batchStart, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Записывает в журнал удаление транзакции.
+     *
+     * @param id идентификатор транзакции
+     * @return позиция конца записи в журнале
+     */
+    public synchronized long appendDeleteTransaction(long id) {
+        return appendDelete(DELETE_TRANSACTION, id);
+    }
+
+    /**
+     * Записывает в журнал сохранение (или изменение) финансовой цели.
+     *
+     * @param goal финансовая цель
+     * @return позиция конца записи в журнале
+     */
+    public synchronized long appendSaveGoal(Goal goal) {
+        buffer.clear();
+        int start = begin(PUT_GOAL);
+        buffer = RowCodec.putGoal(buffer, goal);
+        end(start);
+        return write();
+    }
+
+    /**
+     * Записывает в журнал сохранение пачки финансовых целей одной пачкой.
+     *
+     * @param goals финансовые цели
+     * @return позиция конца последней записи в журнале
+     */
+    public synchronized long appendSaveGoals(Collection<Goal> goals) {
+        return appendBatch(PUT_GOAL, goals, RowCodec::putGoal);
+    }
+
+    /**
+     * Записывает в журнал удаление финансовой цели.
+     *
+     * @param id идентификатор цели
+     * @return позиция конца записи в журнале
+     */
+    public synchronized long appendDeleteGoal(long id) {
+        return appendDelete(DELETE_GOAL, id);
+    }
+
+    /**
+     * Записывает в журнал сохранение (или изменение) шаблона регулярной транзакции.
+     *
+     * @param template шаблон
+     * @return позиция конца записи в журнале
+     */
+    public synchronized long appendSaveRecurring(RecurringTransaction template) {
+        buffer.clear();
+        int start = begin(PUT_RECURRING);
+        buffer = RowCodec.putRecurring(buffer, template);
+        end(start);
+        return write();
+    }
+
+    /**
+     * Записывает в журнал удаление шаблона регулярной транзакции.
+     *
+     * @param id идентификатор шаблона
+     * @return позиция конца записи в журнале
+     */
+    public synchronized long appendDeleteRecurring(long id) {
+        return appendDelete(DELETE_RECURRING, id);
+    }
+
+    /**
+     * Записывает в журнал сохранение (или замену) бюджета.
+     *
+     * @param budget бюджет
+     * @return позиция конца записи в журнале
+     */
+    public synchronized long appendSaveBudget(Budget budget) {
+        buffer.clear();
+        int start = begin(PUT_BUDGET);
+        buffer = RowCodec.putBudget(buffer, budget);
+        end(start);
+        return write();
+    }
+
+    /**
+     * Записывает в журнал удаление бюджета.
+     *
+     * @param userId   идентификатор пользователя
+     * @param category категория расходов
+     * @return позиция конца записи в журнале
+     */
+    public synchronized long appendDeleteBudget(long userId, String category) {
+        buffer.clear();
+        int start = begin(DELETE_BUDGET);
+        buffer = RowCodec.ensure(buffer, Long.BYTES);
+        buffer.putLong(userId);
+        buffer = RowCodec.putString(buffer, category);
+        end(start);
+        return write();
+    }
+
+    /**
+     * Записывает одной пачкой созданные по расписанию транзакции и сдвинутые шаблоны:
+     * после проигрывания либо есть и те и другие, либо ни тех ни других.
+     *
+     * @param transactions созданные транзакции
+     * @param templates    шаблоны с новым числом созданных транзакций
+     * @return позиция конца последней записи в журнале
+     */
+    public synchronized long appendSaveOccurrences(Collection<Transaction> transactions,
+                                                   Collection<RecurringTransaction> templates) {
+        long batchStart = writtenPosition;
+        try {
+            buffer.clear();
+            beginBatch(transactions.size() + templates.size());
+            for (Transaction transaction : transactions) {
+                int start = begin(PUT_TRANSACTION);
+                buffer = RowCodec.putTransaction(buffer, transaction);
+                end(start);
+                writeIfFull();
+            }
+            for (RecurringTransaction template : templates) {
+                int start = begin(PUT_RECURRING);
+                buffer = RowCodec.putRecurring(buffer, template);
+                end(start);
+                writeIfFull();
+            }
+            return write();
+        } catch (RuntimeException e) {
+            rollback(batchStart, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Ожидает, пока запись, закончившаяся в позиции {@code position}, станет
+     * долговечной. Ждёт только в режиме {@link SyncMode#ALWAYS}.
+     *
+     * @param position позиция конца записи, которую вернул метод {@code append*}
+     */
+    public void awaitDurable(long position) {
+        if (syncMode == SyncMode.ALWAYS) {
+            sync(position);
+        }
+    }
+
+    /**
+     * Сбрасывает на диск всё, что записано в журнал к этому моменту.
+     */
+    public void flush() {
+        long target;
+        synchronized (this) {
+            target = writtenPosition;
+        }
+        sync(target);
+    }
+
+    /**
+     * Очищает журнал после того, как его содержимое попало в снимок.
+     * Вызывающий код обязан гарантировать, что параллельных изменений нет
+     * (см. {@link InMemoryDatabase#runExclusively}).
+     *
+     * @throws IOException если файл не удалось усечь
+     */
+    public void truncate() throws IOException {
+        synchronized (syncLock) {
+            synchronized (this) {
+                channel.truncate(0);
+                channel.force(true);
+                writtenPosition = 0;
+                durablePosition = 0;
+                truncations++;
+            }
+        }
+    }
+
+    /**
+     * Возвращает текущий размер журнала в байтах.
+     *
+     * @return размер журнала
+     */
+    public synchronized long size() {
+        return writtenPosition;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        flush();
+        channel.close();
+    }
+
+    /**
+     * Групповой коммит: если другой поток уже сбросил журнал дальше нужной позиции,
+     * повторный {@code force} не выполняется.
+     */
+    private void sync(long position) {
+        if (durablePosition >= position) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (durablePosition >= position) {
+                return;
+            }
+            long target;
+            long truncationsBefore;
+            synchronized (this) {
+                target = writtenPosition;
+                truncationsBefore = truncations;
+            }
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось сбросить журнал на диск", e);
+            }
+            synchronized (this) {
+                if (truncations == truncationsBefore) {
+                    durablePosition = target;
+                }
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (UncheckedIOException e) {
+            // Следующая попытка будет через интервал; ошибку увидит close()
+        }
+    }
+
+    private long appendDelete(byte operation, long id) {
+        buffer.clear();
+        int start = begin(operation);
+        buffer = RowCodec.ensure(buffer, Long.BYTES);
+        buffer.putLong(id);
+        end(start);
+        return write();
+    }
+
+    /**
+     * Кодирует пачку строк после заголовка пачки; крупные пачки пишутся
+     * в файл блоками по мере заполнения буфера.
+     */
+    private <T> long appendBatch(byte operation, Collection<T> rows, BiFunction<ByteBuffer, T, ByteBuffer> codec) {
+        long batchStart = writtenPosition;
+        try {
+            buffer.clear();
+            beginBatch(rows.size());
+            for (T row : rows) {
+                int start = begin(operation);
+                buffer = codec.apply(buffer, row);
+                end(start);
+                writeIfFull();
+            }
+            return write();
+        } catch (RuntimeException e) {
+            rollback(batchStart, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Отрезает от файла всё, что записано после {@code position}, и возвращает журнал
+     * к этой позиции. Ошибка усечения добавляется к исходной как подавленная:
+     * следующая запись всё равно начнётся с {@code position} и затрёт остаток.
+     */
+    private void rollback(long position, RuntimeException cause) {
+        buffer.clear();
+        try {
+            channel.truncate(position);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+        writtenPosition = position;
+        truncations++;
+        if (durablePosition > position) {
+            durablePosition = position;
+        }
+    }
+
+    private void beginBatch(int count) {
+        int start = begin(BEGIN_BATCH);
+        buffer = RowCodec.ensure(buffer, Integer.BYTES);
+        buffer.putInt(count);
+        end(start);
+    }
+
+    private void writeIfFull() {
+        if (buffer.position() >= BATCH_WRITE_THRESHOLD) {
+            write();
+        }
+    }
+
+    /**
+     * Начинает запись в буфере: место под длину и байт операции.
+     *
+     * @return позиция начала записи в буфере
+     */
+    private int begin(byte operation) {
+        buffer = RowCodec.ensure(buffer, Integer.BYTES + 1);
+        int start = buffer.position();
+        buffer.putInt(0);
+        buffer.put(operation);
+        return start;
+    }
+
+    /**
+     * Завершает запись, начатую в позиции {@code start}: проставляет длину и CRC32.
+     */
+    private void end(int start) {
+        buffer = RowCodec.ensure(buffer, Integer.BYTES);
+        int length = buffer.position() - start - Integer.BYTES;
+        buffer.putInt(start, length);
+        crc.reset();
+        crc.update(buffer.array(), start + Integer.BYTES, length);
+        buffer.putInt((int) crc.getValue());
+    }
+
+    /**
+     * Дописывает содержимое буфера в файл и очищает буфер.
+     *
+     * @return позиция конца записанных данных
+     */
+    private long write() {
+        buffer.flip();
+        try {
+            long position = writtenPosition;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            writtenPosition = position;
+        } catch (IOException e) {
+            UncheckedIOException failure = new UncheckedIOException("Не удалось записать журнал", e);
+            // Частично записанная запись не должна остаться в файле перед следующей
+            rollback(writtenPosition, failure);
+            throw failure;
+        } finally {
+            buffer.clear();
+        }
+        return writtenPosition;
+    }
+
+    private static void apply(InMemoryDatabase db, byte operation, ByteBuffer payload) {
+        switch (operation) {
+            case PUT_USER:
+                db.restoreUser(RowCodec.getUser(payload));
+                break;
+            case DELETE_USER:
+                db.deleteUser(payload.getLong());
+                break;
+            case PUT_TRANSACTION:
+                db.saveTransaction(RowCodec.getTransaction(payload));
+                break;
+            case DELETE_TRANSACTION:
+                db.deleteTransaction(payload.getLong());
+                break;
+            case PUT_GOAL:
+                db.saveGoal(RowCodec.getGoal(payload));
+                break;
+            case DELETE_GOAL:
+                db.deleteGoal(payload.getLong());
+                break;
+            case PUT_RECURRING:
+                db.saveRecurring(RowCodec.getRecurring(payload));
+                break;
+            case DELETE_RECURRING:
+                db.deleteRecurring(payload.getLong());
+                break;
+            case PUT_BUDGET:
+                db.saveBudget(RowCodec.getBudget(payload));
+                break;
+            case DELETE_BUDGET:
+                db.deleteBudget(payload.getLong(), RowCodec.getString(payload));
+                break;
+            default:
+                throw new IllegalStateException("Неизвестная операция в журнале: " + operation);
+        }
+    }
+}
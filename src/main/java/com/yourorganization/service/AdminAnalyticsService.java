@@ -0,0 +1,390 @@
+package com.yourorganization.service;
+
+import com.yourorganization.domain.Goal;
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.domain.User;
+import com.yourorganization.metrics.OperationMetrics;
+import com.yourorganization.metrics.ServiceMetrics;
+import com.yourorganization.out.GoalRepository;
+import com.yourorganization.out.TransactionRepository;
+import com.yourorganization.out.UserRepository;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Сводная аналитика по всей системе для администратора: доходы и расходы
+ * по категориям, активные пользователи, выполнение целей, крупнейшие счета.
+ * <p>
+ * Транзакции и цели обходятся параллельно в {@link ForkJoinPool}: делимый обход
+ * хранилища ({@link TransactionRepository#transactionSpliterator()}) режется на части
+ * примерно по четыре на поток, каждая часть считает собственные частичные итоги
+ * без общих изменяемых данных, а итоги частей сливаются при возврате из задач.
+ * Поэтому время расчёта убывает почти линейно с числом ядер.
+ */
+public class AdminAnalyticsService {
+
+    private static final int TASKS_PER_THREAD = 4;
+    private static final long MIN_TASK_SIZE = 16_384;
+    private static final String NAME = "AdminAnalyticsService";
+
+    private final UserRepository users;
+    private final TransactionRepository transactions;
+    private final GoalRepository goals;
+    private final ForkJoinPool pool;
+
+    private final OperationMetrics buildReportMetrics;
+
+    /**
+     * Конструктор, принимающий хранилища. Расчёт идёт в общем
+     * {@link ForkJoinPool#commonPool()}, метрики - в {@link ServiceMetrics#global()}.
+     *
+     * @param users        хранилище пользователей
+     * @param transactions хранилище транзакций
+     * @param goals        хранилище целей
+     */
+    public AdminAnalyticsService(UserRepository users, TransactionRepository transactions, GoalRepository goals) {
+        this(users, transactions, goals, ForkJoinPool.commonPool(), ServiceMetrics.global());
+    }
+
+    /**
+     * Конструктор с явным пулом потоков и реестром метрик.
+     *
+     * @param users        хранилище пользователей
+     * @param transactions хранилище транзакций
+     * @param goals        хранилище целей
+     * @param pool         пул, в котором выполняется расчёт
+     * @param metrics      реестр, в который пишутся метрики операций
+     */
+    public AdminAnalyticsService(UserRepository users, TransactionRepository transactions, GoalRepository goals,
+                                 ForkJoinPool pool, ServiceMetrics metrics) {
+        this.users = users;
+        this.transactions = transactions;
+        this.goals = goals;
+        this.pool = pool;
+        this.buildReportMetrics = metrics.operation(NAME, "buildReport");
+    }
+
+    /**
+     * Строит сводный отчёт по всем транзакциям и целям.
+     *
+     * @param activeSince пользователь считается активным, если у него есть транзакция
+     *                    с этой даты или позже
+     * @param topAccounts сколько крупнейших счетов (по балансу) включить в отчёт
+     * @return отчёт
+     * @throws IllegalArgumentException если дата не задана или число счетов отрицательно
+     */
+    public SystemReport buildReport(LocalDate activeSince, int topAccounts) {
+        return buildReportMetrics.time(() -> {
+            if (activeSince == null || topAccounts < 0) {
+                throw new IllegalArgumentException("Некорректные параметры отчёта");
+            }
+            TransactionTotals totals = aggregate(transactions.transactionSpliterator(),
+                    TransactionTotals::new, TransactionTotals::add, TransactionTotals::merge);
+            GoalTotals goalTotals = aggregate(goals.findAllGoals().spliterator(),
+                    GoalTotals::new, GoalTotals::add, GoalTotals::merge);
+            return new SystemReport(totals, goalTotals, users.findAllUsers().size(),
+                    totals.users.countActiveSince(activeSince.toEpochDay()),
+                    largestAccounts(totals.users, topAccounts));
+        });
+    }
+
+    private <T, A> A aggregate(Spliterator<T> source, Supplier<A> supplier,
+                               BiConsumer<A, ? super T> accumulator, BinaryOperator<A> combiner) {
+        long taskSize = Math.max(MIN_TASK_SIZE,
+                source.estimateSize() / ((long) pool.getParallelism() * TASKS_PER_THREAD));
+        return pool.invoke(new AggregateTask<>(source, taskSize, supplier, accumulator, combiner));
+    }
+
+    private List<AccountBalance> largestAccounts(UserTotals totals, int limit) {
+        if (limit == 0) {
+            return List.of();
+        }
+        PriorityQueue<AccountBalance> top = new PriorityQueue<>(
+                (a, b) -> Double.compare(a.getBalance(), b.getBalance()));
+        for (int i = 0; i < totals.keys.length; i++) {
+            long userId = totals.keys[i];
+            if (userId == 0) {
+                continue;
+            }
+            if (top.size() < limit || totals.balances[i] > top.peek().getBalance()) {
+                if (top.size() == limit) {
+                    top.poll();
+                }
+                User user = users.findUserById(userId);
+                top.add(new AccountBalance(userId, user == null ? null : user.getEmail(), totals.balances[i]));
+            }
+        }
+        List<AccountBalance> result = new ArrayList<>(top);
+        result.sort((a, b) -> Double.compare(b.getBalance(), a.getBalance()));
+        return result;
+    }
+
+    /**
+     * Задача fork-join: делит обход, пока части больше {@code taskSize}, обрабатывает
+     * свою часть в собственный аккумулятор и сливает результаты дочерних задач.
+     */
+    private static final class AggregateTask<T, A> extends RecursiveTask<A> {
+        private static final long serialVersionUID = 1L;
+
+        private final Spliterator<T> source;
+        private final long taskSize;
+        private final Supplier<A> supplier;
+        private final BiConsumer<A, ? super T> accumulator;
+        private final BinaryOperator<A> combiner;
+
+        AggregateTask(Spliterator<T> source, long taskSize, Supplier<A> supplier,
+                      BiConsumer<A, ? super T> accumulator, BinaryOperator<A> combiner) {
+            this.source = source;
+            this.taskSize = taskSize;
+            this.supplier = supplier;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected A compute() {
+            List<AggregateTask<T, A>> forked = new ArrayList<>();
+            Spliterator<T> prefix;
+            while (source.estimateSize() > taskSize && (prefix = source.trySplit()) != null) {
+                AggregateTask<T, A> task = new AggregateTask<>(prefix, taskSize, supplier, accumulator, combiner);
+                task.fork();
+                forked.add(task);
+            }
+            A result = supplier.get();
+            source.forEachRemaining(element -> accumulator.accept(result, element));
+            A merged = result;
+            for (int i = forked.size() - 1; i >= 0; i--) {
+                merged = combiner.apply(merged, forked.get(i).join());
+            }
+            return merged;
+        }
+    }
+
+    /**
+     * Частичные итоги по транзакциям одной части обхода.
+     */
+    private static final class TransactionTotals {
+        private final Map<String, double[]> incomeByCategory = new HashMap<>();
+        private final Map<String, double[]> expenseByCategory = new HashMap<>();
+        private final UserTotals users = new UserTotals();
+        private long count;
+
+        void add(Transaction transaction) {
+            if (transaction.getType() == null) {
+                return;
+            }
+            boolean income = transaction.getType() == Transaction.TransactionType.INCOME;
+            String category = transaction.getCategory() == null ? "" : transaction.getCategory();
+            (income ? incomeByCategory : expenseByCategory)
+                    .computeIfAbsent(category, c -> new double[1])[0] += transaction.getAmount();
+            int epochDay = transaction.getDate() == null ? UserTotals.NO_DAY : (int) transaction.getDate().toEpochDay();
+            users.add(transaction.getUserId(), income ? transaction.getAmount() : -transaction.getAmount(), epochDay);
+            count++;
+        }
+
+        TransactionTotals merge(TransactionTotals other) {
+            mergeInto(incomeByCategory, other.incomeByCategory);
+            mergeInto(expenseByCategory, other.expenseByCategory);
+            users.merge(other.users);
+            count += other.count;
+            return this;
+        }
+
+        private static void mergeInto(Map<String, double[]> target, Map<String, double[]> source) {
+            for (Map.Entry<String, double[]> entry : source.entrySet()) {
+                target.computeIfAbsent(entry.getKey(), c -> new double[1])[0] += entry.getValue()[0];
+            }
+        }
+    }
+
+    /**
+     * Баланс и дата последней транзакции по пользователям: хэш-таблица с открытой
+     * адресацией на примитивных массивах, без упаковки id на каждую транзакцию.
+     * Ключ 0 - пустая ячейка. Дата последней транзакции - номер дня эпохи или
+     * {@link #NO_DAY}, если у пользователя нет транзакций с датой.
+     */
+    private static final class UserTotals {
+        static final int NO_DAY = Integer.MIN_VALUE;
+
+        private long[] keys = new long[64];
+        private double[] balances = new double[64];
+        private int[] lastDays = newLastDays(64);
+        private int size;
+
+        void add(long userId, double delta, int epochDay) {
+            int slot = slot(userId);
+            balances[slot] += delta;
+            lastDays[slot] = Math.max(lastDays[slot], epochDay);
+        }
+
+        void merge(UserTotals other) {
+            for (int i = 0; i < other.keys.length; i++) {
+                if (other.keys[i] != 0) {
+                    add(other.keys[i], other.balances[i], other.lastDays[i]);
+                }
+            }
+        }
+
+        long countActiveSince(long epochDay) {
+            long active = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != 0 && lastDays[i] != NO_DAY && lastDays[i] >= epochDay) {
+                    active++;
+                }
+            }
+            return active;
+        }
+
+        private int slot(long userId) {
+            int mask = keys.length - 1;
+            for (int i = (int) (userId * 0x9E3779B97F4A7C15L >>> 40) & mask; ; i = (i + 1) & mask) {
+                if (keys[i] == userId) {
+                    return i;
+                }
+                if (keys[i] == 0) {
+                    if (++size * 2 > keys.length) {
+                        grow();
+                        return slot(userId);
+                    }
+                    keys[i] = userId;
+                    return i;
+                }
+            }
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            double[] oldBalances = balances;
+            int[] oldLastDays = lastDays;
+            keys = new long[oldKeys.length * 2];
+            balances = new double[keys.length];
+            lastDays = newLastDays(keys.length);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int slot = slot(oldKeys[i]);
+                    balances[slot] = oldBalances[i];
+                    lastDays[slot] = oldLastDays[i];
+                }
+            }
+        }
+
+        private static int[] newLastDays(int capacity) {
+            int[] lastDays = new int[capacity];
+            Arrays.fill(lastDays, NO_DAY);
+            return lastDays;
+        }
+    }
+
+    /**
+     * Частичные итоги по целям.
+     */
+    private static final class GoalTotals {
+        private long count;
+        private long completed;
+        private double targetSum;
+        private double savedSum;
+
+        void add(Goal goal) {
+            count++;
+            if (goal.isCompleted()) {
+                completed++;
+            }
+            targetSum += goal.getTargetAmount();
+            savedSum += goal.getCurrentAmount();
+        }
+
+        GoalTotals merge(GoalTotals other) {
+            count += other.count;
+            completed += other.completed;
+            targetSum += other.targetSum;
+            savedSum += other.savedSum;
+            return this;
+        }
+    }
+
+    /**
+     * Баланс счёта пользователя.
+     */
+    @Getter
+    public static final class AccountBalance {
+        private final long userId;
+        private final String email;
+        private final double balance;
+
+        AccountBalance(long userId, String email, double balance) {
+            this.userId = userId;
+            this.email = email;
+            this.balance = balance;
+        }
+    }
+
+    /**
+     * Сводный отчёт по системе.
+     */
+    @Getter
+    public static final class SystemReport {
+        private final long transactionCount;
+        private final double totalIncome;
+        private final double totalExpense;
+        private final Map<String, Double> incomeByCategory;
+        private final Map<String, Double> expenseByCategory;
+        private final long userCount;
+        private final long activeUserCount;
+        private final long goalCount;
+        private final long completedGoalCount;
+        private final double goalTargetTotal;
+        private final double goalSavedTotal;
+        private final List<AccountBalance> largestAccounts;
+
+        SystemReport(TransactionTotals totals, GoalTotals goals, long userCount, long activeUserCount,
+                     List<AccountBalance> largestAccounts) {
+            this.transactionCount = totals.count;
+            this.incomeByCategory = sorted(totals.incomeByCategory);
+            this.expenseByCategory = sorted(totals.expenseByCategory);
+            this.totalIncome = sum(incomeByCategory);
+            this.totalExpense = sum(expenseByCategory);
+            this.userCount = userCount;
+            this.activeUserCount = activeUserCount;
+            this.goalCount = goals.count;
+            this.completedGoalCount = goals.completed;
+            this.goalTargetTotal = goals.targetSum;
+            this.goalSavedTotal = goals.savedSum;
+            this.largestAccounts = Collections.unmodifiableList(largestAccounts);
+        }
+
+        /**
+         * Возвращает долю выполненных целей.
+         *
+         * @return проценты; 0, если целей нет
+         */
+        public double getGoalCompletionPercent() {
+            return goalCount == 0 ? 0 : completedGoalCount * 100.0 / goalCount;
+        }
+
+        private static Map<String, Double> sorted(Map<String, double[]> totals) {
+            Map<String, Double> result = new TreeMap<>();
+            totals.forEach((category, sum) -> result.put(category, sum[0]));
+            return Collections.unmodifiableMap(result);
+        }
+
+        private static double sum(Map<String, Double> totals) {
+            return totals.values().stream().mapToDouble(Double::doubleValue).sum();
+        }
+    }
+}
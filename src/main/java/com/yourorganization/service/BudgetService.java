@@ -0,0 +1,407 @@
+package com.yourorganization.service;
+
+import com.yourorganization.domain.Budget;
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.metrics.OperationMetrics;
+import com.yourorganization.metrics.ServiceMetrics;
+import com.yourorganization.out.BudgetRepository;
+import lombok.Getter;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Сервис месячных бюджетов: лимит расходов пользователя по категории на каждый месяц.
+ * <p>
+ * Сервис подписан на {@link TransactionService} как {@link SpendingListener} и получает
+ * сумму расходов категории за месяц до и после каждого изменения транзакции. Проверка
+ * лимита поэтому выполняется за O(1), без пересчёта транзакций месяца. Когда расходы
+ * пересекают {@link #WARNING_PERCENT}% или {@link #LIMIT_PERCENT}% лимита, выдаётся
+ * предупреждение. Оно достаётся тому, кто вызвал изменение: интерфейс выполняет изменение
+ * через {@link #withWarnings} (или открывает {@link #collectWarnings()} вокруг своего вызова)
+ * и получает предупреждения этого вызова вместе с результатом. Предупреждения изменений вне
+ * такой области (планировщик) передаются слушателям {@link #addWarningListener}; сервис их
+ * не накапливает.
+ * <p>
+ * Лимиты лежат в памяти сервиса для проверки за O(1); если задан {@link BudgetRepository},
+ * каждое изменение лимита сначала сохраняется в нём, а при создании сервиса лимиты
+ * загружаются оттуда.
+ */
+public class BudgetService {
+
+    /**
+     * Доля лимита (в процентах), при пересечении которой выдаётся предупреждение.
+     */
+    public static final int WARNING_PERCENT = 80;
+
+    /**
+     * Доля лимита (в процентах), означающая, что бюджет исчерпан.
+     */
+    public static final int LIMIT_PERCENT = 100;
+
+    private static final String NAME = "BudgetService";
+
+    private final TransactionService transactionService;
+    private final BudgetRepository repository;
+    /**
+     * Сериализует изменения лимитов, чтобы порядок записей в хранилище совпадал
+     * с порядком изменений в памяти.
+     */
+    private final Lock writeLock = new ReentrantLock();
+    /**
+     * Пользователь -> категория -> месячный лимит.
+     */
+    private final ConcurrentMap<Long, ConcurrentMap<String, Double>> limits = new ConcurrentHashMap<>();
+    /**
+     * Область сбора предупреждений, открытая в текущем потоке (изменения транзакций
+     * оповещают слушателей синхронно, в потоке вызывающего).
+     */
+    private final ThreadLocal<WarningScope> currentScope = new ThreadLocal<>();
+    private final List<Consumer<BudgetWarning>> warningListeners = new CopyOnWriteArrayList<>();
+
+    private final OperationMetrics setBudgetMetrics;
+    private final OperationMetrics removeBudgetMetrics;
+    private final OperationMetrics getBudgetsMetrics;
+
+    /**
+     * Конструктор, подписывающий сервис на изменения расходов. Бюджеты хранятся
+     * только в памяти сервиса. Метрики пишутся в общий реестр {@link ServiceMetrics#global()}.
+     *
+     * @param transactionService сервис транзакций
+     */
+    public BudgetService(TransactionService transactionService) {
+        this(transactionService, null, ServiceMetrics.global());
+    }
+
+    /**
+     * Конструктор с хранилищем бюджетов; сохранённые бюджеты загружаются сразу.
+     * Метрики пишутся в общий реестр {@link ServiceMetrics#global()}.
+     *
+     * @param transactionService сервис транзакций
+     * @param repository         хранилище бюджетов
+     */
+    public BudgetService(TransactionService transactionService, BudgetRepository repository) {
+        this(transactionService, repository, ServiceMetrics.global());
+    }
+
+    /**
+     * Конструктор с хранилищем бюджетов и явным реестром метрик.
+     *
+     * @param transactionService сервис транзакций
+     * @param repository         хранилище бюджетов (null - бюджеты только в памяти)
+     * @param metrics            реестр, в который пишутся метрики операций
+     */
+    public BudgetService(TransactionService transactionService, BudgetRepository repository,
+                         ServiceMetrics metrics) {
+        this.transactionService = transactionService;
+        this.repository = repository;
+        this.setBudgetMetrics = metrics.operation(NAME, "setBudget");
+        this.removeBudgetMetrics = metrics.operation(NAME, "removeBudget");
+        this.getBudgetsMetrics = metrics.operation(NAME, "getBudgets");
+        transactionService.addSpendingListener(new SpendingListener() {
+            @Override
+            public void spendingChanged(long userId, String category, YearMonth month, double before, double after) {
+                check(userId, category, month, before, after);
+            }
+
+            @Override
+            public void userRemoved(long userId) {
+                limits.remove(userId);
+            }
+        });
+        if (repository != null) {
+            for (Budget budget : repository.findAllBudgets()) {
+                limits.computeIfAbsent(budget.getUserId(), id -> new ConcurrentSkipListMap<>())
+                        .put(budget.getCategory(), budget.getMonthlyLimit());
+            }
+        }
+    }
+
+    /**
+     * Устанавливает (или заменяет) месячный лимит расходов по категории.
+     *
+     * @param userId       идентификатор пользователя
+     * @param category     категория расходов
+     * @param monthlyLimit лимит на месяц
+     * @throws IllegalArgumentException если категория пуста или лимит не положителен
+     */
+    public void setBudget(long userId, String category, double monthlyLimit) {
+        setBudgetMetrics.time(() -> {
+            if (category == null || category.isBlank()) {
+                throw new IllegalArgumentException("Категория бюджета не может быть пустой");
+            }
+            if (!(monthlyLimit > 0) || Double.isInfinite(monthlyLimit)) {
+                throw new IllegalArgumentException("Лимит бюджета должен быть положительным числом");
+            }
+            writeLock.lock();
+            try {
+                if (repository != null) {
+                    repository.saveBudget(new Budget(userId, category, monthlyLimit));
+                }
+                limits.computeIfAbsent(userId, id -> new ConcurrentSkipListMap<>()).put(category, monthlyLimit);
+            } finally {
+                writeLock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Удаляет бюджет категории.
+     *
+     * @param userId   идентификатор пользователя
+     * @param category категория расходов
+     * @throws IllegalArgumentException если бюджет не найден
+     */
+    public void removeBudget(long userId, String category) {
+        removeBudgetMetrics.time(() -> {
+            writeLock.lock();
+            try {
+                Map<String, Double> userLimits = limits.get(userId);
+                if (category == null || userLimits == null || !userLimits.containsKey(category)) {
+                    throw new IllegalArgumentException("Бюджет не найден: " + category);
+                }
+                if (repository != null) {
+                    repository.deleteBudget(userId, category);
+                }
+                userLimits.remove(category);
+            } finally {
+                writeLock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Возвращает бюджеты пользователя с расходами за месяц.
+     *
+     * @param userId идентификатор пользователя
+     * @param month  месяц
+     * @return состояние бюджетов, упорядоченное по категории
+     */
+    public List<BudgetStatus> getBudgets(long userId, YearMonth month) {
+        return getBudgetsMetrics.time(() -> {
+            Map<String, Double> userLimits = limits.get(userId);
+            if (userLimits == null || userLimits.isEmpty()) {
+                return List.of();
+            }
+            Map<String, Double> spent = transactionService.getCategoryTotals(userId, month,
+                    Transaction.TransactionType.EXPENSE);
+            List<BudgetStatus> result = new ArrayList<>(userLimits.size());
+            for (Map.Entry<String, Double> entry : userLimits.entrySet()) {
+                result.add(new BudgetStatus(entry.getKey(), month, entry.getValue(),
+                        spent.getOrDefault(entry.getKey(), 0.0)));
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Открывает в текущем потоке область сбора предупреждений: предупреждения
+     * изменений, выполненных до {@link WarningScope#close()}, попадают в неё,
+     * а не слушателям. Вложенная область по закрытии передаёт свои предупреждения внешней.
+     *
+     * @return область; закрывать в том же потоке (try-with-resources)
+     */
+    public WarningScope collectWarnings() {
+        WarningScope scope = new WarningScope(currentScope.get());
+        currentScope.set(scope);
+        return scope;
+    }
+
+    /**
+     * Выполняет изменение и возвращает его результат вместе с предупреждениями,
+     * которые оно вызвало. Предупреждения не передаются слушателям.
+     *
+     * @param change изменение транзакций (например, создание транзакции)
+     * @param <T>    тип результата изменения
+     * @return результат и предупреждения
+     */
+    public <T> Outcome<T> withWarnings(Supplier<T> change) {
+        try (WarningScope scope = collectWarnings()) {
+            T value = change.get();
+            return new Outcome<>(value, List.copyOf(scope.warnings));
+        }
+    }
+
+    /**
+     * Регистрирует получателя предупреждений, выданных вне {@link #collectWarnings()}
+     * (например, при создании регулярных транзакций планировщиком).
+     *
+     * @param listener получатель предупреждений
+     */
+    public void addWarningListener(Consumer<BudgetWarning> listener) {
+        warningListeners.add(listener);
+    }
+
+    /**
+     * Сравнивает расходы до и после изменения с порогами лимита. Предупреждение выдаётся
+     * только при пересечении порога вверх; если пересечены оба порога, - о большем.
+     */
+    private void check(long userId, String category, YearMonth month, double before, double after) {
+        if (after <= before) {
+            return;
+        }
+        Map<String, Double> userLimits = limits.get(userId);
+        Double limit = userLimits == null ? null : userLimits.get(category);
+        if (limit == null) {
+            return;
+        }
+        int percent;
+        if (crossed(before, after, limit, LIMIT_PERCENT)) {
+            percent = LIMIT_PERCENT;
+        } else if (crossed(before, after, limit, WARNING_PERCENT)) {
+            percent = WARNING_PERCENT;
+        } else {
+            return;
+        }
+        BudgetWarning warning = new BudgetWarning(userId, category, month, limit, after, percent);
+        WarningScope scope = currentScope.get();
+        if (scope != null) {
+            scope.warnings.add(warning);
+            return;
+        }
+        for (Consumer<BudgetWarning> listener : warningListeners) {
+            listener.accept(warning);
+        }
+    }
+
+    private static boolean crossed(double before, double after, double limit, int percent) {
+        double threshold = limit * percent / 100.0;
+        return before < threshold && after >= threshold;
+    }
+
+    /**
+     * Область сбора предупреждений одного вызова, открытая {@link #collectWarnings()}.
+     */
+    public final class WarningScope implements AutoCloseable {
+        private final WarningScope outer;
+        private final List<BudgetWarning> warnings = new ArrayList<>();
+
+        private WarningScope(WarningScope outer) {
+            this.outer = outer;
+        }
+
+        /**
+         * Возвращает предупреждения, выданные в области (в порядке появления).
+         *
+         * @return предупреждения; пустой список, если их нет
+         */
+        public List<BudgetWarning> getWarnings() {
+            return Collections.unmodifiableList(warnings);
+        }
+
+        /**
+         * Возвращает предупреждения области, относящиеся к пользователю.
+         *
+         * @param userId идентификатор пользователя
+         * @return предупреждения пользователя в порядке появления
+         */
+        public List<BudgetWarning> getWarnings(long userId) {
+            List<BudgetWarning> result = new ArrayList<>();
+            for (BudgetWarning warning : warnings) {
+                if (warning.getUserId() == userId) {
+                    result.add(warning);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public void close() {
+            if (outer == null) {
+                currentScope.remove();
+            } else {
+                currentScope.set(outer);
+                outer.warnings.addAll(warnings);
+            }
+        }
+    }
+
+    /**
+     * Результат изменения вместе с вызванными им предупреждениями (см. {@link #withWarnings}).
+     *
+     * @param <T> тип результата
+     */
+    @Getter
+    public static final class Outcome<T> {
+        private final T value;
+        private final List<BudgetWarning> warnings;
+
+        Outcome(T value, List<BudgetWarning> warnings) {
+            this.value = value;
+            this.warnings = warnings;
+        }
+    }
+
+    /**
+     * Бюджет категории и расходы по нему за месяц.
+     */
+    @Getter
+    public static final class BudgetStatus {
+        private final String category;
+        private final YearMonth month;
+        private final double limit;
+        private final double spent;
+
+        BudgetStatus(String category, YearMonth month, double limit, double spent) {
+            this.category = category;
+            this.month = month;
+            this.limit = limit;
+            this.spent = spent;
+        }
+
+        /**
+         * Возвращает израсходованную долю лимита.
+         *
+         * @return проценты (больше 100, если лимит превышен)
+         */
+        public double getUsedPercent() {
+            return spent * 100.0 / limit;
+        }
+    }
+
+    /**
+     * Предупреждение о том, что расходы категории пересекли порог лимита.
+     */
+    @Getter
+    public static final class BudgetWarning {
+        private final long userId;
+        private final String category;
+        private final YearMonth month;
+        private final double limit;
+        private final double spent;
+        private final int thresholdPercent;
+
+        BudgetWarning(long userId, String category, YearMonth month, double limit, double spent,
+                      int thresholdPercent) {
+            this.userId = userId;
+            this.category = category;
+            this.month = month;
+            this.limit = limit;
+            this.spent = spent;
+            this.thresholdPercent = thresholdPercent;
+        }
+
+        /**
+         * Возвращает текст предупреждения для пользователя.
+         *
+         * @return сообщение
+         */
+        public String getMessage() {
+            String state = thresholdPercent >= LIMIT_PERCENT ? "исчерпан" : "израсходован на " + thresholdPercent + "%";
+            return String.format(Locale.ROOT, "Бюджет '%s' на %s %s: %.2f из %.2f",
+                    category, month, state, spent, limit);
+        }
+    }
+}
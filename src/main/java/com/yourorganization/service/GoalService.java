@@ -1,25 +1,54 @@
 package com.yourorganization.service;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import com.yourorganization.domain.Goal;
-import com.yourorganization.out.InMemoryDatabase;
+import com.yourorganization.jfr.GoalUpdateEvent;
+import com.yourorganization.metrics.OperationMetrics;
+import com.yourorganization.metrics.ServiceMetrics;
+import com.yourorganization.out.GoalRepository;
 
 /**
  * Сервис для управления финансовыми целями (накопления, прогресс).
+ * Длительность и ошибки операций (кроме простых чтений по id) учитываются в {@link ServiceMetrics};
+ * изменения целей дополнительно записываются как события JFR ({@link GoalUpdateEvent}).
  */
 public class GoalService {
 
-    private final InMemoryDatabase db;
+    private static final String NAME = "GoalService";
+
+    private final GoalRepository db;
+
+    private final OperationMetrics createGoalMetrics;
+    private final OperationMetrics addAmountToGoalMetrics;
+    private final OperationMetrics updateGoalMetrics;
+    private final OperationMetrics deleteGoalMetrics;
+    private final OperationMetrics getUserGoalsMetrics;
 
     /**
      * Конструктор, принимающий реализацию базы.
+     * Метрики пишутся в общий реестр {@link ServiceMetrics#global()}.
      *
      * @param db объект хранилища
      */
-    public GoalService(InMemoryDatabase db) {
+    public GoalService(GoalRepository db) {
+        this(db, ServiceMetrics.global());
+    }
+
+    /**
+     * Конструктор с явным реестром метрик.
+     *
+     * @param db      объект хранилища
+     * @param metrics реестр, в который пишутся метрики операций
+     */
+    public GoalService(GoalRepository db, ServiceMetrics metrics) {
         this.db = db;
+        this.createGoalMetrics = metrics.operation(NAME, "createGoal");
+        this.addAmountToGoalMetrics = metrics.operation(NAME, "addAmountToGoal");
+        this.updateGoalMetrics = metrics.operation(NAME, "updateGoal");
+        this.deleteGoalMetrics = metrics.operation(NAME, "deleteGoal");
+        this.getUserGoalsMetrics = metrics.operation(NAME, "getUserGoals");
     }
 
     /**
@@ -31,8 +60,19 @@ public class GoalService {
      * @return созданная финансовая цель
      */
     public Goal createGoal(long userId, String title, double targetAmount) {
-        Goal goal = new Goal(userId, title, targetAmount);
-        return db.saveGoal(goal);
+        GoalUpdateEvent event = begin("create");
+        event.userId = userId;
+        try {
+            return createGoalMetrics.time(() -> {
+                Goal goal = new Goal(userId, title, targetAmount);
+                Goal saved = db.saveGoal(goal);
+                event.goalId = saved.getId();
+                event.success = true;
+                return saved;
+            });
+        } finally {
+            event.commit();
+        }
     }
 
     /**
@@ -43,11 +83,22 @@ public class GoalService {
      * @throws IllegalArgumentException если цель не найдена
      */
     public void addAmountToGoal(long goalId, double amount) {
-        Goal goal = db.findGoalById(goalId);
-        if (goal == null) {
-            throw new IllegalArgumentException("Цель не найдена!");
+        GoalUpdateEvent event = begin("deposit");
+        event.goalId = goalId;
+        try {
+            addAmountToGoalMetrics.time(() -> {
+                Goal goal = db.findGoalById(goalId);
+                if (goal == null) {
+                    throw new IllegalArgumentException("Цель не найдена!");
+                }
+                event.userId = goal.getUserId();
+                goal.addAmount(amount);
+                db.saveGoal(goal);
+                event.success = true;
+            });
+        } finally {
+            event.commit();
         }
-        goal.addAmount(amount);
     }
 
     /**
@@ -59,12 +110,23 @@ public class GoalService {
      * @throws IllegalArgumentException если цель не найдена
      */
     public void updateGoal(long goalId, String newTitle, double newTargetAmt) {
-        Goal goal = db.findGoalById(goalId);
-        if (goal == null) {
-            throw new IllegalArgumentException("Цель не найдена!");
+        GoalUpdateEvent event = begin("update");
+        event.goalId = goalId;
+        try {
+            updateGoalMetrics.time(() -> {
+                Goal goal = db.findGoalById(goalId);
+                if (goal == null) {
+                    throw new IllegalArgumentException("Цель не найдена!");
+                }
+                event.userId = goal.getUserId();
+                goal.setTitle(newTitle);
+                goal.setTargetAmount(newTargetAmt);
+                db.saveGoal(goal);
+                event.success = true;
+            });
+        } finally {
+            event.commit();
         }
-        goal.setTitle(newTitle);
-        goal.setTargetAmount(newTargetAmt);
     }
 
     /**
@@ -73,7 +135,31 @@ public class GoalService {
      * @param goalId идентификатор цели
      */
     public void deleteGoal(long goalId) {
-        db.deleteGoal(goalId);
+        GoalUpdateEvent event = begin("delete");
+        event.goalId = goalId;
+        try {
+            deleteGoalMetrics.time(() -> {
+                if (event.isEnabled()) {
+                    // Владелец нужен только для записи JFR
+                    Goal goal = db.findGoalById(goalId);
+                    event.userId = goal == null ? 0 : goal.getUserId();
+                }
+                db.deleteGoal(goalId);
+                event.success = true;
+            });
+        } finally {
+            event.commit();
+        }
+    }
+
+    /**
+     * Возвращает цель по идентификатору.
+     *
+     * @param goalId идентификатор цели
+     * @return цель или null, если не найдена
+     */
+    public Goal getGoal(long goalId) {
+        return db.findGoalById(goalId);
     }
 
     /**
@@ -83,8 +169,13 @@ public class GoalService {
      * @return список целей
      */
     public List<Goal> getUserGoals(long userId) {
-        return db.findAllGoals().stream()
-                .filter(g -> g.getUserId() == userId)
-                .collect(Collectors.toList());
+        return getUserGoalsMetrics.time(() -> new ArrayList<>(db.findGoalsByUser(userId)));
+    }
+
+    private static GoalUpdateEvent begin(String operation) {
+        GoalUpdateEvent event = new GoalUpdateEvent();
+        event.operation = operation;
+        event.begin();
+        return event;
     }
 }
@@ -0,0 +1,248 @@
+package com.yourorganization.service;
+
+import java.util.Arrays;
+
+/**
+ * Упорядоченный по возрастанию список идентификаторов транзакций для одного терма
+ * поискового индекса. Хранится сжато: разности соседних id в кодировке varint
+ * (обычно 1-2 байта на транзакцию вместо 8).
+ * <p>
+ * Список разбит на блоки до {@value #BLOCK_SIZE} id; первый и последний id блока
+ * хранятся отдельно, а в байтах блока лежат только разности. Новые транзакции получают
+ * растущие id, поэтому добавление почти всегда дописывает байты в конец последнего блока.
+ * Вставка в середину и удаление перекодируют только один блок, который находится
+ * двоичным поиском по первым id: их стоимость не зависит от длины списка. Блок,
+ * выросший от вставок вдвое, делится пополам; почти опустевший блок сливается с соседом.
+ * Класс не потокобезопасен, синхронизацию обеспечивает {@link TransactionSearchIndex}.
+ */
+final class PostingList {
+
+    static final int BLOCK_SIZE = 128;
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private byte[][] blocks = new byte[1][];
+    private long[] firstIds = new long[1];
+    private long[] lastIds = new long[1];
+    private int[] lengths = new int[1];
+    private int[] counts = new int[1];
+    private int blockCount;
+    private int size;
+
+    /**
+     * Добавляет идентификатор; повторное добавление игнорируется.
+     *
+     * @param id идентификатор транзакции (положительный)
+     */
+    void add(long id) {
+        if (size == 0 || id > lastIds[blockCount - 1]) {
+            append(id);
+            return;
+        }
+        int block = blockOf(id);
+        long[] ids = decode(block);
+        int position = Arrays.binarySearch(ids, id);
+        if (position >= 0) {
+            return;
+        }
+        int insertAt = -position - 1;
+        long[] updated = new long[ids.length + 1];
+        System.arraycopy(ids, 0, updated, 0, insertAt);
+        updated[insertAt] = id;
+        System.arraycopy(ids, insertAt, updated, insertAt + 1, ids.length - insertAt);
+        size++;
+        if (updated.length > 2 * BLOCK_SIZE) {
+            insertBlock(block + 1);
+            encode(block, updated, 0, BLOCK_SIZE);
+            encode(block + 1, updated, BLOCK_SIZE, updated.length - BLOCK_SIZE);
+        } else {
+            encode(block, updated, 0, updated.length);
+        }
+    }
+
+    /**
+     * Удаляет идентификатор.
+     *
+     * @param id идентификатор транзакции
+     */
+    void remove(long id) {
+        if (size == 0 || id > lastIds[blockCount - 1] || id < firstIds[0]) {
+            return;
+        }
+        int block = blockOf(id);
+        long[] ids = decode(block);
+        int position = Arrays.binarySearch(ids, id);
+        if (position < 0) {
+            return;
+        }
+        System.arraycopy(ids, position + 1, ids, position, ids.length - position - 1);
+        int count = ids.length - 1;
+        size--;
+        if (count == 0) {
+            removeBlock(block);
+            return;
+        }
+        encode(block, ids, 0, count);
+        if (count < BLOCK_SIZE / 4) {
+            mergeWithNeighbour(block);
+        }
+    }
+
+    /**
+     * Возвращает число идентификаторов.
+     *
+     * @return размер списка
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Распаковывает список.
+     *
+     * @return идентификаторы по возрастанию
+     */
+    long[] toArray() {
+        long[] ids = new long[size];
+        int offset = 0;
+        for (int block = 0; block < blockCount; block++) {
+            decodeInto(block, ids, offset);
+            offset += counts[block];
+        }
+        return ids;
+    }
+
+    private void append(long id) {
+        int block = blockCount - 1;
+        if (block < 0 || counts[block] >= BLOCK_SIZE) {
+            block = blockCount;
+            insertBlock(block);
+            firstIds[block] = id;
+            counts[block] = 1;
+        } else {
+            writeDelta(block, id - lastIds[block]);
+            counts[block]++;
+        }
+        lastIds[block] = id;
+        size++;
+    }
+
+    /**
+     * Находит блок, в диапазон которого попадает {@code id}: последний блок
+     * с первым id не больше {@code id} (или первый блок, если таких нет).
+     */
+    private int blockOf(long id) {
+        int low = 0;
+        int high = blockCount - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (firstIds[middle] <= id) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Сливает маленький блок с соседом, если вместе они помещаются в один блок.
+     */
+    private void mergeWithNeighbour(int block) {
+        int left = block + 1 < blockCount ? block : block - 1;
+        if (left < 0 || counts[left] + counts[left + 1] > BLOCK_SIZE) {
+            return;
+        }
+        long[] merged = new long[counts[left] + counts[left + 1]];
+        decodeInto(left, merged, 0);
+        decodeInto(left + 1, merged, counts[left]);
+        removeBlock(left + 1);
+        encode(left, merged, 0, merged.length);
+    }
+
+    private long[] decode(int block) {
+        long[] ids = new long[counts[block]];
+        decodeInto(block, ids, 0);
+        return ids;
+    }
+
+    private void decodeInto(int block, long[] ids, int offset) {
+        byte[] data = blocks[block];
+        long previous = firstIds[block];
+        ids[offset] = previous;
+        int position = 0;
+        for (int i = 1; i < counts[block]; i++) {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            previous += delta;
+            ids[offset + i] = previous;
+        }
+    }
+
+    private void encode(int block, long[] ids, int from, int count) {
+        blocks[block] = new byte[Math.max(INITIAL_CAPACITY, count * 2)];
+        lengths[block] = 0;
+        firstIds[block] = ids[from];
+        for (int i = from + 1; i < from + count; i++) {
+            writeDelta(block, ids[i] - ids[i - 1]);
+        }
+        lastIds[block] = ids[from + count - 1];
+        counts[block] = count;
+    }
+
+    private void writeDelta(int block, long delta) {
+        byte[] data = blocks[block];
+        int length = lengths[block];
+        if (length + 10 > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + 10));
+            blocks[block] = data;
+        }
+        while ((delta & ~0x7FL) != 0) {
+            data[length++] = (byte) ((delta & 0x7F) | 0x80);
+            delta >>>= 7;
+        }
+        data[length++] = (byte) delta;
+        lengths[block] = length;
+    }
+
+    /**
+     * Вставляет пустой блок в позицию {@code block}, сдвигая следующие.
+     */
+    private void insertBlock(int block) {
+        if (blockCount == blocks.length) {
+            int capacity = blockCount * 2;
+            blocks = Arrays.copyOf(blocks, capacity);
+            firstIds = Arrays.copyOf(firstIds, capacity);
+            lastIds = Arrays.copyOf(lastIds, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+        int tail = blockCount - block;
+        System.arraycopy(blocks, block, blocks, block + 1, tail);
+        System.arraycopy(firstIds, block, firstIds, block + 1, tail);
+        System.arraycopy(lastIds, block, lastIds, block + 1, tail);
+        System.arraycopy(lengths, block, lengths, block + 1, tail);
+        System.arraycopy(counts, block, counts, block + 1, tail);
+        blocks[block] = new byte[INITIAL_CAPACITY];
+        lengths[block] = 0;
+        counts[block] = 0;
+        blockCount++;
+    }
+
+    private void removeBlock(int block) {
+        int tail = blockCount - block - 1;
+        System.arraycopy(blocks, block + 1, blocks, block, tail);
+        System.arraycopy(firstIds, block + 1, firstIds, block, tail);
+        System.arraycopy(lastIds, block + 1, lastIds, block, tail);
+        System.arraycopy(lengths, block + 1, lengths, block, tail);
+        System.arraycopy(counts, block + 1, counts, block, tail);
+        blockCount--;
+        blocks[blockCount] = null;
+    }
+}
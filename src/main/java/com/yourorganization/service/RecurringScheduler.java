@@ -0,0 +1,60 @@
+package com.yourorganization.service;
+
+import java.io.Closeable;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Периодически вызывает {@link RecurringTransactionService#runDue} в одном фоновом
+ * потоке для шаблонов всех пользователей. Первый запуск выполняется сразу, поэтому
+ * повторения, пропущенные пока приложение не работало, создаются при старте.
+ */
+public class RecurringScheduler implements Closeable {
+
+    private final RecurringTransactionService recurringService;
+    private final Clock clock;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Создаёт и запускает планировщик.
+     *
+     * @param recurringService сервис регулярных транзакций
+     * @param clock            часы, по которым определяется текущая дата
+     * @param intervalMillis   интервал между проверками, мс
+     */
+    public RecurringScheduler(RecurringTransactionService recurringService, Clock clock, long intervalMillis) {
+        this.recurringService = recurringService;
+        this.clock = clock;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "recurring-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::runQuietly, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Останавливает планировщик, дожидаясь текущего запуска.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runQuietly() {
+        try {
+            recurringService.runDue(LocalDate.now(clock));
+        } catch (RuntimeException e) {
+            // Шаблоны не сдвинуты; повторения будут созданы при следующей проверке
+            System.err.println("Не удалось создать регулярные транзакции: " + e.getMessage());
+        }
+    }
+}
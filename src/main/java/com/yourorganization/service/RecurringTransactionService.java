@@ -0,0 +1,260 @@
+package com.yourorganization.service;
+
+import com.yourorganization.domain.RecurringTransaction;
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.metrics.OperationMetrics;
+import com.yourorganization.metrics.ServiceMetrics;
+import com.yourorganization.out.RecurringRepository;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Сервис регулярных транзакций: шаблоны (ежедневно, еженедельно, ежемесячно,
+ * каждые N дней) и их превращение в транзакции через {@link TransactionService}.
+ * <p>
+ * Шаблоны всех пользователей лежат в одной очереди с приоритетом по дате следующего
+ * повторения, поэтому {@link #runDue} смотрит только на вершину очереди и обходится
+ * в O(k log n) для k наступивших шаблонов, сколько бы шаблонов ни было всего.
+ * Все пропущенные повторения (например, после простоя) создаются одной пачкой
+ * {@link TransactionService#createTransactions}; если пачка не сохранилась, шаблоны
+ * не сдвигаются и повторения будут созданы при следующем запуске.
+ * <p>
+ * Шаблоны сохраняются в {@link RecurringRepository} раньше, чем меняется состояние
+ * в памяти: созданные транзакции и сдвинутые шаблоны пишутся одной пачкой
+ * ({@link RecurringRepository#saveOccurrences}), поэтому после перезапуска сервис
+ * продолжает расписание с того же места, без повторов и пропусков.
+ * <p>
+ * Отменённый шаблон удаляется из очереди лениво, когда доходит до вершины;
+ * если отменённых набирается больше половины очереди, она перестраивается.
+ */
+public class RecurringTransactionService {
+
+    private static final int MIN_PURGE_SIZE = 1024;
+    private static final String NAME = "RecurringTransactionService";
+
+    private final TransactionService transactionService;
+    private final RecurringRepository repository;
+    private final ConcurrentMap<Long, ConcurrentMap<Long, RecurringTransaction>> byUser = new ConcurrentHashMap<>();
+    private final PriorityQueue<RecurringTransaction> queue = new PriorityQueue<>(
+            Comparator.comparing(RecurringTransaction::getNextDate).thenComparingLong(RecurringTransaction::getId));
+    /**
+     * Защищает очередь. Отмена шаблона очередь не трогает, поэтому её можно
+     * выполнять под блокировками {@link TransactionService} без риска взаимной блокировки.
+     */
+    private final Lock lock = new ReentrantLock();
+    private final AtomicInteger cancelledInQueue = new AtomicInteger();
+
+    private final OperationMetrics addTemplateMetrics;
+    private final OperationMetrics cancelTemplateMetrics;
+    private final OperationMetrics getUserTemplatesMetrics;
+    private final OperationMetrics runDueMetrics;
+
+    /**
+     * Конструктор, принимающий сервис транзакций и хранилище шаблонов.
+     * Сохранённые шаблоны загружаются в очередь сразу.
+     * Метрики пишутся в общий реестр {@link ServiceMetrics#global()}.
+     *
+     * @param transactionService сервис, через который создаются транзакции
+     * @param repository         хранилище шаблонов
+     */
+    public RecurringTransactionService(TransactionService transactionService, RecurringRepository repository) {
+        this(transactionService, repository, ServiceMetrics.global());
+    }
+
+    /**
+     * Конструктор с явным реестром метрик.
+     *
+     * @param transactionService сервис, через который создаются транзакции
+     * @param repository         хранилище шаблонов
+     * @param metrics            реестр, в который пишутся метрики операций
+     */
+    public RecurringTransactionService(TransactionService transactionService, RecurringRepository repository,
+                                       ServiceMetrics metrics) {
+        this.transactionService = transactionService;
+        this.repository = repository;
+        this.addTemplateMetrics = metrics.operation(NAME, "addTemplate");
+        this.cancelTemplateMetrics = metrics.operation(NAME, "cancelTemplate");
+        this.getUserTemplatesMetrics = metrics.operation(NAME, "getUserTemplates");
+        this.runDueMetrics = metrics.operation(NAME, "runDue");
+        transactionService.addSpendingListener(new SpendingListener() {
+            @Override
+            public void spendingChanged(long userId, String category, YearMonth month, double before, double after) {
+            }
+
+            @Override
+            public void userRemoved(long userId) {
+                forgetUser(userId);
+            }
+        });
+        for (RecurringTransaction template : repository.findAllRecurring()) {
+            byUser.computeIfAbsent(template.getUserId(), id -> new ConcurrentSkipListMap<>())
+                    .put(template.getId(), template);
+            queue.add(template);
+        }
+    }
+
+    /**
+     * Создаёт шаблон регулярной транзакции. Повторения с датой не позже текущей
+     * будут созданы при ближайшем вызове {@link #runDue}.
+     *
+     * @param userId       идентификатор пользователя
+     * @param amount       сумма
+     * @param category     категория
+     * @param description  описание
+     * @param type         тип (INCOME/EXPENSE)
+     * @param frequency    периодичность
+     * @param intervalDays интервал в днях для {@link RecurringTransaction.Frequency#CUSTOM}
+     * @param startDate    дата первого повторения
+     * @return созданный шаблон
+     * @throws IllegalArgumentException если не заданы тип, периодичность или дата начала,
+     *                                  либо интервал для CUSTOM не положителен
+     */
+    public RecurringTransaction addTemplate(long userId, double amount, String category, String description,
+                                            Transaction.TransactionType type,
+                                            RecurringTransaction.Frequency frequency, int intervalDays,
+                                            LocalDate startDate) {
+        return addTemplateMetrics.time(() -> {
+            if (type == null || frequency == null || startDate == null) {
+                throw new IllegalArgumentException("Не заданы тип, периодичность или дата начала");
+            }
+            if (frequency == RecurringTransaction.Frequency.CUSTOM && intervalDays <= 0) {
+                throw new IllegalArgumentException("Интервал повторения должен быть положительным");
+            }
+            RecurringTransaction template = new RecurringTransaction(userId, amount, category, description,
+                    type, frequency, intervalDays, startDate);
+            repository.saveRecurring(template);
+            lock.lock();
+            try {
+                purgeCancelled();
+                byUser.computeIfAbsent(userId, id -> new ConcurrentSkipListMap<>()).put(template.getId(), template);
+                queue.add(template);
+            } finally {
+                lock.unlock();
+            }
+            return template;
+        });
+    }
+
+    /**
+     * Отменяет шаблон пользователя; уже созданные транзакции остаются.
+     *
+     * @param userId     идентификатор пользователя
+     * @param templateId идентификатор шаблона
+     * @throws IllegalArgumentException если у пользователя нет такого шаблона
+     */
+    public void cancelTemplate(long userId, long templateId) {
+        cancelTemplateMetrics.time(() -> {
+            Map<Long, RecurringTransaction> templates = byUser.get(userId);
+            RecurringTransaction template = templates == null ? null : templates.get(templateId);
+            if (template == null) {
+                throw new IllegalArgumentException("Шаблон не найден: " + templateId);
+            }
+            repository.deleteRecurring(templateId);
+            if (templates.remove(templateId, template)) {
+                cancel(template);
+            }
+        });
+    }
+
+    /**
+     * Возвращает действующие шаблоны пользователя.
+     *
+     * @param userId идентификатор пользователя
+     * @return шаблоны, упорядоченные по id
+     */
+    public List<RecurringTransaction> getUserTemplates(long userId) {
+        return getUserTemplatesMetrics.time(() -> {
+            Map<Long, RecurringTransaction> templates = byUser.get(userId);
+            return templates == null ? List.of() : new ArrayList<>(templates.values());
+        });
+    }
+
+    /**
+     * Создаёт транзакции для всех повторений с датой не позже {@code today},
+     * включая пропущенные, одной пачкой.
+     *
+     * @param today текущая дата
+     * @return число созданных транзакций
+     */
+    public int runDue(LocalDate today) {
+        return runDueMetrics.time(() -> {
+            lock.lock();
+            try {
+                purgeCancelled();
+                List<RecurringTransaction> due = new ArrayList<>();
+                List<RecurringTransaction> advanced = new ArrayList<>();
+                List<Transaction> batch = new ArrayList<>();
+                while (!queue.isEmpty() && !queue.peek().getNextDate().isAfter(today)) {
+                    RecurringTransaction template = queue.poll();
+                    if (!template.isActive()) {
+                        cancelledInQueue.decrementAndGet();
+                        continue;
+                    }
+                    long index = template.getOccurrences();
+                    for (LocalDate date = template.getNextDate(); !date.isAfter(today);
+                         date = template.occurrenceDate(++index)) {
+                        batch.add(new Transaction(template.getUserId(), template.getAmount(), template.getCategory(),
+                                date, template.getDescription(), template.getType()));
+                    }
+                    due.add(template);
+                    advanced.add(template.withOccurrences(index));
+                }
+                try {
+                    if (!batch.isEmpty()) {
+                        transactionService.createTransactions(batch,
+                                transactions -> repository.saveOccurrences(transactions, advanced));
+                    }
+                    for (int i = 0; i < due.size(); i++) {
+                        due.get(i).setOccurrences(advanced.get(i).getOccurrences());
+                    }
+                } finally {
+                    // При ошибке шаблоны возвращаются в очередь несдвинутыми
+                    queue.addAll(due);
+                }
+                return batch.size();
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Отменяет шаблоны удалённого пользователя.
+     */
+    private void forgetUser(long userId) {
+        Map<Long, RecurringTransaction> templates = byUser.remove(userId);
+        if (templates != null) {
+            templates.values().forEach(this::cancel);
+        }
+    }
+
+    private void cancel(RecurringTransaction template) {
+        template.cancel();
+        cancelledInQueue.incrementAndGet();
+    }
+
+    /**
+     * Перестраивает очередь, если отменённых шаблонов в ней больше половины;
+     * вызывается под {@link #lock}.
+     */
+    private void purgeCancelled() {
+        int cancelled = cancelledInQueue.get();
+        if (cancelled > MIN_PURGE_SIZE && cancelled > queue.size() / 2) {
+            int before = queue.size();
+            queue.removeIf(t -> !t.isActive());
+            cancelledInQueue.addAndGet(queue.size() - before);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.yourorganization.service;
+
+import java.time.YearMonth;
+
+/**
+ * Получает изменения месячных расходов пользователя по категориям
+ * (см. {@link TransactionService#addSpendingListener}).
+ * <p>
+ * Методы вызываются синхронно, под блокировкой пользователя, сразу после
+ * изменения транзакций, поэтому должны выполняться быстро и не бросать исключений.
+ */
+public interface SpendingListener {
+
+    /**
+     * Сообщает, что сумма расходов пользователя в категории за месяц изменилась.
+     *
+     * @param userId   идентификатор пользователя
+     * @param category категория (пустая строка, если категория не указана)
+     * @param month    месяц транзакции
+     * @param before   сумма расходов до изменения
+     * @param after    сумма расходов после изменения
+     */
+    void spendingChanged(long userId, String category, YearMonth month, double before, double after);
+
+    /**
+     * Сообщает, что пользователь удалён вместе со всеми транзакциями.
+     *
+     * @param userId идентификатор пользователя
+     */
+    default void userRemoved(long userId) {
+    }
+}
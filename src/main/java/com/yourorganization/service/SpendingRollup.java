@@ -0,0 +1,184 @@
+package com.yourorganization.service;
+
+import com.yourorganization.domain.Transaction;
+
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Предагрегированные итоги (пользователь × месяц × категория × тип), которые
+ * обновляются инкрементально при каждом изменении транзакций.
+ * Отчёты строятся только по этим итогам, без чтения самих транзакций.
+ * <p>
+ * Ячейка хранит сумму и количество транзакций; ячейка, в которой не осталось
+ * транзакций, удаляется, чтобы не копить нулевые строки и ошибку округления.
+ */
+class SpendingRollup {
+
+    private final ConcurrentMap<Long, NavigableMap<YearMonth, ConcurrentMap<CellKey, Cell>>> byUser =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Учитывает транзакцию в итогах.
+     *
+     * @param transaction транзакция
+     * @return сумма ячейки транзакции после изменения
+     */
+    double add(Transaction transaction) {
+        return change(transaction, 1);
+    }
+
+    /**
+     * Убирает транзакцию из итогов (значения должны совпадать с учтёнными ранее).
+     *
+     * @param transaction транзакция
+     * @return сумма ячейки транзакции после изменения (0, если ячейка опустела)
+     */
+    double remove(Transaction transaction) {
+        return change(transaction, -1);
+    }
+
+    /**
+     * Удаляет все итоги пользователя.
+     *
+     * @param userId идентификатор пользователя
+     */
+    void removeUser(long userId) {
+        byUser.remove(userId);
+    }
+
+    /**
+     * Возвращает итоги по категориям за месяц.
+     *
+     * @param userId идентификатор пользователя
+     * @param month  месяц
+     * @param type   тип транзакций
+     * @return категория -> сумма, упорядочено по категории
+     */
+    Map<String, Double> categoryTotals(long userId, YearMonth month, Transaction.TransactionType type) {
+        Map<String, Double> result = new TreeMap<>();
+        NavigableMap<YearMonth, ConcurrentMap<CellKey, Cell>> months = byUser.get(userId);
+        if (months != null) {
+            collect(months.get(month), type, result);
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает итоги по категориям для каждого месяца периода.
+     *
+     * @param userId идентификатор пользователя
+     * @param from   первый месяц периода
+     * @param to     последний месяц периода
+     * @param type   тип транзакций
+     * @return месяц -> (категория -> сумма); месяцы без транзакций не включаются
+     */
+    NavigableMap<YearMonth, Map<String, Double>> monthlyCategoryTotals(long userId, YearMonth from, YearMonth to,
+                                                                      Transaction.TransactionType type) {
+        NavigableMap<YearMonth, Map<String, Double>> result = new TreeMap<>();
+        NavigableMap<YearMonth, ConcurrentMap<CellKey, Cell>> months = byUser.get(userId);
+        if (months == null) {
+            return result;
+        }
+        for (Map.Entry<YearMonth, ConcurrentMap<CellKey, Cell>> entry : months.subMap(from, true, to, true).entrySet()) {
+            Map<String, Double> totals = new TreeMap<>();
+            collect(entry.getValue(), type, totals);
+            if (!totals.isEmpty()) {
+                result.put(entry.getKey(), totals);
+            }
+        }
+        return result;
+    }
+
+    private static void collect(Map<CellKey, Cell> cells, Transaction.TransactionType type, Map<String, Double> result) {
+        if (cells == null) {
+            return;
+        }
+        for (Map.Entry<CellKey, Cell> cell : cells.entrySet()) {
+            if (cell.getKey().type == type && cell.getValue().count() > 0) {
+                result.put(cell.getKey().category, cell.getValue().amount());
+            }
+        }
+    }
+
+    private double change(Transaction transaction, int sign) {
+        if (transaction.getDate() == null || transaction.getType() == null) {
+            return 0;
+        }
+        YearMonth month = YearMonth.from(transaction.getDate());
+        CellKey key = new CellKey(transaction.getCategory() == null ? "" : transaction.getCategory(),
+                transaction.getType());
+        ConcurrentMap<CellKey, Cell> cells = byUser
+                .computeIfAbsent(transaction.getUserId(), id -> new ConcurrentSkipListMap<>())
+                .computeIfAbsent(month, m -> new ConcurrentHashMap<>());
+        double[] total = new double[1];
+        cells.compute(key, (k, cell) -> {
+            if (cell == null) {
+                cell = new Cell();
+            }
+            cell.add(sign * transaction.getAmount(), sign);
+            if (cell.count() == 0) {
+                return null;
+            }
+            total[0] = cell.amount();
+            return cell;
+        });
+        return total[0];
+    }
+
+    /**
+     * Ключ ячейки внутри месяца: категория и тип.
+     */
+    private static final class CellKey {
+        private final String category;
+        private final Transaction.TransactionType type;
+
+        CellKey(String category, Transaction.TransactionType type) {
+            this.category = category;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CellKey)) {
+                return false;
+            }
+            CellKey other = (CellKey) o;
+            return type == other.type && category.equals(other.category);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * category.hashCode() + type.hashCode();
+        }
+    }
+
+    /**
+     * Сумма и количество транзакций в ячейке.
+     */
+    private static final class Cell {
+        private double amount;
+        private long count;
+
+        synchronized void add(double delta, int countDelta) {
+            amount += delta;
+            count += countDelta;
+        }
+
+        synchronized double amount() {
+            return amount;
+        }
+
+        synchronized long count() {
+            return count;
+        }
+    }
+}
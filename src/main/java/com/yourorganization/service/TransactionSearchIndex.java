@@ -0,0 +1,320 @@
+package com.yourorganization.service;
+
+import com.yourorganization.domain.Transaction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Инвертированный индекс по словам описания и категории транзакций, отдельный
+ * для каждого пользователя: терм -> {@link PostingList} с id транзакций.
+ * Обновляется инкрементально при каждом изменении транзакций, как и {@link SpendingRollup}.
+ * <p>
+ * Термы - последовательности букв и цифр в нижнем регистре. Запрос - слова через пробел
+ * (все должны встретиться, AND); группы слов разделяются {@code OR}; слово со звёздочкой
+ * на конце ({@code такс*}) совпадает со всеми термами с этим префиксом.
+ */
+class TransactionSearchIndex {
+
+    private static final String OR = "OR";
+
+    private final ConcurrentMap<Long, UserIndex> byUser = new ConcurrentHashMap<>();
+
+    /**
+     * Добавляет транзакцию в индекс.
+     *
+     * @param transaction транзакция
+     */
+    void add(Transaction transaction) {
+        Set<String> terms = termsOf(transaction);
+        if (!terms.isEmpty()) {
+            byUser.computeIfAbsent(transaction.getUserId(), id -> new UserIndex())
+                    .add(terms, transaction.getId());
+        }
+    }
+
+    /**
+     * Убирает транзакцию из индекса (значения должны совпадать с проиндексированными ранее).
+     *
+     * @param transaction транзакция
+     */
+    void remove(Transaction transaction) {
+        UserIndex index = byUser.get(transaction.getUserId());
+        if (index != null) {
+            index.remove(termsOf(transaction), transaction.getId());
+        }
+    }
+
+    /**
+     * Переиндексирует изменённую транзакцию; затрагиваются только изменившиеся термы.
+     *
+     * @param before транзакция до изменения
+     * @param after  транзакция после изменения
+     */
+    void update(Transaction before, Transaction after) {
+        Set<String> removed = termsOf(before);
+        Set<String> added = termsOf(after);
+        Set<String> unchanged = new HashSet<>(removed);
+        unchanged.retainAll(added);
+        removed.removeAll(unchanged);
+        added.removeAll(unchanged);
+        UserIndex index = byUser.get(before.getUserId());
+        if (index != null) {
+            index.remove(removed, before.getId());
+        }
+        if (!added.isEmpty()) {
+            byUser.computeIfAbsent(after.getUserId(), id -> new UserIndex()).add(added, after.getId());
+        }
+    }
+
+    /**
+     * Удаляет индекс пользователя.
+     *
+     * @param userId идентификатор пользователя
+     */
+    void removeUser(long userId) {
+        byUser.remove(userId);
+    }
+
+    /**
+     * Выполняет запрос.
+     *
+     * @param userId идентификатор пользователя
+     * @param query  запрос
+     * @return id подходящих транзакций по возрастанию
+     * @throws IllegalArgumentException если в запросе нет ни одного слова
+     */
+    long[] search(long userId, String query) {
+        List<List<Term>> groups = parse(query);
+        UserIndex index = byUser.get(userId);
+        if (index == null) {
+            return new long[0];
+        }
+        long[] result = new long[0];
+        for (List<Term> group : groups) {
+            result = union(result, index.match(group));
+        }
+        return result;
+    }
+
+    /**
+     * Разбивает текст на термы.
+     *
+     * @param text текст (может быть null)
+     * @return термы в порядке появления, в нижнем регистре
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean wordChar = i < length && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static Set<String> termsOf(Transaction transaction) {
+        Set<String> terms = new HashSet<>(tokenize(transaction.getDescription()));
+        terms.addAll(tokenize(transaction.getCategory()));
+        return terms;
+    }
+
+    private static List<List<Term>> parse(String query) {
+        List<List<Term>> groups = new ArrayList<>();
+        List<Term> group = new ArrayList<>();
+        for (String word : query == null ? new String[0] : query.trim().split("\\s+")) {
+            if (word.equals(OR)) {
+                if (!group.isEmpty()) {
+                    groups.add(group);
+                    group = new ArrayList<>();
+                }
+                continue;
+            }
+            boolean prefix = word.endsWith("*");
+            List<String> tokens = tokenize(word);
+            for (int i = 0; i < tokens.size(); i++) {
+                group.add(new Term(tokens.get(i), prefix && i == tokens.size() - 1));
+            }
+        }
+        if (!group.isEmpty()) {
+            groups.add(group);
+        }
+        if (groups.isEmpty()) {
+            throw new IllegalArgumentException("Поисковый запрос не содержит слов");
+        }
+        return groups;
+    }
+
+    private static long[] intersect(long[] a, long[] b) {
+        if (a.length > b.length) {
+            long[] swap = a;
+            a = b;
+            b = swap;
+        }
+        long[] result = new long[a.length];
+        int count = 0;
+        if (b.length > 8 * a.length) {
+            // Короткий список против длинного: двоичный поиск вместо слияния
+            int from = 0;
+            for (long id : a) {
+                int position = Arrays.binarySearch(b, from, b.length, id);
+                if (position >= 0) {
+                    result[count++] = id;
+                    from = position + 1;
+                } else {
+                    from = -position - 1;
+                }
+            }
+        } else {
+            // Сдвиги без ветвлений: на случайных id ветвление "меньше/больше" плохо предсказывается
+            int i = 0;
+            int j = 0;
+            while (i < a.length && j < b.length) {
+                long x = a[i];
+                long y = b[j];
+                if (x == y) {
+                    result[count++] = x;
+                }
+                i += x <= y ? 1 : 0;
+                j += y <= x ? 1 : 0;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static long[] union(long[] a, long[] b) {
+        if (a.length == 0) {
+            return b;
+        }
+        if (b.length == 0) {
+            return a;
+        }
+        long[] result = new long[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < a.length || j < b.length) {
+            long next;
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                next = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                next = b[j++];
+            } else {
+                next = a[i++];
+                j++;
+            }
+            result[count++] = next;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Слово запроса.
+     */
+    private static final class Term {
+        private final String text;
+        private final boolean prefix;
+
+        Term(String text, boolean prefix) {
+            this.text = text;
+            this.prefix = prefix;
+        }
+    }
+
+    /**
+     * Индекс одного пользователя. Термы упорядочены, поэтому префикс раскрывается
+     * одним диапазоном {@link NavigableMap#subMap}.
+     */
+    private static final class UserIndex {
+        private final NavigableMap<String, PostingList> postings = new TreeMap<>();
+
+        synchronized void add(Set<String> terms, long id) {
+            for (String term : terms) {
+                postings.computeIfAbsent(term, t -> new PostingList()).add(id);
+            }
+        }
+
+        synchronized void remove(Set<String> terms, long id) {
+            for (String term : terms) {
+                PostingList list = postings.get(term);
+                if (list != null) {
+                    list.remove(id);
+                    if (list.size() == 0) {
+                        postings.remove(term);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Возвращает id транзакций, содержащих все слова группы; самые короткие
+         * списки пересекаются первыми.
+         */
+        synchronized long[] match(List<Term> group) {
+            List<long[]> lists = new ArrayList<>(group.size());
+            for (Term term : group) {
+                long[] ids = term.prefix ? prefixIds(term.text) : exactIds(term.text);
+                if (ids.length == 0) {
+                    return ids;
+                }
+                lists.add(ids);
+            }
+            lists.sort((x, y) -> Integer.compare(x.length, y.length));
+            long[] result = lists.get(0);
+            for (int i = 1; i < lists.size() && result.length > 0; i++) {
+                result = intersect(result, lists.get(i));
+            }
+            return result;
+        }
+
+        private long[] exactIds(String term) {
+            PostingList list = postings.get(term);
+            return list == null ? new long[0] : list.toArray();
+        }
+
+        private long[] prefixIds(String prefix) {
+            Map<String, PostingList> matching = postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+            if (matching.size() == 1) {
+                return matching.values().iterator().next().toArray();
+            }
+            int total = 0;
+            for (PostingList list : matching.values()) {
+                total += list.size();
+            }
+            long[] ids = new long[total];
+            int count = 0;
+            for (PostingList list : matching.values()) {
+                long[] part = list.toArray();
+                System.arraycopy(part, 0, ids, count, part.length);
+                count += part.length;
+            }
+            // Одна транзакция может содержать несколько термов с этим префиксом
+            Arrays.sort(ids);
+            int unique = 0;
+            for (int i = 0; i < ids.length; i++) {
+                if (i == 0 || ids[i] != ids[i - 1]) {
+                    ids[unique++] = ids[i];
+                }
+            }
+            return Arrays.copyOf(ids, unique);
+        }
+    }
+}
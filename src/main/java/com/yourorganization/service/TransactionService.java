@@ -1,26 +1,120 @@
 package com.yourorganization.service;
 
 import com.yourorganization.domain.Transaction;
-import com.yourorganization.out.InMemoryDatabase;
+import com.yourorganization.jfr.BalanceEvent;
+import com.yourorganization.jfr.TransactionMutationEvent;
+import com.yourorganization.jfr.TransactionQueryEvent;
+import com.yourorganization.metrics.OperationMetrics;
+import com.yourorganization.metrics.ServiceMetrics;
+import com.yourorganization.out.TransactionRepository;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 /**
  * Сервис для управления транзакциями (доходы/расходы).
+ * Длительность и ошибки операций (кроме простых чтений по id) учитываются в {@link ServiceMetrics};
+ * изменения, чтение транзакций и расчёт баланса дополнительно записываются как события JFR
+ * ({@link TransactionMutationEvent}, {@link TransactionQueryEvent}, {@link BalanceEvent})
+ * с пользователем и числом строк.
+ * <p>
+ * Изменения месячных расходов по категориям передаются подписчикам
+ * {@link SpendingListener} (например, {@link BudgetService}).
  */
 public class TransactionService {
 
-    private final InMemoryDatabase db;
+    /**
+     * Курсор первой страницы для {@link #getUserTransactionsPage}.
+     */
+    public static final long FIRST_PAGE = Long.MAX_VALUE;
+
+    /**
+     * Наибольший размер страницы транзакций.
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private static final int STREAM_PAGE_SIZE = 256;
+    private static final int LOCK_STRIPES = 64;
+    private static final String NAME = "TransactionService";
+
+    private final TransactionRepository db;
+    private final SpendingRollup rollup = new SpendingRollup();
+    private final TransactionSearchIndex searchIndex = new TransactionSearchIndex();
+    /**
+     * Изменение транзакции и соответствующая правка итогов выполняются под одной
+     * блокировкой пользователя, чтобы итоги не расходились с хранилищем.
+     */
+    private final Lock[] locks = new Lock[LOCK_STRIPES];
+    private final List<SpendingListener> spendingListeners = new CopyOnWriteArrayList<>();
+
+    private final OperationMetrics createTransactionMetrics;
+    private final OperationMetrics createTransactionsMetrics;
+    private final OperationMetrics updateTransactionMetrics;
+    private final OperationMetrics deleteTransactionMetrics;
+    private final OperationMetrics deleteTransactionsMetrics;
+    private final OperationMetrics getUserTransactionsMetrics;
+    private final OperationMetrics getUserTransactionsPageMetrics;
+    private final OperationMetrics streamUserTransactionsMetrics;
+    private final OperationMetrics getUserTransactionsForPeriodMetrics;
+    private final OperationMetrics calculateBalanceMetrics;
+    private final OperationMetrics calculateBalanceForPeriodMetrics;
+    private final OperationMetrics getCategoryTotalsMetrics;
+    private final OperationMetrics getMonthlyCategoryTotalsMetrics;
+    private final OperationMetrics searchTransactionsMetrics;
 
     /**
      * Конструктор, принимающий реализацию базы (хранилища).
+     * Итоги для отчётов строятся один раз по уже загруженным транзакциям.
+     * Метрики пишутся в общий реестр {@link ServiceMetrics#global()}.
      *
      * @param db объект с методами сохранения, поиска, удаления транзакций
      */
-    public TransactionService(InMemoryDatabase db) {
+    public TransactionService(TransactionRepository db) {
+        this(db, ServiceMetrics.global());
+    }
+
+    /**
+     * Конструктор с явным реестром метрик.
+     *
+     * @param db      объект с методами сохранения, поиска, удаления транзакций
+     * @param metrics реестр, в который пишутся метрики операций
+     */
+    public TransactionService(TransactionRepository db, ServiceMetrics metrics) {
         this.db = db;
+        this.createTransactionMetrics = metrics.operation(NAME, "createTransaction");
+        this.createTransactionsMetrics = metrics.operation(NAME, "createTransactions");
+        this.updateTransactionMetrics = metrics.operation(NAME, "updateTransaction");
+        this.deleteTransactionMetrics = metrics.operation(NAME, "deleteTransaction");
+        this.deleteTransactionsMetrics = metrics.operation(NAME, "deleteTransactions");
+        this.getUserTransactionsMetrics = metrics.operation(NAME, "getUserTransactions");
+        this.getUserTransactionsPageMetrics = metrics.operation(NAME, "getUserTransactionsPage");
+        this.streamUserTransactionsMetrics = metrics.operation(NAME, "streamUserTransactions");
+        this.getUserTransactionsForPeriodMetrics = metrics.operation(NAME, "getUserTransactionsForPeriod");
+        this.calculateBalanceMetrics = metrics.operation(NAME, "calculateBalance");
+        this.calculateBalanceForPeriodMetrics = metrics.operation(NAME, "calculateBalanceForPeriod");
+        this.getCategoryTotalsMetrics = metrics.operation(NAME, "getCategoryTotals");
+        this.getMonthlyCategoryTotalsMetrics = metrics.operation(NAME, "getMonthlyCategoryTotals");
+        this.searchTransactionsMetrics = metrics.operation(NAME, "searchTransactions");
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        for (Transaction transaction : db.findAllTransactions()) {
+            rollup.add(transaction);
+            searchIndex.add(transaction);
+        }
     }
 
     /**
@@ -33,6 +127,7 @@ public class TransactionService {
      * @param description описание
      * @param type        тип (INCOME/EXPENSE)
      * @return созданная транзакция
+     * @throws IllegalArgumentException если пользователь не найден (в том числе удалён параллельно)
      */
     public Transaction createTransaction(long userId,
                                          double amount,
@@ -40,8 +135,77 @@ public class TransactionService {
                                          LocalDate date,
                                          String description,
                                          Transaction.TransactionType type) {
-        Transaction transaction = new Transaction(userId, amount, category, date, description, type);
-        return db.saveTransaction(transaction);
+        TransactionMutationEvent event = beginMutation("create", userId);
+        try {
+            return createTransactionMetrics.time(() -> {
+                Transaction transaction = new Transaction(userId, amount, category, date, description, type);
+                Lock lock = lockFor(userId);
+                lock.lock();
+                try {
+                    Transaction saved = db.saveOwnedTransaction(transaction);
+                    double total = rollup.add(transaction);
+                    searchIndex.add(transaction);
+                    spendingChanged(transaction, total - transaction.getAmount(), total);
+                    event.rows = 1;
+                    event.success = true;
+                    return saved;
+                } finally {
+                    lock.unlock();
+                }
+            });
+        } finally {
+            event.commit();
+        }
+    }
+
+    /**
+     * Создаёт пачку транзакций (например, строки импортированной выписки) одним
+     * пакетным вызовом хранилища: блокировки, индексы и журнал обслуживаются
+     * один раз на пачку. Пачка сохраняется целиком или не сохраняется вовсе.
+     *
+     * @param transactions новые транзакции
+     * @return тот же список транзакций
+     * @throws IllegalArgumentException если в пачке есть null
+     */
+    public List<Transaction> createTransactions(List<Transaction> transactions) {
+        return createTransactions(transactions, db::saveTransactions);
+    }
+
+    /**
+     * Создаёт пачку транзакций, сохраняя её переданной функцией вместо
+     * {@link TransactionRepository#saveTransactions}: так вместе с транзакциями
+     * в той же пачке хранилища можно сохранить связанные строки (например, сдвинутые
+     * шаблоны регулярных транзакций). Индексы сервиса обновляются, только если
+     * сохранение прошло успешно.
+     *
+     * @param transactions новые транзакции
+     * @param store        функция, атомарно сохраняющая пачку
+     * @return тот же список транзакций
+     */
+    List<Transaction> createTransactions(List<Transaction> transactions, Consumer<List<Transaction>> store) {
+        TransactionMutationEvent event = beginMutation("createBatch", 0);
+        try {
+            return createTransactionsMetrics.time(() -> {
+                long[] userIds = userIdsOf(transactions);
+                event.userId = singleUserOf(userIds);
+                boolean[] locked = lockUsers(userIds);
+                try {
+                    store.accept(transactions);
+                    for (Transaction transaction : transactions) {
+                        double total = rollup.add(transaction);
+                        searchIndex.add(transaction);
+                        spendingChanged(transaction, total - transaction.getAmount(), total);
+                    }
+                    event.rows = transactions.size();
+                    event.success = true;
+                    return transactions;
+                } finally {
+                    unlockUsers(locked);
+                }
+            });
+        } finally {
+            event.commit();
+        }
     }
 
     /**
@@ -54,13 +218,65 @@ public class TransactionService {
      * @throws IllegalArgumentException если транзакция не найдена
      */
     public void updateTransaction(long transactionId, double amount, String category, String description) {
-        Transaction transaction = db.findTransactionById(transactionId);
-        if (transaction == null) {
-            throw new IllegalArgumentException("Транзакция не найдена");
+        updateTransactionMetrics.time(() -> {
+            Transaction transaction = db.findTransactionById(transactionId);
+            if (transaction == null) {
+                throw new IllegalArgumentException("Транзакция не найдена");
+            }
+            update(transactionId, amount, category, description, transaction.getType());
+        });
+    }
+
+    /**
+     * Обновляет существующую транзакцию, в том числе её тип (доход/расход).
+     *
+     * @param transactionId идентификатор транзакции
+     * @param amount        новая сумма
+     * @param category      новая категория
+     * @param description   новое описание
+     * @param type          новый тип (INCOME/EXPENSE)
+     * @throws IllegalArgumentException если транзакция не найдена
+     */
+    public void updateTransaction(long transactionId, double amount, String category, String description,
+                                  Transaction.TransactionType type) {
+        updateTransactionMetrics.time(() -> update(transactionId, amount, category, description, type));
+    }
+
+    private void update(long transactionId, double amount, String category, String description,
+                        Transaction.TransactionType type) {
+        TransactionMutationEvent event = beginMutation("update", 0);
+        try {
+            Transaction transaction = db.findTransactionById(transactionId);
+            if (transaction == null) {
+                throw new IllegalArgumentException("Транзакция не найдена");
+            }
+            event.userId = transaction.getUserId();
+            Lock lock = lockFor(transaction.getUserId());
+            lock.lock();
+            try {
+                // Запоминаем прежние значения: хранилище может изменить объект на месте
+                Transaction before = copyOf(db.findTransactionById(transactionId));
+                Transaction updated = db.updateTransaction(transactionId, amount, category, description, type);
+                if (before == null || updated == null) {
+                    throw new IllegalArgumentException("Транзакция не найдена");
+                }
+                double removed = rollup.remove(before);
+                double added = rollup.add(updated);
+                searchIndex.update(before, updated);
+                if (sameCell(before, updated)) {
+                    spendingChanged(updated, removed + before.getAmount(), added);
+                } else {
+                    spendingChanged(before, removed + before.getAmount(), removed);
+                    spendingChanged(updated, added - updated.getAmount(), added);
+                }
+                event.rows = 1;
+                event.success = true;
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            event.commit();
         }
-        transaction.setAmount(amount);
-        transaction.setCategory(category);
-        transaction.setDescription(description);
     }
 
     /**
@@ -69,7 +285,92 @@ public class TransactionService {
      * @param transactionId идентификатор транзакции
      */
     public void deleteTransaction(long transactionId) {
-        db.deleteTransaction(transactionId);
+        TransactionMutationEvent event = beginMutation("delete", 0);
+        try {
+            deleteTransactionMetrics.time(() -> {
+                Transaction transaction = db.findTransactionById(transactionId);
+                if (transaction == null) {
+                    db.deleteTransaction(transactionId);
+                    event.success = true;
+                    return;
+                }
+                event.userId = transaction.getUserId();
+                Lock lock = lockFor(transaction.getUserId());
+                lock.lock();
+                try {
+                    Transaction before = copyOf(db.findTransactionById(transactionId));
+                    db.deleteTransaction(transactionId);
+                    if (before != null) {
+                        double total = rollup.remove(before);
+                        searchIndex.remove(before);
+                        spendingChanged(before, total + before.getAmount(), total);
+                        event.rows = 1;
+                    }
+                    event.success = true;
+                } finally {
+                    lock.unlock();
+                }
+            });
+        } finally {
+            event.commit();
+        }
+    }
+
+    /**
+     * Удаляет пачку транзакций. Если хотя бы одной транзакции нет,
+     * не удаляется ни одна.
+     *
+     * @param transactionIds идентификаторы транзакций
+     * @throws IllegalArgumentException если какая-либо транзакция не найдена
+     */
+    public void deleteTransactions(long[] transactionIds) {
+        TransactionMutationEvent event = beginMutation("deleteBatch", 0);
+        try {
+            deleteTransactionsMetrics.time(() -> {
+                List<Transaction> existing = new ArrayList<>(transactionIds.length);
+                for (long id : transactionIds) {
+                    Transaction transaction = db.findTransactionById(id);
+                    if (transaction == null) {
+                        throw new IllegalArgumentException("Транзакция не найдена: " + id);
+                    }
+                    existing.add(transaction);
+                }
+                long[] userIds = userIdsOf(existing);
+                event.userId = singleUserOf(userIds);
+                boolean[] locked = lockUsers(userIds);
+                try {
+                    List<Transaction> before = new ArrayList<>(transactionIds.length);
+                    for (long id : transactionIds) {
+                        Transaction transaction = copyOf(db.findTransactionById(id));
+                        if (transaction != null) {
+                            before.add(transaction);
+                        }
+                    }
+                    db.deleteTransactions(transactionIds);
+                    for (Transaction transaction : before) {
+                        double total = rollup.remove(transaction);
+                        searchIndex.remove(transaction);
+                        spendingChanged(transaction, total + transaction.getAmount(), total);
+                    }
+                    event.rows = before.size();
+                    event.success = true;
+                } finally {
+                    unlockUsers(locked);
+                }
+            });
+        } finally {
+            event.commit();
+        }
+    }
+
+    /**
+     * Возвращает транзакцию по идентификатору.
+     *
+     * @param transactionId идентификатор транзакции
+     * @return транзакция или null, если не найдена
+     */
+    public Transaction getTransaction(long transactionId) {
+        return db.findTransactionById(transactionId);
     }
 
     /**
@@ -79,26 +380,394 @@ public class TransactionService {
      * @return список транзакций данного пользователя
      */
     public List<Transaction> getUserTransactions(long userId) {
-        return db.findAllTransactions().stream()
-                .filter(t -> t.getUserId() == userId)
-                .collect(Collectors.toList());
+        TransactionQueryEvent event = beginQuery("all", userId);
+        try {
+            return getUserTransactionsMetrics.time(() -> {
+                List<Transaction> result = new ArrayList<>(db.findTransactionsByUser(userId));
+                event.rows = result.size();
+                return result;
+            });
+        } finally {
+            event.commit();
+        }
+    }
+
+    /**
+     * Возвращает страницу транзакций пользователя от новых к старым.
+     * Следующая страница запрашивается с курсором, равным id последней
+     * транзакции текущей; неполная страница - последняя.
+     *
+     * @param userId   идентификатор пользователя
+     * @param beforeId курсор: id последней транзакции предыдущей страницы
+     *                 или {@link #FIRST_PAGE}
+     * @param limit    размер страницы (от 1 до {@link #MAX_PAGE_SIZE})
+     * @return список транзакций по убыванию id
+     * @throws IllegalArgumentException если размер страницы вне допустимого диапазона
+     */
+    public List<Transaction> getUserTransactionsPage(long userId, long beforeId, int limit) {
+        TransactionQueryEvent event = beginQuery("page", userId);
+        try {
+            return getUserTransactionsPageMetrics.time(() -> {
+                if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+                    throw new IllegalArgumentException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+                }
+                List<Transaction> page = db.findTransactionsPageByUser(userId, beforeId, limit);
+                event.rows = page.size();
+                return page;
+            });
+        } finally {
+            event.commit();
+        }
+    }
+
+    /**
+     * Возвращает ленивый поток транзакций пользователя от новых к старым.
+     * Транзакции читаются из хранилища страницами по мере потребления,
+     * полный список в памяти не строится.
+     *
+     * @param userId идентификатор пользователя
+     * @return поток транзакций по убыванию id
+     */
+    public Stream<Transaction> streamUserTransactions(long userId) {
+        Spliterator<Transaction> pages = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL) {
+            private List<Transaction> page = List.of();
+            private int position;
+            private long cursor = FIRST_PAGE;
+            private boolean lastPage;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super Transaction> action) {
+                if (position == page.size()) {
+                    if (lastPage) {
+                        return false;
+                    }
+                    page = fetchPage(userId, cursor);
+                    position = 0;
+                    lastPage = page.size() < STREAM_PAGE_SIZE;
+                    if (page.isEmpty()) {
+                        return false;
+                    }
+                    cursor = page.get(page.size() - 1).getId();
+                }
+                action.accept(page.get(position++));
+                return true;
+            }
+        };
+        return StreamSupport.stream(pages, false);
+    }
+
+    /**
+     * Читает очередную страницу для {@link #streamUserTransactions}. Поток ленивый,
+     * поэтому в метриках операции учитывается каждое чтение страницы, а не создание потока.
+     */
+    private List<Transaction> fetchPage(long userId, long cursor) {
+        return streamUserTransactionsMetrics.time(
+                () -> db.findTransactionsPageByUser(userId, cursor, STREAM_PAGE_SIZE));
+    }
+
+    /**
+     * Возвращает транзакции пользователя за период (границы включительно),
+     * упорядоченные по дате. Использует индекс по дате: O(log n + k).
+     *
+     * @param userId идентификатор пользователя
+     * @param from   первый день периода
+     * @param to     последний день периода
+     * @return список транзакций за период
+     * @throws IllegalArgumentException если начало периода позже конца
+     */
+    public List<Transaction> getUserTransactions(long userId, LocalDate from, LocalDate to) {
+        TransactionQueryEvent event = beginQuery("period", userId);
+        try {
+            return getUserTransactionsForPeriodMetrics.time(() -> {
+                checkPeriod(from, to);
+                List<Transaction> result = new ArrayList<>(db.findTransactionsByUser(userId, from, to));
+                event.rows = result.size();
+                return result;
+            });
+        } finally {
+            event.commit();
+        }
     }
 
     /**
      * Рассчитывает баланс (сумма доходов - сумма расходов) для пользователя.
+     * Суммы ведутся хранилищем инкрементально, поэтому расчёт выполняется за O(1).
      *
      * @param userId идентификатор пользователя
      * @return текущий баланс
      */
     public double calculateBalance(long userId) {
-        double income = getUserTransactions(userId).stream()
-                .filter(t -> t.getType() == Transaction.TransactionType.INCOME)
-                .mapToDouble(Transaction::getAmount)
-                .sum();
-        double expense = getUserTransactions(userId).stream()
-                .filter(t -> t.getType() == Transaction.TransactionType.EXPENSE)
-                .mapToDouble(Transaction::getAmount)
-                .sum();
-        return income - expense;
+        BalanceEvent event = new BalanceEvent();
+        event.userId = userId;
+        event.begin();
+        try {
+            return calculateBalanceMetrics.time(() -> db.findBalance(userId));
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                // Строки считаются вне замера и только для событий дольше порога
+                event.rows = db.countTransactions(userId);
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Рассчитывает баланс пользователя за период (границы включительно).
+     *
+     * @param userId идентификатор пользователя
+     * @param from   первый день периода
+     * @param to     последний день периода
+     * @return баланс за период
+     * @throws IllegalArgumentException если начало периода позже конца
+     */
+    public double calculateBalance(long userId, LocalDate from, LocalDate to) {
+        BalanceEvent event = new BalanceEvent();
+        event.userId = userId;
+        event.begin();
+        try {
+            return calculateBalanceForPeriodMetrics.time(() -> {
+                checkPeriod(from, to);
+                event.periodDays = to.toEpochDay() - from.toEpochDay() + 1;
+                return db.findBalance(userId, from, to);
+            });
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.rows = event.periodDays > 0 ? db.countTransactions(userId, from, to) : 0;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Возвращает суммы по категориям за месяц (например, расходы по категориям).
+     * Строится по предагрегированным итогам, сами транзакции не читаются.
+     *
+     * @param userId идентификатор пользователя
+     * @param month  месяц
+     * @param type   тип транзакций (INCOME/EXPENSE)
+     * @return категория -> сумма, упорядочено по категории
+     */
+    public Map<String, Double> getCategoryTotals(long userId, YearMonth month, Transaction.TransactionType type) {
+        return getCategoryTotalsMetrics.time(() -> rollup.categoryTotals(userId, month, type));
+    }
+
+    /**
+     * Возвращает суммы по категориям для каждого месяца периода (границы включительно).
+     *
+     * @param userId идентификатор пользователя
+     * @param from   первый месяц периода
+     * @param to     последний месяц периода
+     * @param type   тип транзакций (INCOME/EXPENSE)
+     * @return месяц -> (категория -> сумма); месяцы без транзакций не включаются
+     * @throws IllegalArgumentException если начало периода позже конца
+     */
+    public NavigableMap<YearMonth, Map<String, Double>> getMonthlyCategoryTotals(long userId,
+                                                                                YearMonth from,
+                                                                                YearMonth to,
+                                                                                Transaction.TransactionType type) {
+        return getMonthlyCategoryTotalsMetrics.time(() -> {
+            if (from == null || to == null || from.isAfter(to)) {
+                throw new IllegalArgumentException("Некорректный период: начало должно быть не позже конца");
+            }
+            return rollup.monthlyCategoryTotals(userId, from, to, type);
+        });
+    }
+
+    /**
+     * Ищет транзакции пользователя по словам описания и категории с помощью
+     * инвертированного индекса. Слова через пробел должны встретиться все (AND),
+     * группы слов разделяются {@code OR}, слово со звёздочкой на конце ищется
+     * по префиксу: {@code "такси март*"}, {@code "taxi OR uber"}.
+     *
+     * @param userId идентификатор пользователя
+     * @param query  запрос
+     * @param from   первый день периода или null
+     * @param to     последний день периода или null
+     * @param type   тип транзакций или null для любого
+     * @param limit  наибольшее число результатов (от 1 до {@link #MAX_PAGE_SIZE})
+     * @return найденные транзакции по убыванию id
+     * @throws IllegalArgumentException если запрос пуст, период некорректен
+     *                                  или размер выдачи вне допустимого диапазона
+     */
+    public List<Transaction> searchTransactions(long userId, String query, LocalDate from, LocalDate to,
+                                                Transaction.TransactionType type, int limit) {
+        TransactionQueryEvent event = beginQuery("search", userId);
+        try {
+            return searchTransactionsMetrics.time(() -> {
+                if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+                    throw new IllegalArgumentException("Размер выдачи должен быть от 1 до " + MAX_PAGE_SIZE);
+                }
+                if (from != null && to != null) {
+                    checkPeriod(from, to);
+                }
+                long[] ids = searchIndex.search(userId, query);
+                List<Transaction> result = new ArrayList<>(Math.min(limit, ids.length));
+                for (int i = ids.length - 1; i >= 0 && result.size() < limit; i--) {
+                    Transaction transaction = db.findTransactionById(ids[i]);
+                    if (transaction != null && matches(transaction, from, to, type)) {
+                        result.add(transaction);
+                    }
+                }
+                event.rows = result.size();
+                return result;
+            });
+        } finally {
+            event.commit();
+        }
+    }
+
+    /**
+     * Подписывает слушателя на изменения месячных расходов по категориям.
+     * Слушатель вызывается при каждом изменении расходной (EXPENSE) транзакции
+     * с суммами ячейки до и после изменения, без пересчёта транзакций месяца.
+     *
+     * @param listener слушатель
+     */
+    public void addSpendingListener(SpendingListener listener) {
+        spendingListeners.add(listener);
+    }
+
+    /**
+     * Освобождает итоги и поисковый индекс удалённого пользователя и оповещает
+     * слушателей {@link SpendingListener#userRemoved}. Подключается кодом сборки
+     * приложения как слушатель удаления пользователей хранилища:
+     * {@code db.addUserRemovalListener(transactionService::userRemoved)}.
+     *
+     * @param userId идентификатор удалённого пользователя
+     */
+    public void userRemoved(long userId) {
+        Lock lock = lockFor(userId);
+        lock.lock();
+        try {
+            rollup.removeUser(userId);
+            searchIndex.removeUser(userId);
+            for (SpendingListener listener : spendingListeners) {
+                listener.userRemoved(userId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Сообщает слушателям об изменении суммы расходов в ячейке итогов транзакции.
+     */
+    private void spendingChanged(Transaction transaction, double before, double after) {
+        if (spendingListeners.isEmpty() || transaction.getType() != Transaction.TransactionType.EXPENSE
+                || transaction.getDate() == null) {
+            return;
+        }
+        String category = categoryOf(transaction);
+        YearMonth month = YearMonth.from(transaction.getDate());
+        for (SpendingListener listener : spendingListeners) {
+            listener.spendingChanged(transaction.getUserId(), category, month, before, after);
+        }
+    }
+
+    /**
+     * Проверяет, что обе версии транзакции попадают в одну ячейку итогов.
+     */
+    private static boolean sameCell(Transaction a, Transaction b) {
+        return a.getType() == b.getType()
+                && a.getDate() != null && b.getDate() != null
+                && YearMonth.from(a.getDate()).equals(YearMonth.from(b.getDate()))
+                && categoryOf(a).equals(categoryOf(b));
+    }
+
+    private static String categoryOf(Transaction transaction) {
+        return Objects.requireNonNullElse(transaction.getCategory(), "");
+    }
+
+    private static TransactionMutationEvent beginMutation(String operation, long userId) {
+        TransactionMutationEvent event = new TransactionMutationEvent();
+        event.operation = operation;
+        event.userId = userId;
+        event.begin();
+        return event;
+    }
+
+    private static TransactionQueryEvent beginQuery(String query, long userId) {
+        TransactionQueryEvent event = new TransactionQueryEvent();
+        event.query = query;
+        event.userId = userId;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Возвращает пользователя пачки, если он единственный, иначе 0.
+     */
+    private static long singleUserOf(long[] userIds) {
+        for (int i = 1; i < userIds.length; i++) {
+            if (userIds[i] != userIds[0]) {
+                return 0;
+            }
+        }
+        return userIds.length == 0 ? 0 : userIds[0];
+    }
+
+    private Lock lockFor(long userId) {
+        return locks[(int) (userId & (LOCK_STRIPES - 1))];
+    }
+
+    /**
+     * Захватывает блокировки всех пользователей пачки в порядке возрастания номера.
+     */
+    private boolean[] lockUsers(long[] userIds) {
+        boolean[] needed = new boolean[LOCK_STRIPES];
+        for (long userId : userIds) {
+            needed[(int) (userId & (LOCK_STRIPES - 1))] = true;
+        }
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            if (needed[i]) {
+                locks[i].lock();
+            }
+        }
+        return needed;
+    }
+
+    private static long[] userIdsOf(List<Transaction> transactions) {
+        long[] userIds = new long[transactions.size()];
+        for (int i = 0; i < userIds.length; i++) {
+            Transaction transaction = transactions.get(i);
+            if (transaction == null) {
+                throw new IllegalArgumentException("Пачка содержит пустую транзакцию");
+            }
+            userIds[i] = transaction.getUserId();
+        }
+        return userIds;
+    }
+
+    private void unlockUsers(boolean[] locked) {
+        for (int i = LOCK_STRIPES - 1; i >= 0; i--) {
+            if (locked[i]) {
+                locks[i].unlock();
+            }
+        }
+    }
+
+    private static Transaction copyOf(Transaction t) {
+        if (t == null) {
+            return null;
+        }
+        return new Transaction(t.getId(), t.getUserId(), t.getAmount(), t.getCategory(), t.getDate(),
+                t.getDescription(), t.getType());
+    }
+
+    private static boolean matches(Transaction transaction, LocalDate from, LocalDate to,
+                                   Transaction.TransactionType type) {
+        LocalDate date = transaction.getDate();
+        return (type == null || transaction.getType() == type)
+                && (from == null || (date != null && !date.isBefore(from)))
+                && (to == null || (date != null && !date.isAfter(to)));
+    }
+
+    private static void checkPeriod(LocalDate from, LocalDate to) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new IllegalArgumentException("Некорректный период: начало должно быть не позже конца");
+        }
     }
 }
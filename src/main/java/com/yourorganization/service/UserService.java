@@ -1,22 +1,53 @@
 package com.yourorganization.service;
 
 import com.yourorganization.domain.User;
-import com.yourorganization.out.InMemoryDatabase;
+import com.yourorganization.jfr.UserLoginEvent;
+import com.yourorganization.jfr.UserRegisterEvent;
+import com.yourorganization.metrics.OperationMetrics;
+import com.yourorganization.metrics.ServiceMetrics;
+import com.yourorganization.out.UserRepository;
 
 /**
  * Сервис для управления пользователями (регистрация, авторизация, редактирование).
+ * Длительность и ошибки операций (кроме простых проверок) учитываются в {@link ServiceMetrics};
+ * вход и регистрация дополнительно записываются как события JFR ({@link UserLoginEvent},
+ * {@link UserRegisterEvent}), которые ничего не стоят, пока запись JFR не ведётся.
  */
 public class UserService {
 
-    private final InMemoryDatabase db;
+    private static final String NAME = "UserService";
+
+    private final UserRepository db;
+
+    private final OperationMetrics registerMetrics;
+    private final OperationMetrics loginMetrics;
+    private final OperationMetrics updateUserMetrics;
+    private final OperationMetrics deleteUserMetrics;
+    private final OperationMetrics findAllUsersMetrics;
 
     /**
      * Конструктор, принимающий реализацию хранилища пользователей и других сущностей.
+     * Метрики пишутся в общий реестр {@link ServiceMetrics#global()}.
      *
      * @param db объект, реализующий логику сохранения данных
      */
-    public UserService(InMemoryDatabase db) {
+    public UserService(UserRepository db) {
+        this(db, ServiceMetrics.global());
+    }
+
+    /**
+     * Конструктор с явным реестром метрик.
+     *
+     * @param db      объект, реализующий логику сохранения данных
+     * @param metrics реестр, в который пишутся метрики операций
+     */
+    public UserService(UserRepository db, ServiceMetrics metrics) {
         this.db = db;
+        this.registerMetrics = metrics.operation(NAME, "register");
+        this.loginMetrics = metrics.operation(NAME, "login");
+        this.updateUserMetrics = metrics.operation(NAME, "updateUser");
+        this.deleteUserMetrics = metrics.operation(NAME, "deleteUser");
+        this.findAllUsersMetrics = metrics.operation(NAME, "findAllUsers");
     }
 
     /**
@@ -30,11 +61,22 @@ public class UserService {
      * @throws IllegalArgumentException если пользователь с таким email уже существует
      */
     public User register(String email, String password, String name, User.Role role) {
-        if (db.findUserByEmail(email) != null) {
-            throw new IllegalArgumentException("Пользователь с таким email уже существует!");
+        UserRegisterEvent event = new UserRegisterEvent();
+        event.begin();
+        try {
+            return registerMetrics.time(() -> {
+                if (db.findUserByEmail(email) != null) {
+                    throw new IllegalArgumentException("Пользователь с таким email уже существует!");
+                }
+                User newUser = new User(email, password, name, role);
+                db.saveUser(newUser);
+                event.userId = newUser.getId();
+                event.success = true;
+                return newUser;
+            });
+        } finally {
+            event.commit();
         }
-        User newUser = new User(email, password, name, role);
-        return db.saveUser(newUser);
     }
 
     /**
@@ -46,11 +88,21 @@ public class UserService {
      * @throws IllegalArgumentException если email не найден или пароль неверный
      */
     public User login(String email, String password) {
-        User user = db.findUserByEmail(email);
-        if (user == null || !user.getPassword().equals(password)) {
-            throw new IllegalArgumentException("Неверный email или пароль!");
+        UserLoginEvent event = new UserLoginEvent();
+        event.begin();
+        try {
+            return loginMetrics.time(() -> {
+                User user = db.findUserByEmail(email);
+                if (user == null || !user.getPassword().equals(password)) {
+                    throw new IllegalArgumentException("Неверный email или пароль!");
+                }
+                event.userId = user.getId();
+                event.success = true;
+                return user;
+            });
+        } finally {
+            event.commit();
         }
-        return user;
     }
 
     /**
@@ -63,26 +115,25 @@ public class UserService {
      * @throws IllegalArgumentException если пользователь не найден или email уже занят другим пользователем
      */
     public void updateUser(long userId, String newEmail, String newPassword, String newName) {
-        User user = db.findUserById(userId);
-        if (user == null) {
-            throw new IllegalArgumentException("Пользователь не найден");
-        }
-        User existing = db.findUserByEmail(newEmail);
-        if (existing != null && existing.getId() != userId) {
-            throw new IllegalArgumentException("Этот email уже занят другим пользователем!");
-        }
-        user.setEmail(newEmail);
-        user.setPassword(newPassword);
-        user.setName(newName);
+        updateUserMetrics.time(() -> {
+            User user = db.findUserById(userId);
+            if (user == null) {
+                throw new IllegalArgumentException("Пользователь не найден");
+            }
+            if (!db.updateUser(userId, newEmail, newName, newPassword)) {
+                throw new IllegalArgumentException("Этот email уже занят другим пользователем!");
+            }
+        });
     }
 
     /**
-     * Удаляет пользователя из системы по идентификатору.
+     * Удаляет пользователя из системы по идентификатору вместе с его
+     * транзакциями и финансовыми целями.
      *
      * @param userId идентификатор пользователя
      */
     public void deleteUser(long userId) {
-        db.deleteUser(userId);
+        deleteUserMetrics.time(() -> db.deleteUser(userId));
     }
 
     /**
@@ -91,7 +142,7 @@ public class UserService {
      * @return все зарегистрированные пользователи
      */
     public Iterable<User> findAllUsers() {
-        return db.findAllUsers();
+        return findAllUsersMetrics.time(() -> db.findAllUsers());
     }
 
     /**
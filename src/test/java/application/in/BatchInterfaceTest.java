@@ -0,0 +1,89 @@
+package application.in;
+
+import com.yourorganization.in.BatchInterface;
+import com.yourorganization.out.InMemoryDatabase;
+import com.yourorganization.service.GoalService;
+import com.yourorganization.service.TransactionService;
+import com.yourorganization.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class BatchInterfaceTest {
+
+    private BatchInterface batch;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryDatabase db = new InMemoryDatabase();
+        batch = new BatchInterface(new UserService(db), new TransactionService(db), new GoalService(db));
+    }
+
+    @Test
+    void run_ExecutesScriptWithoutPrompts() throws Exception {
+        String script = "# сценарий\n"
+                + "register a@mail.com secret \"Анна Петрова\"\n"
+                + "login a@mail.com secret\n"
+                + "add 1000 Salary INCOME \"Зарплата за март\" 2025-03-01\n"
+                + "add 250.5 Food expense \"Обед \"\"Уют\"\"\" 2025-03-10\n"
+                + "\n"
+                + "list 1\n"
+                + "balance 2025-03-05 2025-03-31\n"
+                + "goal Car 5000\n"
+                + "report 2025-03 EXPENSE\n";
+        StringWriter out = new StringWriter();
+
+        BatchInterface.BatchResult result = batch.run(new StringReader(script), out);
+
+        assertThat(result.getCommands()).isEqualTo(8);
+        assertThat(result.getErrors()).isZero();
+        assertThat(out.toString())
+                .contains("OK user ")
+                .contains("description=Обед \"Уют\", date=2025-03-10]\nOK list 1\n")
+                .contains("OK balance -250.5\n")
+                .contains("Food: 250.5\nOK report\n")
+                .doesNotContain("Введите");
+    }
+
+    @Test
+    void run_ReportsErrorsAndContinues() throws Exception {
+        String script = "add 10 Food EXPENSE\n"
+                + "register b@mail.com p B\n"
+                + "login b@mail.com p\n"
+                + "delete 999999\n"
+                + "add abc Food EXPENSE\n"
+                + "fly away\n"
+                + "balance\n";
+        StringWriter out = new StringWriter();
+
+        BatchInterface.BatchResult result = batch.run(new StringReader(script), out);
+
+        assertThat(result.getCommands()).isEqualTo(7);
+        assertThat(result.getErrors()).isEqualTo(4);
+        assertThat(out.toString().lines())
+                .filteredOn(line -> line.startsWith("ERROR"))
+                .extracting(line -> line.substring(0, line.indexOf(':')))
+                .containsExactly("ERROR 1", "ERROR 4", "ERROR 5", "ERROR 6");
+        assertThat(out.toString()).endsWith("OK balance 0.0\n");
+    }
+
+    @Test
+    void run_WarnsWhenBudgetThresholdCrossed() throws Exception {
+        String script = "register c@mail.com p C\n"
+                + "login c@mail.com p\n"
+                + "budget Food 100\n"
+                + "add 50 Food EXPENSE \"\" 2025-03-01\n"
+                + "add 40 Food EXPENSE \"\" 2025-03-02\n"
+                + "budgets 2025-03\n";
+        StringWriter out = new StringWriter();
+
+        batch.run(new StringReader(script), out);
+
+        assertThat(out.toString().lines()).filteredOn(line -> line.startsWith("WARN")).hasSize(1);
+        assertThat(out.toString()).contains("Food: 90.0 / 100.0\n").endsWith("OK budgets\n");
+    }
+}
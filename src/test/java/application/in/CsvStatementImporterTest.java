@@ -0,0 +1,64 @@
+package application.in;
+
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.in.CsvStatementImporter;
+import com.yourorganization.out.InMemoryDatabase;
+import com.yourorganization.service.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class CsvStatementImporterTest {
+
+    private InMemoryDatabase db;
+    private TransactionService transactionService;
+
+    @BeforeEach
+    void setUp() {
+        db = new InMemoryDatabase();
+        transactionService = new TransactionService(db);
+    }
+
+    @Test
+    void importFrom_ParsesRowsAndSkipsHeader() throws Exception {
+        String csv = "Дата;Сумма;Категория;Описание;Тип\n"
+                + "2025-03-10;1 250,50;Food;\"Обед; кафе \"\"Уют\"\"\";EXPENSE\n"
+                + "01.03.2025;50000;Salary;Март;INCOME\n";
+
+        CsvStatementImporter.ImportResult result = new CsvStatementImporter(transactionService)
+                .importFrom(7L, new StringReader(csv));
+
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getRejected()).isZero();
+        List<Transaction> stored = transactionService.getUserTransactions(7L);
+        assertThat(stored).extracting(Transaction::getAmount).containsExactly(1250.5, 50000.0);
+        assertThat(stored.get(0).getDescription()).isEqualTo("Обед; кафе \"Уют\"");
+        assertThat(stored.get(1).getDate()).isEqualTo(LocalDate.of(2025, 3, 1));
+        assertThat(transactionService.calculateBalance(7L)).isEqualTo(50000.0 - 1250.5);
+    }
+
+    @Test
+    void importFrom_RejectsBadLinesAndKeepsGoodOnes() throws Exception {
+        String csv = "2025-03-10,-100,Food,Lunch\n"
+                + "2025-13-01,10,Food,Bad month\n"
+                + "2025-03-11,abc,Food,Bad amount\n"
+                + "2025-03-12,20,Food\n"
+                + "2025-03-13,300,Gifts,Present\n";
+
+        // Маленькая пачка, чтобы проверить сохранение в несколько приёмов
+        CsvStatementImporter.ImportResult result = new CsvStatementImporter(transactionService, 1)
+                .importFrom(7L, new StringReader(csv));
+
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getRejected()).isEqualTo(3);
+        assertThat(result.getErrors()).hasSize(3).first().asString().startsWith("строка 2");
+        // Тип определяется по знаку суммы
+        assertThat(transactionService.getUserTransactions(7L)).extracting(Transaction::getType)
+                .containsExactly(Transaction.TransactionType.EXPENSE, Transaction.TransactionType.INCOME);
+    }
+}
@@ -0,0 +1,111 @@
+package application.in;
+
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.domain.User;
+import com.yourorganization.in.CsvStatementImporter;
+import com.yourorganization.in.DataExporter;
+import com.yourorganization.out.InMemoryDatabase;
+import com.yourorganization.service.GoalService;
+import com.yourorganization.service.TransactionService;
+import com.yourorganization.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class DataExporterTest {
+
+    @TempDir
+    Path dir;
+
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+    private TransactionService transactionService;
+    private GoalService goalService;
+    private UserService userService;
+    private DataExporter exporter;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryDatabase db = new InMemoryDatabase();
+        userService = new UserService(db);
+        transactionService = new TransactionService(db);
+        goalService = new GoalService(db);
+        exporter = new DataExporter(userService, transactionService, goalService, pool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void exportUser_GzipCsvCanBeImportedBack() throws Exception {
+        User user = userService.register("a@mail.com", "p", "A", User.Role.USER);
+        // Строк больше, чем помещается в один буфер, чтобы проверить запись порциями
+        List<Transaction> batch = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            batch.add(new Transaction(user.getId(), 10.25 + i, "Food", LocalDate.of(2025, 3, 1).plusDays(i % 30),
+                    "Обед; кафе \"Уют\"\nномер " + i, Transaction.TransactionType.EXPENSE));
+        }
+        transactionService.createTransactions(batch);
+        goalService.createGoal(user.getId(), "Отпуск", 1000);
+
+        DataExporter.ExportResult result = exporter.exportUser(user.getId(), dir, DataExporter.Format.CSV, true);
+
+        assertThat(result.getTransactions()).isEqualTo(5_000);
+        assertThat(result.getGoals()).isEqualTo(1);
+        Path file = dir.resolve("transactions.csv.gz");
+        assertThat(result.getBytesWritten()).isGreaterThan(Files.size(file));
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            CsvStatementImporter.ImportResult imported = new CsvStatementImporter(transactionService)
+                    .importFrom(99L, reader);
+            assertThat(imported.getImported()).isEqualTo(5_000);
+            assertThat(imported.getRejected()).isZero();
+        }
+        assertThat(transactionService.calculateBalance(99L)).isEqualTo(transactionService.calculateBalance(user.getId()));
+        assertThat(transactionService.getUserTransactions(99L).get(0).getDescription())
+                .startsWith("Обед; кафе \"Уют\" номер");
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(dir.resolve("goals.csv.gz"))), StandardCharsets.UTF_8))) {
+            assertThat(reader.lines()).hasSize(2).last().asString().contains(";Отпуск;1000.0;0.0;false");
+        }
+    }
+
+    @Test
+    void exportAll_WritesJsonLinesPerUser() throws Exception {
+        User a = userService.register("a@mail.com", "p", "A", User.Role.USER);
+        User b = userService.register("b@mail.com", "p", "B", User.Role.USER);
+        transactionService.createTransaction(a.getId(), 5, "Taxi", LocalDate.of(2025, 1, 2), "to \"work\"",
+                Transaction.TransactionType.EXPENSE);
+        transactionService.createTransaction(b.getId(), 100, "Salary", LocalDate.of(2025, 1, 3), null,
+                Transaction.TransactionType.INCOME);
+        transactionService.createTransaction(b.getId(), 7, "Food", LocalDate.of(2025, 1, 4), "Обед",
+                Transaction.TransactionType.EXPENSE);
+
+        DataExporter.ExportResult result = exporter.exportAll(dir, DataExporter.Format.JSONL, false);
+
+        assertThat(result.getUsers()).isEqualTo(2);
+        assertThat(result.getTransactions()).isEqualTo(3);
+        List<String> lines = Files.readAllLines(dir.resolve("user-" + a.getId()).resolve("transactions.jsonl"));
+        assertThat(lines).hasSize(1);
+        assertThat(lines.get(0)).contains("\"date\":\"2025-01-02\"", "\"amount\":5", "\"description\":\"to \\\"work\\\"\"",
+                "\"type\":\"EXPENSE\"");
+        assertThat(Files.readAllLines(dir.resolve("user-" + b.getId()).resolve("transactions.jsonl")))
+                .hasSize(2).anyMatch(line -> line.contains("\"description\":null"));
+        assertThat(Files.readAllLines(dir.resolve("user-" + b.getId()).resolve("goals.jsonl"))).isEmpty();
+    }
+}
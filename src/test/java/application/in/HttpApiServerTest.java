@@ -0,0 +1,134 @@
+package application.in;
+
+import com.yourorganization.in.HttpApiServer;
+import com.yourorganization.out.InMemoryDatabase;
+import com.yourorganization.service.BudgetService;
+import com.yourorganization.service.GoalService;
+import com.yourorganization.service.TransactionService;
+import com.yourorganization.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class HttpApiServerTest {
+
+    private InMemoryDatabase db;
+    private BudgetService budgetService;
+    private HttpApiServer server;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        db = new InMemoryDatabase();
+        TransactionService transactionService = new TransactionService(db);
+        budgetService = new BudgetService(transactionService, db);
+        server = new HttpApiServer(0, new UserService(db), transactionService, new GoalService(db), budgetService);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void transactionsAndBalance_ForLoggedInUser() throws Exception {
+        String token = registerAndLogin("alice@mail.com");
+
+        HttpResponse<String> created = send("POST", "/api/transactions", token,
+                "{\"amount\": 100.5, \"category\": \"Food\", \"date\": \"2025-03-10\", "
+                        + "\"description\": \"Обед \\\"в кафе\\\"\", \"type\": \"EXPENSE\"}");
+        assertThat(created.statusCode()).isEqualTo(201);
+        assertThat(created.body()).contains("\"description\":\"Обед \\\"в кафе\\\"\"");
+        String id = field(created.body(), "id");
+
+        send("POST", "/api/transactions", token,
+                "{\"amount\": 1000, \"category\": \"Salary\", \"date\": \"2025-03-01\", \"type\": \"INCOME\"}");
+        assertThat(send("GET", "/api/balance", token, null).body()).isEqualTo("{\"balance\":899.5}");
+        assertThat(send("GET", "/api/balance?from=2025-03-05&to=2025-03-31", token, null).body())
+                .isEqualTo("{\"balance\":-100.5}");
+
+        HttpResponse<String> updated = send("PUT", "/api/transactions/" + id, token,
+                "{\"amount\": 50, \"category\": \"Food\", \"description\": \"Снек\"}");
+        assertThat(updated.statusCode()).isEqualTo(200);
+        assertThat(updated.body()).contains("\"amount\":50.0");
+
+        assertThat(send("DELETE", "/api/transactions/" + id, token, null).statusCode()).isEqualTo(204);
+        assertThat(send("GET", "/api/transactions", token, null).body()).doesNotContain("Food");
+    }
+
+    @Test
+    void transactionChanges_ReturnBudgetWarningsOfTheRequest() throws Exception {
+        String token = registerAndLogin("alice@mail.com");
+        budgetService.setBudget(db.findUserByEmail("alice@mail.com").getId(), "Food", 100.0);
+
+        HttpResponse<String> small = send("POST", "/api/transactions", token,
+                "{\"amount\": 10, \"category\": \"Food\", \"date\": \"2025-03-10\", \"type\": \"EXPENSE\"}");
+        assertThat(small.statusCode()).isEqualTo(201);
+        assertThat(small.body()).contains("\"budgetWarnings\":[]");
+
+        HttpResponse<String> large = send("POST", "/api/transactions", token,
+                "{\"amount\": 75, \"category\": \"Food\", \"date\": \"2025-03-11\", \"type\": \"EXPENSE\"}");
+        assertThat(large.body()).contains("\"budgetWarnings\":[{\"category\":\"Food\"")
+                .contains("\"thresholdPercent\":80");
+
+        HttpResponse<String> updated = send("PUT", "/api/transactions/" + field(large.body(), "id"), token,
+                "{\"amount\": 95, \"category\": \"Food\", \"description\": \"\"}");
+        assertThat(updated.statusCode()).isEqualTo(200);
+        assertThat(updated.body()).contains("\"amount\":95.0").contains("\"thresholdPercent\":100");
+    }
+
+    @Test
+    void foreignDataAndMissingToken_AreRejected() throws Exception {
+        String alice = registerAndLogin("alice@mail.com");
+        String bob = registerAndLogin("bob@mail.com");
+        String goalId = field(send("POST", "/api/goals", alice,
+                "{\"title\": \"Car\", \"targetAmount\": 1000}").body(), "id");
+
+        assertThat(send("GET", "/api/goals", null, null).statusCode()).isEqualTo(401);
+        assertThat(send("POST", "/api/goals/" + goalId + "/deposit", bob, "{\"amount\": 10}").statusCode())
+                .isEqualTo(404);
+        assertThat(send("POST", "/api/goals/" + goalId + "/deposit", alice, "{\"amount\": 10}").body())
+                .contains("\"currentAmount\":10.0");
+        assertThat(send("POST", "/api/transactions", alice, "{\"amount\": \"abc\"}").statusCode())
+                .isEqualTo(400);
+        assertThat(send("POST", "/api/register", null,
+                "{\"email\": \"ALICE@mail.com\", \"password\": \"p\", \"name\": \"A\"}").statusCode())
+                .isEqualTo(400);
+    }
+
+    private String registerAndLogin(String email) throws Exception {
+        String credentials = "{\"email\": \"" + email + "\", \"password\": \"secret\"";
+        assertThat(send("POST", "/api/register", null, credentials + ", \"name\": \"Name\"}").statusCode())
+                .isEqualTo(201);
+        HttpResponse<String> login = send("POST", "/api/login", null, credentials + "}");
+        assertThat(login.statusCode()).isEqualTo(200);
+        return field(login.body(), "token");
+    }
+
+    private HttpResponse<String> send(String method, String path, String token, String body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+                .method(method, body == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String field(String json, String name) {
+        Matcher matcher = Pattern.compile("\"" + name + "\":\"?([^\",}]+)").matcher(json);
+        assertThat(matcher.find()).isTrue();
+        return matcher.group(1);
+    }
+}
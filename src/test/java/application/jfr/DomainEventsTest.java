@@ -0,0 +1,78 @@
+package application.jfr;
+
+import com.yourorganization.domain.Goal;
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.domain.User;
+import com.yourorganization.out.InMemoryDatabase;
+import com.yourorganization.service.GoalService;
+import com.yourorganization.service.TransactionService;
+import com.yourorganization.service.UserService;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class DomainEventsTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void serviceCalls_AreRecordedWithUserAndRows() throws Exception {
+        InMemoryDatabase db = new InMemoryDatabase();
+        UserService userService = new UserService(db);
+        TransactionService transactionService = new TransactionService(db);
+        GoalService goalService = new GoalService(db);
+        Path file = dir.resolve("events.jfr");
+
+        User user;
+        try (Recording recording = new Recording()) {
+            // Порог 0, чтобы попали и быстрые вызовы
+            for (String name : List.of("UserLogin", "UserRegister", "TransactionMutation",
+                    "TransactionQuery", "Balance", "GoalUpdate")) {
+                recording.enable("com.yourorganization." + name).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+
+            user = userService.register("a@mail.com", "p", "A", User.Role.USER);
+            assertThatThrownBy(() -> userService.login("a@mail.com", "wrong"))
+                    .isInstanceOf(IllegalArgumentException.class);
+            transactionService.createTransactions(List.of(
+                    new Transaction(user.getId(), 10.0, "Food", LocalDate.of(2025, 3, 1), "", Transaction.TransactionType.EXPENSE),
+                    new Transaction(user.getId(), 20.0, "Food", LocalDate.of(2025, 3, 2), "", Transaction.TransactionType.EXPENSE)));
+            transactionService.getUserTransactions(user.getId());
+            transactionService.calculateBalance(user.getId(), LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 31));
+            Goal goal = goalService.createGoal(user.getId(), "Car", 100.0);
+            goalService.deleteGoal(goal.getId());
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        assertThat(events).extracting(e -> e.getEventType().getName().substring("com.yourorganization.".length()))
+                .containsExactly("UserRegister", "UserLogin", "TransactionMutation", "TransactionQuery",
+                        "Balance", "GoalUpdate", "GoalUpdate");
+        RecordedEvent login = events.get(1);
+        assertThat(login.getBoolean("success")).isFalse();
+        RecordedEvent batch = events.get(2);
+        assertThat(batch.getString("operation")).isEqualTo("createBatch");
+        assertThat(batch.getLong("userId")).isEqualTo(user.getId());
+        assertThat(batch.getInt("rows")).isEqualTo(2);
+        assertThat(events.get(3).getInt("rows")).isEqualTo(2);
+        assertThat(events.get(4).getLong("periodDays")).isEqualTo(31);
+        assertThat(events.get(4).getInt("rows")).isEqualTo(2);
+        assertThat(events.subList(5, 7).stream().map(e -> e.getString("operation")).collect(Collectors.toList()))
+                .containsExactly("create", "delete");
+        assertThat(events.get(6).getLong("userId")).isEqualTo(user.getId());
+    }
+}
@@ -0,0 +1,69 @@
+package application.metrics;
+
+import com.yourorganization.domain.User;
+import com.yourorganization.metrics.LatencyHistogram;
+import com.yourorganization.metrics.OperationMetrics;
+import com.yourorganization.metrics.ServiceMetrics;
+import com.yourorganization.out.InMemoryDatabase;
+import com.yourorganization.service.UserService;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class ServiceMetricsTest {
+
+    @Test
+    void histogram_PercentilesWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 10_000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(10_000);
+        assertThat(histogram.getMeanNanos()).isCloseTo(5_000_500.0, within(1.0));
+        // Погрешность корзины - не более 12,5% сверху
+        assertThat(histogram.getPercentileNanos(50)).isBetween(5_000_000L, 5_625_000L);
+        assertThat(histogram.getPercentileNanos(99)).isBetween(9_900_000L, 10_000_000L);
+        assertThat(histogram.getPercentileNanos(100)).isEqualTo(10_000_000L);
+        assertThat(new LatencyHistogram().getPercentileNanos(99)).isZero();
+        assertThatThrownBy(() -> histogram.getPercentileNanos(101)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void services_RecordCallsAndErrors() {
+        ServiceMetrics metrics = new ServiceMetrics();
+        UserService userService = new UserService(new InMemoryDatabase(), metrics);
+
+        userService.register("a@mail.com", "p", "A", User.Role.USER);
+        userService.login("a@mail.com", "p");
+        assertThatThrownBy(() -> userService.login("a@mail.com", "wrong"))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        OperationMetrics login = metrics.operation("UserService", "login");
+        assertThat(login.getCalls()).isEqualTo(2);
+        assertThat(login.getErrors()).isEqualTo(1);
+        assertThat(login.getMaxMicros()).isPositive();
+        assertThat(metrics.operation("UserService", "register").getCalls()).isEqualTo(1);
+        assertThat(metrics.getOperations()).extracting(OperationMetrics::getOperation)
+                .contains("deleteUser", "findAllUsers", "login", "register");
+    }
+
+    @Test
+    void registerMBeans_ExposesOperations() throws Exception {
+        ServiceMetrics metrics = new ServiceMetrics();
+        UserService userService = new UserService(new InMemoryDatabase(), metrics);
+        userService.register("a@mail.com", "p", "A", User.Role.USER);
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+
+        metrics.registerMBeans(server);
+        metrics.registerMBeans(server);
+
+        ObjectName name = new ObjectName("com.yourorganization:type=ServiceMetrics,service=UserService,operation=register");
+        assertThat(server.getAttribute(name, "Calls")).isEqualTo(1L);
+        assertThat(server.getAttribute(name, "P99Micros")).isInstanceOf(Double.class);
+    }
+}
@@ -0,0 +1,126 @@
+package application.out;
+
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.domain.User;
+import com.yourorganization.out.ColumnarTransactionStore;
+import com.yourorganization.out.InMemoryDatabase;
+import com.yourorganization.service.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class ColumnarTransactionStoreTest {
+
+    private ColumnarTransactionStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new ColumnarTransactionStore();
+    }
+
+    @Test
+    void saveAndFind_RoundTripsAllColumns() {
+        Transaction tx = store.save(new Transaction(1L, 100.5, "Food",
+                LocalDate.of(2025, 3, 10), "Lunch", Transaction.TransactionType.EXPENSE));
+
+        Transaction found = store.findById(tx.getId());
+
+        assertThat(found).isNotSameAs(tx);
+        assertThat(found.getId()).isEqualTo(tx.getId());
+        assertThat(found.getUserId()).isEqualTo(1L);
+        assertThat(found.getAmount()).isEqualTo(100.5);
+        assertThat(found.getCategory()).isEqualTo("Food");
+        assertThat(found.getDate()).isEqualTo(LocalDate.of(2025, 3, 10));
+        assertThat(found.getDescription()).isEqualTo("Lunch");
+        assertThat(found.getType()).isEqualTo(Transaction.TransactionType.EXPENSE);
+    }
+
+    @Test
+    void update_ChangesStoredRow() {
+        Transaction tx = store.save(new Transaction(1L, 100.0, "Food",
+                LocalDate.of(2025, 3, 10), "Lunch", Transaction.TransactionType.EXPENSE));
+
+        store.update(tx.getId(), 40.0, "Salary", "Bonus", Transaction.TransactionType.INCOME);
+
+        Transaction found = store.findById(tx.getId());
+        assertThat(found.getAmount()).isEqualTo(40.0);
+        assertThat(found.getCategory()).isEqualTo("Salary");
+        assertThat(found.getType()).isEqualTo(Transaction.TransactionType.INCOME);
+        assertThat(store.update(-1L, 1.0, "x", "y", Transaction.TransactionType.INCOME)).isNull();
+    }
+
+    @Test
+    void randomWorkload_MatchesReferenceAndSums() {
+        Random random = new Random(7);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            if (ids.isEmpty() || random.nextInt(3) > 0) {
+                Transaction tx = store.save(new Transaction(1L + random.nextInt(5),
+                        random.nextInt(10000) / 100.0, random.nextBoolean() ? "Food" : "Taxi",
+                        LocalDate.of(2025, 1, 1).plusDays(random.nextInt(365)), "",
+                        random.nextBoolean() ? Transaction.TransactionType.INCOME : Transaction.TransactionType.EXPENSE));
+                ids.add(tx.getId());
+            } else {
+                store.delete(ids.remove(random.nextInt(ids.size())));
+            }
+        }
+
+        assertThat(store.findAll()).hasSize(ids.size());
+        for (long userId = 1; userId <= 5; userId++) {
+            List<Transaction> rows = new ArrayList<>(store.findByUser(userId));
+            assertThat(rows).isSortedAccordingTo((a, b) -> Long.compare(a.getId(), b.getId()));
+
+            double balance = 0.0;
+            double food = 0.0;
+            for (Transaction t : rows) {
+                boolean income = t.getType() == Transaction.TransactionType.INCOME;
+                balance += income ? t.getAmount() : -t.getAmount();
+                if (!income && t.getCategory().equals("Food")) {
+                    food += t.getAmount();
+                }
+            }
+            assertThat(store.balance(userId)).isCloseTo(balance, within(1e-6));
+            assertThat(store.sum(userId, "Food", Transaction.TransactionType.EXPENSE)).isCloseTo(food, within(1e-6));
+
+            LocalDate from = LocalDate.of(2025, 4, 1);
+            LocalDate to = LocalDate.of(2025, 6, 30);
+            double periodBalance = 0.0;
+            int periodCount = 0;
+            for (Transaction t : rows) {
+                if (!t.getDate().isBefore(from) && !t.getDate().isAfter(to)) {
+                    periodCount++;
+                    periodBalance += t.getType() == Transaction.TransactionType.INCOME ? t.getAmount() : -t.getAmount();
+                }
+            }
+            assertThat(store.findByUser(userId, from, to)).hasSize(periodCount);
+            assertThat(store.balance(userId, from, to)).isCloseTo(periodBalance, within(1e-6));
+        }
+    }
+
+    @Test
+    void transactionService_WorksOnTopOfColumnarStore() {
+        InMemoryDatabase db = new InMemoryDatabase(store);
+        db.saveUser(new User(9L, "u9@mail.com", "p", "U9", User.Role.USER));
+        TransactionService service = new TransactionService(db);
+
+        Transaction tx = service.createTransaction(9L, 100.0, "Food",
+                LocalDate.of(2025, 3, 10), "Lunch", Transaction.TransactionType.EXPENSE);
+        service.createTransaction(9L, 300.0, "Salary",
+                LocalDate.of(2025, 3, 11), "March", Transaction.TransactionType.INCOME);
+        service.updateTransaction(tx.getId(), 50.0, "Food", "Snack");
+
+        assertThat(service.getUserTransactions(9L)).hasSize(2);
+        assertThat(service.calculateBalance(9L)).isEqualTo(250.0);
+
+        service.deleteTransaction(tx.getId());
+
+        assertThat(service.getUserTransactions(9L)).hasSize(1);
+        assertThat(service.calculateBalance(9L)).isEqualTo(300.0);
+    }
+}
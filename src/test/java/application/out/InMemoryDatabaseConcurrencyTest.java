@@ -0,0 +1,144 @@
+package application.out;
+
+import com.yourorganization.domain.Goal;
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.domain.User;
+import com.yourorganization.out.InMemoryDatabase;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Нагрузочный тест: несколько потоков одновременно пишут и читают хранилище.
+ * Проверяем, что записи не теряются, а идентификаторы не повторяются.
+ */
+public class InMemoryDatabaseConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 5000;
+
+    @Test
+    void concurrentMixedWorkload_NoLostWritesAndNoDuplicateIds() throws Exception {
+        InMemoryDatabase db = new InMemoryDatabase();
+        Set<Long> transactionIds = ConcurrentHashMap.newKeySet();
+        Set<Long> deletedIds = ConcurrentHashMap.newKeySet();
+        Set<Long> goalIds = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicateIds = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            long userId = t % 4;
+            futures.add(executor.submit((Callable<Void>) () -> {
+                start.await();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    Transaction tx = db.saveTransaction(new Transaction(userId, 1.0, "Cat",
+                            LocalDate.of(2025, 1, 1), "", Transaction.TransactionType.INCOME));
+                    if (!transactionIds.add(tx.getId())) {
+                        duplicateIds.incrementAndGet();
+                    }
+                    if (i % 3 == 0) {
+                        db.deleteTransaction(tx.getId());
+                        deletedIds.add(tx.getId());
+                    }
+                    if (i % 50 == 0) {
+                        Goal goal = db.saveGoal(new Goal(userId, "Goal", 100.0));
+                        if (!goalIds.add(goal.getId())) {
+                            duplicateIds.incrementAndGet();
+                        }
+                    }
+                    // Чтение параллельно с записью не должно падать
+                    db.findTransactionsByUser(userId).forEach(Transaction::getAmount);
+                    db.findBalance(userId);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        int expectedTransactions = THREADS * OPERATIONS_PER_THREAD - deletedIds.size();
+        assertThat(duplicateIds.get()).isZero();
+        assertThat(db.findAllTransactions()).hasSize(expectedTransactions);
+        assertThat(db.findAllGoals()).hasSize(goalIds.size());
+
+        int indexed = 0;
+        double totalBalance = 0.0;
+        for (long userId = 0; userId < 4; userId++) {
+            indexed += db.findTransactionsByUser(userId).size();
+            totalBalance += db.findBalance(userId);
+        }
+        assertThat(indexed).isEqualTo(expectedTransactions);
+        assertThat(totalBalance).isEqualTo(expectedTransactions * 1.0);
+    }
+
+    @Test
+    void concurrentRegistrationWithSameEmail_OnlyOneSucceeds() throws Exception {
+        InMemoryDatabase db = new InMemoryDatabase();
+        AtomicInteger saved = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit((Callable<Void>) () -> {
+                start.await();
+                try {
+                    db.saveUser(new User("same@mail.com", "pass", "Name", User.Role.USER));
+                    saved.incrementAndGet();
+                } catch (IllegalArgumentException e) {
+                    // email уже занят другим потоком
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(saved.get()).isEqualTo(1);
+        assertThat(db.findAllUsers()).hasSize(1);
+    }
+
+    @Test
+    void concurrentIdAllocation_ProducesUniqueIds() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<List<Long>>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                List<Long> ids = new ArrayList<>();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    ids.add(new User("u@mail.com", "p", "n", User.Role.USER).getId());
+                }
+                return ids;
+            }));
+        }
+        Set<Long> unique = new HashSet<>();
+        for (Future<List<Long>> future : futures) {
+            unique.addAll(future.get(60, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        assertThat(unique).hasSize(THREADS * OPERATIONS_PER_THREAD);
+    }
+}
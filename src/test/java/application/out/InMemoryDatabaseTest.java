@@ -0,0 +1,197 @@
+package application.out;
+
+import com.yourorganization.domain.Goal;
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.domain.User;
+import com.yourorganization.out.InMemoryDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class InMemoryDatabaseTest {
+
+    private InMemoryDatabase db;
+
+    @BeforeEach
+    void setUp() {
+        db = new InMemoryDatabase();
+    }
+
+    @Test
+    void findTransactionsByUser_ReturnsOnlyUserRows() {
+        Transaction own = db.saveTransaction(new Transaction(1L, 100.0, "Food",
+                LocalDate.of(2025, 3, 10), "Lunch", Transaction.TransactionType.EXPENSE));
+        db.saveTransaction(new Transaction(2L, 50.0, "Taxi",
+                LocalDate.of(2025, 3, 11), "Ride", Transaction.TransactionType.EXPENSE));
+
+        assertThat(db.findTransactionsByUser(1L)).containsExactly(own);
+        assertThat(db.findTransactionsByUser(3L)).isEmpty();
+    }
+
+    @Test
+    void deleteTransaction_RemovesFromUserIndex() {
+        Transaction tx = db.saveTransaction(new Transaction(1L, 100.0, "Food",
+                LocalDate.of(2025, 3, 10), "Lunch", Transaction.TransactionType.EXPENSE));
+
+        db.deleteTransaction(tx.getId());
+
+        assertThat(db.findTransactionById(tx.getId())).isNull();
+        assertThat(db.findTransactionsByUser(1L)).isEmpty();
+    }
+
+    @Test
+    void goalsIndex_FollowsSaveAndDelete() {
+        Goal first = db.saveGoal(new Goal(1L, "Car", 500000.0));
+        Goal second = db.saveGoal(new Goal(1L, "Phone", 50000.0));
+        db.saveGoal(new Goal(2L, "House", 9000000.0));
+
+        assertThat(db.findGoalsByUser(1L)).containsExactly(first, second);
+
+        db.deleteGoal(first.getId());
+
+        assertThat(db.findGoalsByUser(1L)).containsExactly(second);
+    }
+
+    @Test
+    void findUserByEmail_IgnoresCaseAndSpaces() {
+        User user = db.saveUser(new User("Alice@Mail.com", "secret", "Alice", User.Role.USER));
+
+        assertThat(db.findUserByEmail(" alice@mail.com ")).isSameAs(user);
+        assertThat(db.findUserByEmail("bob@mail.com")).isNull();
+    }
+
+    @Test
+    void updateUserEmail_MovesIndexEntry() {
+        User user = db.saveUser(new User("old@mail.com", "secret", "Alice", User.Role.USER));
+
+        assertThat(db.updateUserEmail(user.getId(), "new@mail.com")).isTrue();
+
+        assertThat(user.getEmail()).isEqualTo("new@mail.com");
+        assertThat(db.findUserByEmail("old@mail.com")).isNull();
+        assertThat(db.findUserByEmail("new@mail.com")).isSameAs(user);
+    }
+
+    @Test
+    void updateUserEmail_TakenByAnotherUser_ReturnsFalse() {
+        User alice = db.saveUser(new User("alice@mail.com", "secret", "Alice", User.Role.USER));
+        db.saveUser(new User("bob@mail.com", "secret", "Bob", User.Role.USER));
+
+        assertThat(db.updateUserEmail(alice.getId(), "BOB@mail.com")).isFalse();
+        assertThat(alice.getEmail()).isEqualTo("alice@mail.com");
+    }
+
+    @Test
+    void deleteUser_FreesEmail() {
+        User user = db.saveUser(new User("alice@mail.com", "secret", "Alice", User.Role.USER));
+
+        db.deleteUser(user.getId());
+
+        assertThat(db.findUserByEmail("alice@mail.com")).isNull();
+    }
+
+    @Test
+    void findBalance_MatchesFullRecompute() {
+        Random random = new Random(42);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            int op = random.nextInt(3);
+            if (op == 0 || ids.isEmpty()) {
+                Transaction tx = db.saveTransaction(new Transaction(1L + random.nextInt(3),
+                        random.nextInt(10000) / 100.0, "Cat", LocalDate.of(2025, 1, 1), "",
+                        randomType(random)));
+                ids.add(tx.getId());
+            } else if (op == 1) {
+                long id = ids.get(random.nextInt(ids.size()));
+                db.updateTransaction(id, random.nextInt(10000) / 100.0, "Cat", "", randomType(random));
+            } else {
+                db.deleteTransaction(ids.remove(random.nextInt(ids.size())));
+            }
+        }
+
+        for (long userId = 1; userId <= 3; userId++) {
+            assertThat(db.findBalance(userId)).isCloseTo(recomputeBalance(userId), within(1e-6));
+        }
+    }
+
+    private static Transaction.TransactionType randomType(Random random) {
+        return random.nextBoolean() ? Transaction.TransactionType.INCOME : Transaction.TransactionType.EXPENSE;
+    }
+
+    private double recomputeBalance(long userId) {
+        double balance = 0.0;
+        for (Transaction t : db.findAllTransactions()) {
+            if (t.getUserId() == userId) {
+                balance += t.getType() == Transaction.TransactionType.INCOME ? t.getAmount() : -t.getAmount();
+            }
+        }
+        return balance;
+    }
+
+    @Test
+    void findTransactionsByUserForPeriod_UsesInclusiveBounds() {
+        Transaction feb = db.saveTransaction(new Transaction(1L, 10.0, "Food",
+                LocalDate.of(2025, 2, 28), "", Transaction.TransactionType.EXPENSE));
+        Transaction marFirst = db.saveTransaction(new Transaction(1L, 100.0, "Salary",
+                LocalDate.of(2025, 3, 1), "", Transaction.TransactionType.INCOME));
+        Transaction marLast = db.saveTransaction(new Transaction(1L, 30.0, "Taxi",
+                LocalDate.of(2025, 3, 31), "", Transaction.TransactionType.EXPENSE));
+        db.saveTransaction(new Transaction(2L, 500.0, "Other",
+                LocalDate.of(2025, 3, 15), "", Transaction.TransactionType.INCOME));
+
+        LocalDate from = LocalDate.of(2025, 3, 1);
+        LocalDate to = LocalDate.of(2025, 3, 31);
+
+        assertThat(db.findTransactionsByUser(1L, from, to)).containsExactly(marFirst, marLast);
+        assertThat(db.findBalance(1L, from, to)).isEqualTo(70.0);
+
+        db.deleteTransaction(marLast.getId());
+        db.updateTransaction(feb.getId(), 10.0, "Food", "", Transaction.TransactionType.INCOME);
+
+        assertThat(db.findTransactionsByUser(1L, from, to)).containsExactly(marFirst);
+        assertThat(db.findBalance(1L, LocalDate.of(2025, 2, 1), to)).isEqualTo(110.0);
+    }
+
+    @Test
+    void saveUsers_EmailConflict_SavesNobody() {
+        db.saveUser(new User("taken@mail.com", "p", "Taken", User.Role.USER));
+        User first = new User("first@mail.com", "p", "First", User.Role.USER);
+        User clash = new User("TAKEN@mail.com", "p", "Clash", User.Role.USER);
+
+        assertThatThrownBy(() -> db.saveUsers(List.of(first, clash)))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        // Email первого пользователя освобождён, сам он не сохранён
+        assertThat(db.findUserById(first.getId())).isNull();
+        assertThat(db.findUserByEmail("first@mail.com")).isNull();
+        assertThat(db.saveUsers(List.of(first))).containsExactly(first);
+        assertThat(db.findUserByEmail("first@mail.com")).isSameAs(first);
+    }
+
+    @Test
+    void bulkTransactions_AllOrNothing() {
+        List<Transaction> batch = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            batch.add(new Transaction(i % 3, 10.0, "Food", LocalDate.of(2025, 3, 1 + i % 28), "",
+                    i % 2 == 0 ? Transaction.TransactionType.INCOME : Transaction.TransactionType.EXPENSE));
+        }
+        db.saveTransactions(batch);
+        assertThat(db.findAllTransactions()).hasSize(100);
+        assertThat(db.findBalance(0L)).isEqualTo(recomputeBalance(0L));
+
+        long[] ids = {batch.get(0).getId(), batch.get(1).getId(), -1L};
+        assertThatThrownBy(() -> db.deleteTransactions(ids))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("не найдена");
+        assertThat(db.findAllTransactions()).hasSize(100);
+
+        db.deleteTransactions(new long[]{batch.get(0).getId(), batch.get(1).getId()});
+        assertThat(db.findAllTransactions()).hasSize(98);
+        assertThat(db.findBalance(0L)).isEqualTo(recomputeBalance(0L));
+    }
+}
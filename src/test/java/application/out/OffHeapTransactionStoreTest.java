@@ -0,0 +1,92 @@
+package application.out;
+
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.out.OffHeapTransactionStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class OffHeapTransactionStoreTest {
+
+    private OffHeapTransactionStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new OffHeapTransactionStore();
+    }
+
+    @Test
+    void saveAndUpdate_RoundTripStringsAndNulls() {
+        Transaction tx = store.save(new Transaction(1L, 100.5, "Еда",
+                LocalDate.of(2025, 3, 10), "Обед в кафе \"Уют\" ☕", Transaction.TransactionType.EXPENSE));
+        Transaction empty = store.save(new Transaction(1L, 1.0, null, null, null, null));
+
+        Transaction found = store.findById(tx.getId());
+        assertThat(found).isNotSameAs(tx);
+        assertThat(found.getCategory()).isEqualTo("Еда");
+        assertThat(found.getDescription()).isEqualTo("Обед в кафе \"Уют\" ☕");
+        assertThat(found.getDate()).isEqualTo(LocalDate.of(2025, 3, 10));
+        Transaction foundEmpty = store.findById(empty.getId());
+        assertThat(foundEmpty.getCategory()).isNull();
+        assertThat(foundEmpty.getDate()).isNull();
+        assertThat(foundEmpty.getDescription()).isNull();
+        assertThat(foundEmpty.getType()).isNull();
+
+        // Описание переходит в другой класс размера и обратно
+        store.update(tx.getId(), 40.0, "Зарплата", "x".repeat(5000), Transaction.TransactionType.INCOME);
+        assertThat(store.findById(tx.getId()).getDescription()).hasSize(5000);
+        store.update(tx.getId(), 40.0, "Зарплата", "", Transaction.TransactionType.INCOME);
+        assertThat(store.findById(tx.getId()).getDescription()).isEmpty();
+        assertThat(store.balance(1L)).isEqualTo(40.0);
+    }
+
+    @Test
+    void tooLongDescription_LeavesStoreUnchanged() {
+        Transaction tx = store.save(new Transaction(1L, 10.0, "Food",
+                LocalDate.of(2025, 3, 10), "Lunch", Transaction.TransactionType.EXPENSE));
+        String huge = "x".repeat(2 << 20);
+
+        assertThatThrownBy(() -> store.save(new Transaction(1L, 1.0, "Food",
+                LocalDate.of(2025, 3, 10), huge, Transaction.TransactionType.EXPENSE)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> store.update(tx.getId(), 1.0, "Food", huge, Transaction.TransactionType.INCOME))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(store.findAll()).hasSize(1);
+        assertThat(store.findById(tx.getId()).getDescription()).isEqualTo("Lunch");
+        assertThat(store.balance(1L)).isEqualTo(-10.0);
+    }
+
+    @Test
+    void churn_ReusesFreedRecordsAndStrings() {
+        Deque<Long> live = new ArrayDeque<>();
+        for (int i = 0; i < 50_000; i++) {
+            live.add(store.save(newTransaction(i)).getId());
+        }
+        long reserved = store.getOffHeapBytes();
+
+        // Удаление и вставка в том же объёме не должны требовать новых слэбов
+        for (int i = 0; i < 200_000; i++) {
+            store.delete(live.poll());
+            live.add(store.save(newTransaction(i)).getId());
+        }
+
+        assertThat(store.getOffHeapBytes()).isEqualTo(reserved);
+        assertThat(store.findAll()).hasSize(50_000);
+        assertThat(store.findById(live.peekLast()).getDescription()).isEqualTo(description(199_999));
+    }
+
+    private static Transaction newTransaction(int i) {
+        return new Transaction(i % 100 + 1, i, "Food", LocalDate.of(2025, 1, 1).plusDays(i % 365),
+                description(i), Transaction.TransactionType.EXPENSE);
+    }
+
+    private static String description(int i) {
+        return "Покупка №" + i + " " + "*".repeat(i % 40);
+    }
+}
@@ -0,0 +1,248 @@
+package application.out;
+
+import com.yourorganization.domain.Goal;
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.domain.User;
+import com.yourorganization.out.GoalRepository;
+import com.yourorganization.out.InMemoryDatabase;
+import com.yourorganization.out.StorageEngine;
+import com.yourorganization.out.TransactionRepository;
+import com.yourorganization.out.UserRepository;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Контракт хранилища, который обязан выполнять каждый движок из {@link StorageEngine}.
+ * Проверки идут только через интерфейсы репозиториев.
+ */
+public class RepositoryConformanceTest {
+
+    private static final Transaction.TransactionType INCOME = Transaction.TransactionType.INCOME;
+    private static final Transaction.TransactionType EXPENSE = Transaction.TransactionType.EXPENSE;
+
+    @ParameterizedTest
+    @EnumSource(StorageEngine.class)
+    void users_EmailIsUniqueAndCaseInsensitive(StorageEngine engine) {
+        UserRepository users = engine.newDatabase();
+        User alice = users.saveUser(new User("Alice@Mail.com", "p", "Alice", User.Role.USER));
+        User bob = users.saveUser(new User("bob@mail.com", "p", "Bob", User.Role.USER));
+
+        assertThat(users.findUserByEmail(" alice@mail.com ")).isSameAs(alice);
+        assertThatThrownBy(() -> users.saveUser(new User("ALICE@mail.com", "p", "Copy", User.Role.USER)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(users.updateUserEmail(bob.getId(), "alice@MAIL.com")).isFalse();
+        assertThat(users.updateUserEmail(bob.getId(), "robert@mail.com")).isTrue();
+        assertThat(users.findUserByEmail("bob@mail.com")).isNull();
+        assertThat(users.findUserById(bob.getId()).getEmail()).isEqualTo("robert@mail.com");
+        assertThat(users.findAllUsers()).containsExactlyInAnyOrder(alice, bob);
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageEngine.class)
+    void transactions_CrudPeriodAndBalance(StorageEngine engine) {
+        TransactionRepository transactions = engine.newDatabase();
+        Transaction salary = transactions.saveTransaction(new Transaction(1L, 1000.0, "Salary",
+                LocalDate.of(2025, 3, 1), "March", INCOME));
+        Transaction food = transactions.saveTransaction(new Transaction(1L, 100.0, "Food",
+                LocalDate.of(2025, 3, 10), "Lunch", EXPENSE));
+        Transaction taxi = transactions.saveTransaction(new Transaction(1L, 30.0, "Taxi",
+                LocalDate.of(2025, 4, 2), null, EXPENSE));
+        transactions.saveTransaction(new Transaction(2L, 5.0, "Other", LocalDate.of(2025, 3, 5), "", INCOME));
+
+        assertThat(transactions.findTransactionById(food.getId()).getCategory()).isEqualTo("Food");
+        assertThat(transactions.findTransactionsByUser(1L)).extracting(Transaction::getId)
+                .containsExactly(salary.getId(), food.getId(), taxi.getId());
+        assertThat(transactions.findTransactionsByUser(1L, LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 31)))
+                .extracting(Transaction::getId).containsExactly(salary.getId(), food.getId());
+        assertThat(transactions.findBalance(1L)).isEqualTo(870.0);
+        assertThat(transactions.findBalance(1L, LocalDate.of(2025, 3, 2), LocalDate.of(2025, 4, 30)))
+                .isEqualTo(-130.0);
+        assertThat(transactions.countTransactions(1L)).isEqualTo(3);
+        assertThat(transactions.countTransactions(1L, LocalDate.of(2025, 3, 2), LocalDate.of(2025, 4, 30)))
+                .isEqualTo(2);
+        assertThat(transactions.countTransactions(3L)).isZero();
+
+        Transaction updated = transactions.updateTransaction(food.getId(), 60.0, "Cafe", "Dinner", INCOME);
+        assertThat(updated.getAmount()).isEqualTo(60.0);
+        assertThat(updated.getDate()).isEqualTo(LocalDate.of(2025, 3, 10));
+        assertThat(transactions.findBalance(1L)).isEqualTo(1030.0);
+        assertThat(transactions.updateTransaction(-1L, 1.0, "x", "x", INCOME)).isNull();
+
+        transactions.deleteTransaction(taxi.getId());
+        transactions.deleteTransaction(taxi.getId());
+        assertThat(transactions.findTransactionById(taxi.getId())).isNull();
+        assertThat(transactions.findBalance(1L)).isEqualTo(1060.0);
+        assertThat(transactions.findAllTransactions()).hasSize(3);
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageEngine.class)
+    void transactions_IdZeroIsNeverFound(StorageEngine engine) {
+        TransactionRepository transactions = engine.newDatabase();
+        Transaction first = transactions.saveTransaction(new Transaction(1L, 10.0, "A", LocalDate.of(2025, 1, 1),
+                "", INCOME));
+        Transaction second = transactions.saveTransaction(new Transaction(1L, 20.0, "B", LocalDate.of(2025, 1, 2),
+                "", INCOME));
+        // Освобождённая ячейка индекса не должна отдавать чужую строку под id 0
+        transactions.deleteTransaction(first.getId());
+
+        assertThat(transactions.findTransactionById(0L)).isNull();
+        assertThat(transactions.updateTransaction(0L, 1.0, "x", "x", EXPENSE)).isNull();
+        transactions.deleteTransaction(0L);
+        assertThatThrownBy(() -> transactions.deleteTransactions(new long[]{0L}))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(transactions.findAllTransactions()).extracting(Transaction::getId).containsExactly(second.getId());
+        assertThat(transactions.findTransactionById(second.getId()).getAmount()).isEqualTo(20.0);
+        assertThat(transactions.findBalance(1L)).isEqualTo(20.0);
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageEngine.class)
+    void transactionsPage_NewestFirstAfterCursor(StorageEngine engine) {
+        TransactionRepository transactions = engine.newDatabase();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            ids.add(transactions.saveTransaction(new Transaction(1L, i, "A", LocalDate.of(2025, 1, 1), "", INCOME))
+                    .getId());
+            transactions.saveTransaction(new Transaction(2L, i, "B", LocalDate.of(2025, 1, 1), "", INCOME));
+        }
+        Collections.reverse(ids);
+
+        List<Transaction> first = transactions.findTransactionsPageByUser(1L, Long.MAX_VALUE, 10);
+        assertThat(first).extracting(Transaction::getId).containsExactlyElementsOf(ids.subList(0, 10));
+        // Удалённая транзакция из уже выданной страницы не сдвигает следующие
+        transactions.deleteTransaction(ids.get(3));
+        List<Transaction> second = transactions.findTransactionsPageByUser(1L, first.get(9).getId(), 10);
+        assertThat(second).extracting(Transaction::getId).containsExactlyElementsOf(ids.subList(10, 20));
+        assertThat(transactions.findTransactionsPageByUser(1L, second.get(9).getId(), 10))
+                .extracting(Transaction::getId).containsExactlyElementsOf(ids.subList(20, 25));
+        assertThat(transactions.findTransactionsPageByUser(3L, Long.MAX_VALUE, 10)).isEmpty();
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageEngine.class)
+    void transactions_BulkIsAllOrNothing(StorageEngine engine) {
+        TransactionRepository transactions = engine.newDatabase();
+        List<Transaction> batch = List.of(
+                new Transaction(1L, 10.0, "A", LocalDate.of(2025, 1, 1), "", INCOME),
+                new Transaction(2L, 20.0, "B", LocalDate.of(2025, 1, 2), "", EXPENSE),
+                new Transaction(1L, 30.0, "C", LocalDate.of(2025, 1, 3), "", EXPENSE));
+        transactions.saveTransactions(batch);
+        assertThat(transactions.findBalance(1L)).isEqualTo(-20.0);
+
+        assertThatThrownBy(() -> transactions.deleteTransactions(new long[]{batch.get(0).getId(), -1L}))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(transactions.findAllTransactions()).hasSize(3);
+
+        transactions.deleteTransactions(new long[]{batch.get(0).getId(), batch.get(1).getId()});
+        assertThat(transactions.findAllTransactions()).extracting(Transaction::getId)
+                .containsExactly(batch.get(2).getId());
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageEngine.class)
+    void transactions_BulkWithDuplicateIdIsRejected(StorageEngine engine) {
+        TransactionRepository transactions = engine.newDatabase();
+        Transaction first = new Transaction(1L, 10.0, "A", LocalDate.of(2025, 1, 1), "", INCOME);
+        Transaction copy = new Transaction(first.getId(), 1L, 15.0, "A", LocalDate.of(2025, 1, 1), "", INCOME);
+        List<Transaction> batch = List.of(first,
+                new Transaction(1L, 20.0, "B", LocalDate.of(2025, 1, 2), "", INCOME), copy);
+
+        assertThatThrownBy(() -> transactions.saveTransactions(batch))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(transactions.findAllTransactions()).isEmpty();
+        assertThat(transactions.findBalance(1L)).isZero();
+        assertThat(transactions.countTransactions(1L)).isZero();
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageEngine.class)
+    void transactions_ReplacingWithAnotherOwnerMovesRow(StorageEngine engine) {
+        TransactionRepository transactions = engine.newDatabase();
+        Transaction original = transactions.saveTransaction(new Transaction(1L, 100.0, "A",
+                LocalDate.of(2025, 1, 1), "", INCOME));
+        transactions.saveTransaction(new Transaction(1L, 7.0, "A", LocalDate.of(2025, 1, 2), "", EXPENSE));
+
+        transactions.saveTransaction(new Transaction(original.getId(), 2L, 40.0, "B", LocalDate.of(2025, 1, 3),
+                "", INCOME));
+        transactions.saveTransactions(List.of(new Transaction(original.getId(), 3L, 50.0, "C",
+                LocalDate.of(2025, 1, 4), "", INCOME)));
+
+        assertThat(transactions.findTransactionsByUser(1L)).hasSize(1);
+        assertThat(transactions.findBalance(1L)).isEqualTo(-7.0);
+        assertThat(transactions.findTransactionsByUser(2L)).isEmpty();
+        assertThat(transactions.findBalance(2L)).isZero();
+        assertThat(transactions.findBalance(3L)).isEqualTo(50.0);
+        assertThat(transactions.findAllTransactions()).hasSize(2);
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageEngine.class)
+    void transactions_BulkWithOversizedDescriptionIsAllOrNothing(StorageEngine engine) {
+        TransactionRepository transactions = engine.newDatabase();
+        Transaction kept = transactions.saveTransaction(new Transaction(1L, 5.0, "A", LocalDate.of(2025, 1, 1), "",
+                INCOME));
+        List<Transaction> batch = List.of(
+                new Transaction(1L, 10.0, "A", LocalDate.of(2025, 1, 1), "", INCOME),
+                new Transaction(1L, 20.0, "B", LocalDate.of(2025, 1, 2), "x".repeat(2 << 20), EXPENSE),
+                new Transaction(1L, 30.0, "C", LocalDate.of(2025, 1, 3), "", INCOME));
+
+        // Движок вправе ограничить длину описания, но тогда пачка не должна сохраниться частично
+        Throwable error = catchThrowable(() -> transactions.saveTransactions(batch));
+
+        if (error == null) {
+            assertThat(transactions.findTransactionsByUser(1L)).hasSize(4);
+            assertThat(transactions.findBalance(1L)).isEqualTo(25.0);
+        } else {
+            assertThat(error).isInstanceOf(IllegalArgumentException.class);
+            assertThat(transactions.findTransactionsByUser(1L)).extracting(Transaction::getId)
+                    .containsExactly(kept.getId());
+            assertThat(transactions.findBalance(1L)).isEqualTo(5.0);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageEngine.class)
+    void deleteUser_DropsUserDataAndNotifiesListeners(StorageEngine engine) {
+        InMemoryDatabase db = engine.newDatabase();
+        UserRepository users = db;
+        TransactionRepository transactions = db;
+        GoalRepository goals = db;
+        AtomicLong removed = new AtomicLong();
+        LongConsumer listener = removed::set;
+        transactions.addUserRemovalListener(listener);
+
+        User user = users.saveUser(new User("a@mail.com", "p", "A", User.Role.USER));
+        User other = users.saveUser(new User("b@mail.com", "p", "B", User.Role.USER));
+        transactions.saveTransaction(new Transaction(user.getId(), 1.0, "A", LocalDate.of(2025, 1, 1), "", INCOME));
+        Transaction kept = transactions.saveTransaction(new Transaction(other.getId(), 2.0, "B",
+                LocalDate.of(2025, 1, 1), "", INCOME));
+        goals.saveGoals(List.of(new Goal(user.getId(), "Car", 100.0), new Goal(user.getId(), "Flat", 1000.0)));
+        Goal keptGoal = goals.saveGoal(new Goal(other.getId(), "Trip", 10.0));
+        assertThat(goals.findGoalsByUser(user.getId())).hasSize(2);
+
+        users.deleteUser(user.getId());
+
+        assertThat(removed.get()).isEqualTo(user.getId());
+        assertThat(users.findUserByEmail("a@mail.com")).isNull();
+        assertThat(transactions.findTransactionsByUser(user.getId())).isEmpty();
+        assertThat(transactions.findBalance(user.getId())).isZero();
+        assertThat(transactions.findAllTransactions()).extracting(Transaction::getId).containsExactly(kept.getId());
+        assertThat(goals.findGoalsByUser(user.getId())).isEmpty();
+        assertThat(goals.findAllGoals()).containsExactly(keptGoal);
+
+        transactions.removeUserRemovalListener(listener);
+        users.deleteUser(other.getId());
+        assertThat(removed.get()).isEqualTo(user.getId());
+    }
+}
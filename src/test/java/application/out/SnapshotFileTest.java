@@ -0,0 +1,119 @@
+package application.out;
+
+import com.yourorganization.domain.Budget;
+import com.yourorganization.domain.Goal;
+import com.yourorganization.domain.RecurringTransaction;
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.domain.User;
+import com.yourorganization.out.Checkpointer;
+import com.yourorganization.out.InMemoryDatabase;
+import com.yourorganization.out.SnapshotFile;
+import com.yourorganization.out.WriteAheadLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class SnapshotFileTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writeAndLoad_RestoresAllTablesAndIdCounters() throws Exception {
+        Path file = dir.resolve("db.snapshot");
+        InMemoryDatabase db = new InMemoryDatabase();
+        User user = db.saveUser(new User("alice@mail.com", "secret", "Alice", User.Role.ADMIN));
+        Transaction tx = db.saveTransaction(new Transaction(user.getId(), 42.5, "Food",
+                LocalDate.of(2025, 3, 10), "Lunch", Transaction.TransactionType.EXPENSE));
+        Goal goal = db.saveGoal(new Goal(user.getId(), "Car", 1000.0));
+        goal.addAmount(100.0);
+        RecurringTransaction rent = db.saveRecurring(new RecurringTransaction(user.getId(), 300.0, "Rent", "Flat",
+                Transaction.TransactionType.EXPENSE, RecurringTransaction.Frequency.CUSTOM, 10,
+                LocalDate.of(2025, 1, 1)).withOccurrences(3));
+        db.saveBudget(new Budget(user.getId(), "Food", 150.0));
+        // Удалённая транзакция с наибольшим id не должна вернуться в оборот
+        Transaction deleted = db.saveTransaction(new Transaction(user.getId(), 1.0, "Tmp",
+                LocalDate.of(2025, 3, 11), "", Transaction.TransactionType.INCOME));
+        db.deleteTransaction(deleted.getId());
+
+        SnapshotFile.write(db, file);
+        InMemoryDatabase restored = new InMemoryDatabase();
+
+        assertThat(SnapshotFile.load(restored, file)).isTrue();
+        User restoredUser = restored.findUserByEmail("alice@mail.com");
+        assertThat(restoredUser.getRole()).isEqualTo(User.Role.ADMIN);
+        assertThat(restored.findTransactionById(tx.getId()).getAmount()).isEqualTo(42.5);
+        assertThat(restored.findBalance(user.getId())).isEqualTo(-42.5);
+        assertThat(restored.findGoalById(goal.getId()).getCurrentAmount()).isEqualTo(100.0);
+        assertThat(restored.findAllRecurring()).singleElement().satisfies(r -> {
+            assertThat(r.getId()).isEqualTo(rent.getId());
+            assertThat(r.getIntervalDays()).isEqualTo(10);
+            assertThat(r.getNextDate()).isEqualTo(LocalDate.of(2025, 1, 31));
+            assertThat(r.getDescription()).isEqualTo("Flat");
+        });
+        assertThat(restored.findAllBudgets()).singleElement().satisfies(b -> {
+            assertThat(b.getCategory()).isEqualTo("Food");
+            assertThat(b.getMonthlyLimit()).isEqualTo(150.0);
+        });
+        assertThat(RecurringTransaction.getNextId()).isGreaterThan(rent.getId());
+        assertThat(Transaction.getNextId()).isGreaterThan(deleted.getId());
+    }
+
+    @Test
+    void load_MissingFile_ReturnsFalse() throws Exception {
+        assertThat(SnapshotFile.load(new InMemoryDatabase(), dir.resolve("none"))).isFalse();
+    }
+
+    @Test
+    void load_CorruptedFile_Throws() throws Exception {
+        Path file = dir.resolve("db.snapshot");
+        InMemoryDatabase db = new InMemoryDatabase();
+        db.saveUser(new User("alice@mail.com", "secret", "Alice", User.Role.USER));
+        SnapshotFile.write(db, file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{42}), 40);
+        }
+
+        assertThatThrownBy(() -> SnapshotFile.load(new InMemoryDatabase(), file))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void checkpoint_TruncatesLogAndRestartCombinesSnapshotWithLog() throws Exception {
+        Path snapshot = dir.resolve("db.snapshot");
+        Path wal = dir.resolve("db.wal");
+        InMemoryDatabase db = new InMemoryDatabase();
+        long beforeId;
+        long afterId;
+        try (WriteAheadLog log = new WriteAheadLog(wal, WriteAheadLog.SyncMode.OS, 0)) {
+            db.attachLog(log);
+            beforeId = db.saveTransaction(new Transaction(1L, 10.0, "A",
+                    LocalDate.of(2025, 1, 1), "", Transaction.TransactionType.INCOME)).getId();
+            Checkpointer checkpointer = new Checkpointer(db, log, snapshot, 3_600_000);
+            checkpointer.checkpoint();
+            assertThat(Files.size(wal)).isZero();
+
+            afterId = db.saveTransaction(new Transaction(1L, 5.0, "B",
+                    LocalDate.of(2025, 1, 2), "", Transaction.TransactionType.EXPENSE)).getId();
+            db.deleteTransaction(beforeId);
+        }
+
+        InMemoryDatabase restored = new InMemoryDatabase();
+        assertThat(SnapshotFile.load(restored, snapshot)).isTrue();
+        try (WriteAheadLog log = new WriteAheadLog(wal, WriteAheadLog.SyncMode.OS, 0)) {
+            assertThat(log.replay(restored)).isEqualTo(2);
+        }
+        assertThat(restored.findTransactionById(beforeId)).isNull();
+        assertThat(restored.findTransactionById(afterId)).isNotNull();
+        assertThat(restored.findBalance(1L)).isEqualTo(-5.0);
+    }
+}
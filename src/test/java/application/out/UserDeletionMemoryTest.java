@@ -0,0 +1,138 @@
+package application.out;
+
+import com.yourorganization.domain.Goal;
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.domain.User;
+import com.yourorganization.out.ColumnarTransactionStore;
+import com.yourorganization.out.InMemoryDatabase;
+import com.yourorganization.service.TransactionService;
+import com.yourorganization.service.UserService;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class UserDeletionMemoryTest {
+
+    private static final int TRANSACTIONS = 50_000;
+
+    @Test
+    void deleteUser_ReleasesAllUserDataAndHeapReturnsToBaseline() {
+        InMemoryDatabase db = new InMemoryDatabase();
+        UserService userService = new UserService(db);
+        TransactionService transactionService = new TransactionService(db);
+        db.addUserRemovalListener(transactionService::userRemoved);
+        User other = userService.register("other@mail.com", "p", "Other", User.Role.USER);
+        Transaction kept = transactionService.createTransaction(other.getId(), 1.0, "Food",
+                LocalDate.of(2025, 3, 1), "", Transaction.TransactionType.EXPENSE);
+
+        long baseline = usedHeapAfterGc();
+        User user = userService.register("heavy@mail.com", "p", "Heavy", User.Role.USER);
+        WeakReference<Transaction> sample = fill(db, transactionService, user.getId());
+        long grown = usedHeapAfterGc() - baseline;
+
+        userService.deleteUser(user.getId());
+
+        // Ни одна ссылка на данные пользователя не должна остаться в хранилище и сервисах
+        for (int i = 0; i < 10 && sample.get() != null; i++) {
+            System.gc();
+        }
+        assertThat(sample.get()).isNull();
+        // Граница с запасом: точность замера кучи после System.gc() невелика
+        assertThat(usedHeapAfterGc() - baseline).isLessThan(grown / 4);
+
+        assertThat(db.findTransactionsByUser(user.getId())).isEmpty();
+        assertThat(db.findGoalsByUser(user.getId())).isEmpty();
+        assertThat(db.findAllTransactions()).containsExactly(kept);
+        assertThat(transactionService.getCategoryTotals(user.getId(), YearMonth.of(2025, 3),
+                Transaction.TransactionType.EXPENSE)).isEmpty();
+    }
+
+    @Test
+    void deleteUser_ConcurrentCreatesLeaveNoRows() throws Exception {
+        InMemoryDatabase db = new InMemoryDatabase();
+        UserService userService = new UserService(db);
+        TransactionService transactionService = new TransactionService(db);
+        db.addUserRemovalListener(transactionService::userRemoved);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int round = 0; round < 100; round++) {
+                User user = userService.register("race" + round + "@mail.com", "p", "Race", User.Role.USER);
+                CountDownLatch started = new CountDownLatch(4);
+                List<Future<?>> writers = new ArrayList<>();
+                for (int w = 0; w < 4; w++) {
+                    writers.add(executor.submit(() -> {
+                        started.countDown();
+                        try {
+                            for (int i = 0; i < 2_000; i++) {
+                                transactionService.createTransaction(user.getId(), 1.0, "Food",
+                                        LocalDate.of(2025, 3, 1), "", Transaction.TransactionType.EXPENSE);
+                            }
+                        } catch (IllegalArgumentException e) {
+                            // Пользователь удалён: новые транзакции отклоняются
+                        }
+                    }));
+                }
+                started.await();
+                userService.deleteUser(user.getId());
+                for (Future<?> writer : writers) {
+                    writer.get();
+                }
+
+                assertThat(db.findTransactionsByUser(user.getId())).isEmpty();
+                assertThat(db.findBalance(user.getId())).isZero();
+                assertThat(transactionService.getCategoryTotals(user.getId(), YearMonth.of(2025, 3),
+                        Transaction.TransactionType.EXPENSE)).isEmpty();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void deleteUser_ColumnarStoreDropsUserRows() {
+        InMemoryDatabase db = new InMemoryDatabase(new ColumnarTransactionStore());
+        User user = db.saveUser(new User("a@mail.com", "p", "A", User.Role.USER));
+        User other = db.saveUser(new User("b@mail.com", "p", "B", User.Role.USER));
+        for (int i = 0; i < 1000; i++) {
+            db.saveTransaction(new Transaction(i % 2 == 0 ? user.getId() : other.getId(), i, "Food",
+                    LocalDate.of(2025, 3, 1), "", Transaction.TransactionType.INCOME));
+        }
+
+        db.deleteUser(user.getId());
+
+        assertThat(db.findTransactionsByUser(user.getId())).isEmpty();
+        assertThat(db.findAllTransactions()).hasSize(500).allMatch(t -> t.getUserId() == other.getId());
+        assertThat(db.findBalance(user.getId())).isZero();
+    }
+
+    private static WeakReference<Transaction> fill(InMemoryDatabase db, TransactionService service, long userId) {
+        List<Transaction> batch = new ArrayList<>(TRANSACTIONS);
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            batch.add(new Transaction(userId, i, "Category " + (i % 50), LocalDate.of(2025, 3, 1 + i % 28),
+                    "Description " + i, Transaction.TransactionType.EXPENSE));
+        }
+        service.createTransactions(batch);
+        for (int i = 0; i < 100; i++) {
+            db.saveGoal(new Goal(userId, "Goal " + i, 1000.0));
+        }
+        return new WeakReference<>(batch.get(TRANSACTIONS / 2));
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,334 @@
+package application.out;
+
+import com.yourorganization.domain.Goal;
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.domain.User;
+import com.yourorganization.out.InMemoryDatabase;
+import com.yourorganization.out.StorageEngine;
+import com.yourorganization.out.WriteAheadLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class WriteAheadLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replay_RestoresSavesUpdatesAndDeletes() throws Exception {
+        Path file = dir.resolve("db.wal");
+        InMemoryDatabase db = new InMemoryDatabase();
+        long userId;
+        long keptId;
+        long goalId;
+        try (WriteAheadLog log = new WriteAheadLog(file, WriteAheadLog.SyncMode.OS, 0)) {
+            db.attachLog(log);
+            User user = db.saveUser(new User("alice@mail.com", "secret", "Alice", User.Role.USER));
+            userId = user.getId();
+            db.updateUserEmail(userId, "alice@new.com");
+            Transaction kept = db.saveTransaction(new Transaction(userId, 100.0, "Food",
+                    LocalDate.of(2025, 3, 10), "Lunch", Transaction.TransactionType.EXPENSE));
+            keptId = kept.getId();
+            db.updateTransaction(keptId, 70.0, "Food", "Snack", Transaction.TransactionType.EXPENSE);
+            Transaction removed = db.saveTransaction(new Transaction(userId, 5.0, "Taxi",
+                    LocalDate.of(2025, 3, 11), null, Transaction.TransactionType.EXPENSE));
+            db.deleteTransaction(removed.getId());
+            Goal goal = db.saveGoal(new Goal(userId, "Car", 1000.0));
+            goal.addAmount(250.0);
+            db.saveGoal(goal);
+            goalId = goal.getId();
+        }
+
+        InMemoryDatabase restored = new InMemoryDatabase();
+        try (WriteAheadLog log = new WriteAheadLog(file, WriteAheadLog.SyncMode.OS, 0)) {
+            assertThat(log.replay(restored)).isEqualTo(8);
+        }
+
+        assertThat(restored.findUserByEmail("alice@mail.com")).isNull();
+        assertThat(restored.findUserByEmail("alice@new.com").getId()).isEqualTo(userId);
+        assertThat(restored.findTransactionsByUser(userId)).hasSize(1);
+        Transaction kept = restored.findTransactionById(keptId);
+        assertThat(kept.getAmount()).isEqualTo(70.0);
+        assertThat(kept.getDescription()).isEqualTo("Snack");
+        assertThat(kept.getDate()).isEqualTo(LocalDate.of(2025, 3, 10));
+        assertThat(restored.findBalance(userId)).isEqualTo(-70.0);
+        assertThat(restored.findGoalById(goalId).getCurrentAmount()).isEqualTo(250.0);
+
+        // Новые объекты не должны получить уже использованные id
+        assertThat(new Transaction(userId, 1.0, "x", LocalDate.now(), "", Transaction.TransactionType.INCOME).getId())
+                .isGreaterThan(keptId);
+    }
+
+    @Test
+    void updateUser_IsLoggedAsSingleRecord() throws Exception {
+        Path file = dir.resolve("update-user.wal");
+        InMemoryDatabase db = new InMemoryDatabase();
+        long userId;
+        try (WriteAheadLog log = new WriteAheadLog(file, WriteAheadLog.SyncMode.OS, 0)) {
+            db.attachLog(log);
+            userId = db.saveUser(new User("old@mail.com", "p", "Old", User.Role.USER)).getId();
+            assertThat(db.updateUser(userId, "new@mail.com", "New", "secret")).isTrue();
+        }
+
+        InMemoryDatabase restored = new InMemoryDatabase();
+        try (WriteAheadLog log = new WriteAheadLog(file, WriteAheadLog.SyncMode.OS, 0)) {
+            assertThat(log.replay(restored)).isEqualTo(2);
+        }
+        User user = restored.findUserByEmail("new@mail.com");
+        assertThat(user.getId()).isEqualTo(userId);
+        assertThat(user.getName()).isEqualTo("New");
+        assertThat(user.getPassword()).isEqualTo("secret");
+        assertThat(restored.findUserByEmail("old@mail.com")).isNull();
+    }
+
+    @Test
+    void replay_OverNewerSnapshotToleratesReusedEmail() throws Exception {
+        Path file = dir.resolve("reused-email.wal");
+        InMemoryDatabase db = new InMemoryDatabase();
+        User first;
+        User second;
+        try (WriteAheadLog log = new WriteAheadLog(file, WriteAheadLog.SyncMode.OS, 0)) {
+            db.attachLog(log);
+            first = db.saveUser(new User("a@mail.com", "p", "A", User.Role.USER));
+            db.deleteUser(first.getId());
+            second = db.saveUser(new User("A@mail.com", "p", "B", User.Role.USER));
+        }
+
+        // Падение между записью снимка и очисткой журнала: снимок уже содержит итоговое состояние
+        InMemoryDatabase restored = new InMemoryDatabase();
+        restored.saveUser(new User(second.getId(), second.getEmail(), "p", "B", User.Role.USER));
+        try (WriteAheadLog log = new WriteAheadLog(file, WriteAheadLog.SyncMode.OS, 0)) {
+            assertThat(log.replay(restored)).isEqualTo(3);
+        }
+        assertThat(restored.findUserById(first.getId())).isNull();
+        assertThat(restored.findUserByEmail("a@mail.com").getId()).isEqualTo(second.getId());
+    }
+
+    @Test
+    void replay_TruncatesTornTail() throws Exception {
+        Path file = dir.resolve("torn.wal");
+        InMemoryDatabase db = new InMemoryDatabase();
+        try (WriteAheadLog log = new WriteAheadLog(file, WriteAheadLog.SyncMode.OS, 0)) {
+            db.attachLog(log);
+            db.saveUser(new User("a@mail.com", "p", "A", User.Role.USER));
+            db.saveUser(new User("b@mail.com", "p", "B", User.Role.USER));
+        }
+        long intactSize = Files.size(file);
+        // Имитируем падение посреди записи: обрезаем последние байты
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(intactSize - 3);
+        }
+
+        InMemoryDatabase restored = new InMemoryDatabase();
+        try (WriteAheadLog log = new WriteAheadLog(file, WriteAheadLog.SyncMode.OS, 0)) {
+            assertThat(log.replay(restored)).isEqualTo(1);
+            restored.attachLog(log);
+            restored.saveUser(new User("c@mail.com", "p", "C", User.Role.USER));
+        }
+
+        InMemoryDatabase again = new InMemoryDatabase();
+        try (WriteAheadLog log = new WriteAheadLog(file, WriteAheadLog.SyncMode.OS, 0)) {
+            assertThat(log.replay(again)).isEqualTo(2);
+        }
+        assertThat(again.findUserByEmail("a@mail.com")).isNotNull();
+        assertThat(again.findUserByEmail("b@mail.com")).isNull();
+        assertThat(again.findUserByEmail("c@mail.com")).isNotNull();
+    }
+
+    @Test
+    void syncAlways_ConcurrentWritersAreAllDurable() throws Exception {
+        Path file = dir.resolve("always.wal");
+        InMemoryDatabase db = new InMemoryDatabase();
+        int threads = 8;
+        int perThread = 200;
+        try (WriteAheadLog log = new WriteAheadLog(file, WriteAheadLog.SyncMode.ALWAYS, 0)) {
+            db.attachLog(log);
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long userId = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        db.saveTransaction(new Transaction(userId, 1.0, "Cat",
+                                LocalDate.of(2025, 1, 1), "", Transaction.TransactionType.INCOME));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+        }
+
+        InMemoryDatabase restored = new InMemoryDatabase();
+        try (WriteAheadLog log = new WriteAheadLog(file, WriteAheadLog.SyncMode.OS, 0)) {
+            assertThat(log.replay(restored)).isEqualTo(threads * perThread);
+        }
+        assertThat(restored.findAllTransactions()).hasSize(threads * perThread);
+    }
+
+    @Test
+    void saveTransactions_BatchIsLoggedAndReplayed() throws Exception {
+        Path file = dir.resolve("batch.wal");
+        InMemoryDatabase db = new InMemoryDatabase();
+        List<Transaction> batch = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            batch.add(new Transaction(i % 7, i, "Food", LocalDate.of(2025, 3, 1 + i % 28),
+                    "Row " + i, Transaction.TransactionType.EXPENSE));
+        }
+        try (WriteAheadLog log = new WriteAheadLog(file, WriteAheadLog.SyncMode.ALWAYS, 0)) {
+            db.attachLog(log);
+            db.saveTransactions(batch);
+        }
+
+        InMemoryDatabase restored = new InMemoryDatabase();
+        try (WriteAheadLog log = new WriteAheadLog(file, WriteAheadLog.SyncMode.OS, 0)) {
+            assertThat(log.replay(restored)).isEqualTo(batch.size());
+        }
+        assertThat(restored.findBalance(3)).isEqualTo(db.findBalance(3));
+        assertThat(restored.findTransactionById(batch.get(49_999).getId()).getDescription())
+                .isEqualTo("Row 49999");
+    }
+
+    @Test
+    void appendBatch_FailureMidBatchIsCutFromLog() throws Exception {
+        Path file = dir.resolve("failed-batch.wal");
+        InMemoryDatabase db = new InMemoryDatabase();
+        try (WriteAheadLog log = new WriteAheadLog(file, WriteAheadLog.SyncMode.OS, 0)) {
+            db.attachLog(log);
+            db.saveTransaction(new Transaction(1L, 1.0, "Before", LocalDate.of(2025, 3, 1), "",
+                    Transaction.TransactionType.INCOME));
+            long sizeBefore = log.size();
+            // Первые строки пачки успевают уйти в файл (больше порога записи блоком), затем ошибка
+            String description = "x".repeat(1000);
+            Collection<Transaction> failing = new AbstractCollection<>() {
+                @Override
+                public Iterator<Transaction> iterator() {
+                    return new Iterator<>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < size();
+                        }
+
+                        @Override
+                        public Transaction next() {
+                            if (next++ == 2_000) {
+                                throw new IllegalStateException("Ошибка кодирования");
+                            }
+                            return new Transaction(1L, 1.0, "Batch", LocalDate.of(2025, 3, 2), description,
+                                    Transaction.TransactionType.INCOME);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return 3_000;
+                }
+            };
+            assertThatThrownBy(() -> log.appendSaveTransactions(failing)).isInstanceOf(IllegalStateException.class);
+            assertThat(log.size()).isEqualTo(sizeBefore);
+            assertThat(Files.size(file)).isEqualTo(sizeBefore);
+            db.saveTransaction(new Transaction(1L, 2.0, "After", LocalDate.of(2025, 3, 3), "",
+                    Transaction.TransactionType.INCOME));
+        }
+
+        InMemoryDatabase restored = new InMemoryDatabase();
+        try (WriteAheadLog log = new WriteAheadLog(file, WriteAheadLog.SyncMode.OS, 0)) {
+            assertThat(log.replay(restored)).isEqualTo(2);
+        }
+        assertThat(restored.findAllTransactions()).extracting(Transaction::getCategory)
+                .containsExactlyInAnyOrder("Before", "After");
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageEngine.class)
+    void append_FailureLeavesStoreUnchanged(StorageEngine engine) throws Exception {
+        Path file = dir.resolve("failed-" + engine + ".wal");
+        InMemoryDatabase db = engine.newDatabase();
+        WriteAheadLog log = new WriteAheadLog(file, WriteAheadLog.SyncMode.OS, 0);
+        db.attachLog(log);
+        User user = db.saveUser(new User("a@mail.com", "p", "A", User.Role.USER));
+        Transaction transaction = db.saveTransaction(new Transaction(user.getId(), 10.0, "Food",
+                LocalDate.of(2025, 3, 1), "Lunch", Transaction.TransactionType.EXPENSE));
+        Goal goal = db.saveGoal(new Goal(user.getId(), "Car", 100.0));
+        // Закрытый журнал отказывает в каждой записи
+        log.close();
+
+        assertThatThrownBy(() -> db.saveUser(new User("b@mail.com", "p", "B", User.Role.USER)))
+                .isInstanceOf(UncheckedIOException.class);
+        assertThatThrownBy(() -> db.updateUser(user.getId(), "c@mail.com", "C", "q"))
+                .isInstanceOf(UncheckedIOException.class);
+        assertThatThrownBy(() -> db.saveTransaction(new Transaction(user.getId(), 5.0, "Taxi",
+                LocalDate.of(2025, 3, 2), "", Transaction.TransactionType.EXPENSE)))
+                .isInstanceOf(UncheckedIOException.class);
+        assertThatThrownBy(() -> db.updateTransaction(transaction.getId(), 99.0, "Rent", "",
+                Transaction.TransactionType.INCOME)).isInstanceOf(UncheckedIOException.class);
+        assertThatThrownBy(() -> db.deleteTransaction(transaction.getId())).isInstanceOf(UncheckedIOException.class);
+        assertThatThrownBy(() -> db.saveGoal(new Goal(user.getId(), "Flat", 1000.0)))
+                .isInstanceOf(UncheckedIOException.class);
+        assertThatThrownBy(() -> db.deleteGoal(goal.getId())).isInstanceOf(UncheckedIOException.class);
+        assertThatThrownBy(() -> db.deleteUser(user.getId())).isInstanceOf(UncheckedIOException.class);
+
+        assertThat(db.findUserByEmail("b@mail.com")).isNull();
+        assertThat(db.findUserByEmail("c@mail.com")).isNull();
+        assertThat(db.findUserByEmail("a@mail.com")).isSameAs(user);
+        assertThat(user.getName()).isEqualTo("A");
+        assertThat(db.findAllUsers()).containsExactly(user);
+        assertThat(db.findTransactionsByUser(user.getId())).extracting(Transaction::getId)
+                .containsExactly(transaction.getId());
+        Transaction stored = db.findTransactionById(transaction.getId());
+        assertThat(stored.getAmount()).isEqualTo(10.0);
+        assertThat(stored.getCategory()).isEqualTo("Food");
+        assertThat(db.findBalance(user.getId())).isEqualTo(-10.0);
+        assertThat(db.findGoalsByUser(user.getId())).containsExactly(goal);
+    }
+
+    @Test
+    void replay_DiscardsTornBatchEntirely() throws Exception {
+        Path file = dir.resolve("torn-batch.wal");
+        InMemoryDatabase db = new InMemoryDatabase();
+        try (WriteAheadLog log = new WriteAheadLog(file, WriteAheadLog.SyncMode.OS, 0)) {
+            db.attachLog(log);
+            db.saveTransaction(new Transaction(1L, 1.0, "Single", LocalDate.of(2025, 3, 1), "",
+                    Transaction.TransactionType.INCOME));
+            List<Transaction> batch = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                batch.add(new Transaction(1L, i, "Batch", LocalDate.of(2025, 3, 2), "",
+                        Transaction.TransactionType.INCOME));
+            }
+            db.saveTransactions(batch);
+        }
+        // Падение посреди пачки: последние записи пачки не дописаны
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(file) - 3);
+        }
+
+        InMemoryDatabase restored = new InMemoryDatabase();
+        try (WriteAheadLog log = new WriteAheadLog(file, WriteAheadLog.SyncMode.OS, 0)) {
+            assertThat(log.replay(restored)).isEqualTo(1);
+        }
+        assertThat(restored.findAllTransactions()).extracting(Transaction::getCategory).containsExactly("Single");
+    }
+}
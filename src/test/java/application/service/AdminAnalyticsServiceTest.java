@@ -0,0 +1,131 @@
+package application.service;
+
+import com.yourorganization.domain.Goal;
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.domain.User;
+import com.yourorganization.metrics.ServiceMetrics;
+import com.yourorganization.out.InMemoryDatabase;
+import com.yourorganization.out.StorageEngine;
+import com.yourorganization.service.AdminAnalyticsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class AdminAnalyticsServiceTest {
+
+    private static final String[] CATEGORIES = {"Food", "Taxi", "Rent", "Salary"};
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageEngine.class)
+    void buildReport_MatchesSequentialTotals(StorageEngine engine) {
+        InMemoryDatabase db = engine.newDatabase();
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            users.add(new User("user" + i + "@mail.com", "p", "User " + i, User.Role.USER));
+        }
+        db.saveUsers(users);
+        // Строк заметно больше порога задачи, чтобы обход действительно делился
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 60_000; i++) {
+            User user = users.get(i % users.size());
+            Transaction.TransactionType type = i % 3 == 0
+                    ? Transaction.TransactionType.INCOME : Transaction.TransactionType.EXPENSE;
+            transactions.add(new Transaction(user.getId(), 1 + i % 97, CATEGORIES[i % CATEGORIES.length],
+                    START.plusDays(i % 365), "t" + i, type));
+        }
+        db.saveTransactions(transactions);
+        db.saveGoal(new Goal(users.get(0).getId(), "Done", 100));
+        db.saveGoal(new Goal(users.get(1).getId(), "Open", 100));
+        db.findAllGoals().stream().filter(g -> g.getTitle().equals("Done")).findFirst().orElseThrow()
+                .setCurrentAmount(150);
+
+        // Последовательный расчёт для сверки
+        Map<String, Double> expenseByCategory = new HashMap<>();
+        Map<Long, Double> balances = new HashMap<>();
+        LocalDate activeSince = START.plusDays(360);
+        Set<Long> active = new HashSet<>();
+        double income = 0;
+        for (Transaction t : transactions) {
+            boolean isIncome = t.getType() == Transaction.TransactionType.INCOME;
+            if (isIncome) {
+                income += t.getAmount();
+            } else {
+                expenseByCategory.merge(t.getCategory(), t.getAmount(), Double::sum);
+            }
+            balances.merge(t.getUserId(), isIncome ? t.getAmount() : -t.getAmount(), Double::sum);
+            if (!t.getDate().isBefore(activeSince)) {
+                active.add(t.getUserId());
+            }
+        }
+        long richest = balances.entrySet().stream().max(Map.Entry.comparingByValue()).orElseThrow().getKey();
+
+        AdminAnalyticsService service = new AdminAnalyticsService(db, db, db, pool, new ServiceMetrics());
+        AdminAnalyticsService.SystemReport report = service.buildReport(activeSince, 3);
+
+        assertThat(report.getTransactionCount()).isEqualTo(transactions.size());
+        assertThat(report.getTotalIncome()).isCloseTo(income, within(1e-6));
+        assertThat(report.getExpenseByCategory()).hasSameSizeAs(expenseByCategory);
+        expenseByCategory.forEach((category, sum) ->
+                assertThat(report.getExpenseByCategory().get(category)).isCloseTo(sum, within(1e-6)));
+        assertThat(report.getUserCount()).isEqualTo(50);
+        assertThat(report.getActiveUserCount()).isEqualTo(active.size());
+        assertThat(report.getGoalCount()).isEqualTo(2);
+        assertThat(report.getGoalCompletionPercent()).isEqualTo(50.0);
+        assertThat(report.getLargestAccounts()).hasSize(3);
+        assertThat(report.getLargestAccounts().get(0).getUserId()).isEqualTo(richest);
+        assertThat(report.getLargestAccounts().get(0).getBalance()).isCloseTo(balances.get(richest), within(1e-6));
+        assertThat(report.getLargestAccounts().get(0).getBalance())
+                .isGreaterThanOrEqualTo(report.getLargestAccounts().get(2).getBalance());
+    }
+
+    @Test
+    void buildReport_EmptySystem() {
+        InMemoryDatabase db = StorageEngine.HASH.newDatabase();
+        AdminAnalyticsService service = new AdminAnalyticsService(db, db, db, pool, new ServiceMetrics());
+
+        AdminAnalyticsService.SystemReport report = service.buildReport(START, 10);
+
+        assertThat(report.getTransactionCount()).isZero();
+        assertThat(report.getIncomeByCategory()).isEmpty();
+        assertThat(report.getGoalCompletionPercent()).isZero();
+        assertThat(report.getLargestAccounts()).isEmpty();
+        assertThatThrownBy(() -> service.buildReport(null, 10)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageEngine.class)
+    void buildReport_UserWithoutDatedTransactionsIsNeverActive(StorageEngine engine) {
+        InMemoryDatabase db = engine.newDatabase();
+        User undated = db.saveUser(new User("undated@mail.com", "p", "Undated", User.Role.USER));
+        User dated = db.saveUser(new User("dated@mail.com", "p", "Dated", User.Role.USER));
+        db.saveTransaction(new Transaction(undated.getId(), 10.0, "Food", null, "",
+                Transaction.TransactionType.EXPENSE));
+        db.saveTransaction(new Transaction(dated.getId(), 10.0, "Food", LocalDate.of(1969, 12, 31), "",
+                Transaction.TransactionType.EXPENSE));
+        AdminAnalyticsService service = new AdminAnalyticsService(db, db, db, pool, new ServiceMetrics());
+
+        assertThat(service.buildReport(LocalDate.of(1969, 1, 1), 10).getActiveUserCount()).isEqualTo(1);
+        assertThat(service.buildReport(LocalDate.MIN, 10).getActiveUserCount()).isEqualTo(1);
+        assertThat(service.buildReport(LocalDate.of(1970, 1, 1), 10).getActiveUserCount()).isZero();
+    }
+}
@@ -0,0 +1,220 @@
+package application.service;
+
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.domain.User;
+import com.yourorganization.out.InMemoryDatabase;
+import com.yourorganization.out.WriteAheadLog;
+import com.yourorganization.service.BudgetService;
+import com.yourorganization.service.TransactionService;
+import com.yourorganization.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class BudgetServiceTest {
+
+    private static final Transaction.TransactionType EXPENSE = Transaction.TransactionType.EXPENSE;
+    private static final Transaction.TransactionType INCOME = Transaction.TransactionType.INCOME;
+    private static final LocalDate MARCH = LocalDate.of(2025, 3, 10);
+
+    private InMemoryDatabase db;
+    private TransactionService transactionService;
+    private BudgetService budgetService;
+    private final List<BudgetService.BudgetWarning> delivered = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        db = new InMemoryDatabase();
+        // Транзакции создаются только для существующих пользователей
+        db.saveUser(new User(1L, "u1@mail.com", "p", "U1", User.Role.USER));
+        db.saveUser(new User(2L, "u2@mail.com", "p", "U2", User.Role.USER));
+        transactionService = new TransactionService(db);
+        db.addUserRemovalListener(transactionService::userRemoved);
+        budgetService = new BudgetService(transactionService);
+        budgetService.addWarningListener(delivered::add);
+    }
+
+    @Test
+    void crossingThresholds_ProducesOneWarningEach() {
+        budgetService.setBudget(1L, "Food", 100.0);
+
+        transactionService.createTransaction(1L, 50.0, "Food", MARCH, "", EXPENSE);
+        assertThat(takeWarnings(1L)).isEmpty();
+
+        transactionService.createTransaction(1L, 35.0, "Food", MARCH, "", EXPENSE);
+        List<BudgetService.BudgetWarning> warnings = takeWarnings(1L);
+        assertThat(warnings).singleElement().satisfies(w -> {
+            assertThat(w.getThresholdPercent()).isEqualTo(BudgetService.WARNING_PERCENT);
+            assertThat(w.getSpent()).isEqualTo(85.0);
+            assertThat(w.getMonth()).isEqualTo(YearMonth.of(2025, 3));
+        });
+
+        // Порог уже пройден - повторного предупреждения нет
+        transactionService.createTransaction(1L, 5.0, "Food", MARCH, "", EXPENSE);
+        assertThat(takeWarnings(1L)).isEmpty();
+
+        transactionService.createTransaction(1L, 10.0, "Food", MARCH, "", EXPENSE);
+        assertThat(takeWarnings(1L)).extracting(BudgetService.BudgetWarning::getThresholdPercent)
+                .containsExactly(BudgetService.LIMIT_PERCENT);
+    }
+
+    @Test
+    void otherCategoriesMonthsAndIncome_AreIgnored() {
+        budgetService.setBudget(1L, "Food", 100.0);
+
+        transactionService.createTransaction(1L, 500.0, "Taxi", MARCH, "", EXPENSE);
+        transactionService.createTransaction(1L, 500.0, "Food", MARCH, "", INCOME);
+        transactionService.createTransaction(2L, 500.0, "Food", MARCH, "", EXPENSE);
+        transactionService.createTransaction(1L, 90.0, "Food", LocalDate.of(2025, 2, 28), "", EXPENSE);
+        transactionService.createTransaction(1L, 50.0, "Food", MARCH, "", EXPENSE);
+
+        assertThat(takeWarnings(1L)).extracting(w -> w.getMonth())
+                .containsExactly(YearMonth.of(2025, 2));
+    }
+
+    @Test
+    void update_ComparesOldAndNewSpendingOfTheSameMonth() {
+        budgetService.setBudget(1L, "Food", 100.0);
+        Transaction lunch = transactionService.createTransaction(1L, 90.0, "Food", MARCH, "", EXPENSE);
+        takeWarnings(1L);
+
+        // 90 -> 95: порог 80% был пройден и до изменения
+        transactionService.updateTransaction(lunch.getId(), 95.0, "Food", "");
+        assertThat(takeWarnings(1L)).isEmpty();
+
+        transactionService.updateTransaction(lunch.getId(), 120.0, "Food", "");
+        assertThat(takeWarnings(1L)).extracting(BudgetService.BudgetWarning::getThresholdPercent)
+                .containsExactly(BudgetService.LIMIT_PERCENT);
+
+        // Перенос в другую категорию освобождает бюджет, повторный возврат снова предупреждает
+        transactionService.updateTransaction(lunch.getId(), 120.0, "Cafe", "");
+        transactionService.updateTransaction(lunch.getId(), 120.0, "Food", "");
+        assertThat(takeWarnings(1L)).hasSize(1);
+    }
+
+    @Test
+    void warningScope_ReceivesWarningsOfItsCallInsteadOfListeners() {
+        budgetService.setBudget(1L, "Food", 100.0);
+        budgetService.setBudget(2L, "Food", 100.0);
+
+        try (BudgetService.WarningScope outer = budgetService.collectWarnings()) {
+            try (BudgetService.WarningScope inner = budgetService.collectWarnings()) {
+                transactionService.createTransaction(1L, 90.0, "Food", MARCH, "", EXPENSE);
+                assertThat(inner.getWarnings()).hasSize(1);
+            }
+            transactionService.createTransaction(2L, 100.0, "Food", MARCH, "", EXPENSE);
+
+            assertThat(outer.getWarnings()).extracting(BudgetService.BudgetWarning::getUserId)
+                    .containsExactly(1L, 2L);
+            assertThat(outer.getWarnings(2L)).extracting(BudgetService.BudgetWarning::getThresholdPercent)
+                    .containsExactly(BudgetService.LIMIT_PERCENT);
+        }
+        assertThat(delivered).isEmpty();
+
+        // Вне области (планировщик, HTTP API) предупреждение уходит слушателям
+        transactionService.createTransaction(1L, 20.0, "Food", MARCH, "", EXPENSE);
+        assertThat(takeWarnings(1L)).extracting(BudgetService.BudgetWarning::getThresholdPercent)
+                .containsExactly(BudgetService.LIMIT_PERCENT);
+    }
+
+    @Test
+    void withWarnings_ReturnsWarningsOfTheChangeWithItsResult() {
+        budgetService.setBudget(1L, "Food", 100.0);
+
+        BudgetService.Outcome<Transaction> small = budgetService.withWarnings(() ->
+                transactionService.createTransaction(1L, 10.0, "Food", MARCH, "", EXPENSE));
+        assertThat(small.getValue().getAmount()).isEqualTo(10.0);
+        assertThat(small.getWarnings()).isEmpty();
+
+        BudgetService.Outcome<Transaction> large = budgetService.withWarnings(() ->
+                transactionService.createTransaction(1L, 95.0, "Food", MARCH, "", EXPENSE));
+        assertThat(large.getWarnings()).extracting(BudgetService.BudgetWarning::getThresholdPercent)
+                .containsExactly(BudgetService.LIMIT_PERCENT);
+        assertThat(delivered).isEmpty();
+    }
+
+    @Test
+    void restart_RestoresBudgetsFromLog(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("db.wal");
+        try (WriteAheadLog log = new WriteAheadLog(file, WriteAheadLog.SyncMode.OS, 0)) {
+            InMemoryDatabase before = new InMemoryDatabase();
+            before.attachLog(log);
+            before.saveUser(new User(1L, "u1@mail.com", "p", "U1", User.Role.USER));
+            BudgetService service = new BudgetService(new TransactionService(before), before);
+            service.setBudget(1L, "Food", 100.0);
+            service.setBudget(1L, "Taxi", 50.0);
+            service.setBudget(1L, "Food", 200.0);
+            service.removeBudget(1L, "Taxi");
+        }
+
+        InMemoryDatabase after = new InMemoryDatabase();
+        try (WriteAheadLog log = new WriteAheadLog(file, WriteAheadLog.SyncMode.OS, 0)) {
+            log.replay(after);
+            after.attachLog(log);
+            TransactionService transactions = new TransactionService(after);
+            BudgetService service = new BudgetService(transactions, after);
+
+            assertThat(service.getBudgets(1L, YearMonth.of(2025, 3)))
+                    .extracting(BudgetService.BudgetStatus::getCategory, BudgetService.BudgetStatus::getLimit)
+                    .containsExactly(tuple("Food", 200.0));
+            assertThat(service.withWarnings(() ->
+                    transactions.createTransaction(1L, 170.0, "Food", MARCH, "", EXPENSE)).getWarnings())
+                    .extracting(BudgetService.BudgetWarning::getThresholdPercent)
+                    .containsExactly(BudgetService.WARNING_PERCENT);
+        }
+    }
+
+    @Test
+    void getBudgets_ReportsMonthlySpending() {
+        budgetService.setBudget(1L, "Taxi", 200.0);
+        budgetService.setBudget(1L, "Food", 100.0);
+        transactionService.createTransaction(1L, 40.0, "Food", MARCH, "", EXPENSE);
+        Transaction ride = transactionService.createTransaction(1L, 50.0, "Taxi", MARCH, "", EXPENSE);
+        transactionService.deleteTransaction(ride.getId());
+
+        List<BudgetService.BudgetStatus> budgets = budgetService.getBudgets(1L, YearMonth.of(2025, 3));
+        assertThat(budgets).extracting(BudgetService.BudgetStatus::getCategory).containsExactly("Food", "Taxi");
+        assertThat(budgets.get(0).getUsedPercent()).isEqualTo(40.0);
+        assertThat(budgets.get(1).getSpent()).isZero();
+
+        budgetService.removeBudget(1L, "Taxi");
+        assertThat(budgetService.getBudgets(1L, YearMonth.of(2025, 3))).hasSize(1);
+        assertThatThrownBy(() -> budgetService.removeBudget(1L, "Taxi"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void invalidBudget_Rejected() {
+        assertThatThrownBy(() -> budgetService.setBudget(1L, " ", 100.0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> budgetService.setBudget(1L, "Food", 0.0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> budgetService.setBudget(1L, "Food", Double.NaN))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void deletedUser_BudgetsForgotten() {
+        UserService userService = new UserService(db);
+        User user = userService.register("b@mail.com", "p", "B", User.Role.USER);
+        budgetService.setBudget(user.getId(), "Food", 10.0);
+        transactionService.createTransaction(user.getId(), 20.0, "Food", MARCH, "", EXPENSE);
+
+        userService.deleteUser(user.getId());
+        assertThat(budgetService.getBudgets(user.getId(), YearMonth.of(2025, 3))).isEmpty();
+    }
+
+    private List<BudgetService.BudgetWarning> takeWarnings(long userId) {
+        List<BudgetService.BudgetWarning> result = new ArrayList<>();
+        delivered.removeIf(warning -> warning.getUserId() == userId && result.add(warning));
+        return result;
+    }
+}
@@ -0,0 +1,173 @@
+package application.service;
+
+import com.yourorganization.domain.RecurringTransaction;
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.domain.User;
+import com.yourorganization.out.InMemoryDatabase;
+import com.yourorganization.out.WriteAheadLog;
+import com.yourorganization.service.RecurringTransactionService;
+import com.yourorganization.service.TransactionService;
+import com.yourorganization.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class RecurringTransactionServiceTest {
+
+    private static final Transaction.TransactionType EXPENSE = Transaction.TransactionType.EXPENSE;
+    private static final Transaction.TransactionType INCOME = Transaction.TransactionType.INCOME;
+
+    private InMemoryDatabase db;
+    private TransactionService transactionService;
+    private RecurringTransactionService recurringService;
+
+    @BeforeEach
+    void setUp() {
+        db = new InMemoryDatabase();
+        transactionService = new TransactionService(db);
+        db.addUserRemovalListener(transactionService::userRemoved);
+        recurringService = new RecurringTransactionService(transactionService, db);
+    }
+
+    @Test
+    void runDue_CatchesUpMissedOccurrencesInOneBatch() {
+        recurringService.addTemplate(1L, 1000.0, "Salary", "", INCOME,
+                RecurringTransaction.Frequency.MONTHLY, 0, LocalDate.of(2025, 1, 31));
+        recurringService.addTemplate(1L, 5.0, "Coffee", "", EXPENSE,
+                RecurringTransaction.Frequency.WEEKLY, 0, LocalDate.of(2025, 3, 1));
+
+        assertThat(recurringService.runDue(LocalDate.of(2025, 3, 31))).isEqualTo(3 + 5);
+
+        // Даты считаются от даты начала: после февраля снова 31-е
+        assertThat(transactionService.getUserTransactions(1L, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 3, 31)))
+                .filteredOn(t -> t.getCategory().equals("Salary"))
+                .extracting(Transaction::getDate)
+                .containsExactly(LocalDate.of(2025, 1, 31), LocalDate.of(2025, 2, 28), LocalDate.of(2025, 3, 31));
+
+        // Повторный запуск в тот же день ничего не создаёт
+        assertThat(recurringService.runDue(LocalDate.of(2025, 3, 31))).isZero();
+        assertThat(recurringService.runDue(LocalDate.of(2025, 4, 5))).isEqualTo(1);
+    }
+
+    @Test
+    void customInterval_AndValidation() {
+        RecurringTransaction rent = recurringService.addTemplate(1L, 300.0, "Rent", "", EXPENSE,
+                RecurringTransaction.Frequency.CUSTOM, 10, LocalDate.of(2025, 1, 1));
+        recurringService.runDue(LocalDate.of(2025, 1, 25));
+        assertThat(rent.getNextDate()).isEqualTo(LocalDate.of(2025, 1, 31));
+        assertThat(rent.getOccurrences()).isEqualTo(3);
+
+        assertThatThrownBy(() -> recurringService.addTemplate(1L, 1.0, "X", "", EXPENSE,
+                RecurringTransaction.Frequency.CUSTOM, 0, LocalDate.of(2025, 1, 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> recurringService.addTemplate(1L, 1.0, "X", "", EXPENSE,
+                RecurringTransaction.Frequency.DAILY, 0, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void cancelledTemplates_StopProducingTransactions() {
+        RecurringTransaction daily = recurringService.addTemplate(1L, 1.0, "Bus", "", EXPENSE,
+                RecurringTransaction.Frequency.DAILY, 0, LocalDate.of(2025, 1, 1));
+        assertThatThrownBy(() -> recurringService.cancelTemplate(2L, daily.getId()))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        recurringService.cancelTemplate(1L, daily.getId());
+        assertThat(recurringService.runDue(LocalDate.of(2025, 1, 10))).isZero();
+        assertThat(recurringService.getUserTemplates(1L)).isEmpty();
+    }
+
+    @Test
+    void deletedUser_TemplatesCancelled() {
+        UserService userService = new UserService(db);
+        User user = userService.register("r@mail.com", "p", "R", User.Role.USER);
+        recurringService.addTemplate(user.getId(), 1.0, "Bus", "", EXPENSE,
+                RecurringTransaction.Frequency.DAILY, 0, LocalDate.of(2025, 1, 1));
+
+        userService.deleteUser(user.getId());
+        assertThat(recurringService.runDue(LocalDate.of(2025, 1, 10))).isZero();
+        assertThat(db.findTransactionsByUser(user.getId())).isEmpty();
+    }
+
+    @Test
+    void failedBatch_LeavesTemplatesForNextRun() {
+        InMemoryDatabase repository = spy(new InMemoryDatabase());
+        TransactionService failing = new TransactionService(repository);
+        RecurringTransactionService service = new RecurringTransactionService(failing, repository);
+        service.addTemplate(1L, 1.0, "Bus", "", EXPENSE,
+                RecurringTransaction.Frequency.DAILY, 0, LocalDate.of(2025, 1, 1));
+
+        doThrow(new IllegalStateException("disk full")).when(repository).saveOccurrences(anyList(), anyList());
+        assertThatThrownBy(() -> service.runDue(LocalDate.of(2025, 1, 3)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(repository.findAllRecurring()).extracting(RecurringTransaction::getOccurrences).containsExactly(0L);
+
+        doCallRealMethod().when(repository).saveOccurrences(anyList(), anyList());
+        assertThat(service.runDue(LocalDate.of(2025, 1, 3))).isEqualTo(3);
+        assertThat(repository.findAllRecurring()).extracting(RecurringTransaction::getOccurrences).containsExactly(3L);
+    }
+
+    @Test
+    void restart_ContinuesScheduleFromLog(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("db.wal");
+        long salaryId;
+        long cancelledId;
+        try (WriteAheadLog log = new WriteAheadLog(file, WriteAheadLog.SyncMode.OS, 0)) {
+            InMemoryDatabase before = new InMemoryDatabase();
+            before.attachLog(log);
+            RecurringTransactionService service = new RecurringTransactionService(new TransactionService(before),
+                    before);
+            salaryId = service.addTemplate(1L, 1000.0, "Salary", "", INCOME,
+                    RecurringTransaction.Frequency.MONTHLY, 0, LocalDate.of(2025, 1, 31)).getId();
+            service.addTemplate(1L, 5.0, "Coffee", "", EXPENSE,
+                    RecurringTransaction.Frequency.WEEKLY, 0, LocalDate.of(2025, 3, 1));
+            cancelledId = service.addTemplate(1L, 1.0, "Bus", "", EXPENSE,
+                    RecurringTransaction.Frequency.DAILY, 0, LocalDate.of(2025, 1, 1)).getId();
+            service.cancelTemplate(1L, cancelledId);
+            assertThat(service.runDue(LocalDate.of(2025, 2, 28))).isEqualTo(2);
+        }
+
+        InMemoryDatabase after = new InMemoryDatabase();
+        try (WriteAheadLog log = new WriteAheadLog(file, WriteAheadLog.SyncMode.OS, 0)) {
+            log.replay(after);
+            after.attachLog(log);
+            TransactionService transactions = new TransactionService(after);
+            RecurringTransactionService service = new RecurringTransactionService(transactions, after);
+
+            assertThat(service.getUserTemplates(1L)).extracting(RecurringTransaction::getId)
+                    .doesNotContain(cancelledId)
+                    .contains(salaryId);
+            assertThat(service.getUserTemplates(1L)).filteredOn(t -> t.getId() == salaryId)
+                    .extracting(RecurringTransaction::getNextDate)
+                    .containsExactly(LocalDate.of(2025, 3, 31));
+
+            // Часы ушли вперёд, пока процесс не работал: создаются только пропущенные повторения
+            assertThat(service.runDue(LocalDate.of(2025, 3, 31))).isEqualTo(1 + 5);
+            assertThat(transactions.getUserTransactions(1L, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 3, 31)))
+                    .filteredOn(t -> t.getCategory().equals("Salary"))
+                    .extracting(Transaction::getDate)
+                    .containsExactly(LocalDate.of(2025, 1, 31), LocalDate.of(2025, 2, 28), LocalDate.of(2025, 3, 31));
+            assertThat(after.findTransactionsByUser(1L)).noneMatch(t -> t.getCategory().equals("Bus"));
+        }
+    }
+
+    @Test
+    void manyTemplates_OnlyDueOnesAreTouched() {
+        for (int i = 0; i < 10_000; i++) {
+            recurringService.addTemplate(i % 100, 1.0, "Sub", "", EXPENSE,
+                    RecurringTransaction.Frequency.MONTHLY, 0, LocalDate.of(2025, 1, 1).plusDays(i % 28));
+        }
+        assertThat(recurringService.runDue(LocalDate.of(2025, 1, 1))).isEqualTo(358);
+        List<RecurringTransaction> templates = recurringService.getUserTemplates(0L);
+        assertThat(templates).hasSize(100);
+        assertThat(templates.get(0).getNextDate()).isEqualTo(LocalDate.of(2025, 2, 1));
+    }
+}
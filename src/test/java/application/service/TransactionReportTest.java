@@ -0,0 +1,128 @@
+package application.service;
+
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.domain.User;
+import com.yourorganization.out.InMemoryDatabase;
+import com.yourorganization.service.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class TransactionReportTest {
+
+    private static final Transaction.TransactionType EXPENSE = Transaction.TransactionType.EXPENSE;
+    private static final Transaction.TransactionType INCOME = Transaction.TransactionType.INCOME;
+
+    private InMemoryDatabase db;
+    private TransactionService transactionService;
+
+    @BeforeEach
+    void setUp() {
+        db = new InMemoryDatabase();
+        // Транзакции создаются только для существующих пользователей
+        db.saveUser(new User(1L, "u1@mail.com", "p", "U1", User.Role.USER));
+        db.saveUser(new User(2L, "u2@mail.com", "p", "U2", User.Role.USER));
+        transactionService = new TransactionService(db);
+    }
+
+    @Test
+    void categoryTotals_FollowCreateUpdateDelete() {
+        Transaction lunch = transactionService.createTransaction(1L, 100.0, "Food",
+                LocalDate.of(2025, 3, 10), "Lunch", EXPENSE);
+        transactionService.createTransaction(1L, 40.0, "Food",
+                LocalDate.of(2025, 3, 12), "Coffee", EXPENSE);
+        Transaction taxi = transactionService.createTransaction(1L, 70.0, "Taxi",
+                LocalDate.of(2025, 3, 15), "Ride", EXPENSE);
+        transactionService.createTransaction(1L, 1000.0, "Salary",
+                LocalDate.of(2025, 3, 1), "March", INCOME);
+        transactionService.createTransaction(2L, 500.0, "Food",
+                LocalDate.of(2025, 3, 10), "Other user", EXPENSE);
+
+        YearMonth march = YearMonth.of(2025, 3);
+        assertThat(transactionService.getCategoryTotals(1L, march, EXPENSE))
+                .containsExactly(entry("Food", 140.0), entry("Taxi", 70.0));
+        assertThat(transactionService.getCategoryTotals(1L, march, INCOME))
+                .containsExactly(entry("Salary", 1000.0));
+
+        // Смена категории переносит сумму между ячейками
+        transactionService.updateTransaction(lunch.getId(), 120.0, "Cafe", "Lunch");
+        assertThat(transactionService.getCategoryTotals(1L, march, EXPENSE))
+                .containsExactly(entry("Cafe", 120.0), entry("Food", 40.0), entry("Taxi", 70.0));
+
+        // Пустая ячейка исчезает из отчёта
+        transactionService.deleteTransaction(taxi.getId());
+        assertThat(transactionService.getCategoryTotals(1L, march, EXPENSE))
+                .containsOnlyKeys("Cafe", "Food");
+    }
+
+    @Test
+    void monthlyCategoryTotals_BuiltFromExistingTransactions() {
+        db.saveTransaction(new Transaction(1L, 10.0, "Food",
+                LocalDate.of(2025, 1, 5), "Jan", EXPENSE));
+        db.saveTransaction(new Transaction(1L, 20.0, "Food",
+                LocalDate.of(2025, 3, 5), "Mar", EXPENSE));
+        db.saveTransaction(new Transaction(1L, 30.0, "Food",
+                LocalDate.of(2025, 5, 5), "May", EXPENSE));
+
+        // Итоги строятся по транзакциям, которые уже были в хранилище
+        TransactionService service = new TransactionService(db);
+
+        assertThat(service.getMonthlyCategoryTotals(1L, YearMonth.of(2025, 1), YearMonth.of(2025, 3), EXPENSE))
+                .containsOnlyKeys(YearMonth.of(2025, 1), YearMonth.of(2025, 3));
+        assertThatThrownBy(() -> service.getMonthlyCategoryTotals(1L,
+                YearMonth.of(2025, 4), YearMonth.of(2025, 3), EXPENSE))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void bulkCreateAndDelete_KeepTotalsInSync() {
+        List<Transaction> batch = List.of(
+                new Transaction(1L, 10.0, "Food", LocalDate.of(2025, 3, 1), "", EXPENSE),
+                new Transaction(1L, 20.0, "Food", LocalDate.of(2025, 3, 2), "", EXPENSE),
+                new Transaction(1L, 30.0, "Taxi", LocalDate.of(2025, 3, 3), "", EXPENSE));
+        transactionService.createTransactions(batch);
+
+        YearMonth march = YearMonth.of(2025, 3);
+        assertThat(transactionService.getCategoryTotals(1L, march, EXPENSE))
+                .containsExactly(entry("Food", 30.0), entry("Taxi", 30.0));
+
+        // Пачка с несуществующим id не удаляет ничего
+        assertThatThrownBy(() -> transactionService.deleteTransactions(
+                new long[]{batch.get(0).getId(), Long.MAX_VALUE}))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(transactionService.getUserTransactions(1L)).hasSize(3);
+
+        transactionService.deleteTransactions(new long[]{batch.get(0).getId(), batch.get(2).getId()});
+        assertThat(transactionService.getCategoryTotals(1L, march, EXPENSE))
+                .containsExactly(entry("Food", 20.0));
+    }
+
+    @Test
+    void streamAndPages_GoNewestFirstWithoutGaps() {
+        List<Transaction> batch = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            batch.add(new Transaction(1L, i, "Food", LocalDate.of(2025, 3, 1), "", EXPENSE));
+        }
+        transactionService.createTransactions(batch);
+
+        // Поток читает хранилище несколькими страницами
+        assertThat(transactionService.streamUserTransactions(1L).map(Transaction::getId))
+                .containsExactlyElementsOf(batch.stream().map(Transaction::getId)
+                        .sorted(Comparator.reverseOrder()).collect(Collectors.toList()));
+        assertThat(transactionService.streamUserTransactions(1L).limit(3).count()).isEqualTo(3);
+        assertThat(transactionService.streamUserTransactions(2L)).isEmpty();
+
+        List<Transaction> page = transactionService.getUserTransactionsPage(1L, TransactionService.FIRST_PAGE, 5);
+        assertThat(page.get(0).getId()).isEqualTo(batch.get(599).getId());
+        assertThatThrownBy(() -> transactionService.getUserTransactionsPage(1L, TransactionService.FIRST_PAGE, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
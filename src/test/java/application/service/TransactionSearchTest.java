@@ -0,0 +1,152 @@
+package application.service;
+
+import com.yourorganization.domain.Transaction;
+import com.yourorganization.domain.User;
+import com.yourorganization.out.InMemoryDatabase;
+import com.yourorganization.service.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class TransactionSearchTest {
+
+    private static final Transaction.TransactionType EXPENSE = Transaction.TransactionType.EXPENSE;
+    private static final Transaction.TransactionType INCOME = Transaction.TransactionType.INCOME;
+
+    private InMemoryDatabase db;
+    private TransactionService transactionService;
+
+    @BeforeEach
+    void setUp() {
+        db = new InMemoryDatabase();
+        // Транзакции создаются только для существующих пользователей
+        db.saveUser(new User(1L, "u1@mail.com", "p", "U1", User.Role.USER));
+        db.saveUser(new User(2L, "u2@mail.com", "p", "U2", User.Role.USER));
+        transactionService = new TransactionService(db);
+    }
+
+    private List<Transaction> search(String query) {
+        return transactionService.searchTransactions(1L, query, null, null, null, 100);
+    }
+
+    @Test
+    void search_SupportsAndOrAndPrefix() {
+        Transaction airport = transactionService.createTransaction(1L, 30.0, "Такси",
+                LocalDate.of(2025, 3, 5), "Поездка в аэропорт", EXPENSE);
+        Transaction uber = transactionService.createTransaction(1L, 12.0, "Transport",
+                LocalDate.of(2025, 3, 6), "Uber to office", EXPENSE);
+        Transaction lunch = transactionService.createTransaction(1L, 8.0, "Food",
+                LocalDate.of(2025, 3, 6), "Lunch near office", EXPENSE);
+        transactionService.createTransaction(2L, 30.0, "Такси", LocalDate.of(2025, 3, 5), "Чужая поездка", EXPENSE);
+
+        assertThat(search("такси")).containsExactly(airport);
+        assertThat(search("office")).containsExactly(lunch, uber);
+        assertThat(search("OFFICE lunch")).containsExactly(lunch);
+        assertThat(search("uber OR аэропорт")).containsExactly(uber, airport);
+        assertThat(search("аэро*")).containsExactly(airport);
+        assertThat(search("off* OR такс*")).containsExactly(lunch, uber, airport);
+        assertThat(search("office dinner")).isEmpty();
+        assertThatThrownBy(() -> search(" - "))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void search_FollowsUpdateAndDelete() {
+        Transaction taxi = transactionService.createTransaction(1L, 30.0, "Taxi",
+                LocalDate.of(2025, 3, 5), "Ride home", EXPENSE);
+        Transaction other = transactionService.createTransaction(1L, 5.0, "Taxi",
+                LocalDate.of(2025, 3, 5), "Ride to work", EXPENSE);
+
+        // Более старая транзакция попадает в середину списка терма "work"
+        transactionService.updateTransaction(taxi.getId(), 30.0, "Taxi", "Night ride to work");
+        assertThat(search("home")).isEmpty();
+        assertThat(search("night ride")).containsExactly(taxi);
+        assertThat(search("work")).containsExactly(other, taxi);
+        assertThat(search("ride")).containsExactly(other, taxi);
+
+        transactionService.deleteTransaction(other.getId());
+        assertThat(search("ride")).containsExactly(taxi);
+        transactionService.deleteTransactions(new long[]{taxi.getId()});
+        assertThat(search("taxi")).isEmpty();
+    }
+
+    @Test
+    void search_LongListSurvivesMiddleInsertsAndDeletes() {
+        List<Transaction> batch = new ArrayList<>();
+        for (int i = 0; i < 900; i++) {
+            batch.add(new Transaction(1L, 1.0, "Food", LocalDate.of(2025, 3, 1 + i % 28), "Coffee", EXPENSE));
+        }
+        // Пачка в обратном порядке id: каждая строка вставляется в начало списка терма
+        Collections.reverse(batch);
+        transactionService.createTransactions(batch);
+        TreeSet<Long> expected = new TreeSet<>();
+        batch.forEach(t -> expected.add(t.getId()));
+        assertCoffeeIds(expected);
+
+        // Изменения старых транзакций удаляют id из середины списка терма и вставляют обратно
+        Random random = new Random(42);
+        for (int i = 0; i < 2_000; i++) {
+            Transaction transaction = batch.get(random.nextInt(batch.size()));
+            if (expected.contains(transaction.getId())) {
+                transactionService.updateTransaction(transaction.getId(), 1.0, "Food", "Tea");
+                expected.remove(transaction.getId());
+            } else {
+                transactionService.updateTransaction(transaction.getId(), 1.0, "Food", "Coffee");
+                expected.add(transaction.getId());
+            }
+        }
+        assertCoffeeIds(expected);
+
+        // Почти опустевшие блоки сливаются с соседями
+        for (Transaction transaction : batch) {
+            if (transaction.getId() % 8 != 0 && expected.remove(transaction.getId())) {
+                transactionService.updateTransaction(transaction.getId(), 1.0, "Food", "Tea");
+            }
+        }
+        assertCoffeeIds(expected);
+    }
+
+    private void assertCoffeeIds(TreeSet<Long> expected) {
+        assertThat(transactionService.searchTransactions(1L, "coffee", null, null, null, 1_000))
+                .extracting(Transaction::getId)
+                .containsExactlyElementsOf(expected.descendingSet());
+    }
+
+    @Test
+    void search_AppliesPeriodTypeAndLimit() {
+        List<Transaction> batch = new ArrayList<>();
+        for (int day = 1; day <= 28; day++) {
+            batch.add(new Transaction(1L, day, "Food", LocalDate.of(2025, 2, day), "Coffee", EXPENSE));
+            batch.add(new Transaction(1L, day, "Refund", LocalDate.of(2025, 3, day), "Coffee refund", INCOME));
+        }
+        transactionService.createTransactions(batch);
+
+        assertThat(transactionService.searchTransactions(1L, "coffee",
+                LocalDate.of(2025, 2, 10), LocalDate.of(2025, 2, 12), null, 100))
+                .extracting(Transaction::getDate)
+                .containsExactly(LocalDate.of(2025, 2, 12), LocalDate.of(2025, 2, 11), LocalDate.of(2025, 2, 10));
+        assertThat(transactionService.searchTransactions(1L, "coffee", null, null, INCOME, 100)).hasSize(28);
+        assertThat(transactionService.searchTransactions(1L, "coffee", null, null, null, 5))
+                .hasSize(5)
+                .isSortedAccordingTo((a, b) -> Long.compare(b.getId(), a.getId()));
+        assertThatThrownBy(() -> transactionService.searchTransactions(1L, "coffee", null, null, null, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void index_IsBuiltFromExistingTransactions() {
+        Transaction saved = db.saveTransaction(new Transaction(1L, 10.0, "Gifts",
+                LocalDate.of(2025, 1, 1), "Birthday present", EXPENSE));
+
+        TransactionService restarted = new TransactionService(db);
+        assertThat(restarted.searchTransactions(1L, "birth*", null, null, null, 10)).containsExactly(saved);
+    }
+}
@@ -11,7 +11,7 @@ import org.mockito.MockitoAnnotations;
 import java.time.LocalDate;
 
 import static org.assertj.core.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 public class TransactionServiceTest {
@@ -30,9 +30,9 @@ public class TransactionServiceTest {
     @Test
     void createTransaction_Success() {
         // Допустим, сохраним транзакцию
-        when(mockDatabase.saveTransaction(any(Transaction.class)))
+        when(mockDatabase.saveOwnedTransaction(any(Transaction.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
-        // тогда saveTransaction вернёт тот же объект, что был передан
+        // тогда saveOwnedTransaction вернёт тот же объект, что был передан
 
         Transaction tx = transactionService.createTransaction(
                 1L,
@@ -51,8 +51,8 @@ public class TransactionServiceTest {
         assertThat(tx.getDescription()).isEqualTo("Lunch");
         assertThat(tx.getType()).isEqualTo(Transaction.TransactionType.EXPENSE);
 
-        // Проверяем, что saveTransaction вызывался 1 раз
-        verify(mockDatabase, times(1)).saveTransaction(any(Transaction.class));
+        // Проверяем, что saveOwnedTransaction вызывался 1 раз
+        verify(mockDatabase, times(1)).saveOwnedTransaction(any(Transaction.class));
     }
 
     @Test
@@ -65,4 +65,35 @@ public class TransactionServiceTest {
         // Проверяем, что вызвался именно deleteTransaction(123L)
         verify(mockDatabase, times(1)).deleteTransaction(123L);
     }
+
+    @Test
+    void updateTransaction_NotFound_ThrowsException() {
+        when(mockDatabase.updateTransaction(eq(5L), anyDouble(), any(), any(), any()))
+                .thenReturn(null);
+
+        assertThatThrownBy(() -> transactionService.updateTransaction(5L, 10.0, "Food", "Dinner",
+                Transaction.TransactionType.EXPENSE))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("не найдена");
+    }
+
+    @Test
+    void calculateBalance_UsesStoredTotals() {
+        when(mockDatabase.findBalance(1L)).thenReturn(250.0);
+
+        assertThat(transactionService.calculateBalance(1L)).isEqualTo(250.0);
+
+        // Полный обход транзакций пользователя больше не нужен
+        verify(mockDatabase, never()).findTransactionsByUser(anyLong());
+    }
+
+    @Test
+    void getUserTransactionsForPeriod_InvalidPeriod_ThrowsException() {
+        assertThatThrownBy(() -> transactionService.getUserTransactions(1L,
+                LocalDate.of(2025, 4, 1), LocalDate.of(2025, 3, 1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("период");
+
+        verify(mockDatabase, never()).findTransactionsByUser(anyLong(), any(), any());
+    }
 }
@@ -92,4 +92,21 @@ public class UserServiceTest {
         }).isInstanceOf(IllegalArgumentException.class)
                 .hasMessageContaining("Неверный email или пароль");
     }
+
+    @Test
+    void updateUser_EmailTaken_ThrowsException() {
+        User user = new User("user@domain.com", "secret", "Alice", User.Role.USER);
+        when(mockDatabase.findUserById(user.getId())).thenReturn(user);
+        // База сообщает, что email уже принадлежит другому пользователю
+        when(mockDatabase.updateUser(user.getId(), "busy@domain.com", "NewName", "newpass")).thenReturn(false);
+
+        assertThatThrownBy(() -> {
+            userService.updateUser(user.getId(), "busy@domain.com", "newpass", "NewName");
+        }).isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("уже занят");
+
+        // Остальные поля не должны измениться
+        assertThat(user.getPassword()).isEqualTo("secret");
+        assertThat(user.getName()).isEqualTo("Alice");
+    }
 }